@@ -0,0 +1,216 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.sourceforge.net).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.sourceforge.schemaspy.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.sourceforge.schemaspy.Config;
+import net.sourceforge.schemaspy.DbAnalyzer;
+import net.sourceforge.schemaspy.TableOrderer;
+import net.sourceforge.schemaspy.model.Database;
+import net.sourceforge.schemaspy.model.ForeignKeyConstraint;
+import net.sourceforge.schemaspy.model.ImpliedForeignKeyConstraint;
+import net.sourceforge.schemaspy.model.ModelGenerator;
+import net.sourceforge.schemaspy.model.Table;
+import net.sourceforge.schemaspy.util.LineWriter;
+import net.sourceforge.schemaspy.view.DotFormatter;
+import net.sourceforge.schemaspy.view.HtmlTablePage;
+import net.sourceforge.schemaspy.view.RenderContext;
+import net.sourceforge.schemaspy.view.TableNeighborhoods;
+import net.sourceforge.schemaspy.view.WriteStats;
+import net.sourceforge.schemaspy.view.XmlTableFormatter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the analysis and rendering hot paths against synthetic models
+ * built by {@link ModelGenerator}.
+ * <p>
+ * Output is written to a stream that throws it away so the numbers reflect
+ * the formatters rather than the disk, except for the table pages which
+ * also write their .dot files to a temporary directory.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnalysisBenchmark {
+    @Param({"100", "1000"})
+    public int tables;
+
+    @Param("10")
+    public int columns;
+
+    @Param("1.0")
+    public double fkDensity;
+
+    @Param("0.05")
+    public double cycleDensity;
+
+    /**
+     * Any other {@link SyntheticSchema#getGenerator(List) generator options},
+     * e.g. <code>-p shape="-widetables 10 -views 50"</code>
+     */
+    @Param("")
+    public String shape;
+
+    private ModelGenerator generator;
+    private Config config;
+    private Database db;
+    private TableNeighborhoods neighborhoods;
+    private File outputDir;
+
+    /**
+     * A model that's regenerated before every invocation for the benchmarks
+     * that have side-effects on the model
+     */
+    @State(Scope.Thread)
+    public static class FreshModel {
+        Database db;
+
+        @Setup(Level.Invocation)
+        public void generate(AnalysisBenchmark benchmark) {
+            db = benchmark.generator.generate(benchmark.config);
+        }
+    }
+
+    /**
+     * A render context that's created before every invocation, like each run
+     * creates one, so the node labels that it caches are built by the
+     * benchmark rather than looked up from a previous invocation
+     */
+    @State(Scope.Thread)
+    public static class FreshContext {
+        RenderContext context;
+
+        @Setup(Level.Invocation)
+        public void create(AnalysisBenchmark benchmark) {
+            context = new RenderContext(benchmark.config, benchmark.db);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        List<String> options = new ArrayList<String>();
+        if (shape.trim().length() > 0)
+            options.addAll(Arrays.asList(shape.trim().split("\\s+")));
+        generator = SyntheticSchema.getGenerator(options);
+        if (!options.isEmpty())
+            throw new IllegalArgumentException("Unrecognized generator options: " + options);
+        generator.setNumTables(tables);
+        generator.setNumColumns(columns);
+        generator.setForeignKeyDensity(fkDensity);
+        generator.setCycleDensity(cycleDensity);
+
+        config = new Config();
+        Config.setInstance(config);
+        db = generator.generate(config);
+        neighborhoods = new TableNeighborhoods(db.getRelationships(), config.getMaxRenderThreads());
+
+        outputDir = Files.createTempDirectory("schemaSpyBenchmark").toFile();
+        new File(outputDir, "diagrams").mkdirs();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        delete(outputDir);
+    }
+
+    @Benchmark
+    public List<ImpliedForeignKeyConstraint> impliedConstraints(FreshModel model) {
+        return DbAnalyzer.getImpliedConstraints(model.db.getTables());
+    }
+
+    @Benchmark
+    public List<Table> tablesOrderedByRI(FreshModel model) {
+        return new TableOrderer().getTablesOrderedByRI(model.db.getTables(), new ArrayList<ForeignKeyConstraint>());
+    }
+
+    @Benchmark
+    public WriteStats writeRelationships(FreshContext fresh) throws IOException {
+        Collection<Table> all = db.getTables();
+        WriteStats stats = new WriteStats(all);
+        LineWriter out = new LineWriter(new NullOutputStream(), Config.DOT_CHARSET);
+        DotFormatter.getInstance().writeRealRelationships(fresh.context, all, false, true, stats, out);
+        out.close();
+        return stats;
+    }
+
+    @Benchmark
+    public WriteStats writeTablePages(FreshContext fresh) throws IOException {
+        Collection<Table> all = db.getTables();
+        WriteStats stats = new WriteStats(all);
+        HtmlTablePage formatter = HtmlTablePage.getInstance();
+        for (Table table : all) {
+            LineWriter out = new LineWriter(new NullOutputStream(), config.getCharset());
+            formatter.write(fresh.context, table, neighborhoods, outputDir, stats, out);
+            out.close();
+        }
+        return stats;
+    }
+
+    @Benchmark
+    public void writeXml() throws IOException {
+        LineWriter out = new LineWriter(new NullOutputStream(), Config.DOT_CHARSET);
+        XmlTableFormatter.getInstance().write(db.getName(), db.getSchema(), db.getDatabaseProduct(), db.getTables(), out);
+        out.close();
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children)
+                delete(child);
+        }
+        file.delete();
+    }
+
+    /**
+     * Discards everything that's written to it
+     */
+    private static class NullOutputStream extends OutputStream {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.sourceforge.net).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.sourceforge.schemaspy.benchmark;
+
+import java.io.IOException;
+import java.sql.DatabaseMetaData;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import net.sourceforge.schemaspy.model.ForeignKeyConstraint;
+import net.sourceforge.schemaspy.model.Table;
+import net.sourceforge.schemaspy.model.TableColumn;
+import net.sourceforge.schemaspy.model.TableIndex;
+import net.sourceforge.schemaspy.util.LineWriter;
+
+/**
+ * Formats the DDL that would (re)create a set of tables.
+ * <p>
+ * Intended for recreating synthetic models (see
+ * {@link net.sourceforge.schemaspy.model.ModelGenerator}) in a real database,
+ * so only the portable subset of SQL is generated: all of the tables are
+ * created before any of the foreign keys are added (so cycles work),
+ * then the rest of the indexes are created and finally the views.
+ * Remote tables, comments and check constraints are skipped.
+ * </p>
+ */
+public class DdlFormatter {
+    private static DdlFormatter instance = new DdlFormatter();
+
+    /**
+     * Singleton - prevent creation
+     */
+    private DdlFormatter() {
+    }
+
+    public static DdlFormatter getInstance() {
+        return instance;
+    }
+
+    /**
+     * Returns the individual statements (without terminators) that create
+     * the specified tables, suitable for passing to
+     * {@link java.sql.Statement#execute(String)}.
+     *
+     * @param tables
+     * @return
+     */
+    public List<String> getStatements(Collection<Table> tables) {
+        List<String> statements = new ArrayList<String>();
+        List<Table> locals = new ArrayList<Table>();
+        List<Table> views = new ArrayList<Table>();
+
+        for (Table table : tables) {
+            if (table.isView())
+                views.add(table);
+            else if (!table.isRemote())
+                locals.add(table);
+        }
+
+        for (Table table : locals)
+            statements.add(getCreateTable(table));
+
+        for (Table table : locals) {
+            for (ForeignKeyConstraint foreignKey : table.getForeignKeys()) {
+                if (foreignKey.isReal() && !foreignKey.getParentTable().isRemote())
+                    statements.add(getAddForeignKey(foreignKey));
+            }
+        }
+
+        for (Table table : locals) {
+            List<TableIndex> indexes = new ArrayList<TableIndex>(table.getIndexes());
+            Collections.sort(indexes);
+            for (TableIndex index : indexes) {
+                if (!index.isPrimaryKey() && !index.getColumns().isEmpty())
+                    statements.add(getCreateIndex(table, index));
+            }
+        }
+
+        for (Table view : views) {
+            if (view.getViewSql() != null)
+                statements.add("create view " + view.getName() + " as " + view.getViewSql());
+        }
+
+        return statements;
+    }
+
+    /**
+     * Write the DDL as a script with each statement terminated by a semicolon.
+     *
+     * @param tables
+     * @param out
+     * @throws IOException
+     */
+    public void write(Collection<Table> tables, LineWriter out) throws IOException {
+        for (String statement : getStatements(tables)) {
+            out.write(statement);
+            out.writeln(";");
+        }
+    }
+
+    private String getCreateTable(Table table) {
+        StringBuilder ddl = new StringBuilder("create table ");
+        ddl.append(table.getName());
+        ddl.append(" (");
+
+        for (Iterator<TableColumn> iter = table.getColumns().iterator(); iter.hasNext(); ) {
+            TableColumn column = iter.next();
+            ddl.append(column.getName());
+            ddl.append(' ');
+            ddl.append(getType(column));
+            if (column.isAutoUpdated())
+                ddl.append(" generated by default as identity");
+            else if (column.getDefaultValue() != null)
+                ddl.append(" default ").append(column.getDefaultValue());
+            if (!column.isNullable())
+                ddl.append(" not null");
+            if (iter.hasNext())
+                ddl.append(", ");
+        }
+
+        List<TableColumn> primaries = table.getPrimaryColumns();
+        if (!primaries.isEmpty()) {
+            ddl.append(", primary key (");
+            ddl.append(getNames(primaries));
+            ddl.append(')');
+        }
+
+        ddl.append(')');
+        return ddl.toString();
+    }
+
+    private String getAddForeignKey(ForeignKeyConstraint foreignKey) {
+        StringBuilder ddl = new StringBuilder("alter table ");
+        ddl.append(foreignKey.getChildTable().getName());
+        ddl.append(" add constraint ");
+        ddl.append(foreignKey.getName());
+        ddl.append(" foreign key (");
+        ddl.append(getNames(foreignKey.getChildColumns()));
+        ddl.append(") references ");
+        ddl.append(foreignKey.getParentTable().getName());
+        ddl.append(" (");
+        ddl.append(getNames(foreignKey.getParentColumns()));
+        ddl.append(')');
+        if (foreignKey.getDeleteRule() == DatabaseMetaData.importedKeyCascade)
+            ddl.append(" on delete cascade");
+        return ddl.toString();
+    }
+
+    private String getCreateIndex(Table table, TableIndex index) {
+        StringBuilder ddl = new StringBuilder("create ");
+        if (index.isUnique())
+            ddl.append("unique ");
+        ddl.append("index ");
+        ddl.append(index.getName());
+        ddl.append(" on ");
+        ddl.append(table.getName());
+        ddl.append(" (");
+        for (Iterator<TableColumn> iter = index.getColumns().iterator(); iter.hasNext(); ) {
+            TableColumn column = iter.next();
+            ddl.append(column.getName());
+            if (!index.isAscending(column))
+                ddl.append(" desc");
+            if (iter.hasNext())
+                ddl.append(", ");
+        }
+        ddl.append(')');
+        return ddl.toString();
+    }
+
+    private String getType(TableColumn column) {
+        Integer type = column.getType();
+        if (type != null) {
+            switch (type.intValue()) {
+                case Types.CHAR:
+                case Types.VARCHAR:
+                    return column.getTypeName() + '(' + column.getLength() + ')';
+                case Types.DECIMAL:
+                case Types.NUMERIC:
+                    return column.getTypeName() + '(' + column.getDetailedSize() + ')';
+            }
+        }
+
+        return column.getTypeName();
+    }
+
+    private String getNames(List<TableColumn> columns) {
+        StringBuilder names = new StringBuilder();
+        for (TableColumn column : columns) {
+            if (names.length() > 0)
+                names.append(", ");
+            names.append(column.getName());
+        }
+        return names.toString();
+    }
+}
@@ -0,0 +1,357 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.sourceforge.net).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.sourceforge.schemaspy.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import net.sourceforge.schemaspy.Config;
+import net.sourceforge.schemaspy.model.Database;
+import net.sourceforge.schemaspy.model.ModelGenerator;
+import net.sourceforge.schemaspy.model.ProgressListener;
+import net.sourceforge.schemaspy.model.Table;
+import net.sourceforge.schemaspy.util.JdbcMetrics;
+import net.sourceforge.schemaspy.util.JsonWriter;
+import net.sourceforge.schemaspy.util.LineWriter;
+
+/**
+ * Measures how long it takes to gather the metadata of a synthetic schema
+ * from embedded H2, HSQLDB and Derby databases.
+ * <p>
+ * The schema is built by {@link ModelGenerator} and created with
+ * {@link SyntheticSchema#create(Connection, Collection)}, so it's described
+ * by the same options as {@link SyntheticSchema#getGenerator(List)}.
+ * The {@link Database} constructor is then run against it with each of the
+ * requested <code>dbThreads</code> settings, recording how long each phase
+ * took and the {@link JdbcMetrics JDBC calls} that were made.
+ * The results are written as json.
+ * </p>
+ * <pre>
+ *   mvn -Pbenchmark test-compile exec:exec@gathering -Dgathering.args="-tables 2000 -views 200 -dbthreads 1,4"
+ * </pre>
+ */
+public class GatheringBenchmark {
+    private ModelGenerator generator;
+    private List<String> dbTypes = Arrays.asList("h2", "hsqldb", "derby");
+    private List<String> dbThreads = Arrays.asList("1", "4");
+    private int numRuns = 3;
+    private File outputFile = new File("gathering-results.json");
+
+    public static void main(String[] argv) throws Exception {
+        GatheringBenchmark benchmark = new GatheringBenchmark();
+        List<String> args = new ArrayList<String>(Arrays.asList(argv));
+        if (!args.contains("-tables")) {
+            args.add("-tables");
+            args.add("500");
+        }
+        benchmark.generator = SyntheticSchema.getGenerator(args);
+
+        for (int i = 0; i < args.size() - 1; i += 2) {
+            String param = args.get(i);
+            String value = args.get(i + 1);
+
+            if (param.equals("-dbtypes"))
+                benchmark.dbTypes = Arrays.asList(value.split(","));
+            else if (param.equals("-dbthreads"))
+                benchmark.dbThreads = Arrays.asList(value.split(","));
+            else if (param.equals("-runs"))
+                benchmark.numRuns = Integer.parseInt(value);
+            else if (param.equals("-o"))
+                benchmark.outputFile = new File(value);
+            else
+                throw new IllegalArgumentException("Unrecognized parameter: " + param);
+        }
+
+        benchmark.run();
+    }
+
+    private void run() throws IOException, SQLException {
+        Config config = new Config();
+        Config.setInstance(config);
+        Database model = generator.generate(config);
+        List<Table> tables = new ArrayList<Table>(model.getTables());
+        tables.addAll(model.getViews());
+
+        File workDir = Files.createTempDirectory("schemaSpyGathering").toFile();
+        System.setProperty("derby.stream.error.file", new File(workDir, "derby.log").getPath());
+
+        List<Result> results = new ArrayList<Result>();
+        try {
+            for (String dbType : dbTypes) {
+                EmbeddedDb db = new EmbeddedDb(dbType, workDir);
+                Connection keeper = db.connect(); // keeps the database open between runs
+                try {
+                    System.out.println("Creating " + tables.size() + " tables and views in " + dbType);
+                    SyntheticSchema.create(keeper, tables);
+
+                    gather(db, 1);  // warm up
+                    for (String threads : dbThreads) {
+                        for (int run = 1; run <= numRuns; ++run) {
+                            Result result = gather(db, Integer.parseInt(threads));
+                            result.run = run;
+                            results.add(result);
+                            System.out.println(result);
+                        }
+                    }
+                } finally {
+                    keeper.close();
+                    db.shutdown();
+                }
+            }
+        } finally {
+            delete(workDir);
+        }
+
+        write(results);
+        System.out.println("Wrote " + outputFile);
+    }
+
+    private Result gather(EmbeddedDb db, int threads) throws SQLException {
+        Config config = new Config();
+        Config.setInstance(config);
+        config.setDbType(db.type);
+        config.setSchema(db.schema);
+        config.setMaxDbThreads(threads);
+
+        JdbcMetrics metrics = new JdbcMetrics();
+        PhaseTimer timer = new PhaseTimer();
+        Connection connection = metrics.wrap(db.connect());
+        try {
+            Database database = new Database(config, connection, connection.getMetaData(), db.type,
+                                                null, db.schema, null, timer);
+            timer.finished();
+
+            Result result = new Result();
+            result.dbType = db.type;
+            result.dbThreads = threads;
+            result.numTables = database.getTables().size() + database.getViews().size();
+            result.timer = timer;
+            result.metrics = metrics;
+            return result;
+        } finally {
+            connection.close();
+        }
+    }
+
+    private void write(List<Result> results) throws IOException {
+        LineWriter out = new LineWriter(outputFile, Config.DOT_CHARSET);
+        JsonWriter json = new JsonWriter(out);
+        json.beginObject();
+        json.property("tables", generator.getNumTables());
+        json.property("columns", generator.getNumColumns());
+        json.property("fkDensity", String.valueOf(generator.getForeignKeyDensity()));
+        json.property("cycleDensity", String.valueOf(generator.getCycleDensity()));
+        json.property("views", generator.getNumViews());
+        json.name("runs").beginArray();
+        for (Result result : results) {
+            json.beginObject();
+            json.property("dbType", result.dbType);
+            json.property("dbThreads", result.dbThreads);
+            json.property("run", result.run);
+            json.property("tablesGathered", result.numTables);
+            json.property("totalMs", result.timer.getTotal());
+            json.name("phasesMs").beginObject();
+            json.property("tables", result.timer.getTables());
+            json.property("views", result.timer.getViews());
+            json.property("details", result.timer.getDetails());
+            json.property("connecting", result.timer.getConnecting());
+            json.endObject();
+            json.name("jdbc").beginObject();
+            result.metrics.write(json);
+            json.endObject();
+            json.endObject();
+        }
+        json.endArray();
+        json.endObject();
+        json.flush();
+        out.newLine();
+        out.close();
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children)
+                delete(child);
+        }
+        file.delete();
+    }
+
+    /**
+     * An embedded database of a specific type that lives in a work directory
+     */
+    private static class EmbeddedDb {
+        final String type;
+        final String schema;
+        private final String url;
+        private final String user;
+
+        EmbeddedDb(String type, File workDir) {
+            this.type = type;
+            String path = new File(workDir, type + "/bench").getAbsolutePath();
+
+            if (type.equals("h2")) {
+                url = "jdbc:h2:" + path;
+                user = "sa";
+                schema = "PUBLIC";
+            } else if (type.equals("hsqldb")) {
+                url = "jdbc:hsqldb:file:" + path;
+                user = "SA";
+                schema = "PUBLIC";
+            } else if (type.equals("derby")) {
+                url = "jdbc:derby:" + path;
+                user = "app";
+                schema = "APP";
+            } else {
+                throw new IllegalArgumentException("Unsupported embedded database type: " + type);
+            }
+        }
+
+        Connection connect() throws SQLException {
+            String spec = url;
+            if (type.equals("derby"))
+                spec += ";create=true";
+            return DriverManager.getConnection(spec, user, "");
+        }
+
+        void shutdown() {
+            try {
+                if (type.equals("hsqldb")) {
+                    Connection connection = connect();
+                    connection.createStatement().execute("shutdown");
+                    connection.close();
+                } else if (type.equals("derby")) {
+                    DriverManager.getConnection(url + ";shutdown=true");
+                }
+            } catch (SQLException expected) {
+                // derby always reports its shutdown as an exception
+            }
+        }
+    }
+
+    /**
+     * Times the phases of gathering from the progress that's reported
+     */
+    private static class PhaseTimer implements ProgressListener {
+        private long started;
+        private long lastTable;
+        private long lastView;
+        private long connecting;
+        private long finished;
+
+        public void recordingJdbcMetrics(JdbcMetrics metrics) {
+        }
+
+        public long startedGatheringDetails() {
+            started = lastTable = lastView = System.currentTimeMillis();
+            return 0;
+        }
+
+        public synchronized void gatheringDetailsProgressed(Table table) {
+            long now = System.currentTimeMillis();
+            if (table.isView())
+                lastView = now;
+            else
+                lastTable = lastView = now;
+        }
+
+        public void expectingTables(int count) {
+        }
+
+        public long startedConnectingTables() {
+            connecting = System.currentTimeMillis();
+            return connecting - started;
+        }
+
+        public void connectingTablesProgressed(Table table) {
+        }
+
+        void finished() {
+            finished = System.currentTimeMillis();
+        }
+
+        long getTables() {
+            return lastTable - started;
+        }
+
+        long getViews() {
+            return lastView - lastTable;
+        }
+
+        long getDetails() {
+            return connecting - lastView;
+        }
+
+        long getConnecting() {
+            return finished - connecting;
+        }
+
+        long getTotal() {
+            return finished - started;
+        }
+
+        public long startedGraphingSummaries() {
+            return 0;
+        }
+
+        public void graphingSummaryProgressed() {
+        }
+
+        public long startedGraphingDetails() {
+            return 0;
+        }
+
+        public void graphingDetailsProgressed(Table table) {
+        }
+
+        public long finishedGatheringDetails() {
+            return 0;
+        }
+
+        public long finished(Collection<Table> tables, Config config) {
+            return 0;
+        }
+
+        public String recoverableExceptionEncountered(String msg, Exception exc, String sql) {
+            return msg + ": " + exc;
+        }
+    }
+
+    private static class Result {
+        String dbType;
+        int dbThreads;
+        int run;
+        int numTables;
+        PhaseTimer timer;
+        JdbcMetrics metrics;
+
+        @Override
+        public String toString() {
+            return dbType + " dbThreads=" + dbThreads + " run " + run + ": " + numTables + " tables and views in " + timer.getTotal() + "ms" +
+                    " (tables " + timer.getTables() + "ms, views " + timer.getViews() + "ms, details " + timer.getDetails() +
+                    "ms, connecting " + timer.getConnecting() + "ms), " + metrics.getNumCalls() + " JDBC calls, " + metrics.getRowsRead() + " rows read";
+        }
+    }
+}
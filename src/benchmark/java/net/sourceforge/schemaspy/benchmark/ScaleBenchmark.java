@@ -0,0 +1,145 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.sourceforge.net).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.sourceforge.schemaspy.benchmark;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import net.sourceforge.schemaspy.Config;
+import net.sourceforge.schemaspy.SchemaAnalyzer;
+import net.sourceforge.schemaspy.model.Database;
+import net.sourceforge.schemaspy.model.ModelGenerator;
+import net.sourceforge.schemaspy.model.ModelWriter;
+import net.sourceforge.schemaspy.util.JsonWriter;
+import net.sourceforge.schemaspy.util.LineWriter;
+import net.sourceforge.schemaspy.util.PeakHeap;
+
+/**
+ * The nightly scale test: documents a large synthetic schema from a saved
+ * model and fails (with a non-zero exit code) if that took longer or used
+ * more heap than it's allowed to.
+ * <p>
+ * The schema is described by the options of
+ * {@link SyntheticSchema#getGenerator(List)} and defaults to 50,000 tables.
+ * The bounds are set with <code>-maxseconds</code> and <code>-maxheapmb</code>.
+ * Peak heap is the {@link PeakHeap} while the schema is being documented.
+ * <code>-lowmem</code> documents it in SchemaSpy's low memory mode.
+ * </p>
+ * <pre>
+ *   mvn -Pbenchmark test-compile exec:exec@scale -Dscale.args="-tables 50000 -views 5000 -maxheapmb 1024"
+ *   mvn -Pbenchmark test-compile exec:exec@scale -Dscale.args="-lowmem -maxheapmb 1024" -Dscale.jvmArgs=-Xmx1g
+ * </pre>
+ */
+public class ScaleBenchmark {
+    public static void main(String[] argv) throws Exception {
+        List<String> args = new ArrayList<String>(Arrays.asList(argv));
+        if (!args.contains("-tables")) {
+            args.add("-tables");
+            args.add("50000");
+        }
+        ModelGenerator generator = SyntheticSchema.getGenerator(args);
+
+        long maxSeconds = 1800;
+        long maxHeapMb = 2048;
+        File outputFile = new File("scale-results.json");
+        boolean lowMemory = args.remove("-lowmem");
+        for (int i = 0; i < args.size() - 1; i += 2) {
+            String param = args.get(i);
+            String value = args.get(i + 1);
+
+            if (param.equals("-maxseconds"))
+                maxSeconds = Long.parseLong(value);
+            else if (param.equals("-maxheapmb"))
+                maxHeapMb = Long.parseLong(value);
+            else if (param.equals("-o"))
+                outputFile = new File(value);
+            else
+                throw new IllegalArgumentException("Unrecognized parameter: " + param);
+        }
+
+        File workDir = Files.createTempDirectory("schemaSpyScale").toFile();
+        File modelFile = new File(workDir, "synthetic.model");
+
+        long start = System.currentTimeMillis();
+        Config.setInstance(new Config());
+        Database db = generator.generate(Config.getInstance());
+        int numTables = db.getTables().size();
+        int numViews = db.getViews().size();
+        new ModelWriter().write(db, modelFile);
+        db = null;
+        long generated = System.currentTimeMillis() - start;
+        System.out.println("Generated " + numTables + " tables and " + numViews + " views in " + generated + "ms");
+
+        System.gc();
+        PeakHeap.reset();
+
+        boolean completed;
+        start = System.currentTimeMillis();
+        try {
+            List<String> schemaSpyArgs = new ArrayList<String>(Arrays.asList("-fromModel", modelFile.getPath(), "-o", new File(workDir, "out").getPath()));
+            if (lowMemory)
+                schemaSpyArgs.add("-lowmem");
+            completed = new SchemaAnalyzer().analyze(new Config(schemaSpyArgs.toArray(new String[0]))) != null;
+        } finally {
+            delete(workDir);
+        }
+        long documented = System.currentTimeMillis() - start;
+
+        long peakHeapMb = PeakHeap.getMegabytes();
+
+        boolean passed = completed && documented <= maxSeconds * 1000 && peakHeapMb <= maxHeapMb;
+
+        LineWriter out = new LineWriter(outputFile, Config.DOT_CHARSET);
+        JsonWriter json = new JsonWriter(out);
+        json.beginObject();
+        json.property("tables", numTables);
+        json.property("views", numViews);
+        json.property("lowMemory", lowMemory);
+        json.property("generateMs", generated);
+        json.property("documentMs", documented);
+        json.property("peakHeapMb", peakHeapMb);
+        json.property("maxSeconds", maxSeconds);
+        json.property("maxHeapMb", maxHeapMb);
+        json.property("completed", completed);
+        json.property("passed", passed);
+        json.endObject();
+        json.flush();
+        out.newLine();
+        out.close();
+
+        System.out.println("Documented " + numTables + " tables and " + numViews + " views in " + documented + "ms" +
+                            " (limit " + maxSeconds * 1000 + "ms) with a peak heap of " + peakHeapMb + "MB" +
+                            " (limit " + maxHeapMb + "MB)");
+        System.out.println("Wrote " + outputFile);
+        if (!passed) {
+            System.err.println("Scale test failed");
+            System.exit(1);
+        }
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children)
+                delete(child);
+        }
+        file.delete();
+    }
+}
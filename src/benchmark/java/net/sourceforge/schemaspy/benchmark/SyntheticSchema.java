@@ -0,0 +1,211 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.sourceforge.net).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.sourceforge.schemaspy.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.logging.Logger;
+import net.sourceforge.schemaspy.Config;
+import net.sourceforge.schemaspy.model.Database;
+import net.sourceforge.schemaspy.model.ModelGenerator;
+import net.sourceforge.schemaspy.model.ModelWriter;
+import net.sourceforge.schemaspy.model.Table;
+import net.sourceforge.schemaspy.util.LineWriter;
+
+/**
+ * Generates a synthetic schema for scale testing and writes it as DDL,
+ * as a saved model (which can be rendered with <code>-fromModel</code>)
+ * or creates it in a database:
+ * <pre>
+ *   mvn -Pbenchmark test-compile exec:exec@synthetic -Dsynthetic.args="-tables 50000 -o big.model"
+ *   mvn -Pbenchmark test-compile exec:exec@synthetic -Dsynthetic.args="-widetables 20 -views 500 -o wide.ddl"
+ *   mvn -Pbenchmark test-compile exec:exec@synthetic -Dsynthetic.args="-rails true -url jdbc:h2:/tmp/rails -u sa"
+ * </pre>
+ * The shape of the schema is described by the options of {@link #getGenerator(List)}.
+ */
+public class SyntheticSchema {
+    private static final Logger logger = Logger.getLogger(SyntheticSchema.class.getName());
+
+    public static void main(String[] argv) throws Exception {
+        List<String> args = new ArrayList<String>(Arrays.asList(argv));
+        if (args.isEmpty() || args.contains("-?") || args.contains("-help")) {
+            printUsage();
+            return;
+        }
+
+        ModelGenerator generator = getGenerator(args);
+        String output = pullParam(args, "-o");
+        String url = pullParam(args, "-url");
+        String user = pullParam(args, "-u");
+        String password = pullParam(args, "-p");
+        if (!args.isEmpty() || (output == null && url == null)) {
+            if (!args.isEmpty())
+                System.err.println("Unrecognized options: " + args);
+            printUsage();
+            System.exit(1);
+        }
+
+        Config config = new Config();
+        Database db = generator.generate(config);
+        List<Table> tables = new ArrayList<Table>(db.getTables());
+        tables.addAll(db.getViews());
+
+        if (output != null) {
+            File file = new File(output);
+            if (output.endsWith(".model")) {
+                new ModelWriter().write(db, file);
+            } else {
+                LineWriter out = new LineWriter(file, 64 * 1024, Config.DOT_CHARSET);
+                DdlFormatter.getInstance().write(tables, out);
+                out.close();
+            }
+            System.out.println("Wrote " + db.getTables().size() + " tables and " + db.getViews().size() + " views to " + file);
+        }
+
+        if (url != null) {
+            Connection connection = DriverManager.getConnection(url, user, password == null ? "" : password);
+            try {
+                create(connection, tables);
+            } finally {
+                connection.close();
+            }
+            System.out.println("Created " + db.getTables().size() + " tables and " + db.getViews().size() + " views in " + url);
+        }
+    }
+
+    /**
+     * Create the specified tables and views in the database
+     *
+     * @param connection
+     * @param tables
+     * @throws SQLException
+     */
+    public static void create(Connection connection, Collection<Table> tables) throws SQLException {
+        List<String> ddl = DdlFormatter.getInstance().getStatements(tables);
+        Statement stmt = connection.createStatement();
+        try {
+            int executed = 0;
+            for (String statement : ddl) {
+                stmt.execute(statement);
+                if (++executed % 1000 == 0)
+                    logger.info("Executed " + executed + " of " + ddl.size() + " statements");
+            }
+        } finally {
+            stmt.close();
+        }
+    }
+
+    /**
+     * Returns a generator configured by (and having removed) these options from <code>args</code>:
+     * <pre>
+     *   -tables n            number of tables
+     *   -columns n           columns per table
+     *   -fkdensity x         average number of references per table
+     *   -cycledensity x      fraction of tables that also reference a later table (or themselves)
+     *   -implieddensity x    fraction of the references that have no foreign key constraint
+     *   -chainlength n       length of chains of tables that reference their predecessor
+     *   -widetables n        number of wide tables
+     *   -widecolumns n       columns per wide table
+     *   -compositedensity x  fraction of tables with two column primary keys
+     *   -views n             number of views
+     *   -viewjoins n         number of referenced tables joined by each view
+     *   -rails true|false    name tables and columns like Ruby on Rails does
+     *   -seed n              seed of the random layout
+     * </pre>
+     *
+     * @param args
+     * @return
+     */
+    public static ModelGenerator getGenerator(List<String> args) {
+        ModelGenerator generator = new ModelGenerator();
+        String value;
+
+        if ((value = pullParam(args, "-tables")) != null)
+            generator.setNumTables(Integer.parseInt(value));
+        if ((value = pullParam(args, "-columns")) != null)
+            generator.setNumColumns(Integer.parseInt(value));
+        if ((value = pullParam(args, "-fkdensity")) != null)
+            generator.setForeignKeyDensity(Double.parseDouble(value));
+        if ((value = pullParam(args, "-cycledensity")) != null)
+            generator.setCycleDensity(Double.parseDouble(value));
+        if ((value = pullParam(args, "-implieddensity")) != null)
+            generator.setImpliedDensity(Double.parseDouble(value));
+        if ((value = pullParam(args, "-chainlength")) != null)
+            generator.setChainLength(Integer.parseInt(value));
+        if ((value = pullParam(args, "-widetables")) != null)
+            generator.setNumWideTables(Integer.parseInt(value));
+        if ((value = pullParam(args, "-widecolumns")) != null)
+            generator.setNumWideColumns(Integer.parseInt(value));
+        if ((value = pullParam(args, "-compositedensity")) != null)
+            generator.setCompositeKeyDensity(Double.parseDouble(value));
+        if ((value = pullParam(args, "-views")) != null)
+            generator.setNumViews(Integer.parseInt(value));
+        if ((value = pullParam(args, "-viewjoins")) != null)
+            generator.setViewJoins(Integer.parseInt(value));
+        if ((value = pullParam(args, "-rails")) != null)
+            generator.setRailsNaming(Boolean.parseBoolean(value));
+        if ((value = pullParam(args, "-seed")) != null)
+            generator.setSeed(Long.parseLong(value));
+
+        return generator;
+    }
+
+    /**
+     * Remove the specified option and its value from <code>args</code>,
+     * returning the value or <code>null</code> if the option isn't there
+     */
+    private static String pullParam(List<String> args, String paramId) {
+        int paramIndex = args.indexOf(paramId);
+        if (paramIndex < 0)
+            return null;
+        if (paramIndex + 1 >= args.size())
+            throw new IllegalArgumentException("No value specified for " + paramId);
+        args.remove(paramIndex);
+        return args.remove(paramIndex);
+    }
+
+    private static void printUsage() {
+        System.out.println("Generates a synthetic schema for scale testing");
+        System.out.println("Usage:");
+        System.out.println(" mvn -Pbenchmark test-compile exec:exec@synthetic -Dsynthetic.args=\"[options]\"");
+        System.out.println("   -o file              write the schema as DDL or, if file ends with .model, as a saved model");
+        System.out.println("   -url jdbcUrl         create the schema in this database (the driver must be on the classpath)");
+        System.out.println("   -u user -p password  credentials for -url");
+        System.out.println("   -tables n            number of tables (default 100)");
+        System.out.println("   -columns n           columns per table (default 10)");
+        System.out.println("   -fkdensity x         average number of references per table (default 1.0)");
+        System.out.println("   -cycledensity x      fraction of tables that also reference a later table (default 0.05)");
+        System.out.println("   -implieddensity x    fraction of the references that have no foreign key (default 0.25)");
+        System.out.println("   -chainlength n       length of chains of tables that reference their predecessor (default 1)");
+        System.out.println("   -widetables n        number of wide tables (default 0)");
+        System.out.println("   -widecolumns n       columns per wide table (default 1000)");
+        System.out.println("   -compositedensity x  fraction of tables with two column primary keys (default 0)");
+        System.out.println("   -views n             number of views (default 0)");
+        System.out.println("   -viewjoins n         number of referenced tables joined by each view (default 3)");
+        System.out.println("   -rails true|false    name tables and columns like Ruby on Rails does (default false)");
+        System.out.println("   -seed n              seed of the random layout (default 1)");
+    }
+}
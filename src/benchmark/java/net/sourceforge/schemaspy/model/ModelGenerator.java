@@ -0,0 +1,484 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.sourceforge.net).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.sourceforge.schemaspy.model;
+
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import net.sourceforge.schemaspy.Config;
+import net.sourceforge.schemaspy.util.Inflection;
+
+/**
+ * Builds a synthetic {@link Database} model of a configurable size and shape
+ * without going anywhere near a real database.
+ * <p>
+ * Intended for measuring (and reproducing problems with) the analysis and
+ * rendering code against schemas that are bigger or more tangled than the
+ * ones we have access to.
+ * Like a model restored by {@link ModelReader} the generated model is
+ * {@link Database#isOffline() offline}.
+ * It can be recreated in a real database with
+ * {@link net.sourceforge.schemaspy.benchmark.DdlFormatter}.
+ * </p>
+ * <p>
+ * Every table has an integer primary key named after the table
+ * (e.g. <code>t00042_id</code>), optionally followed by a sequence number
+ * that makes it a composite key.
+ * Columns that reference other tables are named after the primary key that
+ * they reference, so the ones that aren't backed by a real constraint will be
+ * found by {@link net.sourceforge.schemaspy.DbAnalyzer#getImpliedConstraints(java.util.Collection)}.
+ * With {@link #setRailsNaming(boolean) Rails naming} the tables have plural
+ * names, their primary keys are all named <code>id</code> and the columns
+ * that reference them are named <code>&lt;singular&gt;_id</code>.
+ * The same seed always generates the same model.
+ * </p>
+ */
+public class ModelGenerator {
+    private static final String SCHEMA = "SYNTHETIC";
+
+    private int numTables = 100;
+    private int numColumns = 10;
+    private double foreignKeyDensity = 1.0;
+    private double cycleDensity = 0.05;
+    private double impliedDensity = 0.25;
+    private int chainLength = 1;
+    private int numWideTables = 0;
+    private int numWideColumns = 1000;
+    private double compositeKeyDensity = 0;
+    private int numViews = 0;
+    private int viewJoins = 3;
+    private boolean railsNaming = false;
+    private long seed = 1;
+
+    /**
+     * Number of tables to generate
+     *
+     * @param numTables
+     */
+    public void setNumTables(int numTables) {
+        this.numTables = numTables;
+    }
+
+    public int getNumTables() {
+        return numTables;
+    }
+
+    /**
+     * Number of columns in each table, including its primary key and the
+     * columns that reference other tables.
+     * Tables with more references than this will have more columns.
+     *
+     * @param numColumns
+     */
+    public void setNumColumns(int numColumns) {
+        this.numColumns = numColumns;
+    }
+
+    public int getNumColumns() {
+        return numColumns;
+    }
+
+    /**
+     * Average number of other tables that each table references.
+     * References normally point at tables that were generated earlier so
+     * they don't introduce cycles.
+     *
+     * @param foreignKeyDensity
+     */
+    public void setForeignKeyDensity(double foreignKeyDensity) {
+        this.foreignKeyDensity = foreignKeyDensity;
+    }
+
+    public double getForeignKeyDensity() {
+        return foreignKeyDensity;
+    }
+
+    /**
+     * Fraction (0 to 1) of the tables that also reference a table that's
+     * generated after them (or themselves), introducing a cycle.
+     *
+     * @param cycleDensity
+     */
+    public void setCycleDensity(double cycleDensity) {
+        this.cycleDensity = cycleDensity;
+    }
+
+    public double getCycleDensity() {
+        return cycleDensity;
+    }
+
+    /**
+     * Fraction (0 to 1) of the references that aren't backed by a real
+     * foreign key constraint and can only be implied from their names.
+     *
+     * @param impliedDensity
+     */
+    public void setImpliedDensity(double impliedDensity) {
+        this.impliedDensity = impliedDensity;
+    }
+
+    public double getImpliedDensity() {
+        return impliedDensity;
+    }
+
+    /**
+     * Length of the chains of tables where each table references the one
+     * generated just before it (in addition to its other references).
+     * The default of 1 doesn't chain the tables.
+     *
+     * @param chainLength
+     */
+    public void setChainLength(int chainLength) {
+        this.chainLength = chainLength;
+    }
+
+    public int getChainLength() {
+        return chainLength;
+    }
+
+    /**
+     * Number of tables that have {@link #setNumWideColumns(int)} columns
+     * rather than {@link #setNumColumns(int)}.
+     * They're spread evenly across the generated tables.
+     *
+     * @param numWideTables
+     */
+    public void setNumWideTables(int numWideTables) {
+        this.numWideTables = numWideTables;
+    }
+
+    public int getNumWideTables() {
+        return numWideTables;
+    }
+
+    public void setNumWideColumns(int numWideColumns) {
+        this.numWideColumns = numWideColumns;
+    }
+
+    public int getNumWideColumns() {
+        return numWideColumns;
+    }
+
+    /**
+     * Fraction (0 to 1) of the tables that have a two column primary key.
+     * References to those tables are also two columns.
+     *
+     * @param compositeKeyDensity
+     */
+    public void setCompositeKeyDensity(double compositeKeyDensity) {
+        this.compositeKeyDensity = compositeKeyDensity;
+    }
+
+    public double getCompositeKeyDensity() {
+        return compositeKeyDensity;
+    }
+
+    /**
+     * Number of views to generate.
+     * Each view selects all of the columns of a table and of up to
+     * {@link #setViewJoins(int)} of the tables that it references,
+     * so views of wide tables have very long SQL.
+     *
+     * @param numViews
+     */
+    public void setNumViews(int numViews) {
+        this.numViews = numViews;
+    }
+
+    public int getNumViews() {
+        return numViews;
+    }
+
+    public void setViewJoins(int viewJoins) {
+        this.viewJoins = viewJoins;
+    }
+
+    public int getViewJoins() {
+        return viewJoins;
+    }
+
+    /**
+     * Name the tables and columns like Ruby on Rails does
+     * (see {@link net.sourceforge.schemaspy.DbAnalyzer#getRailsConstraints(java.util.Map)}).
+     *
+     * @param railsNaming
+     */
+    public void setRailsNaming(boolean railsNaming) {
+        this.railsNaming = railsNaming;
+    }
+
+    public boolean isRailsNaming() {
+        return railsNaming;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Generate a new model.
+     * Each call returns an independent model, so destructive analysis
+     * (e.g. ordering the tables by their relationships) can be repeated.
+     *
+     * @param config
+     * @return
+     */
+    public Database generate(Config config) {
+        Random random = new Random(seed);
+        Database db = new Database(config, "synthetic", null, SCHEMA, "SchemaSpy synthetic model",
+                                    "", new String[0]);
+
+        try {
+            List<Table> tables = new ArrayList<Table>(numTables);
+            for (int t = 0; t < numTables; ++t) {
+                Table table = new Table(db, null, SCHEMA, getTableName(t), t % 3 == 0 ? "Synthetic table " + t : null);
+                table.setNumRows(random.nextInt(1000000));
+
+                String prefix = railsNaming ? "" : getSingularName(t) + "_";
+                TableColumn primary = new TableColumn(table, prefix + "id", Integer.valueOf(0), "INTEGER", Integer.valueOf(Types.INTEGER),
+                                                        10, 0, false, null);
+                primary.setIsAutoUpdated(true);
+                table.addColumn(primary);
+                table.setPrimaryColumn(primary);
+
+                if (random.nextDouble() < compositeKeyDensity) {
+                    TableColumn sequence = new TableColumn(table, prefix + "seq", Integer.valueOf(1), "INTEGER", Integer.valueOf(Types.INTEGER),
+                                                            10, 0, false, null);
+                    table.addColumn(sequence);
+                    table.setPrimaryColumn(sequence);
+                }
+
+                TableIndex index = new TableIndex(table.getName() + "_pk", true);
+                index.setIsPrimaryKey(true);
+                for (TableColumn column : table.getPrimaryColumns())
+                    index.addColumn(column, "A");
+                table.addIndex(index);
+
+                tables.add(table);
+            }
+
+            List<List<Reference>> references = new ArrayList<List<Reference>>(numTables);
+            int wideStride = numWideTables > 0 ? Math.max(1, numTables / numWideTables) : 0;
+            int numWide = 0;
+
+            for (int t = 0; t < numTables; ++t) {
+                Table table = tables.get(t);
+                Set<Integer> parents = new LinkedHashSet<Integer>();
+
+                if (chainLength > 1 && t % chainLength != 0)
+                    parents.add(Integer.valueOf(t - 1));
+
+                if (t > 0) {
+                    int numParents = (int)foreignKeyDensity;
+                    if (random.nextDouble() < foreignKeyDensity - numParents)
+                        ++numParents;
+                    for (int p = 0; p < numParents; ++p)
+                        parents.add(Integer.valueOf(random.nextInt(t)));
+                }
+
+                if (random.nextDouble() < cycleDensity)
+                    parents.add(Integer.valueOf(t + random.nextInt(numTables - t)));
+
+                List<Reference> tableReferences = new ArrayList<Reference>(parents.size());
+                int position = table.getPrimaryColumns().size();
+                for (Integer p : parents) {
+                    Reference reference = addReference(table, position, tables.get(p.intValue()), p.intValue(),
+                                                        random.nextDouble() >= impliedDensity);
+                    position += reference.childColumns.size();
+                    tableReferences.add(reference);
+                }
+                references.add(tableReferences);
+
+                int width = numColumns;
+                if (wideStride > 0 && t % wideStride == 0 && numWide < numWideTables) {
+                    width = numWideColumns;
+                    ++numWide;
+                }
+
+                for (int c = position; c < width; ++c)
+                    addDataColumn(table, c, random);
+            }
+
+            for (Table table : tables)
+                db.addRestoredTable(table);
+
+            for (int v = 0; v < numViews && numTables > 0; ++v) {
+                int t = v % numTables;
+                db.addRestoredTable(generateView(db, v, tables.get(t), references.get(t)));
+            }
+        } catch (SQLException exc) {
+            // shouldn't happen since offline tables don't query anything
+            throw new IllegalStateException("Failed to generate a synthetic model", exc);
+        }
+
+        db.refreshRelationships();
+        return db;
+    }
+
+    /**
+     * The columns of a table that reference the primary key of another table
+     */
+    private static class Reference {
+        final Table parent;
+        final List<TableColumn> childColumns = new ArrayList<TableColumn>();
+
+        Reference(Table parent) {
+            this.parent = parent;
+        }
+    }
+
+    private Reference addReference(Table child, int position, Table parent, int p, boolean isReal) {
+        String prefix = railsNaming ? getSingularName(p) + "_" : "";
+        if (parent == child)
+            prefix = "parent_" + prefix;
+
+        Reference reference = new Reference(parent);
+        List<TableColumn> parentColumns = parent.getPrimaryColumns();
+        for (TableColumn parentColumn : parentColumns) {
+            TableColumn childColumn = new TableColumn(child, prefix + parentColumn.getName(), Integer.valueOf(position++),
+                                                        "INTEGER", Integer.valueOf(Types.INTEGER), 10, 0, true, null);
+            child.addColumn(childColumn);
+            reference.childColumns.add(childColumn);
+        }
+
+        String name = child.getName() + "_" + reference.childColumns.get(0).getName();
+        TableIndex index = new TableIndex(name + "_ix", false);
+        for (TableColumn childColumn : reference.childColumns)
+            index.addColumn(childColumn, "A");
+        child.addIndex(index);
+
+        if (isReal) {
+            ForeignKeyConstraint constraint = new ForeignKeyConstraint(child, name + "_fk",
+                                                DatabaseMetaData.importedKeyNoAction, DatabaseMetaData.importedKeyNoAction);
+            for (int i = 0; i < parentColumns.size(); ++i) {
+                TableColumn parentColumn = parentColumns.get(i);
+                TableColumn childColumn = reference.childColumns.get(i);
+                constraint.addChildColumn(childColumn);
+                constraint.addParentColumn(parentColumn);
+                childColumn.addParent(parentColumn, constraint);
+                parentColumn.addChild(childColumn, constraint);
+            }
+            child.addForeignKey(constraint);
+        }
+
+        return reference;
+    }
+
+    private void addDataColumn(Table table, int c, Random random) {
+        TableColumn column;
+        String name = "col" + c;
+        Integer id = Integer.valueOf(c);
+
+        switch (random.nextInt(4)) {
+            case 0:
+                column = new TableColumn(table, name, id, "VARCHAR", Integer.valueOf(Types.VARCHAR),
+                                            10 + random.nextInt(245), 0, true, null);
+                break;
+            case 1:
+                column = new TableColumn(table, name, id, "DECIMAL", Integer.valueOf(Types.DECIMAL),
+                                            12, 2, true, "0");
+                break;
+            case 2:
+                column = new TableColumn(table, name, id, "TIMESTAMP", Integer.valueOf(Types.TIMESTAMP),
+                                            26, 6, false, "CURRENT_TIMESTAMP");
+                break;
+            default:
+                column = new TableColumn(table, name, id, "INTEGER", Integer.valueOf(Types.INTEGER),
+                                            10, 0, false, null);
+                break;
+        }
+
+        if (c % 4 == 0)
+            column.setComments("Synthetic column " + c + " of " + table.getName());
+        table.addColumn(column);
+    }
+
+    /**
+     * A view that selects all of the columns of <code>table</code> joined with
+     * the tables that it references
+     */
+    private View generateView(Database db, int v, Table table, List<Reference> references) throws SQLException {
+        List<Reference> joins = new ArrayList<Reference>();
+        for (Reference reference : references) {
+            if (joins.size() < viewJoins && reference.parent != table)
+                joins.add(reference);
+        }
+
+        List<Table> joined = new ArrayList<Table>();
+        joined.add(table);
+        for (Reference join : joins)
+            joined.add(join.parent);
+
+        StringBuilder select = new StringBuilder("select ");
+        List<String> aliases = new ArrayList<String>();
+        List<TableColumn> sources = new ArrayList<TableColumn>();
+        for (int j = 0; j < joined.size(); ++j) {
+            for (TableColumn column : joined.get(j).getColumns()) {
+                String alias = "j" + j + "_" + column.getName();
+                if (!aliases.isEmpty())
+                    select.append(", ");
+                select.append("j").append(j).append('.').append(column.getName());
+                select.append(" as ").append(alias);
+                aliases.add(alias);
+                sources.add(column);
+            }
+        }
+
+        select.append(" from ").append(table.getName()).append(" j0");
+        for (int j = 0; j < joins.size(); ++j) {
+            Reference join = joins.get(j);
+            String parentAlias = "j" + (j + 1);
+            select.append(" left join ").append(join.parent.getName()).append(' ').append(parentAlias).append(" on ");
+            List<TableColumn> parentColumns = join.parent.getPrimaryColumns();
+            for (int c = 0; c < parentColumns.size(); ++c) {
+                if (c > 0)
+                    select.append(" and ");
+                select.append("j0.").append(join.childColumns.get(c).getName());
+                select.append(" = ").append(parentAlias).append('.').append(parentColumns.get(c).getName());
+            }
+        }
+
+        View view = new View(db, null, SCHEMA, String.format("v%05d", Integer.valueOf(v)),
+                                "Synthetic view of " + table.getName(), select.toString());
+        for (int c = 0; c < aliases.size(); ++c) {
+            TableColumn source = sources.get(c);
+            view.addColumn(new TableColumn(view, aliases.get(c), Integer.valueOf(c), source.getTypeName(), source.getType(),
+                                            source.getLength(), source.getDecimalDigits(), true, null));
+        }
+
+        return view;
+    }
+
+    private String getSingularName(int t) {
+        return String.format(railsNaming ? "item%05d" : "t%05d", Integer.valueOf(t));
+    }
+
+    private String getTableName(int t) {
+        String singular = getSingularName(t);
+        return railsNaming ? Inflection.pluralize(singular) : singular;
+    }
+}
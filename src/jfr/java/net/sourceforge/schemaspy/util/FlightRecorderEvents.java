@@ -0,0 +1,275 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.sourceforge.net).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.sourceforge.schemaspy.util;
+
+import java.io.File;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The JDK Flight Recorder events behind {@link PipelineEvents}.
+ * Only loaded when the <code>jdk.jfr</code> API is available.
+ * <p>
+ * This is in its own source root (built by the <code>jfr</code> profile)
+ * so the rest of SchemaSpy still compiles against JDKs that don't have
+ * <code>jdk.jfr</code>.
+ * </p>
+ */
+class FlightRecorderEvents implements PipelineEvents.Recorder {
+    /**
+     * Only created (reflectively) by {@link PipelineEvents}
+     */
+    FlightRecorderEvents() {
+    }
+
+    public Object begin(PipelineEvents.Stage stage) {
+        Event event;
+        switch (stage) {
+            case TABLE_GATHERED:
+                event = new TableGathered();
+                break;
+            case FOREIGN_KEYS_CONNECTED:
+                event = new ForeignKeysConnected();
+                break;
+            case IMPLIED_CONSTRAINTS:
+                event = new ImpliedConstraints();
+                break;
+            case TABLES_ORDERED:
+                event = new TablesOrdered();
+                break;
+            case DOT_GENERATED:
+                event = new DotGenerated();
+                break;
+            case GRAPHVIZ_RENDER:
+                event = new GraphvizRender();
+                break;
+            case PAGE_WRITTEN:
+                event = new PageWritten();
+                break;
+            default:
+                throw new IllegalArgumentException(String.valueOf(stage));
+        }
+
+        if (!event.isEnabled())
+            return null;
+        event.begin();
+        return event;
+    }
+
+    public void tableGathered(Object started, String table, boolean isView, int numColumns, int numIndexes, long numRows) {
+        TableGathered event = (TableGathered)started;
+        event.end();
+        if (event.shouldCommit()) {
+            event.table = table;
+            event.view = isView;
+            event.columns = numColumns;
+            event.indexes = numIndexes;
+            event.rows = numRows;
+            event.commit();
+        }
+    }
+
+    public void foreignKeysConnected(Object started, String table, int numForeignKeys) {
+        ForeignKeysConnected event = (ForeignKeysConnected)started;
+        event.end();
+        if (event.shouldCommit()) {
+            event.table = table;
+            event.foreignKeys = numForeignKeys;
+            event.commit();
+        }
+    }
+
+    public void impliedConstraintsFound(Object started, int numTables, int numConstraints) {
+        ImpliedConstraints event = (ImpliedConstraints)started;
+        event.end();
+        if (event.shouldCommit()) {
+            event.tables = numTables;
+            event.constraints = numConstraints;
+            event.commit();
+        }
+    }
+
+    public void tablesOrdered(Object started, int numTables, int numRecursiveConstraints) {
+        TablesOrdered event = (TablesOrdered)started;
+        event.end();
+        if (event.shouldCommit()) {
+            event.tables = numTables;
+            event.recursiveConstraints = numRecursiveConstraints;
+            event.commit();
+        }
+    }
+
+    public void dotGenerated(Object started, String table, File dotFile, int numTables) {
+        DotGenerated event = (DotGenerated)started;
+        event.end();
+        if (event.shouldCommit()) {
+            event.table = table;
+            event.dotFile = dotFile.getName();
+            event.tables = numTables;
+            event.size = dotFile.length();
+            event.commit();
+        }
+    }
+
+    public void graphvizRendered(Object started, File dotFile, File diagramFile, int exitCode) {
+        GraphvizRender event = (GraphvizRender)started;
+        event.end();
+        if (event.shouldCommit()) {
+            event.dotFile = dotFile.getName();
+            event.diagramFile = diagramFile.getName();
+            event.exitCode = exitCode;
+            event.dotSize = dotFile.length();
+            event.diagramSize = diagramFile.length();
+            event.commit();
+        }
+    }
+
+    public void pageWritten(Object started, String page, String table, int numColumns) {
+        PageWritten event = (PageWritten)started;
+        event.end();
+        if (event.shouldCommit()) {
+            event.page = page;
+            event.table = table;
+            event.columns = numColumns;
+            event.commit();
+        }
+    }
+
+    @Name("net.sourceforge.schemaspy.TableGathered")
+    @Label("Table Gathered")
+    @Category({"SchemaSpy", "Gathering"})
+    @Description("The details of a table or view were gathered from the database")
+    static class TableGathered extends Event {
+        @Label("Table")
+        String table;
+
+        @Label("View")
+        boolean view;
+
+        @Label("Columns")
+        int columns;
+
+        @Label("Indexes")
+        int indexes;
+
+        @Label("Rows")
+        @Description("-1 if the rows weren't counted")
+        long rows;
+    }
+
+    @Name("net.sourceforge.schemaspy.ForeignKeysConnected")
+    @Label("Foreign Keys Connected")
+    @Category({"SchemaSpy", "Gathering"})
+    @Description("A table's foreign keys were connected to the tables that they reference")
+    static class ForeignKeysConnected extends Event {
+        @Label("Table")
+        String table;
+
+        @Label("Foreign Keys")
+        int foreignKeys;
+    }
+
+    @Name("net.sourceforge.schemaspy.ImpliedConstraints")
+    @Label("Implied Constraints Scan")
+    @Category({"SchemaSpy", "Analysis"})
+    @Description("The tables were scanned for implied relationships")
+    static class ImpliedConstraints extends Event {
+        @Label("Tables")
+        int tables;
+
+        @Label("Implied Constraints")
+        int constraints;
+    }
+
+    @Name("net.sourceforge.schemaspy.TablesOrdered")
+    @Label("Tables Ordered By RI")
+    @Category({"SchemaSpy", "Analysis"})
+    @Description("The tables were ordered by referential integrity")
+    static class TablesOrdered extends Event {
+        @Label("Tables")
+        int tables;
+
+        @Label("Recursive Constraints")
+        @Description("Constraints that had to be removed to order the tables")
+        int recursiveConstraints;
+    }
+
+    @Name("net.sourceforge.schemaspy.DotGenerated")
+    @Label("Dot Generated")
+    @Category({"SchemaSpy", "Rendering"})
+    @Description("A .dot file was written")
+    static class DotGenerated extends Event {
+        @Label("Table")
+        @Description("The table that the diagram is centered on, if any")
+        String table;
+
+        @Label("Dot File")
+        String dotFile;
+
+        @Label("Tables")
+        @Description("Tables and views in the diagram")
+        int tables;
+
+        @Label("Size")
+        @DataAmount
+        long size;
+    }
+
+    @Name("net.sourceforge.schemaspy.GraphvizRender")
+    @Label("Graphviz Render")
+    @Category({"SchemaSpy", "Rendering"})
+    @Description("Graphviz's dot rendered a .dot file")
+    static class GraphvizRender extends Event {
+        @Label("Dot File")
+        String dotFile;
+
+        @Label("Diagram File")
+        String diagramFile;
+
+        @Label("Exit Code")
+        @Description("-1 if dot couldn't be run")
+        int exitCode;
+
+        @Label("Dot Size")
+        @DataAmount
+        long dotSize;
+
+        @Label("Diagram Size")
+        @DataAmount
+        long diagramSize;
+    }
+
+    @Name("net.sourceforge.schemaspy.PageWritten")
+    @Label("Page Written")
+    @Category({"SchemaSpy", "Rendering"})
+    @Description("An HTML page was written")
+    static class PageWritten extends Event {
+        @Label("Page")
+        String page;
+
+        @Label("Table")
+        String table;
+
+        @Label("Columns")
+        int columns;
+    }
+}
@@ -84,6 +84,9 @@ public class Config
     private Integer port;
     private String server;
     private String meta;
+    private String fromModel;
+    private String diffModel;
+    private String progressFile;
     private Pattern tableInclusions;
     private Pattern tableExclusions;
     private Pattern columnExclusions;
@@ -91,6 +94,11 @@ public class Config
     private String userConnectionPropertiesFile;
     private Properties userConnectionProperties;
     private Integer maxDbThreads;
+    private Integer maxRenderThreads;
+    private Integer renderTimeout;
+    private Integer numSlowRenders;
+    private Integer maxDiagramTables;
+    private Integer maxDiagramRelationships;
     private Integer maxDetailedTables;
     private String driverPath;
     private String css;
@@ -112,6 +120,12 @@ public class Config
     private Boolean viewsEnabled;
     private Boolean meterEnabled;
     private Boolean railsEnabled;
+    private Boolean jsonEnabled;
+    private Boolean jsonSplitEnabled;
+    private Boolean modelEnabled;
+    private Boolean clientColumnsEnabled;
+    private Boolean jdbcMetricsEnabled;
+    private Boolean lowMemoryEnabled;
     private Boolean evaluteAll;
     private Boolean highQuality;
     private Boolean lowQuality;
@@ -274,6 +288,61 @@ public class Config
         return meta;
     }
 
+    /**
+     * A model that was saved by a previous run (<code>[schema].model</code>
+     * in its output directory, see {@link #setModelEnabled(boolean)}).<p>
+     * If specified then the output is rendered from the saved model
+     * without connecting to the database.
+     *
+     * @param fromModel
+     */
+    public void setFromModel(String fromModel) {
+        this.fromModel = fromModel;
+    }
+
+    public String getFromModel() {
+        if (fromModel == null)
+            fromModel = pullParam("-fromModel");
+        return fromModel;
+    }
+
+    /**
+     * A model that was saved by a previous run to compare the current one to.<p>
+     * If specified then the differences are written to <code>changes.html</code>
+     * and <code>[schema].diff.json</code>.
+     *
+     * @param diffModel
+     */
+    public void setDiffModel(String diffModel) {
+        this.diffModel = diffModel;
+    }
+
+    public String getDiffModel() {
+        if (diffModel == null)
+            diffModel = pullParam("-diff");
+        return diffModel;
+    }
+
+    /**
+     * A file that progress is appended to as JSON lines so that whatever
+     * is scheduling the run can track it (and kill it if it stalls).<p>
+     * A line is written whenever a phase starts and at least every second
+     * in between, with the number of tables done, expected and queued,
+     * the rate, an estimate of the time remaining and how long it's been
+     * since anything progressed.
+     *
+     * @param progressFile
+     */
+    public void setProgressFile(String progressFile) {
+        this.progressFile = progressFile;
+    }
+
+    public String getProgressFile() {
+        if (progressFile == null)
+            progressFile = pullParam("-progress");
+        return progressFile;
+    }
+
     public void setDbType(String dbType) {
         this.dbType = dbType;
     }
@@ -372,13 +441,13 @@ public class Config
 
     /**
      * User used to connect to the database.
-     * Required unless single sign-on is enabled
+     * Required unless single sign-on is enabled or a saved model is being rendered
      * (see {@link #setSingleSignOn(boolean)}).
      * @return
      */
     public String getUser() {
         if (user == null) {
-            if (!isSingleSignOn())
+            if (!isSingleSignOn() && getFromModel() == null)
                 user = pullRequiredParam("-u");
             else
                 user = pullParam("-u");
@@ -718,6 +787,154 @@ public class Config
         return maxDbThreads.intValue();
     }
 
+    /**
+     * Maximum number of threads to use when writing pages and diagrams.
+     * Defaults to the number of available processors.
+     *
+     * @param maxRenderThreads
+     */
+    public void setMaxRenderThreads(int maxRenderThreads) {
+        this.maxRenderThreads = Integer.valueOf(maxRenderThreads);
+    }
+
+    /**
+     * @see #setMaxRenderThreads(int)
+     */
+    public int getMaxRenderThreads() {
+        if (maxRenderThreads == null) {
+            int max = Runtime.getRuntime().availableProcessors();
+            String threads = pullParam("-renderThreads");
+            if (threads == null)
+                threads = pullParam("-renderthreads");
+            if (threads != null)
+                max = Integer.parseInt(threads);
+            if (max <= 0)
+                max = Runtime.getRuntime().availableProcessors();
+
+            maxRenderThreads = Integer.valueOf(max);
+        }
+
+        return maxRenderThreads.intValue();
+    }
+
+    /**
+     * Maximum number of seconds that Graphviz's dot is given to render a diagram
+     * before it's killed.  A table's two degree (and implied) diagrams that time
+     * out are dropped in favor of its simpler one degree diagram, and a one degree
+     * diagram that times out is redrawn with just the names of the tables.<p>
+     *
+     * Defaults to 0, which means there's no limit.
+     *
+     * @param renderTimeout
+     */
+    public void setRenderTimeout(int renderTimeout) {
+        this.renderTimeout = Integer.valueOf(renderTimeout);
+    }
+
+    /**
+     * @see #setRenderTimeout(int)
+     */
+    public int getRenderTimeout() {
+        if (renderTimeout == null) {
+            int timeout = 0;
+            String seconds = pullParam("-renderTimeout");
+            if (seconds == null)
+                seconds = pullParam("-rendertimeout");
+            if (seconds != null)
+                timeout = Integer.parseInt(seconds);
+
+            renderTimeout = Integer.valueOf(Math.max(0, timeout));
+        }
+
+        return renderTimeout.intValue();
+    }
+
+    /**
+     * Number of the slowest diagram renders to report.
+     * Defaults to 10.
+     *
+     * @param numSlowRenders
+     */
+    public void setNumSlowRenders(int numSlowRenders) {
+        this.numSlowRenders = Integer.valueOf(numSlowRenders);
+    }
+
+    /**
+     * @see #setNumSlowRenders(int)
+     */
+    public int getNumSlowRenders() {
+        if (numSlowRenders == null) {
+            int num = 10; // default
+            try {
+                num = Integer.parseInt(pullParam("-slowRenders"));
+            } catch (Exception notSpecified) {}
+
+            numSlowRenders = Integer.valueOf(num);
+        }
+
+        return numSlowRenders.intValue();
+    }
+
+    /**
+     * Maximum number of tables to show individually in a table's diagrams.<p>
+     *
+     * Tables whose immediate relatives alone exceed this are drawn with
+     * just the names of their relatives (and without a two degree diagram).
+     * If it's their relatives' relatives that exceed it then those are
+     * summarized by a single node per relative.<p>
+     *
+     * Defaults to 50.
+     *
+     * @param maxDiagramTables
+     */
+    public void setMaxDiagramTables(int maxDiagramTables) {
+        this.maxDiagramTables = Integer.valueOf(maxDiagramTables);
+    }
+
+    /**
+     * @see #setMaxDiagramTables(int)
+     */
+    public int getMaxDiagramTables() {
+        if (maxDiagramTables == null) {
+            int max = 50; // default
+            try {
+                max = Integer.parseInt(pullParam("-maxDiagramTables"));
+            } catch (Exception notSpecified) {}
+
+            maxDiagramTables = Integer.valueOf(max <= 0 ? Integer.MAX_VALUE : max);
+        }
+
+        return maxDiagramTables.intValue();
+    }
+
+    /**
+     * Maximum number of relationships to show in a table's diagrams
+     * before they're simplified as described by {@link #setMaxDiagramTables(int)}.<p>
+     *
+     * Defaults to 100.
+     *
+     * @param maxDiagramRelationships
+     */
+    public void setMaxDiagramRelationships(int maxDiagramRelationships) {
+        this.maxDiagramRelationships = Integer.valueOf(maxDiagramRelationships);
+    }
+
+    /**
+     * @see #setMaxDiagramRelationships(int)
+     */
+    public int getMaxDiagramRelationships() {
+        if (maxDiagramRelationships == null) {
+            int max = 100; // default
+            try {
+                max = Integer.parseInt(pullParam("-maxDiagramRelationships"));
+            } catch (Exception notSpecified) {}
+
+            maxDiagramRelationships = Integer.valueOf(max <= 0 ? Integer.MAX_VALUE : max);
+        }
+
+        return maxDiagramRelationships.intValue();
+    }
+
     public boolean isLogoEnabled() {
         if (logoEnabled == null)
             logoEnabled = !options.remove("-nologo");
@@ -771,6 +988,135 @@ public class Config
         return railsEnabled;
     }
 
+    /**
+     * Also write the model as JSON (alongside the XML)
+     *
+     * @param enabled
+     */
+    public void setJsonEnabled(boolean enabled) {
+        jsonEnabled = enabled;
+    }
+
+    /**
+     * @see #setJsonEnabled(boolean)
+     */
+    public boolean isJsonEnabled() {
+        if (jsonEnabled == null)
+            jsonEnabled = options.remove("-json") || isJsonSplitEnabled();
+
+        return jsonEnabled;
+    }
+
+    /**
+     * Write the JSON representation of each table to its own file
+     * so consumers can load them lazily.  Implies JSON output.
+     *
+     * @param enabled
+     */
+    public void setJsonSplitEnabled(boolean enabled) {
+        jsonSplitEnabled = enabled;
+    }
+
+    /**
+     * @see #setJsonSplitEnabled(boolean)
+     */
+    public boolean isJsonSplitEnabled() {
+        if (jsonSplitEnabled == null)
+            jsonSplitEnabled = options.remove("-jsonsplit");
+
+        return jsonSplitEnabled;
+    }
+
+    /**
+     * Save the analyzed model (<code>[schema].model</code>) in a compact binary form
+     * that can be rendered again with <code>-fromModel</code> or compared to with
+     * <code>-diff</code> without connecting to the database.
+     *
+     * @param enabled
+     */
+    public void setModelEnabled(boolean enabled) {
+        modelEnabled = enabled;
+    }
+
+    /**
+     * @see #setModelEnabled(boolean)
+     */
+    public boolean isModelEnabled() {
+        if (modelEnabled == null)
+            modelEnabled = options.remove("-model");
+
+        return modelEnabled;
+    }
+
+    /**
+     * Write the details of all of the schema's columns once to a compact
+     * data file and render the columns page from it in the browser
+     * (sorted and filtered by the browser) rather than writing a
+     * fully expanded page for each sort order.
+     *
+     * @param enabled
+     */
+    public void setClientColumnsEnabled(boolean enabled) {
+        clientColumnsEnabled = enabled;
+    }
+
+    /**
+     * @see #setClientColumnsEnabled(boolean)
+     */
+    public boolean isClientColumnsEnabled() {
+        if (clientColumnsEnabled == null)
+            clientColumnsEnabled = options.remove("-clientcolumns");
+
+        return clientColumnsEnabled;
+    }
+
+    /**
+     * Record the JDBC calls made while gathering the schema's details
+     * (how often each metadata method and dbTypes query was called,
+     * how long they took and how many rows they read) and write them,
+     * along with the durations of each phase of the run, to jdbcMetrics.json.
+     *
+     * @param enabled
+     */
+    public void setJdbcMetricsEnabled(boolean enabled) {
+        jdbcMetricsEnabled = enabled;
+    }
+
+    /**
+     * @see #setJdbcMetricsEnabled(boolean)
+     */
+    public boolean isJdbcMetricsEnabled() {
+        if (jdbcMetricsEnabled == null)
+            jdbcMetricsEnabled = options.remove("-jdbcmetrics");
+
+        return jdbcMetricsEnabled;
+    }
+
+    /**
+     * Trade some speed for a smaller heap when documenting very large schemas.<p>
+     *
+     * The XML/JSON descriptions are written before the table pages, so the
+     * details that only a table's own page needs (comments, check constraints
+     * and view SQL) can be released as soon as that page is written.
+     * Rendered diagram nodes aren't cached between diagrams and the peak
+     * heap usage is reported at the end of the run.
+     *
+     * @param enabled
+     */
+    public void setLowMemoryEnabled(boolean enabled) {
+        lowMemoryEnabled = enabled;
+    }
+
+    /**
+     * @see #setLowMemoryEnabled(boolean)
+     */
+    public boolean isLowMemoryEnabled() {
+        if (lowMemoryEnabled == null)
+            lowMemoryEnabled = options.remove("-lowmem");
+
+        return lowMemoryEnabled;
+    }
+
     /**
      * Allow Html In Comments - encode them unless otherwise specified
      */
@@ -1752,6 +2098,18 @@ public class Config
             params.add("-rankdirbug");
         if (isRailsEnabled())
             params.add("-rails");
+        if (isJsonSplitEnabled())
+            params.add("-jsonsplit");
+        else if (isJsonEnabled())
+            params.add("-json");
+        if (isModelEnabled())
+            params.add("-model");
+        if (isClientColumnsEnabled())
+            params.add("-clientcolumns");
+        if (isJdbcMetricsEnabled())
+            params.add("-jdbcmetrics");
+        if (isLowMemoryEnabled())
+            params.add("-lowmem");
         if (isSingleSignOn())
             params.add("-sso");
         if (isSchemaDisabled())
@@ -1847,6 +2205,21 @@ public class Config
             params.add("-meta");
             params.add(value);
         }
+        value = getFromModel();
+        if (value != null) {
+            params.add("-fromModel");
+            params.add(value);
+        }
+        value = getDiffModel();
+        if (value != null) {
+            params.add("-diff");
+            params.add(value);
+        }
+        value = getProgressFile();
+        if (value != null) {
+            params.add("-progress");
+            params.add(value);
+        }
         if (getGraphvizDir() != null) {
             params.add("-gv");
             params.add(getGraphvizDir().toString());
@@ -1865,6 +2238,16 @@ public class Config
         params.add(getIndirectColumnExclusions().toString());
         params.add("-dbthreads");
         params.add(String.valueOf(getMaxDbThreads()));
+        params.add("-renderthreads");
+        params.add(String.valueOf(getMaxRenderThreads()));
+        params.add("-renderTimeout");
+        params.add(String.valueOf(getRenderTimeout()));
+        params.add("-slowRenders");
+        params.add(String.valueOf(getNumSlowRenders()));
+        params.add("-maxDiagramTables");
+        params.add(String.valueOf(getMaxDiagramTables()));
+        params.add("-maxDiagramRelationships");
+        params.add(String.valueOf(getMaxDiagramRelationships()));
         params.add("-maxdet");
         params.add(String.valueOf(getMaxDetailedTables()));
         params.add("-o");
@@ -27,6 +27,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -42,9 +43,17 @@ import net.sourceforge.schemaspy.model.RailsForeignKeyConstraint;
 import net.sourceforge.schemaspy.model.Table;
 import net.sourceforge.schemaspy.model.TableColumn;
 import net.sourceforge.schemaspy.util.Inflection;
+import net.sourceforge.schemaspy.util.PipelineEvents;
 
 public class DbAnalyzer {
     public static List<ImpliedForeignKeyConstraint> getImpliedConstraints(Collection<Table> tables) {
+        Object event = PipelineEvents.begin(PipelineEvents.Stage.IMPLIED_CONSTRAINTS);
+        List<ImpliedForeignKeyConstraint> impliedConstraints = findImpliedConstraints(tables);
+        PipelineEvents.impliedConstraintsFound(event, tables.size(), impliedConstraints.size());
+        return impliedConstraints;
+    }
+
+    private static List<ImpliedForeignKeyConstraint> findImpliedConstraints(Collection<Table> tables) {
         List<TableColumn> columnsWithoutParents = new ArrayList<TableColumn>();
         Map<TableColumn, Table> keyedTablesByPrimary = new TreeMap<TableColumn, Table>(new Comparator<TableColumn>() {
             @Override
@@ -121,6 +130,38 @@ public class DbAnalyzer {
         return impliedConstraints;
     }
 
+    /**
+     * Returns the implied constraints that already relate the specified tables,
+     * e.g. ones that were restored from a saved model.
+     *
+     * @param tables
+     * @return
+     */
+    public static List<ImpliedForeignKeyConstraint> getExistingImpliedConstraints(Collection<Table> tables) {
+        List<TableColumn> columnsWithParents = new ArrayList<TableColumn>();
+        for (Table table : tables) {
+            for (TableColumn column : table.getColumns()) {
+                if (column.isForeignKey())
+                    columnsWithParents.add(column);
+            }
+        }
+
+        // same order as getImpliedConstraints()
+        sortColumnsByTable(columnsWithParents);
+
+        Set<ForeignKeyConstraint> found = new HashSet<ForeignKeyConstraint>();
+        List<ImpliedForeignKeyConstraint> impliedConstraints = new ArrayList<ImpliedForeignKeyConstraint>();
+        for (TableColumn column : columnsWithParents) {
+            for (TableColumn parent : column.getParents()) {
+                ForeignKeyConstraint constraint = column.getParentConstraint(parent);
+                if (constraint instanceof ImpliedForeignKeyConstraint && found.add(constraint))
+                    impliedConstraints.add((ImpliedForeignKeyConstraint)constraint);
+            }
+        }
+
+        return impliedConstraints;
+    }
+
     /**
      * Ruby on Rails-based databases typically have no real referential integrity
      * constraints.  Instead they have a somewhat unusual way of associating
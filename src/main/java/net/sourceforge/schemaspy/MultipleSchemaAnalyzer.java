@@ -38,6 +38,7 @@ import java.util.regex.Pattern;
 import net.sourceforge.schemaspy.model.ProcessExecutionException;
 import net.sourceforge.schemaspy.util.LineWriter;
 import net.sourceforge.schemaspy.view.HtmlMultipleSchemasIndexPage;
+import net.sourceforge.schemaspy.view.RenderContext;
 
 /**
  * @author John Currier
@@ -110,7 +111,7 @@ public final class MultipleSchemaAnalyzer {
             System.out.print(" " + populatedSchema);
         System.out.println();
 
-        writeIndexPage(dbName, populatedSchemas, meta, outputDir, config.getCharset());
+        writeIndexPage(dbName, populatedSchemas, meta, outputDir, config);
 
         Map<String, String> env = System.getenv();
         List<String> childEnv = new ArrayList<String>();
@@ -170,10 +171,10 @@ public final class MultipleSchemaAnalyzer {
         analyze(dbName, null, null, schemas, args, config);
     }
 
-   private void writeIndexPage(String dbName, List<String> populatedSchemas, DatabaseMetaData meta, File outputDir, String charset) throws IOException {
+   private void writeIndexPage(String dbName, List<String> populatedSchemas, DatabaseMetaData meta, File outputDir, Config config) throws IOException {
         if (populatedSchemas.size() > 0) {
-            LineWriter index = new LineWriter(new File(outputDir, "index.html"), charset);
-            HtmlMultipleSchemasIndexPage.getInstance().write(dbName, populatedSchemas, meta, index);
+            LineWriter index = new LineWriter(new File(outputDir, "index.html"), config.getCharset());
+            HtmlMultipleSchemasIndexPage.getInstance().write(new RenderContext(config, null), dbName, populatedSchemas, meta, index);
             index.close();
         }
     }
@@ -34,16 +34,12 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.ConsoleHandler;
 import java.util.logging.Handler;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.TransformerException;
-
 import net.sourceforge.schemaspy.model.ConnectionFailure;
 import net.sourceforge.schemaspy.model.ConsoleProgressListener;
 import net.sourceforge.schemaspy.model.Database;
@@ -51,19 +47,27 @@ import net.sourceforge.schemaspy.model.EmptySchemaException;
 import net.sourceforge.schemaspy.model.ForeignKeyConstraint;
 import net.sourceforge.schemaspy.model.ImpliedForeignKeyConstraint;
 import net.sourceforge.schemaspy.model.InvalidConfigurationException;
+import net.sourceforge.schemaspy.model.JsonLinesProgressListener;
+import net.sourceforge.schemaspy.model.ModelDiff;
+import net.sourceforge.schemaspy.model.ModelReader;
+import net.sourceforge.schemaspy.model.ModelWriter;
 import net.sourceforge.schemaspy.model.ProgressListener;
 import net.sourceforge.schemaspy.model.Table;
 import net.sourceforge.schemaspy.model.TableColumn;
 import net.sourceforge.schemaspy.model.xml.SchemaMeta;
 import net.sourceforge.schemaspy.util.ConnectionURLBuilder;
-import net.sourceforge.schemaspy.util.DOMUtil;
 import net.sourceforge.schemaspy.util.DbSpecificOption;
 import net.sourceforge.schemaspy.util.Dot;
+import net.sourceforge.schemaspy.util.JdbcMetrics;
 import net.sourceforge.schemaspy.util.LineWriter;
 import net.sourceforge.schemaspy.util.LogFormatter;
+import net.sourceforge.schemaspy.util.PipelineEvents;
+import net.sourceforge.schemaspy.util.RenderProfile;
 import net.sourceforge.schemaspy.util.ResourceWriter;
+import net.sourceforge.schemaspy.util.WorkerPool;
 import net.sourceforge.schemaspy.view.DotFormatter;
 import net.sourceforge.schemaspy.view.HtmlAnomaliesPage;
+import net.sourceforge.schemaspy.view.HtmlChangesPage;
 import net.sourceforge.schemaspy.view.HtmlColumnsPage;
 import net.sourceforge.schemaspy.view.HtmlConstraintsPage;
 import net.sourceforge.schemaspy.view.HtmlMainIndexPage;
@@ -72,14 +76,14 @@ import net.sourceforge.schemaspy.view.HtmlRelationshipsPage;
 import net.sourceforge.schemaspy.view.HtmlRoutinesPage;
 import net.sourceforge.schemaspy.view.HtmlTablePage;
 import net.sourceforge.schemaspy.view.ImageWriter;
+import net.sourceforge.schemaspy.view.JsonTableFormatter;
+import net.sourceforge.schemaspy.view.RenderContext;
 import net.sourceforge.schemaspy.view.StyleSheet;
+import net.sourceforge.schemaspy.view.TableNeighborhoods;
 import net.sourceforge.schemaspy.view.TextFormatter;
 import net.sourceforge.schemaspy.view.WriteStats;
 import net.sourceforge.schemaspy.view.XmlTableFormatter;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-
 /**
  * @author John Currier
  */
@@ -92,11 +96,13 @@ public class SchemaAnalyzer {
     	// and not already logging fine details (to keep from obfuscating those)
         boolean render = config.isHtmlGenerationEnabled() && !fineEnabled;
         ProgressListener progressListener = new ConsoleProgressListener(render);
+        if (config.getProgressFile() != null)
+            progressListener = new JsonLinesProgressListener(progressListener, new File(config.getProgressFile()), 1000);
 
         return analyze(config, progressListener);
     }
 
-    public Database analyze(Config config, ProgressListener progressListener) throws SQLException, IOException {
+    public Database analyze(final Config config, final ProgressListener progressListener) throws SQLException, IOException {
         try {
             if (config.isHelpRequired()) {
                 config.dumpUsage(null, false);
@@ -122,7 +128,10 @@ public class SchemaAnalyzer {
             fineEnabled = logger.isLoggable(Level.FINE);
             logger.info("Starting schema analysis");
 
-            File outputDir = config.getOutputDir();
+            // don't add to the totals of a previous run in this JVM
+            RenderProfile renderProfile = RenderProfile.start(config.getNumSlowRenders());
+
+            final File outputDir = config.getOutputDir();
             if (!outputDir.isDirectory()) {
                 if (!outputDir.mkdirs()) {
                     throw new IOException("Failed to create directory '" + outputDir + "'");
@@ -143,115 +152,134 @@ public class SchemaAnalyzer {
                 return null;
             }
 
-            Properties properties = config.determineDbProperties(config.getDbType());
-
-            ConnectionURLBuilder urlBuilder = new ConnectionURLBuilder(config, properties);
-            if (config.getDb() == null)
-                config.setDb(urlBuilder.getConnectionURL());
-
-            if (config.getRemainingParameters().size() != 0) {
-                StringBuilder msg = new StringBuilder("Unrecognized option(s):");
-                for (String remnant : config.getRemainingParameters())
-                    msg.append(" " + remnant);
-                logger.warning(msg.toString());
-            }
-
-            String driverClass = properties.getProperty("driver");
-            String driverPath = properties.getProperty("driverPath");
-            if (driverPath == null)
-                driverPath = "";
-            if (config.getDriverPath() != null)
-                driverPath = config.getDriverPath() + File.pathSeparator + driverPath;
-
-            Connection connection = getConnection(config, urlBuilder.getConnectionURL(), driverClass, driverPath);
-
-            DatabaseMetaData meta = connection.getMetaData();
-            String dbName = config.getDb();
-            String schema = config.getSchema();
+            Properties properties = null;
+            ConnectionURLBuilder urlBuilder = null;
+            Connection connection = null;
+            DatabaseMetaData meta = null;
+            JdbcMetrics jdbcMetrics = null;
+            String dbName;
+            String schema;
+            final Database db;
+
+            if (config.getFromModel() != null) {
+                warnUnrecognized(config);
+
+                //
+                // render a model that was saved by a previous run
+                //
+                progressListener.startedGatheringDetails();
+                db = new ModelReader().read(config, new File(config.getFromModel()));
+                progressListener.startedConnectingTables();
+
+                dbName = db.getName();
+                schema = db.getSchema();
+
+                if (config.isHtmlGenerationEnabled()) {
+                    new File(outputDir, "tables").mkdirs();
+                    new File(outputDir, "diagrams/summary").mkdirs();
+                }
+            } else {
+                properties = config.determineDbProperties(config.getDbType());
+
+                urlBuilder = new ConnectionURLBuilder(config, properties);
+                if (config.getDb() == null)
+                    config.setDb(urlBuilder.getConnectionURL());
+
+                warnUnrecognized(config);
+
+                String driverClass = properties.getProperty("driver");
+                String driverPath = properties.getProperty("driverPath");
+                if (driverPath == null)
+                    driverPath = "";
+                if (config.getDriverPath() != null)
+                    driverPath = config.getDriverPath() + File.pathSeparator + driverPath;
+
+                connection = getConnection(config, urlBuilder.getConnectionURL(), driverClass, driverPath);
+                if (config.isJdbcMetricsEnabled()) {
+                    jdbcMetrics = new JdbcMetrics();
+                    connection = jdbcMetrics.wrap(connection);
+                    progressListener.recordingJdbcMetrics(jdbcMetrics);
+                }
 
-            if (config.isEvaluateAllEnabled()) {
-                List<String> args = config.asList();
-                for (DbSpecificOption option : urlBuilder.getOptions()) {
-                    if (!args.contains("-" + option.getName())) {
-                        args.add("-" + option.getName());
-                        args.add(option.getValue().toString());
+                meta = connection.getMetaData();
+                dbName = config.getDb();
+                schema = config.getSchema();
+
+                if (config.isEvaluateAllEnabled()) {
+                    List<String> args = config.asList();
+                    for (DbSpecificOption option : urlBuilder.getOptions()) {
+                        if (!args.contains("-" + option.getName())) {
+                            args.add("-" + option.getName());
+                            args.add(option.getValue().toString());
+                        }
                     }
-                }
 
-                String schemaSpec = config.getSchemaSpec();
-                if (schemaSpec == null)
-                    schemaSpec = properties.getProperty("schemaSpec", ".*");
-                MultipleSchemaAnalyzer.getInstance().analyze(dbName, meta, schemaSpec, null, args, config);
-                return null;    // no database to return
-            }
+                    String schemaSpec = config.getSchemaSpec();
+                    if (schemaSpec == null)
+                        schemaSpec = properties.getProperty("schemaSpec", ".*");
+                    MultipleSchemaAnalyzer.getInstance().analyze(dbName, meta, schemaSpec, null, args, config);
+                    return null;    // no database to return
+                }
 
-            String catalog = config.getCatalog();
+                String catalog = config.getCatalog();
 
-            logger.fine("supportsSchemasInTableDefinitions: " + meta.supportsSchemasInTableDefinitions());
-            logger.fine("supportsCatalogsInTableDefinitions: " + meta.supportsCatalogsInTableDefinitions());
+                logger.fine("supportsSchemasInTableDefinitions: " + meta.supportsSchemasInTableDefinitions());
+                logger.fine("supportsCatalogsInTableDefinitions: " + meta.supportsCatalogsInTableDefinitions());
 
-            if (schema == null && meta.supportsSchemasInTableDefinitions() &&
-                    !config.isSchemaDisabled()) {
-                schema = config.getUser();
-                logger.fine("schema not specified for a database that requires one.  using user: '" + schema + "'");
-                if (schema == null)
-                    throw new InvalidConfigurationException("Either a schema ('-s') or a user ('-u') must be specified");
-                config.setSchema(schema);
-            }
+                if (schema == null && meta.supportsSchemasInTableDefinitions() &&
+                        !config.isSchemaDisabled()) {
+                    schema = config.getUser();
+                    logger.fine("schema not specified for a database that requires one.  using user: '" + schema + "'");
+                    if (schema == null)
+                        throw new InvalidConfigurationException("Either a schema ('-s') or a user ('-u') must be specified");
+                    config.setSchema(schema);
+                }
 
-            if (catalog == null && schema == null &&
-                    meta.supportsCatalogsInTableDefinitions()) {
-                catalog = dbName;
-                logger.fine("catalog not specified for a database that requires one.  using dbName: '" + catalog + "'");
-                config.setCatalog(catalog);
-            }
+                if (catalog == null && schema == null &&
+                        meta.supportsCatalogsInTableDefinitions()) {
+                    catalog = dbName;
+                    logger.fine("catalog not specified for a database that requires one.  using dbName: '" + catalog + "'");
+                    config.setCatalog(catalog);
+                }
 
-            SchemaMeta schemaMeta = config.getMeta() == null ? null : new SchemaMeta(config.getMeta(), dbName, schema);
-            if (config.isHtmlGenerationEnabled()) {
-                new File(outputDir, "tables").mkdirs();
-                new File(outputDir, "diagrams/summary").mkdirs();
+                SchemaMeta schemaMeta = config.getMeta() == null ? null : new SchemaMeta(config.getMeta(), dbName, schema);
+                if (config.isHtmlGenerationEnabled()) {
+                    new File(outputDir, "tables").mkdirs();
+                    new File(outputDir, "diagrams/summary").mkdirs();
 
-                logger.info("Connected to " + meta.getDatabaseProductName() + " - " + meta.getDatabaseProductVersion());
+                    logger.info("Connected to " + meta.getDatabaseProductName() + " - " + meta.getDatabaseProductVersion());
 
-                if (schemaMeta != null && schemaMeta.getFile() != null) {
-                    logger.info("Using additional metadata from " + schemaMeta.getFile());
+                    if (schemaMeta != null && schemaMeta.getFile() != null) {
+                        logger.info("Using additional metadata from " + schemaMeta.getFile());
+                    }
                 }
+
+                //
+                // create our representation of the database
+                //
+                db = new Database(config, connection, meta, dbName, catalog, schema, schemaMeta, progressListener);
+                schemaMeta = null; // done with it so let GC reclaim it
             }
 
-            //
-            // create our representation of the database
-            //
-            Database db = new Database(config, connection, meta, dbName, catalog, schema, schemaMeta, progressListener);
+            final ModelDiff diff = config.getDiffModel() == null ? null : getDiff(config, db);
 
             long duration = progressListener.startedGraphingSummaries();
 
-            schemaMeta = null; // done with it so let GC reclaim it
-
             LineWriter out;
-            Collection<Table> tables = new ArrayList<Table>(db.getTables());
+            final Collection<Table> tables = new ArrayList<Table>(db.getTables());
             tables.addAll(db.getViews());
 
             if (tables.isEmpty()) {
-                dumpNoTablesMessage(schema, config.getUser(), meta, config.getTableInclusions() != null);
+                if (meta != null)
+                    dumpNoTablesMessage(schema, config.getUser(), meta, config.getTableInclusions() != null);
+                else
+                    System.out.println("No tables or views were found in the model saved in " + config.getFromModel());
                 if (!config.isOneOfMultipleSchemas()) // don't bail if we're doing the whole enchilada
                     throw new EmptySchemaException();
             }
 
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder builder;
-			try {
-				builder = factory.newDocumentBuilder();
-			} catch (ParserConfigurationException exc) {
-				throw new RuntimeException(exc);
-			}
-
-            Document document = builder.newDocument();
-            Element rootNode = document.createElement("database");
-            document.appendChild(rootNode);
-            DOMUtil.appendAttribute(rootNode, "name", dbName);
-            if (schema != null)
-                DOMUtil.appendAttribute(rootNode, "schema", schema);
-            DOMUtil.appendAttribute(rootNode, "type", db.getDatabaseProduct());
+            final boolean lowMemory = config.isLowMemoryEnabled();
+            boolean described = false;
 
             if (config.isHtmlGenerationEnabled()) {
                 logger.info("Gathered schema details in " + duration / 1000 + " seconds");
@@ -270,36 +298,43 @@ public class SchemaAnalyzer {
                 // based on RoR conventions
                 // note that this is done before 'hasRealRelationships' gets evaluated so
                 // we get a relationships ER diagram
-                if (config.isRailsEnabled())
+                if (config.isRailsEnabled()) {
                     DbAnalyzer.getRailsConstraints(db.getTablesByName());
+                    db.refreshRelationships();
+                }
 
-                File summaryDir = new File(outputDir, "diagrams/summary");
+                // everything that the formatters need to know about this render
+                final RenderContext context = new RenderContext(config, db);
+                final File summaryDir = new File(outputDir, "diagrams/summary");
 
                 // generate the compact form of the relationships .dot file
-                String dotBaseFilespec = "relationships";
+                final String dotBaseFilespec = "relationships";
                 out = new LineWriter(new File(summaryDir, dotBaseFilespec + ".real.compact.dot"), Config.DOT_CHARSET);
-                WriteStats stats = new WriteStats(tables);
-                DotFormatter.getInstance().writeRealRelationships(db, tables, true, showDetailedTables, stats, out);
-                boolean hasRealRelationships = stats.getNumTablesWritten() > 0 || stats.getNumViewsWritten() > 0;
+                final WriteStats stats = new WriteStats(tables);
+                DotFormatter.getInstance().writeRealRelationships(context, tables, true, showDetailedTables, stats, out);
+                final boolean hasRealRelationships = stats.getNumTablesWritten() > 0 || stats.getNumViewsWritten() > 0;
                 out.close();
 
                 if (hasRealRelationships) {
                     // real relationships exist so generate the 'big' form of the relationships .dot file
                     progressListener.graphingSummaryProgressed();
                     out = new LineWriter(new File(summaryDir, dotBaseFilespec + ".real.large.dot"), Config.DOT_CHARSET);
-                    DotFormatter.getInstance().writeRealRelationships(db, tables, false, showDetailedTables, stats, out);
+                    DotFormatter.getInstance().writeRealRelationships(context, tables, false, showDetailedTables, stats, out);
                     out.close();
                 }
 
                 // getting implied constraints has a side-effect of associating the parent/child tables, so don't do it
                 // here unless they want that behavior
-                List<ImpliedForeignKeyConstraint> impliedConstraints = null;
-                if (includeImpliedConstraints)
-                    impliedConstraints = DbAnalyzer.getImpliedConstraints(tables);
-                else
+                final List<ImpliedForeignKeyConstraint> impliedConstraints;
+                if (includeImpliedConstraints) {
+                    // a saved model already has the implied constraints of the run that saved it
+                    impliedConstraints = DbAnalyzer.getExistingImpliedConstraints(tables);
+                    impliedConstraints.addAll(DbAnalyzer.getImpliedConstraints(tables));
+                    db.refreshRelationships();
+                } else
                     impliedConstraints = new ArrayList<ImpliedForeignKeyConstraint>();
 
-                List<Table> orphans = DbAnalyzer.getOrphans(tables);
+                final List<Table> orphans = DbAnalyzer.getOrphans(tables);
                 config.setHasOrphans(!orphans.isEmpty() && Dot.getInstance().isValid());
                 config.setHasRoutines(!db.getRoutines().isEmpty());
 
@@ -307,123 +342,179 @@ public class SchemaAnalyzer {
 
                 File impliedDotFile = new File(summaryDir, dotBaseFilespec + ".implied.compact.dot");
                 out = new LineWriter(impliedDotFile, Config.DOT_CHARSET);
-                boolean hasImplied = DotFormatter.getInstance().writeAllRelationships(db, tables, true, showDetailedTables, stats, out);
+                final boolean hasImplied = DotFormatter.getInstance().writeAllRelationships(context, tables, true, showDetailedTables, stats, out);
 
-                Set<TableColumn> excludedColumns = stats.getExcludedColumns();
+                final Set<TableColumn> excludedColumns = stats.getExcludedColumns();
                 out.close();
                 if (hasImplied) {
                     impliedDotFile = new File(summaryDir, dotBaseFilespec + ".implied.large.dot");
                     out = new LineWriter(impliedDotFile, Config.DOT_CHARSET);
-                    DotFormatter.getInstance().writeAllRelationships(db, tables, false, showDetailedTables, stats, out);
+                    DotFormatter.getInstance().writeAllRelationships(context, tables, false, showDetailedTables, stats, out);
                     out.close();
                 } else {
                     impliedDotFile.delete();
                 }
 
-                out = new LineWriter(new File(outputDir, dotBaseFilespec + ".html"), config.getCharset());
-                HtmlRelationshipsPage.getInstance().write(db, summaryDir, dotBaseFilespec, hasRealRelationships, hasImplied, excludedColumns,
-                											progressListener, out);
-                out.close();
-
-                progressListener.graphingSummaryProgressed();
+                // the pages are independent of each other so let them be written concurrently
+                WorkerPool pool = new WorkerPool("PageWriter", config.getMaxRenderThreads());
+                List<WorkerPool.Task> pages = new ArrayList<WorkerPool.Task>();
+
+                pages.add(new WorkerPool.Task() {
+                    public void run() throws IOException {
+                        LineWriter out = new LineWriter(new File(outputDir, dotBaseFilespec + ".html"), config.getCharset());
+                        HtmlRelationshipsPage.getInstance().write(context, summaryDir, dotBaseFilespec, hasRealRelationships, hasImplied, excludedColumns,
+                                                                    progressListener, out);
+                        out.close();
+                        progressListener.graphingSummaryProgressed();
+                    }
+                });
 
-                dotBaseFilespec = "utilities";
-                File orphansDir = new File(outputDir, "diagrams/orphans");
+                final File orphansDir = new File(outputDir, "diagrams/orphans");
                 orphansDir.mkdirs();
-                out = new LineWriter(new File(outputDir, dotBaseFilespec + ".html"), config.getCharset());
-                HtmlOrphansPage.getInstance().write(db, orphans, orphansDir, out);
-                orphans = null;
-                out.close();
-
-                progressListener.graphingSummaryProgressed();
-
-                out = new LineWriter(new File(outputDir, "index.html"), 64 * 1024, config.getCharset());
-                HtmlMainIndexPage.getInstance().write(db, tables, db.getRemoteTables(), out);
-                out.close();
-
-                progressListener.graphingSummaryProgressed();
-
-                List<ForeignKeyConstraint> constraints = DbAnalyzer.getForeignKeyConstraints(tables);
-                out = new LineWriter(new File(outputDir, "constraints.html"), 256 * 1024, config.getCharset());
-                HtmlConstraintsPage constraintIndexFormatter = HtmlConstraintsPage.getInstance();
-                constraintIndexFormatter.write(db, constraints, tables, out);
-                out.close();
-
-                progressListener.graphingSummaryProgressed();
-
-                out = new LineWriter(new File(outputDir, "anomalies.html"), 16 * 1024, config.getCharset());
-                HtmlAnomaliesPage.getInstance().write(db, tables, impliedConstraints, out);
-                out.close();
-
-                progressListener.graphingSummaryProgressed();
+                pages.add(new WorkerPool.Task() {
+                    public void run() throws IOException {
+                        LineWriter out = new LineWriter(new File(outputDir, "utilities.html"), config.getCharset());
+                        HtmlOrphansPage.getInstance().write(context, orphans, orphansDir, out);
+                        out.close();
+                        progressListener.graphingSummaryProgressed();
+                    }
+                });
+
+                pages.add(new WorkerPool.Task() {
+                    public void run() throws IOException {
+                        LineWriter out = new LineWriter(new File(outputDir, "index.html"), 64 * 1024, config.getCharset());
+                        HtmlMainIndexPage.getInstance().write(context, tables, db.getRemoteTables(), out);
+                        out.close();
+                        progressListener.graphingSummaryProgressed();
+                    }
+                });
+
+                final List<ForeignKeyConstraint> constraints = DbAnalyzer.getForeignKeyConstraints(tables);
+                pages.add(new WorkerPool.Task() {
+                    public void run() throws IOException {
+                        LineWriter out = new LineWriter(new File(outputDir, "constraints.html"), 256 * 1024, config.getCharset());
+                        HtmlConstraintsPage.getInstance().write(context, constraints, tables, out);
+                        out.close();
+                        progressListener.graphingSummaryProgressed();
+                    }
+                });
+
+                pages.add(new WorkerPool.Task() {
+                    public void run() throws IOException {
+                        LineWriter out = new LineWriter(new File(outputDir, "anomalies.html"), 16 * 1024, config.getCharset());
+                        HtmlAnomaliesPage.getInstance().write(context, tables, impliedConstraints, out);
+                        out.close();
+                        progressListener.graphingSummaryProgressed();
+                    }
+                });
+
+                final HtmlColumnsPage.ColumnIndex columnIndex = new HtmlColumnsPage.ColumnIndex(tables);
+                if (config.isClientColumnsEnabled()) {
+                    // one page (sorted by column) that's rendered by the browser from a data file
+                    pages.add(new WorkerPool.Task() {
+                        public void run() throws IOException {
+                            LineWriter out = new LineWriter(new File(outputDir, HtmlColumnsPage.DATA_FILE), 64 * 1024, config.getCharset());
+                            HtmlColumnsPage.getInstance().writeData(context, columnIndex, out);
+                            out.close();
+
+                            HtmlColumnsPage.ColumnInfo columnInfo = HtmlColumnsPage.getInstance().getLinkedColumnInfo(context);
+                            out = new LineWriter(new File(outputDir, columnInfo.getLocation()), config.getCharset());
+                            HtmlColumnsPage.getInstance().writeClientSide(context, columnIndex, out);
+                            out.close();
+                            progressListener.graphingSummaryProgressed();
+                        }
+                    });
+                } else {
+                    Collection<HtmlColumnsPage.ColumnInfo> columnInfos = HtmlColumnsPage.getInstance().getColumnInfos(context).values();
+                    // the columns pages are one step of progress, so whichever one finishes last reports it
+                    final AtomicInteger columnsPagesLeft = new AtomicInteger(columnInfos.size());
+                    for (final HtmlColumnsPage.ColumnInfo columnInfo : columnInfos) {
+                        pages.add(new WorkerPool.Task() {
+                            public void run() throws IOException {
+                                LineWriter out = new LineWriter(new File(outputDir, columnInfo.getLocation()), 16 * 1024, config.getCharset());
+                                HtmlColumnsPage.getInstance().write(context, columnIndex, columnInfo, out);
+                                out.close();
+                                if (columnsPagesLeft.decrementAndGet() == 0)
+                                    progressListener.graphingSummaryProgressed();
+                            }
+                        });
+                    }
+                }
 
-                for (HtmlColumnsPage.ColumnInfo columnInfo : HtmlColumnsPage.getInstance().getColumnInfos().values()) {
-                    out = new LineWriter(new File(outputDir, columnInfo.getLocation()), 16 * 1024, config.getCharset());
-                    HtmlColumnsPage.getInstance().write(db, tables, columnInfo, out);
-                    out.close();
+                pages.add(new WorkerPool.Task() {
+                    public void run() throws IOException {
+                        LineWriter out = new LineWriter(new File(outputDir, "routines.html"), 16 * 1024, config.getCharset());
+                        HtmlRoutinesPage.getInstance().write(context, out);
+                        out.close();
+                    }
+                });
+
+                if (diff != null) {
+                    pages.add(new WorkerPool.Task() {
+                        public void run() throws IOException {
+                            LineWriter out = new LineWriter(new File(outputDir, "changes.html"), 16 * 1024, config.getCharset());
+                            HtmlChangesPage.getInstance().write(context, diff, out);
+                            out.close();
+                        }
+                    });
                 }
 
-                progressListener.graphingSummaryProgressed();
+                pool.run(pages);
 
-                out = new LineWriter(new File(outputDir, "routines.html"), 16 * 1024, config.getCharset());
-                HtmlRoutinesPage.getInstance().write(db, out);
-                out.close();
+                // the table pages release the details that only they need as they're written,
+                // so describe everything while we still have them
+                if (lowMemory) {
+                    writeDescriptions(config, outputDir, dbName, schema, db, tables, diff);
+                    described = true;
+                }
 
                 // create detailed diagrams
 
                 duration = progressListener.startedGraphingDetails();
+                progressListener.expectingTables(tables.size());
 
                 logger.info("Completed summary in " + duration / 1000 + " seconds");
                 logger.info("Writing/diagramming details");
 
-                HtmlTablePage tableFormatter = HtmlTablePage.getInstance();
-                for (Table table : tables) {
-                	progressListener.graphingDetailsProgressed(table);
-                    if (fineEnabled)
-                        logger.fine("Writing details of " + table.getName());
-
-                    out = new LineWriter(new File(outputDir, "tables/" + table.getName() + ".html"), 24 * 1024, config.getCharset());
-                    tableFormatter.write(db, table, outputDir, stats, out);
-                    out.close();
+                final TableNeighborhoods neighborhoods = new TableNeighborhoods(db.getRelationships(), config.getMaxRenderThreads());
+                final HtmlTablePage tableFormatter = HtmlTablePage.getInstance();
+                pages = new ArrayList<WorkerPool.Task>(tables.size());
+                for (final Table table : tables) {
+                    pages.add(new WorkerPool.Task() {
+                        public void run() throws IOException {
+                            progressListener.graphingDetailsProgressed(table);
+                            if (fineEnabled)
+                                logger.fine("Writing details of " + table.getName());
+
+                            Object event = PipelineEvents.begin(PipelineEvents.Stage.PAGE_WRITTEN);
+                            String page = "tables/" + table.getName() + ".html";
+                            LineWriter out = new LineWriter(new File(outputDir, page), 24 * 1024, config.getCharset());
+                            tableFormatter.write(context, table, neighborhoods, outputDir, stats, out);
+                            out.close();
+                            if (lowMemory)
+                                table.releaseDetails();
+                            if (event != null)
+                                PipelineEvents.pageWritten(event, page, table.getName(), table.getColumns().size());
+                        }
+                    });
                 }
 
+                pool.run(pages);
+                pages = null;
+
                 out = new LineWriter(new File(outputDir, "schemaSpy.css"), config.getCharset());
                 StyleSheet.getInstance().write(out);
                 out.close();
             }
 
-            XmlTableFormatter.getInstance().appendTables(rootNode, tables);
-
-            String xmlName = dbName;
-
-            // some dbNames have path info in the name...strip it
-            xmlName = new File(xmlName).getName();
-
-            // some dbNames include jdbc driver details including :'s and @'s
-            String[] unusables = xmlName.split("[:@]");
-            xmlName = unusables[unusables.length - 1];
-
-            if (schema != null)
-                xmlName += '.' + schema;
-
-            out = new LineWriter(new File(outputDir, xmlName + ".xml"), Config.DOT_CHARSET);
-            document.getDocumentElement().normalize();
-            try {
-				DOMUtil.printDOM(document, out);
-			} catch (TransformerException exc) {
-				throw new IOException(exc);
-			}
-            out.close();
+            if (!described)
+                writeDescriptions(config, outputDir, dbName, schema, db, tables, diff);
 
             // 'try' to make some memory available for the sorting process
             // (some people have run out of memory while RI sorting tables)
-            builder = null;
             connection = null;
-            document = null;
-            factory = null;
             meta = null;
             properties = null;
-            rootNode = null;
             urlBuilder = null;
 
             List<ForeignKeyConstraint> recursiveConstraints = new ArrayList<ForeignKeyConstraint>();
@@ -447,6 +538,11 @@ public class SchemaAnalyzer {
             duration = progressListener.finishedGatheringDetails();
             long overallDuration = progressListener.finished(tables, config);
 
+            if (jdbcMetrics != null)
+                jdbcMetrics.write(new File(outputDir, "jdbcMetrics.json"));
+            if (renderProfile.getNumRenders() > 0)
+                renderProfile.write(new File(outputDir, "renderProfile.json"));
+
             if (config.isHtmlGenerationEnabled()) {
                 logger.info("Wrote table details in " + duration / 1000 + " seconds");
 
@@ -463,6 +559,86 @@ public class SchemaAnalyzer {
         }
     }
 
+    /**
+     * Write the .xml (and optionally .json, .diff.json and .model) descriptions of the schema.
+     * Called once all of the relationships (Rails, implied, etc.) have been added
+     * but before the tables are ordered (which trashes them).
+     */
+    private void writeDescriptions(Config config, File outputDir, String dbName, String schema, Database db, Collection<Table> tables, ModelDiff diff) throws IOException {
+        String xmlName = getXmlName(dbName, schema);
+
+        LineWriter out = new LineWriter(new File(outputDir, xmlName + ".xml"), Config.DOT_CHARSET);
+        XmlTableFormatter.getInstance().write(dbName, schema, db.getDatabaseProduct(), tables, out);
+        out.close();
+
+        if (config.isJsonEnabled()) {
+            File jsonDir = null;
+            if (config.isJsonSplitEnabled()) {
+                jsonDir = new File(outputDir, "json");
+                jsonDir.mkdirs();
+            }
+            out = new LineWriter(new File(outputDir, xmlName + ".json"), 64 * 1024, Config.DOT_CHARSET);
+            JsonTableFormatter.getInstance().write(db, tables, jsonDir, out);
+            out.close();
+        }
+
+        if (diff != null) {
+            out = new LineWriter(new File(outputDir, xmlName + ".diff.json"), 16 * 1024, Config.DOT_CHARSET);
+            JsonTableFormatter.getInstance().write(diff, out);
+            out.close();
+        }
+
+        if (config.isModelEnabled())
+            new ModelWriter().write(db, new File(outputDir, xmlName + ".model"));
+    }
+
+    /**
+     * Returns the base name of the .xml/.json/.model files that describe
+     * the specified schema
+     *
+     * @param dbName
+     * @param schema
+     * @return
+     */
+    private static String getXmlName(String dbName, String schema) {
+        String xmlName = dbName;
+
+        // some dbNames have path info in the name...strip it
+        xmlName = new File(xmlName).getName();
+
+        // some dbNames include jdbc driver details including :'s and @'s
+        String[] unusables = xmlName.split("[:@]");
+        xmlName = unusables[unusables.length - 1];
+
+        if (schema != null)
+            xmlName += '.' + schema;
+
+        return xmlName;
+    }
+
+    /**
+     * Compare the database to the snapshot specified by {@link Config#getDiffModel()}
+     */
+    private ModelDiff getDiff(Config config, Database db) throws IOException {
+        // don't let the previous snapshot's description replace ours
+        String description = config.getDescription();
+        Database previous = new ModelReader().read(config, new File(config.getDiffModel()));
+        config.setDescription(description);
+
+        ModelDiff diff = new ModelDiff(previous, db);
+        logger.info("Found " + diff.getChanges().size() + " changes since " + previous.getConnectTime());
+        return diff;
+    }
+
+    private void warnUnrecognized(Config config) {
+        if (config.getRemainingParameters().size() != 0) {
+            StringBuilder msg = new StringBuilder("Unrecognized option(s):");
+            for (String remnant : config.getRemainingParameters())
+                msg.append(" " + remnant);
+            logger.warning(msg.toString());
+        }
+    }
+
     /**
      * dumpNoDataMessage
      *
@@ -27,6 +27,7 @@ import java.util.Set;
 import java.util.TreeSet;
 import net.sourceforge.schemaspy.model.ForeignKeyConstraint;
 import net.sourceforge.schemaspy.model.Table;
+import net.sourceforge.schemaspy.util.PipelineEvents;
 
 /**
  * Sorts {@link Table}s by their referential integrity constraints.
@@ -46,6 +47,14 @@ public class TableOrderer {
      * @return
      */
     public List<Table> getTablesOrderedByRI(Collection<Table> tables, Collection<ForeignKeyConstraint> recursiveConstraints) {
+        Object event = PipelineEvents.begin(PipelineEvents.Stage.TABLES_ORDERED);
+        int numRecursive = recursiveConstraints.size();
+        List<Table> ordered = orderByRI(tables, recursiveConstraints);
+        PipelineEvents.tablesOrdered(event, tables.size(), recursiveConstraints.size() - numRecursive);
+        return ordered;
+    }
+
+    private List<Table> orderByRI(Collection<Table> tables, Collection<ForeignKeyConstraint> recursiveConstraints) {
         List<Table> heads = new ArrayList<Table>();
         List<Table> tails = new ArrayList<Table>();
         List<Table> remainingTables = new ArrayList<Table>(tables);
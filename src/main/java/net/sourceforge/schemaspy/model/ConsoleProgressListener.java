@@ -20,8 +20,12 @@ package net.sourceforge.schemaspy.model;
 
 import java.io.File;
 import java.util.Collection;
+import java.util.List;
 
 import net.sourceforge.schemaspy.Config;
+import net.sourceforge.schemaspy.util.JdbcMetrics;
+import net.sourceforge.schemaspy.util.PeakHeap;
+import net.sourceforge.schemaspy.util.RenderProfile;
 
 /**
  * Implementation of {@link ProgressListener} that sends its output to the console.
@@ -36,16 +40,25 @@ public class ConsoleProgressListener implements ProgressListener {
 	private long startedGraphingSummariesAt;
 	private long startedGraphingDetailsAt;
 	private long finishedAt;
+	private JdbcMetrics metrics;
+	private volatile PhaseProgress phase = new PhaseProgress("connecting");
 
     public ConsoleProgressListener(boolean render) {
     	this.render = render;
     	startedAt = System.currentTimeMillis();
 	}
 
+	@Override
+	public void recordingJdbcMetrics(JdbcMetrics metrics) {
+		this.metrics = metrics;
+	}
+
 	@Override
 	public long startedGatheringDetails() {
         startedGatheringAt = System.currentTimeMillis();
-        long duration = startedAt - startedGatheringAt;
+        long duration = startedGatheringAt - startedAt;
+        recordPhase("connecting", duration);
+        phase = new PhaseProgress("gatheringDetails");
 
         if (render) {
 			System.out.print("Gathering schema details...");
@@ -56,6 +69,7 @@ public class ConsoleProgressListener implements ProgressListener {
 
 	@Override
 	public void gatheringDetailsProgressed(Table table) {
+		phase.progressed();
 		if (render) {
 			System.out.print('.');
 		}
@@ -65,11 +79,14 @@ public class ConsoleProgressListener implements ProgressListener {
 	public long startedConnectingTables() {
         startedConnectingAt = System.currentTimeMillis();
         long duration = startedConnectingAt - startedGatheringAt;
+        recordPhase("gatheringDetails", duration);
+        String rate = getRate();
+        phase = new PhaseProgress("connectingTables");
 
         if (render) {
 	        System.err.flush();
 	        System.out.flush();
-	        System.out.println("(" + duration / 1000 + "sec)");
+	        System.out.println("(" + duration / 1000 + "sec" + rate + ")");
 	        System.out.print("Connecting relationships...");
         }
 
@@ -78,6 +95,7 @@ public class ConsoleProgressListener implements ProgressListener {
 
 	@Override
 	public void connectingTablesProgressed(Table table) {
+		phase.progressed();
 		if (render) {
 			System.out.print('.');
 		}
@@ -87,11 +105,14 @@ public class ConsoleProgressListener implements ProgressListener {
 	public long startedGraphingSummaries() {
         startedGraphingSummariesAt = System.currentTimeMillis();
         long duration = startedGraphingSummariesAt - startedConnectingAt;
+        recordPhase("connectingTables", duration);
+        String rate = getRate();
+        phase = new PhaseProgress("graphingSummaries");
 
         if (render) {
 	        System.err.flush();
 	        System.out.flush();
-	        System.out.println("(" + duration / 1000 + "sec)");
+	        System.out.println("(" + duration / 1000 + "sec" + rate + ")");
 	        System.out.print("Writing/graphing summary");
 			System.out.print('.');
         }
@@ -101,6 +122,7 @@ public class ConsoleProgressListener implements ProgressListener {
 
 	@Override
 	public void graphingSummaryProgressed() {
+		phase.progressed();
 		if (render) {
 			System.out.print('.');
 		}
@@ -110,6 +132,8 @@ public class ConsoleProgressListener implements ProgressListener {
 	public long startedGraphingDetails() {
 		startedGraphingDetailsAt = System.currentTimeMillis();
 		long duration = startedGraphingDetailsAt - startedGraphingSummariesAt;
+		recordPhase("graphingSummaries", duration);
+		phase = new PhaseProgress("graphingDetails");
 
 		if (render) {
 	        System.err.flush();
@@ -123,6 +147,7 @@ public class ConsoleProgressListener implements ProgressListener {
 
 	@Override
 	public void graphingDetailsProgressed(Table table) {
+		phase.progressed();
 		if (render) {
 			System.out.print('.');
 		}
@@ -132,11 +157,13 @@ public class ConsoleProgressListener implements ProgressListener {
 	public long finishedGatheringDetails() {
 		finishedAt = System.currentTimeMillis();
 		long duration = finishedAt - startedGraphingDetailsAt;
+		recordPhase("graphingDetails", duration);
+		String rate = getRate();
 
 		if (render) {
 	        System.err.flush();
 	        System.out.flush();
-            System.out.println("(" + duration / 1000 + "sec)");
+            System.out.println("(" + duration / 1000 + "sec" + rate + ")");
 		}
 
 		return duration;
@@ -146,17 +173,55 @@ public class ConsoleProgressListener implements ProgressListener {
 	public long finished(Collection<Table> tables, Config config) {
 		finishedAt = System.currentTimeMillis();
 		long duration = finishedAt - startedAt;
+		recordPhase("overall", duration);
 
 		if (render) {
 	        System.err.flush();
 	        System.out.flush();
+	        if (metrics != null) {
+	        	System.out.println("Made " + metrics.getNumCalls() + " JDBC calls that read " + metrics.getRowsRead() + " rows in " + metrics.getTotalMillis() / 1000 + " seconds, the slowest of which were:");
+	        	List<JdbcMetrics.Call> calls = metrics.getCalls();
+	        	for (JdbcMetrics.Call call : calls.subList(0, Math.min(5, calls.size())))
+	        		System.out.println("  " + call);
+	        }
+	        RenderProfile renders = RenderProfile.getInstance();
+	        if (renders.getNumRenders() > 0 && !renders.getSlowest().isEmpty()) {
+	        	System.out.print("Rendered " + renders.getNumRenders() + " diagrams in " + renders.getTotalMillis() / 1000 + " seconds");
+	        	if (renders.getNumTimedOut() > 0)
+	        		System.out.print(" (" + renders.getNumTimedOut() + " timed out)");
+	        	System.out.println(", the slowest of which were:");
+	        	for (RenderProfile.Render render : renders.getSlowest())
+	        		System.out.println("  " + render);
+	        }
             System.out.println("Wrote relationship details of " + tables.size() + " tables/views to directory '" + config.getOutputDir() + "' in " + duration / 1000 + " seconds.");
+            if (config.isLowMemoryEnabled())
+            	System.out.println("Peak heap usage was " + PeakHeap.getMegabytes() + "MB of a maximum of " + Runtime.getRuntime().maxMemory() / (1024 * 1024) + "MB.");
             System.out.println("View the results by opening " + new File(config.getOutputDir(), "index.html"));
 		}
 
 		return duration;
 	}
 
+	@Override
+	public void expectingTables(int count) {
+		phase.expect(count);
+	}
+
+	/**
+	 * Returns the rate at which the current phase processed its tables, if it knew how many to expect
+	 */
+	private String getRate() {
+		PhaseProgress current = phase;
+		if (current.getExpected() == 0)
+			return "";
+		return String.format(", %.1f tables/sec", Double.valueOf(current.getRate()));
+	}
+
+	private void recordPhase(String phaseName, long duration) {
+		if (metrics != null)
+			metrics.recordPhase(phaseName, duration);
+	}
+
 	@Override
 	public String recoverableExceptionEncountered(String msg, Exception exc, String sql) {
         System.out.println();
@@ -34,6 +34,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.MissingResourceException;
+import java.util.Properties;
 import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.logging.Level;
@@ -44,7 +45,10 @@ import java.util.regex.Pattern;
 import net.sourceforge.schemaspy.Config;
 import net.sourceforge.schemaspy.model.xml.SchemaMeta;
 import net.sourceforge.schemaspy.model.xml.TableMeta;
+import net.sourceforge.schemaspy.model.xml.TableMetaHandler;
 import net.sourceforge.schemaspy.util.CaseInsensitiveMap;
+import net.sourceforge.schemaspy.util.JdbcMetrics;
+import net.sourceforge.schemaspy.util.PipelineEvents;
 
 public class Database {
     private final Config config;
@@ -56,11 +60,15 @@ public class Database {
     private final Map<String, Table> remoteTables = new CaseInsensitiveMap<Table>(); // key: schema.tableName
     private final Map<String, Table> locals = new CombinedMap(tables, views);
     private final Map<String, Routine> routines = new CaseInsensitiveMap<Routine>();
+    private RelationshipGraph relationships;
     private final DatabaseMetaData meta;
     private final Connection connection;
-    private final String connectTime = new SimpleDateFormat("EEE MMM dd HH:mm z yyyy").format(new Date());
+    private final String connectTime;
+    private final String databaseProduct;     // only when restored from a saved model
+    private String[] driverKeywords;
     private Set<String> sqlKeywords;
     private Pattern invalidIdentifierPattern;
+    private Map<String, String> queryNames;   // dbTypes property names by their SQL
     private final Logger logger = Logger.getLogger(getClass().getName());
     private final boolean fineEnabled = logger.isLoggable(Level.FINE);
 	private final ProgressListener listener;
@@ -74,6 +82,8 @@ public class Database {
         this.catalog = catalog;
         this.schema = schema;
         this.listener = progressListener;
+        this.connectTime = new SimpleDateFormat("EEE MMM dd HH:mm z yyyy").format(new Date());
+        this.databaseProduct = null;
 
         logger.info("Gathering schema details");
 
@@ -97,12 +107,49 @@ public class Database {
 
         connectTables();
         updateFromXmlMetadata(schemaMeta);
+        refreshRelationships();
+    }
+
+    /**
+     * Create a database whose contents are restored from a saved model
+     * by {@link ModelReader} instead of being gathered from a live connection.
+     *
+     * @param config
+     * @param name
+     * @param catalog
+     * @param schema
+     * @param databaseProduct
+     * @param connectTime when the model was originally gathered
+     * @param driverKeywords see {@link #getDriverKeywords()}
+     */
+    Database(Config config, String name, String catalog, String schema,
+                String databaseProduct, String connectTime, String[] driverKeywords) {
+        this.config = config;
+        this.connection = null;
+        this.meta = null;
+        this.databaseName = name;
+        this.catalog = catalog;
+        this.schema = schema;
+        this.listener = null;
+        this.connectTime = connectTime;
+        this.databaseProduct = databaseProduct;
+        this.driverKeywords = driverKeywords;
     }
 
     public String getName() {
         return databaseName;
     }
 
+    /**
+     * Returns <code>true</code> if this database was restored from a saved
+     * model and therefore has no connection to query.
+     *
+     * @return
+     */
+    public boolean isOffline() {
+        return meta == null;
+    }
+
     public String getCatalog() {
         return catalog;
     }
@@ -137,10 +184,43 @@ public class Database {
         return views.values();
     }
 
+    /**
+     * Return a read-only {@link Map} of all {@link Table}s and {@link View}s
+     * keyed by their name.
+     *
+     * @return
+     */
+    public Map<String, Table> getLocalsByName() {
+        return locals;
+    }
+
     public Collection<Table> getRemoteTables() {
         return remoteTables.values();
     }
 
+    /**
+     * Returns a snapshot of the relationships between all of the tables, views
+     * and remote tables as of the last time they were {@link #refreshRelationships() refreshed}.
+     *
+     * @return
+     */
+    public RelationshipGraph getRelationships() {
+        return relationships;
+    }
+
+    /**
+     * Rebuild the {@link RelationshipGraph} to reflect relationships that
+     * have been added (implied, Rails-based, etc.) since it was last built.
+     *
+     * @return
+     */
+    public RelationshipGraph refreshRelationships() {
+        List<Table> all = new ArrayList<Table>(locals.values());
+        all.addAll(remoteTables.values());
+        relationships = new RelationshipGraph(all);
+        return relationships;
+    }
+
     public Collection<Routine> getRoutines() {
         return routines.values();
     }
@@ -158,6 +238,9 @@ public class Database {
     }
 
     public String getDatabaseProduct() {
+        if (isOffline())
+            return databaseProduct;
+
         try {
             return meta.getDatabaseProductName() + " - " + meta.getDatabaseProductVersion();
         } catch (SQLException exc) {
@@ -249,7 +332,12 @@ public class Database {
 
         String[] types = getTypes("tableTypes", "TABLE");
         NameValidator validator = new NameValidator("table", include, exclude, types);
-        List<BasicTableMeta> entries = getBasicTableMeta(metadata, true, types);
+        List<BasicTableMeta> entries = new ArrayList<BasicTableMeta>();
+        for (BasicTableMeta entry : getBasicTableMeta(metadata, true, types)) {
+            if (validator.isValid(entry.name, entry.type))
+                entries.add(entry);
+        }
+        listener.expectingTables(entries.size());
 
         TableCreator creator;
         if (maxThreads == 1) {
@@ -263,21 +351,13 @@ public class Database {
 
             // "prime the pump" so if there's a database problem we'll probably see it now
             // and not in a secondary thread
-            while (!entries.isEmpty()) {
-                BasicTableMeta entry = entries.remove(0);
-
-                if (validator.isValid(entry.name, entry.type)) {
-                    new TableCreator().create(entry);
-                    break;
-                }
-            }
+            if (!entries.isEmpty())
+                new TableCreator().create(entries.remove(0));
         }
 
         // kick off the secondary threads to do the creation in parallel
         for (BasicTableMeta entry : entries) {
-            if (validator.isValid(entry.name, entry.type)) {
-                creator.create(entry);
-            }
+            creator.create(entry);
         }
 
         // wait for everyone to finish
@@ -297,16 +377,24 @@ public class Database {
         String[] types = getTypes("viewTypes", "VIEW");
         NameValidator validator = new NameValidator("view", includeTables, excludeTables, types);
 
+        List<BasicTableMeta> entries = new ArrayList<BasicTableMeta>();
         for (BasicTableMeta entry : getBasicTableMeta(metadata, false, types)) {
-            if (validator.isValid(entry.name, entry.type)) {
-                View view = new View(this, entry.catalog, entry.schema, entry.name,
-                                    entry.remarks, entry.viewSql);
-                views.put(view.getName(), view);
-                listener.gatheringDetailsProgressed(view);
+            if (validator.isValid(entry.name, entry.type))
+                entries.add(entry);
+        }
+        listener.expectingTables(entries.size());
 
-                if (fineEnabled) {
-                    logger.fine("Found details of view " + view.getName());
-                }
+        for (BasicTableMeta entry : entries) {
+            Object event = PipelineEvents.begin(PipelineEvents.Stage.TABLE_GATHERED);
+            View view = new View(this, entry.catalog, entry.schema, entry.name,
+                                entry.remarks, entry.viewSql);
+            views.put(view.getName(), view);
+            if (event != null)
+                PipelineEvents.tableGathered(event, view.getName(), true, view.getColumns().size(), view.getIndexes().size(), -1);
+            listener.gatheringDetailsProgressed(view);
+
+            if (fineEnabled) {
+                logger.fine("Found details of view " + view.getName());
             }
         }
     }
@@ -857,6 +945,9 @@ public class Database {
         if (fineEnabled)
             logger.fine(sqlBuf + " " + sqlParams);
         PreparedStatement stmt = getConnection().prepareStatement(sqlBuf.toString());
+        String queryName = getQueryName(sql);
+        if (queryName != null)
+            JdbcMetrics.setQueryName(stmt, queryName);
 
         try {
             for (int i = 0; i < sqlParams.size(); ++i) {
@@ -892,6 +983,51 @@ public class Database {
         return remoteTable;
     }
 
+    /**
+     * Returns the database-specific keywords and function names reported by
+     * its driver, each as a comma-separated list: SQL keywords followed by
+     * system, numeric, string and time/date functions.
+     *
+     * @return
+     * @throws SQLException
+     */
+    public String[] getDriverKeywords() throws SQLException {
+        if (driverKeywords == null) {
+            driverKeywords = new String[] {
+                meta.getSQLKeywords(),
+                meta.getSystemFunctions(),
+                meta.getNumericFunctions(),
+                meta.getStringFunctions(),
+                meta.getTimeDateFunctions()
+            };
+        }
+
+        return driverKeywords;
+    }
+
+    /**
+     * Add a table, view or remote table that was restored from a saved model
+     *
+     * @param table
+     */
+    void addRestoredTable(Table table) {
+        if (table.isRemote())
+            remoteTables.put(getRemoteTableKey(table.getCatalog(), table.getSchema(), table.getName()), table);
+        else if (table.isView())
+            views.put(table.getName(), (View)table);
+        else
+            tables.put(table.getName(), table);
+    }
+
+    /**
+     * Add a routine that was restored from a saved model
+     *
+     * @param routine
+     */
+    void addRestoredRoutine(Routine routine) {
+        routines.put(routine.getName(), routine);
+    }
+
     /**
      * Return an uppercased <code>Set</code> of all SQL keywords used by a database
      *
@@ -965,7 +1101,7 @@ public class Database {
                 "| YEAR" +
                 "| ZONE").split("[| ]+");
 
-            String[] nonSql92Keywords = getMetaData().getSQLKeywords().toUpperCase().split(",\\s*");
+            String[] nonSql92Keywords = getDriverKeywords()[0].toUpperCase().split(",\\s*");
 
             sqlKeywords = new HashSet<String>() {
                 private static final long serialVersionUID = 1L;
@@ -1028,6 +1164,26 @@ public class Database {
         return invalidIdentifierPattern;
     }
 
+    /**
+     * Returns the name of the dbTypes property that <code>sql</code> came from
+     * (e.g. <code>selectIndexesSql</code>) or <code>null</code> if it didn't come from one.
+     *
+     * @param sql
+     * @return
+     */
+    private synchronized String getQueryName(String sql) {
+        if (queryNames == null) {
+            queryNames = new HashMap<String, String>();
+            Properties properties = config.getDbProperties();
+            for (String name : properties.stringPropertyNames()) {
+                if (name.endsWith("Sql"))
+                    queryNames.put(properties.getProperty(name), name);
+            }
+        }
+
+        return queryNames.get(sql);
+    }
+
     /**
      * Replaces named parameters in <code>sql</code> with question marks and
      * returns appropriate matching values in the returned <code>List</code> of <code>String</code>s.
@@ -1074,35 +1230,41 @@ public class Database {
      */
     private void updateFromXmlMetadata(SchemaMeta schemaMeta) throws SQLException {
         if (schemaMeta != null) {
-            config.setDescription(schemaMeta.getComments());
-
-            // done in three passes:
-            // 1: create any new tables
-            // 2: add/mod columns
-            // 3: connect
+            // done in two passes:
+            // 1: create any new tables and add/mod their columns as they're read
+            // 2: connect
+            // only the tables that reference other tables are retained for the second pass
+            final List<TableMeta> connectable = new ArrayList<TableMeta>();
 
             // add the newly defined tables and columns first
-            for (TableMeta tableMeta : schemaMeta.getTables()) {
-                Table table;
+            schemaMeta.read(new TableMetaHandler() {
+                public void tableRead(TableMeta tableMeta) throws SQLException {
+                    Table table;
+
+                    if (tableMeta.getRemoteSchema() != null || tableMeta.getRemoteCatalog() != null) {
+                        // will add it if it doesn't already exist
+                        table = addRemoteTable(tableMeta.getRemoteCatalog(), tableMeta.getRemoteSchema(), tableMeta.getName(), getSchema(), true);
+                    } else {
+                        table = locals.get(tableMeta.getName());
+
+                        if (table == null) {
+                            // new table defined only in XML metadata
+                            table = new LogicalTable(Database.this, getCatalog(), getSchema(), tableMeta.getName(), tableMeta.getComments());
+                            tables.put(table.getName(), table);
+                        }
+                    }
 
-                if (tableMeta.getRemoteSchema() != null || tableMeta.getRemoteCatalog() != null) {
-                    // will add it if it doesn't already exist
-                    table = addRemoteTable(tableMeta.getRemoteCatalog(), tableMeta.getRemoteSchema(), tableMeta.getName(), getSchema(), true);
-                } else {
-                    table = locals.get(tableMeta.getName());
+                    table.update(tableMeta);
 
-                    if (table == null) {
-                        // new table defined only in XML metadata
-                        table = new LogicalTable(this, getCatalog(), getSchema(), tableMeta.getName(), tableMeta.getComments());
-                        tables.put(table.getName(), table);
-                    }
+                    if (tableMeta.hasForeignKeys())
+                        connectable.add(tableMeta);
                 }
+            });
 
-                table.update(tableMeta);
-            }
+            config.setDescription(schemaMeta.getComments());
 
             // then tie the tables together
-            for (TableMeta tableMeta : schemaMeta.getTables()) {
+            for (TableMeta tableMeta : connectable) {
                 Table table;
 
                 if (tableMeta.getRemoteCatalog() != null || tableMeta.getRemoteSchema() != null) {
@@ -1117,16 +1279,24 @@ public class Database {
     }
 
     private void connectTables() throws SQLException {
+        listener.expectingTables(tables.size() + views.size());
+
         for (Table table : tables.values()) {
             listener.connectingTablesProgressed(table);
 
+            Object event = PipelineEvents.begin(PipelineEvents.Stage.FOREIGN_KEYS_CONNECTED);
             table.connectForeignKeys(locals);
+            if (event != null)
+                PipelineEvents.foreignKeysConnected(event, table.getName(), table.getForeignKeys().size());
         }
 
         for (Table view : views.values()) {
             listener.connectingTablesProgressed(view);
 
+            Object event = PipelineEvents.begin(PipelineEvents.Stage.FOREIGN_KEYS_CONNECTED);
             view.connectForeignKeys(locals);
+            if (event != null)
+                PipelineEvents.foreignKeysConnected(event, view.getName(), view.getForeignKeys().size());
         }
     }
 
@@ -1155,10 +1325,13 @@ public class Database {
         }
 
         protected void createImpl(BasicTableMeta tableMeta) throws SQLException {
+            Object event = PipelineEvents.begin(PipelineEvents.Stage.TABLE_GATHERED);
             Table table = new Table(Database.this, tableMeta.catalog, tableMeta.schema, tableMeta.name, tableMeta.remarks);
             if (tableMeta.numRows != -1) {
                 table.setNumRows(tableMeta.numRows);
             }
+            if (event != null)
+                PipelineEvents.tableGathered(event, table.getName(), false, table.getColumns().size(), table.getIndexes().size(), tableMeta.numRows);
 
             synchronized (tables) {
                 tables.put(table.getName(), table);
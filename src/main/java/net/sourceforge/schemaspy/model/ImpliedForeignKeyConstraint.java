@@ -18,6 +18,8 @@
  */
 package net.sourceforge.schemaspy.model;
 
+import static java.sql.DatabaseMetaData.importedKeyNoAction;
+
 public class ImpliedForeignKeyConstraint extends ForeignKeyConstraint {
     /**
      * @param parentColumn
@@ -27,6 +29,16 @@ public class ImpliedForeignKeyConstraint extends ForeignKeyConstraint {
         super(parentColumn, childColumn);
     }
 
+    /**
+     * An implied constraint that's been restored from a saved model.
+     * Relationship details will be added later.
+     *
+     * @param child
+     */
+    ImpliedForeignKeyConstraint(Table child) {
+        super(child, null, importedKeyNoAction, importedKeyNoAction);
+    }
+
     /**
      * @return
      */
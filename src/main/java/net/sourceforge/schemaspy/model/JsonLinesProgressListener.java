@@ -0,0 +1,222 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.sourceforge.net).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.sourceforge.schemaspy.model;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.logging.Logger;
+
+import net.sourceforge.schemaspy.Config;
+import net.sourceforge.schemaspy.util.JdbcMetrics;
+import net.sourceforge.schemaspy.util.JsonWriter;
+import net.sourceforge.schemaspy.util.LineWriter;
+import net.sourceforge.schemaspy.util.PeakHeap;
+
+/**
+ * Implementation of {@link ProgressListener} that appends machine-readable
+ * progress to a file as JSON lines (one object per line) before passing
+ * everything on to another listener.
+ * <p>
+ * A <code>"phase"</code> line is written as each phase starts and a
+ * <code>"progress"</code> line every <code>interval</code> milliseconds
+ * in between, whether or not anything has progressed, e.g.:
+ * <pre>
+ * {"time":1700000000000,"event":"progress","phase":"gatheringDetails","elapsedMs":5012,"completed":180,"expected":500,"queued":320,"perSecond":35.9,"etaMs":8910,"sinceProgressMs":40}
+ * </pre>
+ * so whatever is watching the file can tell how far along the run is,
+ * when it'll probably finish and (from <code>sinceProgressMs</code>)
+ * whether it's stalled.
+ * <code>expected</code>, <code>queued</code> and <code>etaMs</code> are only
+ * meaningful for the phases that know their totals up front (gathering details,
+ * connecting tables and graphing details); <code>etaMs</code> is -1 when unknown.
+ * The run ends with a <code>"finished"</code> line that includes the peak heap usage.
+ * </p>
+ */
+public class JsonLinesProgressListener implements ProgressListener {
+    private final ProgressListener delegate;
+    private final LineWriter out;
+    private final Timer timer;
+    private final long startedAt = System.currentTimeMillis();
+    private volatile PhaseProgress phase = new PhaseProgress("connecting");
+    private boolean closed;
+    private final Logger logger = Logger.getLogger(getClass().getName());
+
+    /**
+     * @param delegate listener that everything is passed on to
+     * @param file file to append the progress to
+     * @param interval milliseconds between <code>"progress"</code> lines
+     * @throws IOException
+     */
+    public JsonLinesProgressListener(ProgressListener delegate, File file, long interval) throws IOException {
+        this.delegate = delegate;
+        out = new LineWriter(new FileOutputStream(file, true), Config.DOT_CHARSET);
+        writePhase();
+
+        timer = new Timer("progress", true);
+        timer.schedule(new TimerTask() {
+            @Override
+            public void run() {
+                write("progress", phase);
+            }
+        }, interval, interval);
+    }
+
+    public void recordingJdbcMetrics(JdbcMetrics metrics) {
+        delegate.recordingJdbcMetrics(metrics);
+    }
+
+    public long startedGatheringDetails() {
+        startPhase("gatheringDetails");
+        return delegate.startedGatheringDetails();
+    }
+
+    public void gatheringDetailsProgressed(Table table) {
+        phase.progressed();
+        delegate.gatheringDetailsProgressed(table);
+    }
+
+    public void expectingTables(int count) {
+        phase.expect(count);
+        delegate.expectingTables(count);
+    }
+
+    public long startedConnectingTables() {
+        startPhase("connectingTables");
+        return delegate.startedConnectingTables();
+    }
+
+    public void connectingTablesProgressed(Table table) {
+        phase.progressed();
+        delegate.connectingTablesProgressed(table);
+    }
+
+    public long startedGraphingSummaries() {
+        startPhase("graphingSummaries");
+        return delegate.startedGraphingSummaries();
+    }
+
+    public void graphingSummaryProgressed() {
+        phase.progressed();
+        delegate.graphingSummaryProgressed();
+    }
+
+    public long startedGraphingDetails() {
+        startPhase("graphingDetails");
+        return delegate.startedGraphingDetails();
+    }
+
+    public void graphingDetailsProgressed(Table table) {
+        phase.progressed();
+        delegate.graphingDetailsProgressed(table);
+    }
+
+    public long finishedGatheringDetails() {
+        return delegate.finishedGatheringDetails();
+    }
+
+    public long finished(Collection<Table> tables, Config config) {
+        timer.cancel();
+        write("finished", phase);
+        synchronized (out) {
+            closed = true;
+            try {
+                out.close();
+            } catch (IOException exc) {
+                logger.warning("Failed to close progress file: " + exc);
+            }
+        }
+        return delegate.finished(tables, config);
+    }
+
+    public String recoverableExceptionEncountered(String msg, Exception exc, String sql) {
+        synchronized (out) {
+            try {
+                JsonWriter json = beginLine("warning", phase);
+                json.property("message", msg + ": " + exc);
+                endLine(json);
+            } catch (IOException ioExc) {
+                logger.warning("Failed to write progress: " + ioExc);
+            }
+        }
+        return delegate.recoverableExceptionEncountered(msg, exc, sql);
+    }
+
+    private void startPhase(String name) {
+        write("progress", phase);   // how the previous phase ended
+        phase = new PhaseProgress(name);
+        writePhase();
+    }
+
+    private void writePhase() {
+        synchronized (out) {
+            try {
+                endLine(beginLine("phase", phase));
+            } catch (IOException exc) {
+                logger.warning("Failed to write progress: " + exc);
+            }
+        }
+    }
+
+    private void write(String event, PhaseProgress progress) {
+        synchronized (out) {
+            try {
+                JsonWriter json = beginLine(event, progress);
+                json.property("completed", progress.getCompleted());
+                json.property("expected", progress.getExpected());
+                json.property("queued", progress.getQueued());
+                json.property("perSecond", Math.round(progress.getRate() * 10) / 10.0);
+                json.property("etaMs", progress.getEtaMillis());
+                json.property("sinceProgressMs", progress.getMillisSinceProgress());
+                if (event.equals("finished"))
+                    json.property("peakHeapMb", PeakHeap.getMegabytes());
+                endLine(json);
+            } catch (IOException exc) {
+                if (!closed)
+                    logger.warning("Failed to write progress: " + exc);
+            }
+        }
+    }
+
+    /**
+     * Start a line with the properties that every line has
+     */
+    private JsonWriter beginLine(String event, PhaseProgress progress) throws IOException {
+        if (closed) // the timer can fire after we've finished
+            throw new IOException("Progress file is closed");
+        JsonWriter json = new JsonWriter(out);
+        json.beginObject();
+        json.property("time", System.currentTimeMillis());
+        json.property("event", event);
+        json.property("phase", progress.getName());
+        json.property("elapsedMs", System.currentTimeMillis() - startedAt);
+        return json;
+    }
+
+    /**
+     * End the line and make sure that whoever's watching can see it
+     */
+    private void endLine(JsonWriter json) throws IOException {
+        json.endObject();
+        out.newLine();
+        out.flush();
+    }
+}
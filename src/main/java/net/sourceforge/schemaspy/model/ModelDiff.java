@@ -0,0 +1,468 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.sourceforge.net).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.sourceforge.schemaspy.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import net.sourceforge.schemaspy.util.CaseInsensitiveMap;
+
+/**
+ * The differences between two snapshots of a database's model
+ * (either live or restored by {@link ModelReader}).
+ * <p>
+ * Everything is matched up by name through hashed (case insensitive)
+ * lookups, so the cost of comparing two schemas grows linearly with
+ * their size (other than sorting the table names so the changes are
+ * reported in a predictable order).
+ * </p>
+ */
+public class ModelDiff {
+    private final Database before;
+    private final Database after;
+    private final List<Change> changes = new ArrayList<Change>();
+
+    public enum ChangeType {
+        ADDED, REMOVED, CHANGED
+    }
+
+    /**
+     * A single difference between the two models
+     */
+    public static class Change {
+        private final ChangeType type;
+        private final String objectType;
+        private final String table;
+        private final String name;
+        private final String before;
+        private final String after;
+
+        private Change(ChangeType type, String objectType, String table, String name, String before, String after) {
+            this.type = type;
+            this.objectType = objectType;
+            this.table = table;
+            this.name = name;
+            this.before = before;
+            this.after = after;
+        }
+
+        public ChangeType getType() {
+            return type;
+        }
+
+        /**
+         * Returns the type of object that changed
+         * (table, view, column, primary key, index, foreign key, check constraint or routine)
+         *
+         * @return
+         */
+        public String getObjectType() {
+            return objectType;
+        }
+
+        /**
+         * Returns the name of the table that the changed object belongs to or
+         * <code>null</code> if it doesn't belong to a table (routines).
+         *
+         * @return
+         */
+        public String getTable() {
+            return table;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Description of the object before the change or <code>null</code> if it was added
+         *
+         * @return
+         */
+        public String getBefore() {
+            return before;
+        }
+
+        /**
+         * Description of the object after the change or <code>null</code> if it was removed
+         *
+         * @return
+         */
+        public String getAfter() {
+            return after;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder buf = new StringBuilder();
+            buf.append(type.toString().toLowerCase()).append(' ').append(objectType).append(' ');
+            if (table != null && !table.equals(name))
+                buf.append(table).append('.');
+            buf.append(name);
+            return buf.toString();
+        }
+    }
+
+    /**
+     * Determine what changed between <code>before</code> and <code>after</code>
+     *
+     * @param before
+     * @param after
+     */
+    public ModelDiff(Database before, Database after) {
+        this.before = before;
+        this.after = after;
+
+        compareTables(getLocals(before), getLocals(after));
+        compareRoutines(before.getRoutines(), after.getRoutines());
+    }
+
+    public Database getBefore() {
+        return before;
+    }
+
+    public Database getAfter() {
+        return after;
+    }
+
+    /**
+     * Returns the changes ordered by table (routines last)
+     *
+     * @return
+     */
+    public List<Change> getChanges() {
+        return Collections.unmodifiableList(changes);
+    }
+
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    /**
+     * Returns the number of changes of the specified type
+     *
+     * @param type
+     * @return
+     */
+    public int getNumChanges(ChangeType type) {
+        int count = 0;
+        for (Change change : changes) {
+            if (change.getType() == type)
+                ++count;
+        }
+        return count;
+    }
+
+    private Map<String, Table> getLocals(Database db) {
+        Map<String, Table> locals = new CaseInsensitiveMap<Table>(db.getTables().size() + db.getViews().size());
+        locals.putAll(db.getTablesByName());
+        for (View view : db.getViews())
+            locals.put(view.getName(), view);
+        return locals;
+    }
+
+    private void compareTables(Map<String, Table> oldTables, Map<String, Table> newTables) {
+        Set<String> names = new TreeSet<String>(String.CASE_INSENSITIVE_ORDER);
+        for (Table table : oldTables.values())
+            names.add(table.getName());
+        for (Table table : newTables.values())
+            names.add(table.getName());
+
+        for (String name : names) {
+            Table oldTable = oldTables.get(name);
+            Table newTable = newTables.get(name);
+
+            if (oldTable == null) {
+                added(getType(newTable), name, name, describe(newTable));
+            } else if (newTable == null) {
+                removed(getType(oldTable), name, name, describe(oldTable));
+            } else {
+                compare(oldTable, newTable);
+            }
+        }
+    }
+
+    private void compare(Table oldTable, Table newTable) {
+        String table = newTable.getName();
+
+        if (oldTable.isView() != newTable.isView() ||
+                (newTable.isView() && !normalize(oldTable.getViewSql()).equals(normalize(newTable.getViewSql())))) {
+            changed(getType(newTable), table, table, describe(oldTable), describe(newTable));
+        }
+
+        // columns
+        for (TableColumn newColumn : newTable.getColumns()) {
+            TableColumn oldColumn = oldTable.getColumn(newColumn.getName());
+            if (oldColumn == null) {
+                added("column", table, newColumn.getName(), describe(newColumn));
+            } else {
+                String oldDescription = describe(oldColumn);
+                String newDescription = describe(newColumn);
+                if (!oldDescription.equals(newDescription))
+                    changed("column", table, newColumn.getName(), oldDescription, newDescription);
+            }
+        }
+        for (TableColumn oldColumn : oldTable.getColumns()) {
+            if (newTable.getColumn(oldColumn.getName()) == null)
+                removed("column", table, oldColumn.getName(), describe(oldColumn));
+        }
+
+        // primary key
+        String oldPrimaryKey = describe(oldTable.getPrimaryColumns());
+        String newPrimaryKey = describe(newTable.getPrimaryColumns());
+        if (!oldPrimaryKey.equalsIgnoreCase(newPrimaryKey)) {
+            if (oldPrimaryKey.length() == 0)
+                added("primary key", table, table, newPrimaryKey);
+            else if (newPrimaryKey.length() == 0)
+                removed("primary key", table, table, oldPrimaryKey);
+            else
+                changed("primary key", table, table, oldPrimaryKey, newPrimaryKey);
+        }
+
+        // indexes
+        // unmatched indexes with the same definition were just renamed (typically
+        // system-generated names that the database regenerated) so they're not reported.
+        // each old index is paired with at most one new index (in name order),
+        // so any duplicate definitions that are left over are still reported
+        Map<String, List<TableIndex>> unmatched = new HashMap<String, List<TableIndex>>();
+        for (TableIndex oldIndex : new TreeSet<TableIndex>(oldTable.getIndexes())) {
+            if (newTable.getIndex(oldIndex.getName()) == null) {
+                String description = describe(oldIndex).toUpperCase();
+                List<TableIndex> sameDefinition = unmatched.get(description);
+                if (sameDefinition == null) {
+                    sameDefinition = new ArrayList<TableIndex>(1);
+                    unmatched.put(description, sameDefinition);
+                }
+                sameDefinition.add(oldIndex);
+            }
+        }
+        Set<TableIndex> renamedTo = new HashSet<TableIndex>();
+        for (TableIndex newIndex : new TreeSet<TableIndex>(newTable.getIndexes())) {
+            if (oldTable.getIndex(newIndex.getName()) == null) {
+                List<TableIndex> sameDefinition = unmatched.get(describe(newIndex).toUpperCase());
+                if (sameDefinition != null && !sameDefinition.isEmpty()) {
+                    sameDefinition.remove(0);
+                    renamedTo.add(newIndex);
+                }
+            }
+        }
+
+        for (TableIndex newIndex : new TreeSet<TableIndex>(newTable.getIndexes())) {
+            TableIndex oldIndex = oldTable.getIndex(newIndex.getName());
+            if (oldIndex == null) {
+                if (!renamedTo.contains(newIndex))
+                    added("index", table, newIndex.getName(), describe(newIndex));
+            } else {
+                String oldDescription = describe(oldIndex);
+                String newDescription = describe(newIndex);
+                if (!oldDescription.equalsIgnoreCase(newDescription))
+                    changed("index", table, newIndex.getName(), oldDescription, newDescription);
+            }
+        }
+        Set<TableIndex> removedIndexes = new TreeSet<TableIndex>();
+        for (List<TableIndex> sameDefinition : unmatched.values())
+            removedIndexes.addAll(sameDefinition);
+        for (TableIndex oldIndex : removedIndexes) {
+            removed("index", table, oldIndex.getName(), describe(oldIndex));
+        }
+
+        // foreign keys
+        Map<String, ForeignKeyConstraint> oldKeys = getForeignKeys(oldTable);
+        Map<String, ForeignKeyConstraint> newKeys = getForeignKeys(newTable);
+        for (Map.Entry<String, ForeignKeyConstraint> entry : newKeys.entrySet()) {
+            ForeignKeyConstraint newKey = entry.getValue();
+            ForeignKeyConstraint oldKey = oldKeys.get(entry.getKey());
+            if (oldKey == null) {
+                added("foreign key", table, entry.getKey(), describe(newKey));
+            } else {
+                String oldDescription = describe(oldKey);
+                String newDescription = describe(newKey);
+                if (!oldDescription.equalsIgnoreCase(newDescription))
+                    changed("foreign key", table, entry.getKey(), oldDescription, newDescription);
+            }
+        }
+        for (Map.Entry<String, ForeignKeyConstraint> entry : oldKeys.entrySet()) {
+            if (!newKeys.containsKey(entry.getKey()))
+                removed("foreign key", table, entry.getKey(), describe(entry.getValue()));
+        }
+
+        // check constraints (already sorted by name)
+        Map<String, String> oldChecks = oldTable.getCheckConstraints();
+        Map<String, String> newChecks = newTable.getCheckConstraints();
+        for (Map.Entry<String, String> entry : newChecks.entrySet()) {
+            String oldCheck = oldChecks.get(entry.getKey());
+            if (oldCheck == null)
+                added("check constraint", table, entry.getKey(), entry.getValue());
+            else if (!normalize(oldCheck).equals(normalize(entry.getValue())))
+                changed("check constraint", table, entry.getKey(), oldCheck, entry.getValue());
+        }
+        for (Map.Entry<String, String> entry : oldChecks.entrySet()) {
+            if (!newChecks.containsKey(entry.getKey()))
+                removed("check constraint", table, entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void compareRoutines(Collection<Routine> oldRoutines, Collection<Routine> newRoutines) {
+        Map<String, Routine> oldByName = new CaseInsensitiveMap<Routine>(oldRoutines.size());
+        for (Routine routine : oldRoutines)
+            oldByName.put(routine.getName(), routine);
+        Map<String, Routine> newByName = new CaseInsensitiveMap<Routine>(newRoutines.size());
+        for (Routine routine : newRoutines)
+            newByName.put(routine.getName(), routine);
+
+        for (Routine newRoutine : new TreeSet<Routine>(newRoutines)) {
+            Routine oldRoutine = oldByName.get(newRoutine.getName());
+            if (oldRoutine == null) {
+                added("routine", null, newRoutine.getName(), describe(newRoutine));
+            } else {
+                String oldDescription = describe(oldRoutine);
+                String newDescription = describe(newRoutine);
+                if (!oldDescription.equals(newDescription) ||
+                        !normalize(oldRoutine.getDefinition()).equals(normalize(newRoutine.getDefinition())))
+                    changed("routine", null, newRoutine.getName(), oldDescription, newDescription);
+            }
+        }
+        for (Routine oldRoutine : new TreeSet<Routine>(oldRoutines)) {
+            if (!newByName.containsKey(oldRoutine.getName()))
+                removed("routine", null, oldRoutine.getName(), describe(oldRoutine));
+        }
+    }
+
+    /**
+     * Returns the real foreign keys where the table is the child
+     * keyed by their names
+     */
+    private Map<String, ForeignKeyConstraint> getForeignKeys(Table table) {
+        Map<String, ForeignKeyConstraint> keys = new CaseInsensitiveMap<ForeignKeyConstraint>();
+        for (ForeignKeyConstraint key : new TreeSet<ForeignKeyConstraint>(table.getForeignKeys())) {
+            if (key.isReal()) {
+                String name = key.getName();
+                if (name == null)   // some drivers don't name them
+                    name = key.getParentTable().getName() + ForeignKeyConstraint.toString(key.getChildColumns());
+                keys.put(name, key);
+            }
+        }
+        return keys;
+    }
+
+    private void added(String objectType, String table, String name, String description) {
+        changes.add(new Change(ChangeType.ADDED, objectType, table, name, null, description));
+    }
+
+    private void removed(String objectType, String table, String name, String description) {
+        changes.add(new Change(ChangeType.REMOVED, objectType, table, name, description, null));
+    }
+
+    private void changed(String objectType, String table, String name, String before, String after) {
+        changes.add(new Change(ChangeType.CHANGED, objectType, table, name, before, after));
+    }
+
+    private static String getType(Table table) {
+        return table.isView() ? "view" : "table";
+    }
+
+    private static String describe(Table table) {
+        if (table.isView() && table.getViewSql() != null)
+            return normalize(table.getViewSql());
+        int numColumns = table.getColumns().size();
+        return numColumns + (numColumns == 1 ? " column" : " columns");
+    }
+
+    private static String describe(TableColumn column) {
+        StringBuilder buf = new StringBuilder();
+        buf.append(column.getTypeName());
+        buf.append('(').append(column.getDetailedSize()).append(')');
+        if (!column.isNullable())
+            buf.append(" not null");
+        if (column.isAutoUpdated())
+            buf.append(" auto-updated");
+        if (column.getDefaultValue() != null)
+            buf.append(" default ").append(column.getDefaultValue());
+        return buf.toString();
+    }
+
+    private static String describe(List<TableColumn> columns) {
+        StringBuilder buf = new StringBuilder();
+        Iterator<TableColumn> iter = columns.iterator();
+        while (iter.hasNext()) {
+            buf.append(iter.next().getName());
+            if (iter.hasNext())
+                buf.append(", ");
+        }
+        return buf.toString();
+    }
+
+    private static String describe(TableIndex index) {
+        StringBuilder buf = new StringBuilder();
+        if (index.isUnique())
+            buf.append("unique ");
+        buf.append('(');
+        Iterator<TableColumn> iter = index.getColumns().iterator();
+        while (iter.hasNext()) {
+            TableColumn column = iter.next();
+            buf.append(column.getName());
+            if (!index.isAscending(column))
+                buf.append(" desc");
+            if (iter.hasNext())
+                buf.append(", ");
+        }
+        buf.append(')');
+        return buf.toString();
+    }
+
+    private static String describe(ForeignKeyConstraint key) {
+        return '(' + describe(key.getChildColumns()) + ") references " +
+                key.getParentTable().getName() + '(' + describe(key.getParentColumns()) + ')' +
+                " on delete " + key.getDeleteRuleName();
+    }
+
+    private static String describe(Routine routine) {
+        StringBuilder buf = new StringBuilder();
+        buf.append(routine.getType()).append(' ').append(routine.getName()).append('(');
+        Iterator<RoutineParameter> iter = routine.getParameters().iterator();
+        while (iter.hasNext()) {
+            RoutineParameter param = iter.next();
+            if (param.getMode() != null)
+                buf.append(param.getMode()).append(' ');
+            if (param.getName() != null)
+                buf.append(param.getName()).append(' ');
+            if (param.getType() != null)
+                buf.append(param.getType());
+            if (iter.hasNext())
+                buf.append(", ");
+        }
+        buf.append(')');
+        if (routine.getReturnType() != null)
+            buf.append(" returns ").append(routine.getReturnType());
+        return buf.toString();
+    }
+
+    /**
+     * Collapse whitespace so reformatted SQL isn't reported as a change
+     */
+    private static String normalize(String sql) {
+        return sql == null ? "" : sql.trim().replaceAll("\\s+", " ");
+    }
+}
@@ -0,0 +1,349 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.sourceforge.net).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.sourceforge.schemaspy.model;
+
+import static net.sourceforge.schemaspy.model.ModelWriter.*;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+import net.sourceforge.schemaspy.Config;
+
+/**
+ * Restores a {@link Database} model that was saved by {@link ModelWriter}.
+ * <p>
+ * The restored model doesn't have a connection to the database
+ * (see {@link Database#isOffline()}), so everything that's needed to
+ * render it comes from the saved model.
+ * The file is memory-mapped and decoded in a single pass.
+ * </p>
+ */
+public class ModelReader {
+    private ByteBuffer in;
+    private final List<String> strings = new ArrayList<String>();
+    private final Logger logger = Logger.getLogger(getClass().getName());
+
+    /**
+     * Restore the database model saved in <code>file</code>.
+     *
+     * @param config
+     * @param file
+     * @return
+     * @throws IOException if the file couldn't be read or isn't a model that we understand
+     */
+    public Database read(Config config, File file) throws IOException {
+        FileInputStream stream = new FileInputStream(file);
+        try {
+            FileChannel channel = stream.getChannel();
+            in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            stream.close();
+        }
+
+        strings.clear();
+
+        try {
+            if (in.remaining() < 4 || in.getInt() != MAGIC)
+                throw new IOException(file + " isn't a saved SchemaSpy model");
+            int version = readInt();
+            if (version != VERSION)
+                throw new IOException(file + " is version " + version + " of the model format, only version " + VERSION + " is supported");
+
+            logger.info("Reading model from " + file);
+
+            String name = readString();
+            String catalog = readString();
+            String schema = readString();
+            String product = readString();
+            String connectTime = readString();
+            String description = readString();
+            String[] keywords = new String[readLength()];
+            for (int i = 0; i < keywords.length; ++i)
+                keywords[i] = readString();
+
+            Database db = new Database(config, name, catalog, schema, product, connectTime, keywords);
+            if (config.getDescription() == null)
+                config.setDescription(description);
+
+            List<TableColumn> columns = new ArrayList<TableColumn>();
+            List<Table> tables = readTables(db, columns);
+            readConstraints(tables, columns, config.isImpliedConstraintsEnabled(), config.isRailsEnabled());
+            readRoutines(db);
+
+            db.refreshRelationships();
+            return db;
+        } catch (BufferUnderflowException exc) {
+            throw new IOException(file + " is truncated", exc);
+        } catch (RuntimeException exc) {
+            // ids that don't refer to anything that's been read, objects of the wrong type, etc.
+            throw new IOException(file + " is corrupt", exc);
+        } catch (SQLException exc) {
+            // shouldn't happen since offline tables don't query anything
+            throw new IOException("Failed to restore the model in " + file, exc);
+        } finally {
+            in = null;
+            strings.clear();
+        }
+    }
+
+    private List<Table> readTables(Database db, List<TableColumn> allColumns) throws SQLException {
+        int numTables = readLength();
+        List<Table> tables = new ArrayList<Table>(numTables);
+
+        for (int t = 0; t < numTables; ++t) {
+            int kind = readInt();
+            String catalog = readString();
+            String schema = readString();
+            String name = readString();
+            String comments = readString();
+            Object id = readObject();
+            long numRows = readSigned();
+
+            Table table;
+            switch (kind) {
+                case VIEW:
+                    table = new View(db, catalog, schema, name, comments, readString());
+                    break;
+                case REMOTE_TABLE:
+                    table = new RemoteTable(db, catalog, schema, name, readString());
+                    table.setComments(comments);
+                    break;
+                case LOGICAL_REMOTE_TABLE:
+                    table = new LogicalRemoteTable(db, catalog, schema, name, readString());
+                    table.setComments(comments);
+                    break;
+                case LOGICAL_TABLE:
+                    table = new LogicalTable(db, catalog, schema, name, comments);
+                    break;
+                default:
+                    table = new Table(db, catalog, schema, name, comments);
+                    break;
+            }
+            table.setId(id);
+            table.setNumRows(numRows);
+
+            int numColumns = readLength();
+            List<TableColumn> columns = new ArrayList<TableColumn>(numColumns);
+            for (int c = 0; c < numColumns; ++c) {
+                TableColumn column = readColumn(table);
+                table.addColumn(column);
+                columns.add(column);
+            }
+            allColumns.addAll(columns);
+
+            for (int p = readInt(); p > 0; --p)
+                table.setPrimaryColumn(columns.get(readInt()));
+
+            for (int i = readInt(); i > 0; --i) {
+                String indexName = readString();
+                Object indexId = readObject();
+                int flags = readInt();
+                TableIndex index = new TableIndex(indexName, (flags & UNIQUE) != 0);
+                index.setId(indexId);
+                index.setIsPrimaryKey((flags & PRIMARY) != 0);
+                for (int c = readInt(); c > 0; --c) {
+                    TableColumn column = columns.get(readInt());
+                    index.addColumn(column, in.get() != 0 ? "A" : "D");
+                }
+                table.addIndex(index);
+            }
+
+            for (int c = readInt(); c > 0; --c)
+                table.addCheckConstraint(readString(), readString());
+
+            db.addRestoredTable(table);
+            tables.add(table);
+        }
+
+        return tables;
+    }
+
+    private TableColumn readColumn(Table table) {
+        String name = readString();
+        Object id = readObject();
+        String typeName = readString();
+        String shortType = readString();
+        Object type = readObject();
+        int length = (int)readSigned();
+        int digits = (int)readSigned();
+        Object defaultValue = readObject();
+        String comments = readString();
+        int flags = readInt();
+
+        TableColumn column = new TableColumn(table, name, id, typeName, (Integer)type,
+                                            length, digits, (flags & NULLABLE) != 0, defaultValue);
+        if (shortType != null)
+            column.setShortType(shortType);
+        column.setComments(comments);
+        column.setIsAutoUpdated((flags & AUTO_UPDATED) != 0);
+        column.setRelationshipOptions((flags & IMPLIED_PARENTS) != 0, (flags & IMPLIED_CHILDREN) != 0,
+                                        (flags & EXCLUDED) != 0, (flags & ALL_EXCLUDED) != 0);
+        return column;
+    }
+
+    /**
+     * Read the constraints and the relationships that they establish.
+     * Implied and Rails constraints are derived from the model by each run,
+     * so they're dropped unless the current run would have derived them.
+     */
+    private void readConstraints(List<Table> tables, List<TableColumn> columns, boolean includeImplied, boolean includeRails) {
+        int numConstraints = readLength();
+        List<ForeignKeyConstraint> constraints = new ArrayList<ForeignKeyConstraint>(numConstraints);
+        List<Boolean> dropped = new ArrayList<Boolean>(numConstraints);
+
+        for (int i = 0; i < numConstraints; ++i) {
+            int kind = readInt();
+            final String name = readString();
+            Table child = tables.get(readInt());
+            int updateRule = (int)readSigned();
+            int deleteRule = (int)readSigned();
+            boolean registered = in.get() != 0;
+
+            ForeignKeyConstraint constraint;
+            switch (kind) {
+                case IMPLIED_CONSTRAINT:
+                    constraint = new ImpliedForeignKeyConstraint(child);
+                    break;
+                case RAILS_CONSTRAINT:
+                    constraint = new RailsForeignKeyConstraint(child);
+                    break;
+                case NAMED_CONSTRAINT:
+                    constraint = new ForeignKeyConstraint(child, null, updateRule, deleteRule) {
+                        @Override
+                        public String getName() {
+                            return name;
+                        }
+                    };
+                    break;
+                default:
+                    constraint = new ForeignKeyConstraint(child, name, updateRule, deleteRule);
+                    break;
+            }
+
+            for (int c = readInt(); c > 0; --c)
+                constraint.addParentColumn(columns.get(readInt()));
+            for (int c = readInt(); c > 0; --c)
+                constraint.addChildColumn(columns.get(readInt()));
+
+            boolean drop = (kind == IMPLIED_CONSTRAINT && !includeImplied) || (kind == RAILS_CONSTRAINT && !includeRails);
+            if (registered && !drop)
+                child.addForeignKey(constraint);
+            constraints.add(constraint);
+            dropped.add(Boolean.valueOf(drop));
+        }
+
+        for (int e = readInt(); e > 0; --e) {
+            TableColumn child = columns.get(readInt());
+            TableColumn parent = columns.get(readInt());
+            int c = readInt();
+            if (dropped.get(c).booleanValue())
+                continue;
+            ForeignKeyConstraint constraint = constraints.get(c);
+            child.addParent(parent, constraint);
+            parent.addChild(child, constraint);
+        }
+    }
+
+    private void readRoutines(Database db) {
+        for (int r = readInt(); r > 0; --r) {
+            Routine routine = new Routine(readString(), readString(), readString(), readString(),
+                                            readString(), in.get() != 0, readString(),
+                                            readString(), readString());
+
+            for (int p = readInt(); p > 0; --p)
+                routine.addParameter(new RoutineParameter(readString(), readString(), readString()));
+
+            db.addRestoredRoutine(routine);
+        }
+    }
+
+    private int readInt() {
+        return (int)readLong();
+    }
+
+    /**
+     * Reads the number of bytes or items that follow,
+     * each of which takes at least a byte
+     */
+    private int readLength() {
+        int length = readInt();
+        if (length < 0 || length > in.remaining())
+            throw new IllegalStateException("Invalid length " + length + " with " + in.remaining() + " bytes left");
+        return length;
+    }
+
+    private long readLong() {
+        long value = 0;
+        int shift = 0;
+        int b;
+
+        do {
+            b = in.get();
+            value |= (long)(b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+
+        return value;
+    }
+
+    private long readSigned() {
+        long value = readLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * 0 is <code>null</code>, 1 is a new string and anything else is
+     * the id of a previously read string plus 2
+     */
+    private String readString() {
+        int id = readInt();
+        if (id == 0)
+            return null;
+        if (id > 1)
+            return strings.get(id - 2);
+
+        byte[] bytes = new byte[readLength()];
+        in.get(bytes);
+        String str = new String(bytes, UTF8);
+        strings.add(str);
+        return str;
+    }
+
+    private Object readObject() {
+        switch (readInt()) {
+            case INTEGRAL_OBJECT:
+                long value = readSigned();
+                if (value == (int)value)
+                    return Integer.valueOf((int)value);
+                return Long.valueOf(value);
+            case DECIMAL_OBJECT:
+                return new BigDecimal(readString());
+            case STRING_OBJECT:
+                return readString();
+            default:
+                return null;
+        }
+    }
+}
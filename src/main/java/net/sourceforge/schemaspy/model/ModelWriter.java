@@ -0,0 +1,388 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.sourceforge.net).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.sourceforge.schemaspy.model;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Saves a {@link Database} model in a compact, versioned binary form that
+ * {@link ModelReader} can restore without a connection to the database.
+ * <p>
+ * Strings are written once and referred to by id after that, numbers are
+ * variable length and relationships are written as pairs of column ids.
+ * The layout (version 1) is:
+ * <pre>
+ *   magic, version
+ *   database name, catalog, schema, product, connect time, description, driver keywords/functions
+ *   tables: kind, catalog, schema, name, comments, id, row count, view SQL / base container,
+ *           columns, primary key columns, indexes, check constraints
+ *   constraints: kind, name, child table, update/delete rules, parent and child columns
+ *   relationships: child column, parent column, constraint
+ *   routines and their parameters
+ * </pre>
+ * Column ids are positions across all of the columns of all of the tables,
+ * in the order that the tables and their columns were written.
+ * </p>
+ */
+public class ModelWriter {
+    static final int MAGIC = 0x5353504D;     // "SSPM"
+    static final int VERSION = 1;
+
+    static final int TABLE = 0;
+    static final int VIEW = 1;
+    static final int REMOTE_TABLE = 2;
+    static final int LOGICAL_TABLE = 3;
+    static final int LOGICAL_REMOTE_TABLE = 4;
+
+    static final int REAL_CONSTRAINT = 0;
+    static final int IMPLIED_CONSTRAINT = 1;
+    static final int RAILS_CONSTRAINT = 2;
+    static final int NAMED_CONSTRAINT = 3;  // other sorts of constraints that just override their name
+
+    static final int NULLABLE = 1;
+    static final int AUTO_UPDATED = 2;
+    static final int IMPLIED_PARENTS = 4;
+    static final int IMPLIED_CHILDREN = 8;
+    static final int EXCLUDED = 16;
+    static final int ALL_EXCLUDED = 32;
+
+    static final int UNIQUE = 1;
+    static final int PRIMARY = 2;
+
+    static final int NULL_OBJECT = 0;
+    static final int INTEGRAL_OBJECT = 1;
+    static final int STRING_OBJECT = 2;
+    static final int DECIMAL_OBJECT = 3;
+
+    static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private DataOutputStream out;
+    private final Map<String, Integer> stringIds = new HashMap<String, Integer>();
+
+    /**
+     * Write the model of the specified database to <code>file</code>.
+     *
+     * @param db
+     * @param file
+     * @throws IOException
+     */
+    public void write(Database db, File file) throws IOException {
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 64 * 1024));
+        stringIds.clear();
+
+        try {
+            out.writeInt(MAGIC);
+            writeInt(VERSION);
+
+            writeString(db.getName());
+            writeString(db.getCatalog());
+            writeString(db.getSchema());
+            writeString(db.getDatabaseProduct());
+            writeString(db.getConnectTime());
+            writeString(db.getDescription());
+            String[] keywords;
+            try {
+                keywords = db.getDriverKeywords();
+            } catch (SQLException exc) {
+                keywords = new String[] {"", "", "", "", ""};
+            }
+            writeInt(keywords.length);
+            for (String keyword : keywords)
+                writeString(keyword);
+
+            List<Table> tables = new ArrayList<Table>(db.getTables());
+            tables.addAll(db.getViews());
+            tables.addAll(db.getRemoteTables());
+
+            Map<Table, Integer> tableIds = new IdentityHashMap<Table, Integer>();
+            Map<TableColumn, Integer> columnIds = new IdentityHashMap<TableColumn, Integer>();
+            writeInt(tables.size());
+            for (Table table : tables) {
+                tableIds.put(table, tableIds.size());
+                writeTable(table, columnIds);
+            }
+
+            writeConstraints(tables, tableIds, columnIds);
+            writeRoutines(db);
+        } finally {
+            out.close();
+            out = null;
+        }
+    }
+
+    private void writeTable(Table table, Map<TableColumn, Integer> columnIds) throws IOException {
+        int kind;
+        if (table.isRemote())
+            kind = table.isLogical() ? LOGICAL_REMOTE_TABLE : REMOTE_TABLE;
+        else if (table.isView())
+            kind = VIEW;
+        else
+            kind = table.isLogical() ? LOGICAL_TABLE : TABLE;
+
+        writeInt(kind);
+        writeString(table.getCatalog());
+        writeString(table.getSchema());
+        writeString(table.getName());
+        writeString(table.getComments());
+        writeObject(table.getId());
+        writeSigned(table.getNumRows());
+        if (kind == VIEW)
+            writeString(table.getViewSql());
+        else if (kind == REMOTE_TABLE || kind == LOGICAL_REMOTE_TABLE)
+            writeString(((RemoteTable)table).getBaseContainer());
+
+        List<TableColumn> columns = table.getColumns();
+        Map<TableColumn, Integer> positions = new IdentityHashMap<TableColumn, Integer>();
+        writeInt(columns.size());
+        for (TableColumn column : columns) {
+            positions.put(column, positions.size());
+            columnIds.put(column, columnIds.size());
+            writeColumn(column);
+        }
+
+        List<TableColumn> primaries = table.getPrimaryColumns();
+        writeInt(primaries.size());
+        for (TableColumn column : primaries)
+            writeInt(positions.get(column));
+
+        writeInt(table.getIndexes().size());
+        for (TableIndex index : table.getIndexes()) {
+            writeString(index.getName());
+            writeObject(index.getId());
+            writeInt((index.isUnique() ? UNIQUE : 0) | (index.isPrimaryKey() ? PRIMARY : 0));
+            writeInt(index.getColumns().size());
+            for (TableColumn column : index.getColumns()) {
+                writeInt(positions.get(column));
+                out.writeBoolean(index.isAscending(column));
+            }
+        }
+
+        Map<String, String> checks = table.getCheckConstraints();
+        writeInt(checks.size());
+        for (Map.Entry<String, String> check : checks.entrySet()) {
+            writeString(check.getKey());
+            writeString(check.getValue());
+        }
+    }
+
+    private void writeColumn(TableColumn column) throws IOException {
+        writeString(column.getName());
+        writeObject(column.getId());
+        writeString(column.getTypeName());
+        String shortType = column.getShortTypeName();
+        writeString(shortType == column.getTypeName() ? null : shortType);
+        writeObject(column.getType());
+        writeSigned(column.getLength());
+        writeSigned(column.getDecimalDigits());
+        writeObject(column.getDefaultValue() == null ? null : column.getDefaultValue().toString());
+        writeString(column.getComments());
+
+        int flags = 0;
+        if (column.isNullable())
+            flags |= NULLABLE;
+        if (column.isAutoUpdated())
+            flags |= AUTO_UPDATED;
+        if (column.allowsImpliedParents())
+            flags |= IMPLIED_PARENTS;
+        if (column.allowsImpliedChildren())
+            flags |= IMPLIED_CHILDREN;
+        if (column.isExcluded())
+            flags |= EXCLUDED;
+        if (column.isAllExcluded())
+            flags |= ALL_EXCLUDED;
+        writeInt(flags);
+    }
+
+    /**
+     * Write all of the constraints followed by all of the column to column
+     * relationships that they establish.
+     */
+    private void writeConstraints(List<Table> tables, Map<Table, Integer> tableIds, Map<TableColumn, Integer> columnIds) throws IOException {
+        Map<ForeignKeyConstraint, Integer> constraintIds = new IdentityHashMap<ForeignKeyConstraint, Integer>();
+        List<ForeignKeyConstraint> constraints = new ArrayList<ForeignKeyConstraint>();
+        List<Boolean> registered = new ArrayList<Boolean>();    // known to its child table by name
+        int numEdges = 0;
+
+        for (Table table : tables) {
+            for (ForeignKeyConstraint constraint : table.getForeignKeys()) {
+                if (!constraintIds.containsKey(constraint)) {
+                    constraintIds.put(constraint, constraints.size());
+                    constraints.add(constraint);
+                    registered.add(Boolean.TRUE);
+                }
+            }
+
+            for (TableColumn column : table.getColumns()) {
+                for (TableColumn parent : column.getParents()) {
+                    ForeignKeyConstraint constraint = column.getParentConstraint(parent);
+                    if (!constraintIds.containsKey(constraint)) {
+                        constraintIds.put(constraint, constraints.size());
+                        constraints.add(constraint);
+                        registered.add(Boolean.FALSE);
+                    }
+                    if (columnIds.containsKey(parent))
+                        ++numEdges;
+                }
+            }
+        }
+
+        writeInt(constraints.size());
+        for (int i = 0; i < constraints.size(); ++i) {
+            ForeignKeyConstraint constraint = constraints.get(i);
+            int kind;
+            if (constraint instanceof ImpliedForeignKeyConstraint)
+                kind = IMPLIED_CONSTRAINT;
+            else if (constraint instanceof RailsForeignKeyConstraint)
+                kind = RAILS_CONSTRAINT;
+            else if (constraint.isReal())
+                kind = REAL_CONSTRAINT;
+            else
+                kind = NAMED_CONSTRAINT;
+
+            writeInt(kind);
+            writeString(constraint.getName());
+            writeInt(tableIds.get(constraint.getChildTable()));
+            writeSigned(constraint.getUpdateRule());
+            writeSigned(constraint.getDeleteRule());
+            out.writeBoolean(registered.get(i));
+            writeColumnIds(constraint.getParentColumns(), columnIds);
+            writeColumnIds(constraint.getChildColumns(), columnIds);
+        }
+
+        writeInt(numEdges);
+        for (Table table : tables) {
+            for (TableColumn column : table.getColumns()) {
+                for (TableColumn parent : column.getParents()) {
+                    Integer parentId = columnIds.get(parent);
+                    if (parentId != null) {
+                        writeInt(columnIds.get(column));
+                        writeInt(parentId);
+                        writeInt(constraintIds.get(column.getParentConstraint(parent)));
+                    }
+                }
+            }
+        }
+    }
+
+    private void writeColumnIds(List<TableColumn> columns, Map<TableColumn, Integer> columnIds) throws IOException {
+        List<Integer> ids = new ArrayList<Integer>(columns.size());
+        for (TableColumn column : columns) {
+            Integer id = columnIds.get(column);
+            if (id != null)
+                ids.add(id);
+        }
+
+        writeInt(ids.size());
+        for (Integer id : ids)
+            writeInt(id);
+    }
+
+    private void writeRoutines(Database db) throws IOException {
+        writeInt(db.getRoutines().size());
+        for (Routine routine : db.getRoutines()) {
+            writeString(routine.getName());
+            writeString(routine.getType());
+            writeString(routine.getReturnType());
+            writeString(routine.getDefinitionLanguage());
+            writeString(routine.getDefinition());
+            out.writeBoolean(routine.isDeterministic());
+            writeString(routine.getDataAccess());
+            writeString(routine.getSecurityType());
+            writeString(routine.getComment());
+
+            writeInt(routine.getParameters().size());
+            for (RoutineParameter param : routine.getParameters()) {
+                writeString(param.getName());
+                writeString(param.getType());
+                writeString(param.getMode());
+            }
+        }
+    }
+
+    /**
+     * Write a non-negative number in as few bytes as possible
+     */
+    private void writeInt(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int)(value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int)value);
+    }
+
+    /**
+     * Write a number that might be negative (e.g. -1 for 'unknown')
+     */
+    private void writeSigned(long value) throws IOException {
+        writeInt((value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Strings are written the first time they're encountered and
+     * are referred to by id after that:
+     * 0 is <code>null</code>, 1 is a new string and anything else is
+     * the id of a previously written string plus 2.
+     */
+    private void writeString(String str) throws IOException {
+        if (str == null) {
+            writeInt(0);
+            return;
+        }
+
+        Integer id = stringIds.get(str);
+        if (id != null) {
+            writeInt(id + 2);
+        } else {
+            stringIds.put(str, stringIds.size());
+            byte[] bytes = str.getBytes(UTF8);
+            writeInt(1);
+            writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Ids and types come back from JDBC drivers as all sorts of objects.
+     * Whole numbers and strings are preserved, anything else is written as a string.
+     */
+    private void writeObject(Object obj) throws IOException {
+        if (obj == null) {
+            writeInt(NULL_OBJECT);
+        } else if (obj instanceof Integer || obj instanceof Long || obj instanceof Short || obj instanceof Byte) {
+            writeInt(INTEGRAL_OBJECT);
+            writeSigned(((Number)obj).longValue());
+        } else if (obj instanceof Number) {
+            writeInt(DECIMAL_OBJECT);
+            writeString(obj.toString());
+        } else {
+            writeInt(STRING_OBJECT);
+            writeString(obj.toString());
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.sourceforge.net).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.sourceforge.schemaspy.model;
+
+/**
+ * How far along one phase of a run is: how many tables (or other units of work)
+ * it's expected to process, how many it's done, how quickly and, from that,
+ * roughly how long it'll take to finish.
+ * <p>
+ * The expected number is whatever's been reported through
+ * {@link ProgressListener#expectingTables(int)}, so it's zero for
+ * phases that don't know their totals up front.
+ * Safe for use by multiple threads.
+ * </p>
+ */
+public class PhaseProgress {
+    private final String name;
+    private final long startedAt;
+    private long lastProgressedAt;
+    private int expected;
+    private int completed;
+
+    public PhaseProgress(String name) {
+        this.name = name;
+        startedAt = lastProgressedAt = System.currentTimeMillis();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * <code>count</code> more units of work are expected
+     *
+     * @param count
+     */
+    public synchronized void expect(int count) {
+        expected += count;
+    }
+
+    /**
+     * Another unit of work has been completed
+     */
+    public synchronized void progressed() {
+        ++completed;
+        lastProgressedAt = System.currentTimeMillis();
+    }
+
+    public synchronized int getExpected() {
+        return expected;
+    }
+
+    public synchronized int getCompleted() {
+        return completed;
+    }
+
+    /**
+     * Returns the units of work that are expected but haven't been completed yet
+     *
+     * @return
+     */
+    public synchronized int getQueued() {
+        return Math.max(0, expected - completed);
+    }
+
+    public long getElapsedMillis() {
+        return System.currentTimeMillis() - startedAt;
+    }
+
+    /**
+     * Returns how long it's been since any work was completed
+     * (or since the phase started if none has been)
+     *
+     * @return
+     */
+    public synchronized long getMillisSinceProgress() {
+        return System.currentTimeMillis() - lastProgressedAt;
+    }
+
+    /**
+     * Returns the number of units of work completed per second
+     *
+     * @return
+     */
+    public synchronized double getRate() {
+        long elapsed = getElapsedMillis();
+        return elapsed == 0 ? 0 : completed * 1000.0 / elapsed;
+    }
+
+    /**
+     * Returns an estimate of the milliseconds it'll take to complete the queued work
+     * at the rate that it's been completed so far, or -1 if that can't be determined
+     *
+     * @return
+     */
+    public synchronized long getEtaMillis() {
+        if (completed == 0 || expected == 0)
+            return -1;
+        return getQueued() * getElapsedMillis() / completed;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buf = new StringBuilder(name);
+        buf.append(": ");
+        buf.append(getCompleted());
+        if (getExpected() > 0) {
+            buf.append(" of ");
+            buf.append(getExpected());
+        }
+        buf.append(String.format(" (%.1f/sec)", Double.valueOf(getRate())));
+        return buf.toString();
+    }
+}
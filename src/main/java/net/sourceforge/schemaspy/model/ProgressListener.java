@@ -21,21 +21,40 @@ package net.sourceforge.schemaspy.model;
 import java.util.Collection;
 
 import net.sourceforge.schemaspy.Config;
+import net.sourceforge.schemaspy.util.JdbcMetrics;
 
 /**
  * Listener of schema analysis and ERD generation progress.
  * Overall intent is to allow various views to render progress details appropriately.
  *
  * @see ConsoleProgressListener
+ * @see JsonLinesProgressListener
  * @author John Currier
  */
 public interface ProgressListener {
+	/**
+	 * The JDBC calls of this run are being recorded in <code>metrics</code>.
+	 * Called before {@link #startedGatheringDetails()}, and only if
+	 * the calls are being recorded.  The durations of the phases reported
+	 * to this listener belong in there as well.
+	 * @param metrics
+	 */
+	void recordingJdbcMetrics(JdbcMetrics metrics);
+
 	/**
 	 * @return startup / connection duration in milliseconds
 	 */
 	long startedGatheringDetails();
 	void gatheringDetailsProgressed(Table table);
 
+	/**
+	 * <code>count</code> more tables or views are going to progress through
+	 * the current phase (gathering details, connecting tables or graphing details).
+	 * Can be called more than once per phase, e.g. once for tables and again for views.
+	 * @param count
+	 */
+	void expectingTables(int count);
+
 	/**
 	 * @return detail gathering duration in milliseconds
 	 */
@@ -18,6 +18,7 @@
  */
 package net.sourceforge.schemaspy.model;
 
+import static java.sql.DatabaseMetaData.importedKeyNoAction;
 import net.sourceforge.schemaspy.DbAnalyzer;
 
 /**
@@ -35,6 +36,16 @@ public class RailsForeignKeyConstraint extends ForeignKeyConstraint {
         super(parentColumn, childColumn);
     }
 
+    /**
+     * A Rails-based constraint that's been restored from a saved model.
+     * Relationship details will be added later.
+     *
+     * @param child
+     */
+    RailsForeignKeyConstraint(Table child) {
+        super(child, null, importedKeyNoAction, importedKeyNoAction);
+    }
+
     /**
      * Normally the name of the constraint, but this one is implied by
      * Rails naming conventions.
@@ -0,0 +1,365 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.sourceforge.net).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.sourceforge.schemaspy.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A frozen snapshot of all of the relationships between the columns of a schema.
+ * <p>
+ * Tables and columns are assigned dense <code>int</code> ids and the
+ * parent/child relationships of each column are held in compressed sparse row
+ * form (an offsets array into a targets array) along with per-edge flags.
+ * Once built the graph can be traversed without walking the per-column maps
+ * of {@link TableColumn} or allocating any collections.
+ * </p>
+ * <p>
+ * The graph doesn't track changes made to the model after it was built
+ * (implied constraints, dependency analysis, etc.) so it must be rebuilt
+ * whenever relationships are added or removed.
+ * </p>
+ */
+public class RelationshipGraph {
+    private static final int IMPLIED = 1;
+    private static final int EXCLUDED = 2;
+    private static final int ALL_EXCLUDED = 4;
+
+    private final Table[] tables;
+    private final TableColumn[] columns;
+    private final int[] columnTable;
+    private final int[] tableColumns;     // offsets into columns, one per table plus one
+    private final byte[] columnFlags;
+    private final int[] parentEdges;      // offsets into parents, one per column plus one
+    private final int[] parents;
+    private final byte[] parentFlags;
+    private final int[] childEdges;       // offsets into children, one per column plus one
+    private final int[] children;
+    private final byte[] childFlags;
+    private final int[] numParents;
+    private final int[] numRealParents;
+    private final int[] numChildren;
+    private final int[] numRealChildren;
+    private final Map<Table, Integer> tableIds;
+    private final Map<TableColumn, Integer> columnIds;
+
+    /**
+     * Build a snapshot of the relationships of the specified tables.
+     * Tables that aren't in <code>schemaTables</code> but that are related
+     * to them (remote tables, for example) are also included.
+     *
+     * @param schemaTables
+     */
+    public RelationshipGraph(Collection<? extends Table> schemaTables) {
+        tableIds = new IdentityHashMap<Table, Integer>();
+        List<Table> allTables = new ArrayList<Table>(schemaTables);
+        for (Table table : allTables)
+            tableIds.put(table, null);
+
+        // pull in anything that's related to what we were given
+        for (int i = 0; i < allTables.size(); ++i) {
+            for (TableColumn column : allTables.get(i).getColumns()) {
+                for (TableColumn parent : column.getParents()) {
+                    if (!tableIds.containsKey(parent.getTable())) {
+                        tableIds.put(parent.getTable(), null);
+                        allTables.add(parent.getTable());
+                    }
+                }
+                for (TableColumn child : column.getChildren()) {
+                    if (!tableIds.containsKey(child.getTable())) {
+                        tableIds.put(child.getTable(), null);
+                        allTables.add(child.getTable());
+                    }
+                }
+            }
+        }
+
+        tables = allTables.toArray(new Table[allTables.size()]);
+        Arrays.sort(tables);
+        tableColumns = new int[tables.length + 1];
+
+        List<TableColumn> allColumns = new ArrayList<TableColumn>();
+        for (int t = 0; t < tables.length; ++t) {
+            tableIds.put(tables[t], t);
+            tableColumns[t] = allColumns.size();
+            allColumns.addAll(tables[t].getColumns());
+        }
+        tableColumns[tables.length] = allColumns.size();
+
+        columns = allColumns.toArray(new TableColumn[allColumns.size()]);
+        columnTable = new int[columns.length];
+        columnFlags = new byte[columns.length];
+        columnIds = new IdentityHashMap<TableColumn, Integer>(columns.length);
+        for (int t = 0; t < tables.length; ++t) {
+            for (int c = tableColumns[t]; c < tableColumns[t + 1]; ++c) {
+                columnTable[c] = t;
+                if (columns[c].isExcluded())
+                    columnFlags[c] |= EXCLUDED;
+                if (columns[c].isAllExcluded())
+                    columnFlags[c] |= ALL_EXCLUDED;
+                columnIds.put(columns[c], c);
+            }
+        }
+
+        parentEdges = new int[columns.length + 1];
+        childEdges = new int[columns.length + 1];
+        int numParentEdges = 0;
+        int numChildEdges = 0;
+        for (int c = 0; c < columns.length; ++c) {
+            parentEdges[c] = numParentEdges;
+            childEdges[c] = numChildEdges;
+            numParentEdges += columns[c].getParents().size();
+            numChildEdges += columns[c].getChildren().size();
+        }
+        parentEdges[columns.length] = numParentEdges;
+        childEdges[columns.length] = numChildEdges;
+
+        parents = new int[numParentEdges];
+        parentFlags = new byte[numParentEdges];
+        children = new int[numChildEdges];
+        childFlags = new byte[numChildEdges];
+        numParents = new int[tables.length];
+        numRealParents = new int[tables.length];
+        numChildren = new int[tables.length];
+        numRealChildren = new int[tables.length];
+
+        for (int c = 0; c < columns.length; ++c) {
+            TableColumn column = columns[c];
+            int t = columnTable[c];
+
+            int edge = parentEdges[c];
+            for (TableColumn parent : column.getParents()) {
+                boolean implied = column.getParentConstraint(parent).isImplied();
+                parents[edge++] = encode(getColumnId(parent), implied);
+                ++numParents[t];
+                if (!implied)
+                    ++numRealParents[t];
+            }
+            decode(c, parentEdges, parents, parentFlags);
+
+            edge = childEdges[c];
+            for (TableColumn child : column.getChildren()) {
+                boolean implied = column.getChildConstraint(child).isImplied();
+                children[edge++] = encode(getColumnId(child), implied);
+                ++numChildren[t];
+                if (!implied)
+                    ++numRealChildren[t];
+            }
+            decode(c, childEdges, children, childFlags);
+        }
+    }
+
+    /**
+     * Pack the target column and its 'implied' flag into a single sortable int
+     */
+    private static int encode(int columnId, boolean implied) {
+        return (columnId << 1) | (implied ? IMPLIED : 0);
+    }
+
+    /**
+     * Sort the edges of a column by target and unpack them into targets and flags
+     */
+    private void decode(int column, int[] offsets, int[] targets, byte[] flags) {
+        Arrays.sort(targets, offsets[column], offsets[column + 1]);
+
+        for (int edge = offsets[column]; edge < offsets[column + 1]; ++edge) {
+            int target = targets[edge] >>> 1;
+            int flag = targets[edge] & IMPLIED;
+            if (((columnFlags[column] | columnFlags[target]) & EXCLUDED) != 0)
+                flag |= EXCLUDED;
+            targets[edge] = target;
+            flags[edge] = (byte)flag;
+        }
+    }
+
+    public int getNumTables() {
+        return tables.length;
+    }
+
+    public Table getTable(int tableId) {
+        return tables[tableId];
+    }
+
+    /**
+     * Returns the id of the specified table or <code>-1</code> if it isn't
+     * part of this graph
+     *
+     * @param table
+     * @return
+     */
+    public int getTableId(Table table) {
+        Integer id = tableIds.get(table);
+        return id == null ? -1 : id.intValue();
+    }
+
+    public int getNumColumns() {
+        return columns.length;
+    }
+
+    public TableColumn getColumn(int columnId) {
+        return columns[columnId];
+    }
+
+    /**
+     * Returns the id of the specified column or <code>-1</code> if it isn't
+     * part of this graph
+     *
+     * @param column
+     * @return
+     */
+    public int getColumnId(TableColumn column) {
+        Integer id = columnIds.get(column);
+        return id == null ? -1 : id.intValue();
+    }
+
+    /**
+     * Returns the id of the table that owns the specified column
+     */
+    public int getTableIdOf(int columnId) {
+        return columnTable[columnId];
+    }
+
+    /**
+     * Returns the id of the first column of the specified table
+     */
+    public int firstColumn(int tableId) {
+        return tableColumns[tableId];
+    }
+
+    /**
+     * Returns one past the id of the last column of the specified table
+     */
+    public int endColumn(int tableId) {
+        return tableColumns[tableId + 1];
+    }
+
+    public boolean isExcluded(int columnId) {
+        return (columnFlags[columnId] & EXCLUDED) != 0;
+    }
+
+    public boolean isAllExcluded(int columnId) {
+        return (columnFlags[columnId] & ALL_EXCLUDED) != 0;
+    }
+
+    /**
+     * Returns the first of the edges to the parents of the specified column
+     */
+    public int firstParentEdge(int columnId) {
+        return parentEdges[columnId];
+    }
+
+    /**
+     * Returns one past the last of the edges to the parents of the specified column
+     */
+    public int endParentEdge(int columnId) {
+        return parentEdges[columnId + 1];
+    }
+
+    /**
+     * Returns the id of the parent column that the specified edge refers to
+     */
+    public int getParent(int edge) {
+        return parents[edge];
+    }
+
+    public boolean isParentImplied(int edge) {
+        return (parentFlags[edge] & IMPLIED) != 0;
+    }
+
+    /**
+     * Returns <code>true</code> if either end of the specified parent edge
+     * is a column that's been excluded from diagrams
+     */
+    public boolean isParentExcluded(int edge) {
+        return (parentFlags[edge] & EXCLUDED) != 0;
+    }
+
+    /**
+     * Returns the first of the edges to the children of the specified column
+     */
+    public int firstChildEdge(int columnId) {
+        return childEdges[columnId];
+    }
+
+    /**
+     * Returns one past the last of the edges to the children of the specified column
+     */
+    public int endChildEdge(int columnId) {
+        return childEdges[columnId + 1];
+    }
+
+    /**
+     * Returns the id of the child column that the specified edge refers to
+     */
+    public int getChild(int edge) {
+        return children[edge];
+    }
+
+    public boolean isChildImplied(int edge) {
+        return (childFlags[edge] & IMPLIED) != 0;
+    }
+
+    /**
+     * Returns <code>true</code> if either end of the specified child edge
+     * is a column that's been excluded from diagrams
+     */
+    public boolean isChildExcluded(int edge) {
+        return (childFlags[edge] & EXCLUDED) != 0;
+    }
+
+    /**
+     * Returns the number of relationships where the specified table is the child
+     *
+     * @param tableId
+     * @param includeImplied
+     * @return
+     */
+    public int getNumParents(int tableId, boolean includeImplied) {
+        return includeImplied ? numParents[tableId] : numRealParents[tableId];
+    }
+
+    /**
+     * Returns the number of relationships where the specified table is the parent
+     *
+     * @param tableId
+     * @param includeImplied
+     * @return
+     */
+    public int getNumChildren(int tableId, boolean includeImplied) {
+        return includeImplied ? numChildren[tableId] : numRealChildren[tableId];
+    }
+
+    /**
+     * Returns <code>true</code> if the specified table has no relationships
+     *
+     * @param tableId
+     * @param includeImplied
+     * @return
+     */
+    public boolean isOrphan(int tableId, boolean includeImplied) {
+        return getNumParents(tableId, includeImplied) == 0 && getNumChildren(tableId, includeImplied) == 0;
+    }
+
+    public int getNumEdges() {
+        return parents.length;
+    }
+}
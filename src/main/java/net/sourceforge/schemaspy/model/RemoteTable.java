@@ -92,6 +92,15 @@ public class RemoteTable extends Table {
         }
     }
 
+    /**
+     * Returns the schema (or catalog) that this remote table is referenced from
+     *
+     * @return
+     */
+    String getBaseContainer() {
+        return baseContainer;
+    }
+
     @Override
     public boolean isRemote() {
         return true;
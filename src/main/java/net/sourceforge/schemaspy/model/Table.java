@@ -42,6 +42,7 @@ import net.sourceforge.schemaspy.model.xml.ForeignKeyMeta;
 import net.sourceforge.schemaspy.model.xml.TableColumnMeta;
 import net.sourceforge.schemaspy.model.xml.TableMeta;
 import net.sourceforge.schemaspy.util.CaseInsensitiveMap;
+import net.sourceforge.schemaspy.util.JdbcMetrics;
 
 /**
  * A <code>Table</code> is one of the basic building blocks of SchemaSpy
@@ -90,9 +91,13 @@ public class Table implements Comparable<Table> {
         if (fineEnabled)
             logger.fine("Creating " + getClass().getSimpleName() + " " + fullName);
         setComments(comments);
-        initColumns();
-        initIndexes();
-        initPrimaryKeys();
+
+        // the details of tables restored from a saved model are supplied by ModelReader
+        if (!db.isOffline()) {
+            initColumns();
+            initIndexes();
+            initPrimaryKeys();
+        }
     }
 
     /**
@@ -358,6 +363,7 @@ public class Table implements Comparable<Table> {
 
         try {
             stmt = db.getMetaData().getConnection().prepareStatement(sql.toString());
+            JdbcMetrics.setQueryName(stmt, "initColumnAutoUpdate");
             rs = stmt.executeQuery();
 
             ResultSetMetaData rsMeta = rs.getMetaData();
@@ -414,6 +420,33 @@ public class Table implements Comparable<Table> {
         return column;
     }
 
+    /**
+     * Add a column that's been restored from a saved model
+     *
+     * @param column
+     */
+    void addColumn(TableColumn column) {
+        columns.put(column.getName(), column);
+    }
+
+    /**
+     * Add an index that's been restored from a saved model
+     *
+     * @param index
+     */
+    void addIndex(TableIndex index) {
+        indexes.put(index.getName(), index);
+    }
+
+    /**
+     * Add a foreign key that's been restored from a saved model
+     *
+     * @param foreignKey
+     */
+    void addForeignKey(ForeignKeyConstraint foreignKey) {
+        foreignKeys.put(foreignKey.getName(), foreignKey);
+    }
+
     /**
      * Initialize index information
      *
@@ -659,6 +692,18 @@ public class Table implements Comparable<Table> {
         this.comments = cmts;
     }
 
+    /**
+     * Release the details that are only needed to describe this table on its own
+     * (its comments, its columns' comments and its check constraints)
+     * so they can be garbage collected once they've been written.
+     */
+    public void releaseDetails() {
+        comments = null;
+        checkConstraints.clear();
+        for (TableColumn column : columns.values())
+            column.setComments(null);
+    }
+
     /**
      * Returns the {@link TableColumn} with the given name, or <code>null</code>
      * if it doesn't exist
@@ -1083,6 +1128,7 @@ public class Table implements Comparable<Table> {
             if (finerEnabled)
                 logger.finer(sql.toString());
             stmt = db.getConnection().prepareStatement(sql.toString());
+            JdbcMetrics.setQueryName(stmt, "fetchNumRows");
             rs = stmt.executeQuery();
             while (rs.next()) {
                 return rs.getLong(1);
@@ -21,6 +21,7 @@ package net.sourceforge.schemaspy.model;
 import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
@@ -33,6 +34,15 @@ import java.util.regex.Pattern;
 import net.sourceforge.schemaspy.Config;
 import net.sourceforge.schemaspy.model.xml.TableColumnMeta;
 
+/**
+ * A column of a {@link Table}.
+ * <p>
+ * There can easily be millions of these in a large schema, so they're kept
+ * compact: strings that repeat across columns (names, types, sizes and defaults)
+ * are shared, the maps of related columns are only created for the (relatively few)
+ * columns that have them and the boolean attributes are packed into {@link #flags}.
+ * </p>
+ */
 public class TableColumn {
     private final Table table;
     private final String name;
@@ -43,17 +53,19 @@ public class TableColumn {
     private final int length;
     private final int decimalDigits;
     private final String detailedSize;
-    private final boolean isNullable;
-    private       boolean isAutoUpdated;
     private       Boolean isUnique;
     private final Object defaultValue;
     private       String comments;
-    private final Map<TableColumn, ForeignKeyConstraint> parents = new HashMap<TableColumn, ForeignKeyConstraint>();
-    private final Map<TableColumn, ForeignKeyConstraint> children = new TreeMap<TableColumn, ForeignKeyConstraint>(new ColumnComparator());
-    private boolean allowImpliedParents = true;
-    private boolean allowImpliedChildren = true;
-    private boolean isExcluded = false;
-    private boolean isAllExcluded = false;
+    private       Map<TableColumn, ForeignKeyConstraint> parents;   // created on demand
+    private       Map<TableColumn, ForeignKeyConstraint> children;  // created on demand
+    private       byte flags = IMPLIED_PARENTS_ALLOWED | IMPLIED_CHILDREN_ALLOWED;
+    private static final byte NULLABLE = 0x01;
+    private static final byte AUTO_UPDATED = 0x02;
+    private static final byte IMPLIED_PARENTS_ALLOWED = 0x04;
+    private static final byte IMPLIED_CHILDREN_ALLOWED = 0x08;
+    private static final byte EXCLUDED = 0x10;
+    private static final byte ALL_EXCLUDED = 0x20;
+    private static final Comparator<TableColumn> byTableAndName = new ColumnComparator();
     private static final Logger logger = Logger.getLogger(TableColumn.class.getName());
     private static final boolean finerEnabled = logger.isLoggable(Level.FINER);
 
@@ -70,9 +82,8 @@ public class TableColumn {
         // names and types are typically reused *many* times in a database,
         // so keep a single instance of each distinct one
         // (thanks to Mike Barnes for the suggestion)
-        String tmp = rs.getString("COLUMN_NAME");
-        name = tmp == null ? null : tmp.intern();
-        tmp = rs.getString("TYPE_NAME");
+        name = intern(rs.getString("COLUMN_NAME"));
+        String tmp = rs.getString("TYPE_NAME");
         typeName = tmp == null ? "unknown" : tmp.intern();
         type = rs.getInt("DATA_TYPE");
 
@@ -82,25 +93,20 @@ public class TableColumn {
             length = bufLength.shortValue();
         else
             length = rs.getInt("COLUMN_SIZE");
+        detailedSize = getDetailedSize(length, decimalDigits);
 
-        StringBuilder buf = new StringBuilder();
-        buf.append(length);
-        if (decimalDigits > 0) {
-            buf.append(',');
-            buf.append(decimalDigits);
-        }
-        detailedSize = buf.toString();
-
-        isNullable = rs.getInt("NULLABLE") == DatabaseMetaData.columnNullable;
-        defaultValue = rs.getString("COLUMN_DEF");
+        setFlag(NULLABLE, rs.getInt("NULLABLE") == DatabaseMetaData.columnNullable);
+        defaultValue = intern(rs.getString("COLUMN_DEF"));
         setComments(rs.getString("REMARKS"));
-        id = new Integer(rs.getInt("ORDINAL_POSITION") - 1);
+        id = Integer.valueOf(rs.getInt("ORDINAL_POSITION") - 1);
 
         Pattern excludeIndirectColumns = Config.getInstance().getIndirectColumnExclusions();
         Pattern excludeColumns = Config.getInstance().getColumnExclusions();
 
-        isAllExcluded = matches(excludeColumns);
-        isExcluded = isAllExcluded || matches(excludeIndirectColumns);
+        boolean isAllExcluded = matches(excludeColumns);
+        boolean isExcluded = isAllExcluded || matches(excludeIndirectColumns);
+        setFlag(ALL_EXCLUDED, isAllExcluded);
+        setFlag(EXCLUDED, isExcluded);
         if (isExcluded && finerEnabled) {
             logger.finer("Excluding column " + getTable() + '.' + getName() +
                         ": matches " + excludeColumns + ":" + isAllExcluded + " " +
@@ -117,22 +123,76 @@ public class TableColumn {
      */
     public TableColumn(Table table, TableColumnMeta colMeta) {
         this.table = table;
-        name = colMeta.getName();
+        name = intern(colMeta.getName());
         id = colMeta.getId();
-        typeName = colMeta.getType();
+        typeName = intern(colMeta.getType());
         length = colMeta.getSize();
         decimalDigits = colMeta.getDigits();
+        detailedSize = getDetailedSize(length, decimalDigits);
+        setFlag(NULLABLE, colMeta.isNullable());
+        setFlag(AUTO_UPDATED, colMeta.isAutoUpdated());
+        defaultValue = intern(colMeta.getDefaultValue());
+        comments = colMeta.getComments();
+    }
+
+    /**
+     * A TableColumn that's been restored from a saved model by {@link ModelReader}.
+     *
+     * @param table
+     * @param name
+     * @param id
+     * @param typeName
+     * @param type
+     * @param length
+     * @param decimalDigits
+     * @param isNullable
+     * @param defaultValue
+     */
+    TableColumn(Table table, String name, Object id, String typeName, Integer type,
+                int length, int decimalDigits, boolean isNullable, Object defaultValue) {
+        this.table = table;
+        this.name = intern(name);
+        this.id = id;
+        this.typeName = intern(typeName);
+        this.type = type;
+        this.length = length;
+        this.decimalDigits = decimalDigits;
+        detailedSize = getDetailedSize(length, decimalDigits);
+        setFlag(NULLABLE, isNullable);
+        this.defaultValue = defaultValue instanceof String ? intern((String)defaultValue) : defaultValue;
+    }
+
+    /**
+     * Returns the single instance of each distinct string
+     * (names, types, etc. are typically reused <i>many</i> times in a database)
+     */
+    private static String intern(String value) {
+        return value == null ? null : value.intern();
+    }
+
+    /**
+     * Returns the shared string representation of length with
+     * optional decimal digits (if decimal digits &gt; 0)
+     */
+    private static String getDetailedSize(int length, int decimalDigits) {
         StringBuilder buf = new StringBuilder();
         buf.append(length);
         if (decimalDigits > 0) {
             buf.append(',');
             buf.append(decimalDigits);
         }
-        detailedSize = buf.toString();
-        isNullable = colMeta.isNullable();
-        isAutoUpdated = colMeta.isAutoUpdated();
-        defaultValue = colMeta.getDefaultValue();
-        comments = colMeta.getComments();
+        return buf.toString().intern();
+    }
+
+    private boolean isFlagged(byte flag) {
+        return (flags & flag) != 0;
+    }
+
+    private void setFlag(byte flag, boolean on) {
+        if (on)
+            flags |= flag;
+        else
+            flags &= ~flag;
     }
 
     /**
@@ -190,7 +250,7 @@ public class TableColumn {
      * @param type
      */
     public void setTypeName(String type) {
-        this.typeName = type;
+        this.typeName = intern(type);
     }
 
     /**
@@ -208,7 +268,7 @@ public class TableColumn {
      * @param shortType
      */
     public void setShortType(String shortType) {
-        this.shortTypeName = shortType;
+        this.shortTypeName = intern(shortType);
     }
 
     /**
@@ -246,7 +306,7 @@ public class TableColumn {
      * @return
      */
     public boolean isNullable() {
-        return isNullable;
+        return isFlagged(NULLABLE);
     }
 
     /**
@@ -255,7 +315,7 @@ public class TableColumn {
      * @return
      */
     public boolean isAutoUpdated() {
-        return isAutoUpdated;
+        return isFlagged(AUTO_UPDATED);
     }
 
     /**
@@ -264,7 +324,7 @@ public class TableColumn {
      * @param isAutoUpdated boolean
      */
     public void setIsAutoUpdated(boolean isAutoUpdated) {
-        this.isAutoUpdated = isAutoUpdated;
+        setFlag(AUTO_UPDATED, isAutoUpdated);
     }
 
     /**
@@ -309,7 +369,7 @@ public class TableColumn {
      * @return
      */
     public boolean isForeignKey() {
-        return !parents.isEmpty();
+        return parents != null && !parents.isEmpty();
     }
 
     /**
@@ -347,7 +407,7 @@ public class TableColumn {
      * @return
      */
     public boolean isExcluded() {
-        return isExcluded;
+        return isFlagged(EXCLUDED);
     }
 
     /**
@@ -360,7 +420,7 @@ public class TableColumn {
      * @return
      */
     public boolean isAllExcluded() {
-        return isAllExcluded;
+        return isFlagged(ALL_EXCLUDED);
     }
 
     /**
@@ -370,6 +430,8 @@ public class TableColumn {
      * @param constraint
      */
     public void addParent(TableColumn parent, ForeignKeyConstraint constraint) {
+        if (parents == null)
+            parents = new HashMap<TableColumn, ForeignKeyConstraint>(4);
         parents.put(parent, constraint);
         table.addedParent();
     }
@@ -380,17 +442,20 @@ public class TableColumn {
      * @param parent
      */
     public void removeParent(TableColumn parent) {
-        parents.remove(parent);
+        if (parents != null)
+            parents.remove(parent);
     }
 
     /**
      * Disassociate all parents from this column
      */
     public void unlinkParents() {
+        if (parents == null)
+            return;
         for (TableColumn parent : parents.keySet()) {
             parent.removeChild(this);
         }
-        parents.clear();
+        parents = null;
     }
 
     /**
@@ -399,6 +464,8 @@ public class TableColumn {
      * @return
      */
     public Set<TableColumn> getParents() {
+        if (parents == null)
+            return Collections.emptySet();
         return parents.keySet();
     }
 
@@ -406,7 +473,7 @@ public class TableColumn {
      * Returns the constraint that connects this column to the specified column (this 'child' column to specified 'parent' column)
      */
     public ForeignKeyConstraint getParentConstraint(TableColumn parent) {
-        return parents.get(parent);
+        return parents == null ? null : parents.get(parent);
     }
 
     /**
@@ -415,7 +482,7 @@ public class TableColumn {
      * @return the removed {@link ForeignKeyConstraint}
      */
     public ForeignKeyConstraint removeAParentFKConstraint() {
-        for (TableColumn relatedColumn : parents.keySet()) {
+        for (TableColumn relatedColumn : getParents()) {
             ForeignKeyConstraint constraint = parents.remove(relatedColumn);
             relatedColumn.removeChild(this);
             return constraint;
@@ -430,7 +497,7 @@ public class TableColumn {
      * @return the removed constraint, or <code>null</code> if none were available to be removed
      */
     public ForeignKeyConstraint removeAChildFKConstraint() {
-        for (TableColumn relatedColumn : children.keySet()) {
+        for (TableColumn relatedColumn : getChildren()) {
             ForeignKeyConstraint constraint = children.remove(relatedColumn);
             relatedColumn.removeParent(this);
             return constraint;
@@ -446,6 +513,8 @@ public class TableColumn {
      * @param constraint
      */
     public void addChild(TableColumn child, ForeignKeyConstraint constraint) {
+        if (children == null)
+            children = new TreeMap<TableColumn, ForeignKeyConstraint>(byTableAndName);
         children.put(child, constraint);
         table.addedChild();
     }
@@ -456,16 +525,19 @@ public class TableColumn {
      * @param child
      */
     public void removeChild(TableColumn child) {
-        children.remove(child);
+        if (children != null)
+            children.remove(child);
     }
 
     /**
      * Disassociate all children from this column
      */
     public void unlinkChildren() {
+        if (children == null)
+            return;
         for (TableColumn child : children.keySet())
             child.removeParent(this);
-        children.clear();
+        children = null;
     }
 
     /**
@@ -474,6 +546,8 @@ public class TableColumn {
      * @return Set
      */
     public Set<TableColumn> getChildren() {
+        if (children == null)
+            return Collections.emptySet();
         return children.keySet();
     }
 
@@ -482,7 +556,7 @@ public class TableColumn {
      * (specified 'child' to this 'parent' column)
      */
     public ForeignKeyConstraint getChildConstraint(TableColumn child) {
-        return children.get(child);
+        return children == null ? null : children.get(child);
     }
 
     /**
@@ -511,10 +585,29 @@ public class TableColumn {
             table.setPrimaryColumn(this);
         }
 
-        allowImpliedParents  = !colMeta.isImpliedParentsDisabled();
-        allowImpliedChildren = !colMeta.isImpliedChildrenDisabled();
-        isExcluded |= colMeta.isExcluded();
-        isAllExcluded |= colMeta.isAllExcluded();
+        setFlag(IMPLIED_PARENTS_ALLOWED, !colMeta.isImpliedParentsDisabled());
+        setFlag(IMPLIED_CHILDREN_ALLOWED, !colMeta.isImpliedChildrenDisabled());
+        if (colMeta.isExcluded())
+            setFlag(EXCLUDED, true);
+        if (colMeta.isAllExcluded())
+            setFlag(ALL_EXCLUDED, true);
+    }
+
+    /**
+     * Restore the implied relationship and diagram exclusion settings
+     * of a column that's been read from a saved model.
+     *
+     * @param allowImpliedParents
+     * @param allowImpliedChildren
+     * @param isExcluded
+     * @param isAllExcluded
+     */
+    void setRelationshipOptions(boolean allowImpliedParents, boolean allowImpliedChildren,
+                                boolean isExcluded, boolean isAllExcluded) {
+        setFlag(IMPLIED_PARENTS_ALLOWED, allowImpliedParents);
+        setFlag(IMPLIED_CHILDREN_ALLOWED, allowImpliedChildren);
+        setFlag(EXCLUDED, isExcluded);
+        setFlag(ALL_EXCLUDED, isAllExcluded);
     }
 
     /**
@@ -528,7 +621,7 @@ public class TableColumn {
     /**
      * Two {@link TableColumn}s are considered equal if their tables and names match.
      */
-    private class ColumnComparator implements Comparator<TableColumn> {
+    private static class ColumnComparator implements Comparator<TableColumn> {
         public int compare(TableColumn column1, TableColumn column2) {
             int rc = column1.getTable().compareTo(column2.getTable());
             if (rc == 0)
@@ -544,7 +637,7 @@ public class TableColumn {
      * @return
      */
     public boolean allowsImpliedParents() {
-        return allowImpliedParents;
+        return isFlagged(IMPLIED_PARENTS_ALLOWED);
     }
 
     /**
@@ -554,6 +647,6 @@ public class TableColumn {
      * @return
      */
     public boolean allowsImpliedChildren() {
-        return allowImpliedChildren;
+        return isFlagged(IMPLIED_CHILDREN_ALLOWED);
     }
 }
\ No newline at end of file
@@ -41,6 +41,17 @@ public class TableIndex implements Comparable<TableIndex> {
         isUnique = !rs.getBoolean("NON_UNIQUE");
     }
 
+    /**
+     * An index that's been restored from a saved model
+     *
+     * @param name
+     * @param isUnique
+     */
+    TableIndex(String name, boolean isUnique) {
+        this.name = name;
+        this.isUnique = isUnique;
+    }
+
     public void setId(Object id) {
         this.id = id;
     }
@@ -43,7 +43,7 @@ public class View extends Table {
                 String name, String remarks, String viewSql) throws SQLException {
         super(db, catalog, schema, name, remarks);
 
-        if (viewSql == null)
+        if (viewSql == null && !db.isOffline())
             viewSql = fetchViewSql();
 
         if (viewSql != null && viewSql.trim().length() > 0)
@@ -63,6 +63,15 @@ public class View extends Table {
         return viewSql;
     }
 
+    /**
+     * Also releases the SQL that defined the view
+     */
+    @Override
+    public void releaseDetails() {
+        super.releaseDetails();
+        viewSql = null;
+    }
+
     /**
      * Extract the SQL that describes this view from the database
      *
@@ -19,8 +19,7 @@
 package net.sourceforge.schemaspy.model.xml;
 
 import java.util.logging.Logger;
-import org.w3c.dom.NamedNodeMap;
-import org.w3c.dom.Node;
+import org.xml.sax.Attributes;
 
 /**
  * Additional metadata about a foreign key relationship as expressed in XML
@@ -35,20 +34,15 @@ public class ForeignKeyMeta {
     private final String remoteSchema;
     private final static Logger logger = Logger.getLogger(ForeignKeyMeta.class.getName());
 
-    public ForeignKeyMeta(Node foreignKeyNode) {
-        NamedNodeMap attribs = foreignKeyNode.getAttributes();
-        Node node = attribs.getNamedItem("table");
-        if (node == null)
+    public ForeignKeyMeta(Attributes attribs) {
+        tableName = attribs.getValue("table");
+        if (tableName == null)
             throw new IllegalStateException("XML foreignKey definition requires 'table' attribute");
-        tableName = node.getNodeValue();
-        node = attribs.getNamedItem("column");
-        if (node == null)
+        columnName = attribs.getValue("column");
+        if (columnName == null)
             throw new IllegalStateException("XML foreignKey definition requires 'column' attribute");
-        columnName = node.getNodeValue();
-        node = attribs.getNamedItem("remoteSchema");
-        remoteSchema = node == null ? null : node.getNodeValue();
-        node = attribs.getNamedItem("remoteCatalog");
-        remoteCatalog = node == null ? null : node.getNodeValue();
+        remoteSchema = attribs.getValue("remoteSchema");
+        remoteCatalog = attribs.getValue("remoteCatalog");
 
         logger.finer("Found XML FK metadata for " + tableName + "." + columnName +
                 " remoteCatalog: " + remoteCatalog + " remoteSchema: " + remoteSchema);
@@ -21,35 +21,39 @@ package net.sourceforge.schemaspy.model.xml;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.ArrayList;
-import java.util.List;
+import java.sql.SQLException;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.xml.XMLConstants;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.dom.DOMSource;
+import javax.xml.parsers.SAXParserFactory;
 import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
-import javax.xml.validation.Validator;
+import javax.xml.validation.ValidatorHandler;
 import net.sourceforge.schemaspy.Config;
 import net.sourceforge.schemaspy.model.InvalidConfigurationException;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
+import org.xml.sax.Attributes;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
 
 /**
  * Additional metadata about a schema as expressed in XML instead of from
  * the database.
+ * <p>
+ * The metadata file is {@link #read(TableMetaHandler) read} in a single
+ * streaming pass that validates it and hands each table's metadata off
+ * as soon as it's complete, so the file is never held in memory.
+ * </p>
  *
  * @author John Currier
  */
 public class SchemaMeta {
-    private final List<TableMeta> tables = new ArrayList<TableMeta>();
-    private final String comments;
+    private String comments;
     private final File metaFile;
     private final Logger logger = Logger.getLogger(getClass().getName());
 
@@ -63,7 +67,6 @@ public class SchemaMeta {
                 if (Config.getInstance().isOneOfMultipleSchemas()) {
                     // don't force all of the "one of many" schemas to have metafiles
                     logger.info("Meta directory \"" + xmlMeta + "\" should contain a file named \"" + filename + '\"');
-                    comments = null;
                     metaFile = null;
                     return;
                 }
@@ -75,31 +78,11 @@ public class SchemaMeta {
         }
 
         metaFile = meta;
-
-        Document doc = parse(metaFile);
-
-        NodeList commentsNodes = doc.getElementsByTagName("comments");
-        if (commentsNodes == null)
-            commentsNodes = doc.getElementsByTagName("remarks");
-        if (commentsNodes != null && commentsNodes.getLength() > 0)
-            comments = commentsNodes.item(0).getTextContent();
-        else
-            comments = null;
-
-        NodeList tablesNodes = doc.getElementsByTagName("tables");
-        if (tablesNodes != null) {
-            NodeList tableNodes = ((Element)tablesNodes.item(0)).getElementsByTagName("table");
-
-            for (int i = 0; i < tableNodes.getLength(); ++i) {
-                Node tableNode = tableNodes.item(i);
-                TableMeta tableMeta = new TableMeta(tableNode);
-                tables.add(tableMeta);
-            }
-        }
     }
 
     /**
-     * Comments that describe the schema
+     * Comments that describe the schema.
+     * Only available after the metadata has been {@link #read(TableMetaHandler) read}.
      */
     public String getComments() {
         return comments;
@@ -109,56 +92,146 @@ public class SchemaMeta {
         return metaFile;
     }
 
-    public List<TableMeta> getTables() {
-        return tables;
+    /**
+     * Parse and validate the metadata file, passing each table's metadata
+     * to <code>handler</code> as soon as it has been completely read.
+     *
+     * @param handler
+     * @throws InvalidConfigurationException if the file couldn't be parsed
+     * @throws SQLException if thrown by <code>handler</code>
+     */
+    public void read(TableMetaHandler handler) throws InvalidConfigurationException, SQLException {
+        if (metaFile == null)
+            return;
+
+        SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setNamespaceAware(true);
+        XMLReader reader;
+
+        try {
+            reader = factory.newSAXParser().getXMLReader();
+        } catch (ParserConfigurationException exc) {
+            throw new InvalidConfigurationException("Invalid XML parser configuration", exc);
+        } catch (SAXException exc) {
+            throw new InvalidConfigurationException("Invalid XML parser configuration", exc);
+        }
+
+        MetaHandler metaHandler = new MetaHandler(handler);
+        ValidatorHandler validator = getValidator();
+        if (validator != null) {
+            validator.setErrorHandler(metaHandler);
+            validator.setContentHandler(metaHandler);
+            reader.setContentHandler(validator);
+        } else {
+            reader.setContentHandler(metaHandler);
+        }
+        reader.setErrorHandler(metaHandler);
+
+        try {
+            logger.info("Parsing " + metaFile);
+            reader.parse(new InputSource(metaFile.toURI().toString()));
+        } catch (SAXException exc) {
+            if (exc.getException() instanceof SQLException)
+                throw (SQLException)exc.getException();
+            throw new InvalidConfigurationException("Failed to parse " + metaFile, exc);
+        } catch (IOException exc) {
+            throw new InvalidConfigurationException("Could not read " + metaFile + ":", exc);
+        }
     }
 
-    private void validate(Document document) throws SAXException, IOException {
+    /**
+     * Returns a handler that validates the SAX events passing through it
+     * against <code>schemaspy.meta.xsd</code> or <code>null</code> if
+     * the schema couldn't be loaded.
+     */
+    private ValidatorHandler getValidator() {
         // create a SchemaFactory capable of understanding WXS schemas
         SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
 
         // load a WXS schema, represented by a Schema instance
         InputStream xsl = getClass().getResourceAsStream("/schemaspy.meta.xsd");
 
-        Schema schema = factory.newSchema(new StreamSource(xsl));
+        try {
+            Schema schema = factory.newSchema(new StreamSource(xsl));
+            return schema.newValidatorHandler();
+        } catch (SAXException exc) {
+            logger.warning("Failed to validate " + metaFile + ": " + exc);
+            return null;
+        }
+    }
 
-        // create a Validator instance, which can be used to validate an instance document
-        Validator validator = schema.newValidator();
+    /**
+     * Builds {@link TableMeta}s from the SAX events of the metadata file
+     * and reports any validation failures.
+     */
+    private class MetaHandler extends DefaultHandler {
+        private final TableMetaHandler tableHandler;
+        private TableMeta table;
+        private TableColumnMeta column;
+        private StringBuilder text;
+        private boolean invalid;
+
+        MetaHandler(TableMetaHandler tableHandler) {
+            this.tableHandler = tableHandler;
+        }
 
-        // validate the DOM tree
-        validator.validate(new DOMSource(document));
-    }
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attribs) throws SAXException {
+            if (localName.equals("table")) {
+                table = new TableMeta(attribs);
+            } else if (localName.equals("column") && table != null) {
+                column = new TableColumnMeta(attribs);
+                table.addColumn(column);
+            } else if (localName.equals("foreignKey") && column != null) {
+                column.addForeignKey(new ForeignKeyMeta(attribs));
+            } else if (table == null && comments == null &&
+                        (localName.equals("comments") || localName.equals("remarks"))) {
+                text = new StringBuilder();
+            }
+        }
 
-    private Document parse(File file) throws InvalidConfigurationException {
-        DocumentBuilder docBuilder;
-        Document doc = null;
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        factory.setNamespaceAware(true);
-        factory.setIgnoringElementContentWhitespace(true);
-        factory.setIgnoringComments(true);
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (text != null)
+                text.append(ch, start, length);
+        }
 
-        try {
-            docBuilder = factory.newDocumentBuilder();
-        } catch (ParserConfigurationException exc) {
-            throw new InvalidConfigurationException("Invalid XML parser configuration", exc);
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            if (localName.equals("table") && table != null) {
+                try {
+                    tableHandler.tableRead(table);
+                } catch (SQLException exc) {
+                    throw new SAXException(exc);
+                }
+                table = null;
+            } else if (localName.equals("column")) {
+                column = null;
+            } else if (text != null) {
+                comments = text.toString();
+                text = null;
+            }
         }
 
-        try {
-            logger.info("Parsing " + file);
-            doc = docBuilder.parse(file);
-        } catch (SAXException exc) {
-            throw new InvalidConfigurationException("Failed to parse " + file, exc);
-        } catch (IOException exc) {
-            throw new InvalidConfigurationException("Could not read " + file + ":", exc);
+        @Override
+        public void warning(SAXParseException exc) {
+            logger.fine("Validating " + metaFile + ": " + exc);
         }
-        try {
-            validate(doc);
-        } catch (SAXException exc) {
-            logger.warning("Failed to validate " + file + ": " + exc);
-        } catch (IOException exc) {
-            logger.warning("Failed to validate " + file + ": " + exc);
+
+        @Override
+        public void error(SAXParseException exc) {
+            // report the first problem, the rest are usually fallout from it
+            if (!invalid) {
+                invalid = true;
+                logger.warning("Failed to validate " + metaFile + ": " + exc);
+            } else if (logger.isLoggable(Level.FINE)) {
+                logger.fine("Failed to validate " + metaFile + ": " + exc);
+            }
         }
 
-        return doc;
+        @Override
+        public void fatalError(SAXParseException exc) throws SAXException {
+            throw exc;
+        }
     }
-}
\ No newline at end of file
+}
@@ -21,10 +21,7 @@ package net.sourceforge.schemaspy.model.xml;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Logger;
-import org.w3c.dom.Element;
-import org.w3c.dom.NamedNodeMap;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
+import org.xml.sax.Attributes;
 
 /**
  * Additional metadata about a column as expressed in XML instead of from
@@ -50,49 +47,46 @@ public class TableColumnMeta {
     private final boolean isImpliedChildrenDisabled;
     private static final Logger logger = Logger.getLogger(TableColumnMeta.class.getName());
 
-    TableColumnMeta(Node colNode) {
-        NamedNodeMap attribs = colNode.getAttributes();
+    TableColumnMeta(Attributes attribs) {
         String tmp;
 
-        name = attribs.getNamedItem("name").getNodeValue();
+        name = attribs.getValue("name");
 
-        Node node = attribs.getNamedItem("comments");
-        if (node == null)
-            node = attribs.getNamedItem("remarks");
-        if (node != null) {
-            tmp = node.getNodeValue().trim();
+        tmp = attribs.getValue("comments");
+        if (tmp == null)
+            tmp = attribs.getValue("remarks");
+        if (tmp != null) {
+            tmp = tmp.trim();
             comments = tmp.length() == 0 ? null : tmp;
         } else {
             comments = null;
         }
 
-        node = attribs.getNamedItem("type");
-        type = node == null ? "Unknown" : node.getNodeValue();
+        tmp = attribs.getValue("type");
+        type = tmp == null ? "Unknown" : tmp;
 
-        node = attribs.getNamedItem("id");
-        id = node == null ? null : node.getNodeValue();
+        id = attribs.getValue("id");
 
-        node = attribs.getNamedItem("size");
-        size = node == null ? 0 : Integer.parseInt(node.getNodeValue());
+        tmp = attribs.getValue("size");
+        size = tmp == null ? 0 : Integer.parseInt(tmp);
 
-        node = attribs.getNamedItem("digits");
-        digits = node == null ? 0 : Integer.parseInt(node.getNodeValue());
+        tmp = attribs.getValue("digits");
+        digits = tmp == null ? 0 : Integer.parseInt(tmp);
         
-        node = attribs.getNamedItem("nullable");
-        isNullable = node == null ? false : evalBoolean(node.getNodeValue());
+        tmp = attribs.getValue("nullable");
+        isNullable = tmp == null ? false : evalBoolean(tmp);
 
-        node = attribs.getNamedItem("autoUpdated");
-        isAutoUpdated = node == null ? false : evalBoolean(node.getNodeValue());
+        tmp = attribs.getValue("autoUpdated");
+        isAutoUpdated = tmp == null ? false : evalBoolean(tmp);
         
-        node = attribs.getNamedItem("primaryKey");
-        isPrimary = node == null ? false : evalBoolean(node.getNodeValue());
+        tmp = attribs.getValue("primaryKey");
+        isPrimary = tmp == null ? false : evalBoolean(tmp);
         
-        node = attribs.getNamedItem("defaultValue");
-        defaultValue = node == null ? null : node.getNodeValue();
+        defaultValue = attribs.getValue("defaultValue");
         
-        node = attribs.getNamedItem("disableImpliedKeys");
-        if (node != null) {
-            tmp = node.getNodeValue().trim().toLowerCase();
+        tmp = attribs.getValue("disableImpliedKeys");
+        if (tmp != null) {
+            tmp = tmp.trim().toLowerCase();
             if (tmp.equals("to")) {
                 isImpliedChildrenDisabled = true;
                 isImpliedParentsDisabled  = false;
@@ -108,9 +102,9 @@ public class TableColumnMeta {
             isImpliedChildrenDisabled = isImpliedParentsDisabled = false;
         }
 
-        node = attribs.getNamedItem("disableDiagramAssociations");
-        if (node != null) {
-            tmp = node.getNodeValue().trim().toLowerCase();
+        tmp = attribs.getValue("disableDiagramAssociations");
+        if (tmp != null) {
+            tmp = tmp.trim().toLowerCase();
             if (tmp.equals("all")) {
                 isAllExcluded = true;
                 isExcluded = true;
@@ -129,13 +123,10 @@ public class TableColumnMeta {
         logger.finer("Found XML column metadata for " + name +
                     " isPrimaryKey: " + isPrimary +
                     " comments: " + comments);
+    }
 
-        NodeList fkNodes = ((Element)colNode.getChildNodes()).getElementsByTagName("foreignKey");
-
-        for (int i = 0; i < fkNodes.getLength(); ++i) {
-            Node fkNode = fkNodes.item(i);
-            foreignKeys.add(new ForeignKeyMeta(fkNode));
-        }
+    void addForeignKey(ForeignKeyMeta foreignKey) {
+        foreignKeys.add(foreignKey);
     }
 
     private boolean evalBoolean(String exp) {
@@ -21,10 +21,7 @@ package net.sourceforge.schemaspy.model.xml;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Logger;
-import org.w3c.dom.Element;
-import org.w3c.dom.NamedNodeMap;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
+import org.xml.sax.Attributes;
 
 /**
  * Additional metadata about a table as expressed in XML instead of from
@@ -40,38 +37,33 @@ public class TableMeta {
     private final String remoteSchema;
     private static final Logger logger = Logger.getLogger(TableMeta.class.getName());
 
-    TableMeta(Node tableNode) {
-        NamedNodeMap attribs = tableNode.getAttributes();
+    TableMeta(Attributes attribs) {
+        name = attribs.getValue("name");
 
-        name = attribs.getNamedItem("name").getNodeValue();
-
-        Node node = attribs.getNamedItem("comments");
-        if (node == null)
-            node = attribs.getNamedItem("remarks");
-        if (node != null) {
-            String tmp = node.getNodeValue().trim();
+        String tmp = attribs.getValue("comments");
+        if (tmp == null)
+            tmp = attribs.getValue("remarks");
+        if (tmp != null) {
+            tmp = tmp.trim();
             comments = tmp.length() == 0 ? null : tmp;
         } else {
             comments = null;
         }
 
-        node = attribs.getNamedItem("remoteSchema");
-        remoteSchema = node == null ? null : node.getNodeValue().trim();
+        tmp = attribs.getValue("remoteSchema");
+        remoteSchema = tmp == null ? null : tmp.trim();
 
-        node = attribs.getNamedItem("remoteCatalog");
-        remoteCatalog = node == null ? null : node.getNodeValue().trim();
+        tmp = attribs.getValue("remoteCatalog");
+        remoteCatalog = tmp == null ? null : tmp.trim();
 
         logger.fine("Found XML table metadata for " + name +
                     " remoteCatalog: " + remoteCatalog +
                     " remoteSchema: " + remoteSchema +
                     " comments: " + comments);
+    }
 
-        NodeList columnNodes = ((Element)tableNode.getChildNodes()).getElementsByTagName("column");
-
-        for (int i = 0; i < columnNodes.getLength(); ++i) {
-            Node colNode = columnNodes.item(i);
-            columns.add(new TableColumnMeta(colNode));
-        }
+    void addColumn(TableColumnMeta column) {
+        columns.add(column);
     }
 
     public String getName() {
@@ -93,4 +85,16 @@ public class TableMeta {
     public String getRemoteSchema() {
         return remoteSchema;
     }
+
+    /**
+     * Returns <code>true</code> if any of the columns reference other columns
+     */
+    public boolean hasForeignKeys() {
+        for (TableColumnMeta column : columns) {
+            if (!column.getForeignKeys().isEmpty())
+                return true;
+        }
+
+        return false;
+    }
 }
\ No newline at end of file
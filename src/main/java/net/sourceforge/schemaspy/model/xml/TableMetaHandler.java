@@ -0,0 +1,36 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.sourceforge.net).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.sourceforge.schemaspy.model.xml;
+
+import java.sql.SQLException;
+
+/**
+ * Receives the {@link TableMeta}s of a {@link SchemaMeta} as they're read.
+ *
+ * @see SchemaMeta#read(TableMetaHandler)
+ */
+public interface TableMetaHandler {
+    /**
+     * Called once for each table as soon as its definition (including its
+     * columns and their foreign keys) has been completely read.
+     *
+     * @param tableMeta
+     * @throws SQLException
+     */
+    void tableRead(TableMeta tableMeta) throws SQLException;
+}
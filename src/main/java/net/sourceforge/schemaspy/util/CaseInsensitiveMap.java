@@ -47,9 +47,14 @@ public class CaseInsensitiveMap<V> extends HashMap<String, V>
         return super.get(((String)key).toUpperCase());
     }
 
+    /**
+     * The upper-cased key is interned so that the many maps keyed by
+     * the same (e.g. column) names share a single copy of each key
+     * rather than each holding its own.
+     */
     @Override
     public V put(String key, V value) {
-        return super.put(key.toUpperCase(), value);
+        return super.put(key.toUpperCase().intern(), value);
     }
 
     @Override
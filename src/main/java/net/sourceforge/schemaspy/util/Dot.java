@@ -26,6 +26,9 @@ import java.io.InputStreamReader;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
@@ -43,6 +46,7 @@ public class Dot {
     private String renderer;
     private final Set<String> validatedRenderers = Collections.synchronizedSet(new HashSet<String>());
     private final Set<String> invalidatedRenderers = Collections.synchronizedSet(new HashSet<String>());
+    private Timer watchdog;
     private final Logger logger = Logger.getLogger(Dot.class.getName());
 
     private Dot() {
@@ -262,8 +266,21 @@ public class Dot {
         return dotExe;
     }
 
+    /**
+     * Returns the timer that kills dot processes that take too long
+     *
+     * @return
+     */
+    private synchronized Timer getWatchdog() {
+        if (watchdog == null)
+            watchdog = new Timer("dot watchdog", true);
+        return watchdog;
+    }
+
     /**
      * Using the specified .dot file generates an image returning the image's image map.
+     * If dot takes longer than {@link Config#getRenderTimeout()} then it's killed
+     * and a {@link DotTimeout} is thrown.
      */
     public String generateDiagram(File dotFile, File diagramFile) throws DotFailure {
         StringBuilder mapBuffer = new StringBuilder(1024);
@@ -281,8 +298,24 @@ public class Dot {
         String commandLine = getDisplayableCommand(dotCommand);
         logger.fine(commandLine);
 
+        Object event = PipelineEvents.begin(PipelineEvents.Stage.GRAPHVIZ_RENDER);
+        long start = System.currentTimeMillis();
+        int rc = -1;
+        TimerTask killer = null;
+        final AtomicBoolean timedOut = new AtomicBoolean();
         try {
-            Process process = Runtime.getRuntime().exec(dotCommand);
+            final Process process = Runtime.getRuntime().exec(dotCommand);
+            int timeout = Config.getInstance().getRenderTimeout();
+            if (timeout > 0) {
+                killer = new TimerTask() {
+                    @Override
+                    public void run() {
+                        timedOut.set(true);
+                        process.destroy();
+                    }
+                };
+                getWatchdog().schedule(killer, timeout * 1000L);
+            }
             new ProcessOutputReader(commandLine, process.getErrorStream()).start();
             mapReader = new BufferedReader(new InputStreamReader(process.getInputStream()));
             String line;
@@ -290,7 +323,11 @@ public class Dot {
                 mapBuffer.append(line);
                 mapBuffer.append(lineSeparator);
             }
-            int rc = process.waitFor();
+            rc = process.waitFor();
+            if (killer != null)
+                killer.cancel();
+            if (timedOut.get())
+                throw new DotTimeout("'" + commandLine + "' killed after " + timeout + " seconds");
             if (rc != 0)
                 throw new DotFailure("'" + commandLine + "' failed with return code " + rc);
             if (!diagramFile.exists())
@@ -312,6 +349,10 @@ public class Dot {
                     mapReader.close();
                 } catch (IOException ignore) {}
             }
+            if (killer != null)
+                killer.cancel();
+            RenderProfile.getInstance().rendered(dotFile, diagramFile, System.currentTimeMillis() - start, rc, timedOut.get());
+            PipelineEvents.graphvizRendered(event, dotFile, diagramFile, rc);
         }
     }
 
@@ -323,6 +364,17 @@ public class Dot {
         }
     }
 
+    /**
+     * Thrown when dot takes longer than {@link Config#getRenderTimeout()}
+     */
+    public class DotTimeout extends DotFailure {
+        private static final long serialVersionUID = -1925624431874516342L;
+
+        public DotTimeout(String msg) {
+            super(msg);
+        }
+    }
+
     private static String getDisplayableCommand(String[] command) {
         StringBuilder displayable = new StringBuilder();
         for (int i = 0; i < command.length; ++i) {
@@ -0,0 +1,370 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.sourceforge.net).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.sourceforge.schemaspy.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Records the JDBC calls made through a connection: how many times each
+ * was made, how long they took and how many rows were read from the
+ * result sets that they returned.
+ * <p>
+ * Calls to {@link Connection} and {@link DatabaseMetaData} are recorded
+ * per interface and method (e.g. <code>DatabaseMetaData.getIndexInfo</code>).
+ * Statements are recorded when they're executed, under the name given to them
+ * by {@link #setQueryName(Statement, String)} (the <code>selectIndexesSql</code>
+ * style names of the dbTypes queries) or, failing that, per interface and method.
+ * The time spent in <code>ResultSet.next()</code> and the rows that it read
+ * are attributed to the call that returned the result set.
+ * </p><p>
+ * The durations of the phases of a run can also be recorded here so that
+ * everything that's {@link #write(File) written} describes the same run.
+ * Safe for use by multiple threads.
+ * </p>
+ */
+public class JdbcMetrics {
+    /**
+     * Upper bounds (inclusive) of the buckets of the latency histograms.
+     * There's one more bucket for anything slower than the last bound.
+     */
+    private static final long[] bucketBoundsMs = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000};
+    private static final Class<?>[] wrappable = {
+        Connection.class, DatabaseMetaData.class, CallableStatement.class, PreparedStatement.class, Statement.class
+    };
+
+    private final ConcurrentMap<String, Call> calls = new ConcurrentHashMap<String, Call>();
+    private final Map<String, Long> phases = new LinkedHashMap<String, Long>();
+
+    /**
+     * Returns a connection that records the calls made through it
+     * (and through the metadata, statements and result sets that it returns)
+     * before passing them to <code>connection</code>.
+     *
+     * @param connection
+     * @return
+     */
+    public Connection wrap(Connection connection) {
+        return (Connection)wrap(connection, Connection.class, null);
+    }
+
+    private Object wrap(Object target, Class<?> type, Call source) {
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, new Recorder(target, type, source));
+    }
+
+    /**
+     * Record the executions of <code>stmt</code> under the specified name.
+     * Does nothing if the statement didn't come from a wrapped connection.
+     *
+     * @param stmt
+     * @param name
+     */
+    public static void setQueryName(Statement stmt, String name) {
+        if (Proxy.isProxyClass(stmt.getClass())) {
+            InvocationHandler handler = Proxy.getInvocationHandler(stmt);
+            if (handler instanceof Recorder)
+                ((Recorder)handler).queryName = name;
+        }
+    }
+
+    /**
+     * Record how long the specified phase of the run took
+     *
+     * @param phase
+     * @param millis
+     */
+    public void recordPhase(String phase, long millis) {
+        synchronized (phases) {
+            phases.put(phase, Long.valueOf(millis));
+        }
+    }
+
+    /**
+     * Returns the phases that were recorded, in the order they were recorded
+     *
+     * @return
+     */
+    public Map<String, Long> getPhases() {
+        synchronized (phases) {
+            return new LinkedHashMap<String, Long>(phases);
+        }
+    }
+
+    /**
+     * Returns the calls that were made, the most time consuming first
+     *
+     * @return
+     */
+    public List<Call> getCalls() {
+        List<Call> sorted = new ArrayList<Call>(calls.values());
+        Collections.sort(sorted, new Comparator<Call>() {
+            public int compare(Call call1, Call call2) {
+                long diff = call2.getTotalNanos() - call1.getTotalNanos();
+                if (diff != 0)
+                    return diff < 0 ? -1 : 1;
+                return call1.getName().compareTo(call2.getName());
+            }
+        });
+        return sorted;
+    }
+
+    public long getNumCalls() {
+        long total = 0;
+        for (Call call : calls.values())
+            total += call.getCount();
+        return total;
+    }
+
+    public long getRowsRead() {
+        long total = 0;
+        for (Call call : calls.values())
+            total += call.getRows();
+        return total;
+    }
+
+    /**
+     * Returns the total time spent in JDBC calls (including reading their rows) in milliseconds
+     *
+     * @return
+     */
+    public long getTotalMillis() {
+        long total = 0;
+        for (Call call : calls.values())
+            total += call.getTotalNanos();
+        return total / 1000000;
+    }
+
+    /**
+     * Write the phases and calls as json to the specified file
+     *
+     * @param file
+     * @throws IOException
+     */
+    public void write(File file) throws IOException {
+        LineWriter out = new LineWriter(file, "UTF-8");
+        JsonWriter json = new JsonWriter(out);
+        json.beginObject();
+        write(json);
+        json.endObject();
+        json.flush();
+        out.newLine();
+        out.close();
+    }
+
+    /**
+     * Write the phases and calls as properties of the current json object
+     *
+     * @param json
+     * @throws IOException
+     */
+    public void write(JsonWriter json) throws IOException {
+        json.name("phasesMs").beginObject();
+        for (Map.Entry<String, Long> phase : getPhases().entrySet())
+            json.property(phase.getKey(), phase.getValue().longValue());
+        json.endObject();
+
+        List<Call> sorted = getCalls();
+        json.property("jdbcCalls", getNumCalls());
+        json.property("rowsRead", getRowsRead());
+        json.property("jdbcMs", getTotalMillis());
+        json.name("histogramBoundsMs").beginArray();
+        for (long bound : bucketBoundsMs)
+            json.value(bound);
+        json.endArray();
+
+        json.name("calls").beginArray();
+        for (Call call : sorted) {
+            synchronized (call) {
+                json.beginObject();
+                json.property("name", call.getName());
+                json.property("calls", call.getCount());
+                json.property("rows", call.getRows());
+                json.property("totalMs", call.getTotalNanos() / 1000000);
+                json.property("fetchMs", call.fetchNanos / 1000000);
+                json.property("maxMs", call.maxNanos / 1000000);
+                json.name("histogram").beginArray();
+                for (long count : call.histogram)
+                    json.value(count);
+                json.endArray();
+                json.endObject();
+            }
+        }
+        json.endArray();
+    }
+
+    private Call getCall(String name) {
+        Call call = calls.get(name);
+        if (call == null) {
+            Call existing = calls.putIfAbsent(name, call = new Call(name));
+            if (existing != null)
+                call = existing;
+        }
+        return call;
+    }
+
+    /**
+     * What's known about the calls of a specific name
+     */
+    public static class Call {
+        private final String name;
+        private long count;
+        private long rows;
+        private long callNanos;
+        private long fetchNanos;
+        private long maxNanos;
+        private final long[] histogram = new long[bucketBoundsMs.length + 1];
+
+        private Call(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public synchronized long getCount() {
+            return count;
+        }
+
+        public synchronized long getRows() {
+            return rows;
+        }
+
+        /**
+         * Time spent making the calls and reading the rows of their results
+         */
+        public synchronized long getTotalNanos() {
+            return callNanos + fetchNanos;
+        }
+
+        private synchronized void called(long nanos) {
+            ++count;
+            callNanos += nanos;
+            if (nanos > maxNanos)
+                maxNanos = nanos;
+
+            int bucket = 0;
+            while (bucket < bucketBoundsMs.length && nanos > bucketBoundsMs[bucket] * 1000000)
+                ++bucket;
+            ++histogram[bucket];
+        }
+
+        private synchronized void fetched(long nanos, boolean gotRow) {
+            fetchNanos += nanos;
+            if (gotRow)
+                ++rows;
+        }
+
+        @Override
+        public String toString() {
+            return name + ": " + getCount() + " calls, " + getRows() + " rows in " + getTotalNanos() / 1000000 + "ms";
+        }
+    }
+
+    /**
+     * Records the calls made through a proxy before passing them on to its target
+     */
+    private class Recorder implements InvocationHandler {
+        private final Object target;
+        private final String prefix;
+        private final boolean isStatement;
+        private final boolean isResultSet;
+        private final Call source;  // call that produced this result set
+        private volatile String queryName;
+
+        Recorder(Object target, Class<?> type, Call source) {
+            this.target = target;
+            this.prefix = type.getSimpleName() + '.';
+            this.isStatement = Statement.class.isAssignableFrom(type);
+            this.isResultSet = type == ResultSet.class;
+            this.source = source;
+        }
+
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String methodName = method.getName();
+            Call call = null;       // what the result set that's returned (if any) belongs to
+            boolean timed = false;  // whether this call's time is recorded
+
+            if (isResultSet) {
+                timed = source != null && methodName.equals("next");
+                call = source;
+            } else if (method.getDeclaringClass() != Object.class) {
+                if (!isStatement) {
+                    call = getCall(prefix + methodName);
+                    timed = true;
+                } else if (methodName.startsWith("execute") || methodName.equals("getResultSet")) {
+                    // only executions go to the database...the rest just set up the statement
+                    call = getCall(queryName != null ? queryName : prefix + "execute");
+                    timed = methodName.startsWith("execute");
+                }
+            }
+
+            long start = timed ? System.nanoTime() : 0;
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException exc) {
+                throw exc.getCause();
+            } finally {
+                if (timed) {
+                    long nanos = System.nanoTime() - start;
+                    if (isResultSet)
+                        call.fetched(nanos, false);
+                    else
+                        call.called(nanos);
+                }
+            }
+
+            if (isResultSet) {
+                if (timed && Boolean.TRUE.equals(result))
+                    call.fetched(0, true);
+                return result;
+            }
+
+            if (result != null) {
+                Class<?> returnType = method.getReturnType();
+                if (returnType == ResultSet.class)
+                    return wrap(result, ResultSet.class, call);
+                for (Class<?> type : wrappable) {
+                    if (returnType == type)
+                        return wrap(result, type, null);
+                }
+            }
+
+            return result;
+        }
+    }
+}
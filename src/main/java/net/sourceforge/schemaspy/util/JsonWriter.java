@@ -0,0 +1,221 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.sourceforge.net).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.sourceforge.schemaspy.util;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes JSON to a <code>Writer</code> as it's generated, without
+ * building any sort of tree in memory first.
+ * <p>
+ * Callers are responsible for pairing up the begin/end calls and for
+ * preceding each value of an object with its {@link #name(String) name};
+ * the writer only takes care of separators and escaping.
+ * </p>
+ */
+public class JsonWriter {
+    private static final char[] hex = "0123456789abcdef".toCharArray();
+
+    private final Writer out;
+    private boolean[] first = new boolean[16];  // no values written yet at each depth
+    private int depth;
+    private boolean afterName;
+
+    public JsonWriter(Writer out) {
+        this.out = out;
+        first[0] = true;
+    }
+
+    public JsonWriter beginObject() throws IOException {
+        return begin('{');
+    }
+
+    public JsonWriter endObject() throws IOException {
+        return end('}');
+    }
+
+    public JsonWriter beginArray() throws IOException {
+        return begin('[');
+    }
+
+    public JsonWriter endArray() throws IOException {
+        return end(']');
+    }
+
+    /**
+     * Name the next value of the current object
+     *
+     * @param name
+     * @return
+     * @throws IOException
+     */
+    public JsonWriter name(String name) throws IOException {
+        separate();
+        string(name);
+        out.write(':');
+        afterName = true;
+        return this;
+    }
+
+    /**
+     * Write the specified string, or <code>null</code>
+     *
+     * @param value
+     * @return
+     * @throws IOException
+     */
+    public JsonWriter value(String value) throws IOException {
+        separate();
+        if (value == null)
+            out.write("null");
+        else
+            string(value);
+        return this;
+    }
+
+    public JsonWriter value(long value) throws IOException {
+        separate();
+        out.write(String.valueOf(value));
+        return this;
+    }
+
+    public JsonWriter value(boolean value) throws IOException {
+        separate();
+        out.write(value ? "true" : "false");
+        return this;
+    }
+
+    /**
+     * Write the specified number, or <code>null</code> if it isn't one
+     * (json has no representation of NaN or infinity)
+     *
+     * @param value
+     * @return
+     * @throws IOException
+     */
+    public JsonWriter value(double value) throws IOException {
+        separate();
+        out.write(Double.isNaN(value) || Double.isInfinite(value) ? "null" : String.valueOf(value));
+        return this;
+    }
+
+    /**
+     * Convenience method that writes a named string value,
+     * omitting it entirely if it's <code>null</code>
+     *
+     * @param name
+     * @param value
+     * @return
+     * @throws IOException
+     */
+    public JsonWriter property(String name, String value) throws IOException {
+        if (value != null)
+            name(name).value(value);
+        return this;
+    }
+
+    public JsonWriter property(String name, long value) throws IOException {
+        return name(name).value(value);
+    }
+
+    public JsonWriter property(String name, boolean value) throws IOException {
+        return name(name).value(value);
+    }
+
+    public JsonWriter property(String name, double value) throws IOException {
+        return name(name).value(value);
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    private JsonWriter begin(char bracket) throws IOException {
+        separate();
+        out.write(bracket);
+        if (++depth == first.length) {
+            boolean[] deeper = new boolean[depth * 2];
+            System.arraycopy(first, 0, deeper, 0, depth);
+            first = deeper;
+        }
+        first[depth] = true;
+        return this;
+    }
+
+    private JsonWriter end(char bracket) throws IOException {
+        out.write(bracket);
+        --depth;
+        return this;
+    }
+
+    /**
+     * Write a comma if the value about to be written isn't the first
+     * one in its object or array
+     */
+    private void separate() throws IOException {
+        if (afterName) {
+            afterName = false;
+        } else if (first[depth]) {
+            first[depth] = false;
+        } else {
+            out.write(',');
+        }
+    }
+
+    private void string(String str) throws IOException {
+        out.write('"');
+
+        int len = str.length();
+        int start = 0;
+        for (int i = 0; i < len; ++i) {
+            char ch = str.charAt(i);
+            String replacement;
+
+            switch (ch) {
+                case '"':  replacement = "\\\""; break;
+                case '\\': replacement = "\\\\"; break;
+                case '\n': replacement = "\\n";  break;
+                case '\r': replacement = "\\r";  break;
+                case '\t': replacement = "\\t";  break;
+                default:
+                    // control chars along with the line/paragraph separators
+                    // that would otherwise break JSON embedded in JavaScript
+                    if (ch < ' ' || ch == '\u2028' || ch == '\u2029')
+                        replacement = null;
+                    else
+                        continue;
+            }
+
+            out.write(str, start, i - start);
+            if (replacement != null) {
+                out.write(replacement);
+            } else {
+                out.write("\\u");
+                out.write(hex[(ch >> 12) & 0xF]);
+                out.write(hex[(ch >> 8) & 0xF]);
+                out.write(hex[(ch >> 4) & 0xF]);
+                out.write(hex[ch & 0xF]);
+            }
+            start = i + 1;
+        }
+
+        out.write(str, start, len - start);
+        out.write('"');
+    }
+}
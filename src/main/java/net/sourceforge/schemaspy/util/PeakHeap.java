@@ -0,0 +1,70 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.sourceforge.net).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.sourceforge.schemaspy.util;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+
+/**
+ * The peak amount of heap that's been used.
+ * <p>
+ * This is the sum of the peaks of each of the heap's memory pools,
+ * which don't necessarily peak at the same time, so it's an upper bound.
+ * </p>
+ */
+public class PeakHeap {
+    /**
+     * Don't allow instantiation
+     */
+    private PeakHeap() {
+    }
+
+    /**
+     * Start measuring the peak from the current usage
+     */
+    public static void reset() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP)
+                pool.resetPeakUsage();
+        }
+    }
+
+    /**
+     * Returns the peak heap usage (in bytes) since the JVM started
+     * or since the last {@link #reset()}
+     *
+     * @return
+     */
+    public static long getBytes() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP)
+                peak += pool.getPeakUsage().getUsed();
+        }
+        return peak;
+    }
+
+    /**
+     * @see #getBytes()
+     * @return
+     */
+    public static long getMegabytes() {
+        return getBytes() / (1024 * 1024);
+    }
+}
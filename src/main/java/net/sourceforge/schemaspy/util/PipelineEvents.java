@@ -0,0 +1,162 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.sourceforge.net).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.sourceforge.schemaspy.util;
+
+import java.io.File;
+
+/**
+ * Emits JDK Flight Recorder events for each stage of the pipeline so that
+ * a run with <code>-XX:StartFlightRecording</code> shows where the time went:
+ * <pre>
+ *   java -XX:StartFlightRecording=filename=schemaSpy.jfr -jar schemaSpy.jar ...
+ *   jfr print --categories SchemaSpy schemaSpy.jfr
+ * </pre>
+ * A stage is started with {@link #begin(Stage)} and the returned event is
+ * handed to the method that describes how the stage ended, which records it.
+ * <code>begin</code> returns <code>null</code> (and the rest does nothing)
+ * when nothing is recording the event, when the JVM doesn't have the
+ * <code>jdk.jfr</code> API (Java 8 before update 262) or when SchemaSpy was
+ * built without the events, so that's all that it costs when recording is off.
+ * <p>
+ * Callers only deal with <code>Object</code>s so that nothing that refers to
+ * <code>jdk.jfr</code> gets loaded unless it's there.
+ * The events themselves live in <code>FlightRecorderEvents</code>
+ * in <code>src/jfr/java</code>, which is only compiled by the <code>jfr</code>
+ * profile (active by default when building with Java 11 or later).
+ * </p>
+ */
+public class PipelineEvents {
+    private static final Recorder recorder = createRecorder();
+
+    public enum Stage {
+        TABLE_GATHERED,
+        FOREIGN_KEYS_CONNECTED,
+        IMPLIED_CONSTRAINTS,
+        TABLES_ORDERED,
+        DOT_GENERATED,
+        GRAPHVIZ_RENDER,
+        PAGE_WRITTEN
+    }
+
+    /**
+     * Don't allow instantiation
+     */
+    private PipelineEvents() {
+    }
+
+    /**
+     * Records the events of each stage
+     */
+    interface Recorder {
+        Object begin(Stage stage);
+        void tableGathered(Object started, String table, boolean isView, int numColumns, int numIndexes, long numRows);
+        void foreignKeysConnected(Object started, String table, int numForeignKeys);
+        void impliedConstraintsFound(Object started, int numTables, int numConstraints);
+        void tablesOrdered(Object started, int numTables, int numRecursiveConstraints);
+        void dotGenerated(Object started, String table, File dotFile, int numTables);
+        void graphvizRendered(Object started, File dotFile, File diagramFile, int exitCode);
+        void pageWritten(Object started, String page, String table, int numColumns);
+    }
+
+    /**
+     * Returns the Flight Recorder implementation of {@link Recorder}
+     * or <code>null</code> if either it or <code>jdk.jfr</code> isn't there
+     */
+    private static Recorder createRecorder() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            Class<?> events = Class.forName(PipelineEvents.class.getPackage().getName() + ".FlightRecorderEvents");
+            return (Recorder)events.getDeclaredConstructor().newInstance();
+        } catch (Throwable notThere) {
+            return null;
+        }
+    }
+
+    /**
+     * Start timing the specified stage
+     *
+     * @param stage
+     * @return the event to pass to the method that records it,
+     *          or <code>null</code> if it isn't being recorded
+     */
+    public static Object begin(Stage stage) {
+        return recorder == null ? null : recorder.begin(stage);
+    }
+
+    /**
+     * The details of a table or view were gathered from the database
+     */
+    public static void tableGathered(Object event, String table, boolean isView, int numColumns, int numIndexes, long numRows) {
+        if (event != null)
+            recorder.tableGathered(event, table, isView, numColumns, numIndexes, numRows);
+    }
+
+    /**
+     * A table's foreign keys were connected to the tables that they reference
+     */
+    public static void foreignKeysConnected(Object event, String table, int numForeignKeys) {
+        if (event != null)
+            recorder.foreignKeysConnected(event, table, numForeignKeys);
+    }
+
+    /**
+     * The tables were scanned for implied relationships
+     */
+    public static void impliedConstraintsFound(Object event, int numTables, int numConstraints) {
+        if (event != null)
+            recorder.impliedConstraintsFound(event, numTables, numConstraints);
+    }
+
+    /**
+     * The tables were ordered by referential integrity
+     */
+    public static void tablesOrdered(Object event, int numTables, int numRecursiveConstraints) {
+        if (event != null)
+            recorder.tablesOrdered(event, numTables, numRecursiveConstraints);
+    }
+
+    /**
+     * A .dot file was written
+     *
+     * @param table the table that it's centered on or <code>null</code> for a summary
+     */
+    public static void dotGenerated(Object event, String table, File dotFile, int numTables) {
+        if (event != null)
+            recorder.dotGenerated(event, table, dotFile, numTables);
+    }
+
+    /**
+     * Graphviz rendered (or failed to render) a .dot file
+     *
+     * @param exitCode the exit code of dot or -1 if it couldn't be run
+     */
+    public static void graphvizRendered(Object event, File dotFile, File diagramFile, int exitCode) {
+        if (event != null)
+            recorder.graphvizRendered(event, dotFile, diagramFile, exitCode);
+    }
+
+    /**
+     * An HTML page was written
+     *
+     * @param table the table that the page describes or <code>null</code>
+     */
+    public static void pageWritten(Object event, String page, String table, int numColumns) {
+        if (event != null)
+            recorder.pageWritten(event, page, table, numColumns);
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.sourceforge.net).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.sourceforge.schemaspy.util;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import net.sourceforge.schemaspy.Config;
+
+/**
+ * Keeps track of how long Graphviz's dot takes to render diagrams.
+ * <p>
+ * Totals are kept for every render, but only the details of the
+ * {@link Config#getNumSlowRenders() slowest few} are retained:
+ * how long they took, the sizes of their .dot and image files
+ * and the number of nodes (tables) and edges (relationships) in them.
+ * Safe for use by multiple threads.
+ * </p>
+ */
+public class RenderProfile {
+    private static final Comparator<Render> byDuration = new Comparator<Render>() {
+        public int compare(Render render1, Render render2) {
+            return Long.compare(render1.getMillis(), render2.getMillis());
+        }
+    };
+
+    private static volatile RenderProfile instance = new RenderProfile(0);
+    private final int maxSlowest;
+    private final PriorityQueue<Render> slowest;   // fastest of the slowest at its head
+    private int numRenders;
+    private int numFailed;
+    private int numTimedOut;
+    private long totalMillis;
+
+    private RenderProfile(int maxSlowest) {
+        this.maxSlowest = Math.max(0, maxSlowest);
+        slowest = new PriorityQueue<Render>(this.maxSlowest + 1, byDuration);
+    }
+
+    /**
+     * Start profiling a new run, discarding the previous run's profile
+     *
+     * @param numSlowRenders the number of slowest renders to retain the details of
+     * @return the new profile that {@link #getInstance()} will return
+     */
+    public static RenderProfile start(int numSlowRenders) {
+        instance = new RenderProfile(numSlowRenders);
+        return instance;
+    }
+
+    /**
+     * Returns the profile of the current run
+     *
+     * @return
+     */
+    public static RenderProfile getInstance() {
+        return instance;
+    }
+
+    /**
+     * Record that dot ran against <code>dotFile</code>
+     *
+     * @param dotFile
+     * @param diagramFile the image that was (or should have been) written
+     * @param millis how long dot took
+     * @param exitCode dot's exit code or -1 if it couldn't be run
+     * @param timedOut <code>true</code> if dot was killed because it took too long
+     */
+    public void rendered(File dotFile, File diagramFile, long millis, int exitCode, boolean timedOut) {
+        synchronized (this) {
+            ++numRenders;
+            totalMillis += millis;
+            if (timedOut)
+                ++numTimedOut;
+            else if (exitCode != 0)
+                ++numFailed;
+
+            if (slowest.size() >= maxSlowest && (maxSlowest == 0 || slowest.peek().getMillis() >= millis))
+                return;
+        }
+
+        // only bother looking at the files of the ones that we'll keep
+        Render render = new Render(dotFile, diagramFile, millis, exitCode, timedOut);
+
+        synchronized (this) {
+            slowest.add(render);
+            if (slowest.size() > maxSlowest)
+                slowest.remove();
+        }
+    }
+
+    /**
+     * Returns the details of the slowest renders, slowest first
+     *
+     * @return
+     */
+    public synchronized List<Render> getSlowest() {
+        List<Render> sorted = new ArrayList<Render>(slowest);
+        Collections.sort(sorted, Collections.reverseOrder(byDuration));
+        return sorted;
+    }
+
+    public synchronized int getNumRenders() {
+        return numRenders;
+    }
+
+    /**
+     * Returns the number of renders where dot failed (not including those that timed out)
+     *
+     * @return
+     */
+    public synchronized int getNumFailed() {
+        return numFailed;
+    }
+
+    public synchronized int getNumTimedOut() {
+        return numTimedOut;
+    }
+
+    /**
+     * Returns the total time spent waiting for dot across all threads
+     *
+     * @return
+     */
+    public synchronized long getTotalMillis() {
+        return totalMillis;
+    }
+
+    public void write(File file) throws IOException {
+        LineWriter out = new LineWriter(file, "UTF-8");
+        JsonWriter json = new JsonWriter(out);
+        json.beginObject();
+        write(json);
+        json.endObject();
+        json.flush();
+        out.newLine();
+        out.close();
+    }
+
+    /**
+     * Write the totals and slowest renders as properties of the current json object
+     *
+     * @param json
+     * @throws IOException
+     */
+    public void write(JsonWriter json) throws IOException {
+        List<Render> sorted = getSlowest();
+        synchronized (this) {
+            json.property("renders", numRenders);
+            json.property("failed", numFailed);
+            json.property("timedOut", numTimedOut);
+            json.property("renderMs", totalMillis);
+        }
+
+        json.name("slowest").beginArray();
+        for (Render render : sorted) {
+            json.beginObject();
+            json.property("dotFile", render.getDotFile());
+            json.property("diagramFile", render.getDiagramFile());
+            json.property("ms", render.getMillis());
+            json.property("exitCode", render.getExitCode());
+            json.property("timedOut", render.isTimedOut());
+            json.property("nodes", render.getNumNodes());
+            json.property("edges", render.getNumEdges());
+            json.property("dotSize", render.getDotSize());
+            json.property("diagramSize", render.getDiagramSize());
+            json.endObject();
+        }
+        json.endArray();
+    }
+
+    /**
+     * The details of a single render
+     */
+    public static class Render {
+        private final String dotFile;
+        private final String diagramFile;
+        private final long millis;
+        private final int exitCode;
+        private final boolean timedOut;
+        private final long dotSize;
+        private final long diagramSize;
+        private int numNodes;
+        private int numEdges;
+
+        private Render(File dotFile, File diagramFile, long millis, int exitCode, boolean timedOut) {
+            this.dotFile = dotFile.getName();
+            this.diagramFile = diagramFile.getName();
+            this.millis = millis;
+            this.exitCode = exitCode;
+            this.timedOut = timedOut;
+            dotSize = dotFile.length();
+            diagramSize = diagramFile.length();
+            count(dotFile);
+        }
+
+        /**
+         * Count the nodes and edges in the .dot file.
+         * Relies on the layout that {@link net.sourceforge.schemaspy.view.DotNode}
+         * and {@link net.sourceforge.schemaspy.view.DotConnector} write,
+         * with each node and edge starting on its own line.
+         */
+        private void count(File file) {
+            BufferedReader in = null;
+            try {
+                in = new BufferedReader(new InputStreamReader(new FileInputStream(file), Config.DOT_CHARSET));
+                String line;
+                while ((line = in.readLine()) != null) {
+                    if (!line.startsWith("  \""))
+                        continue;
+                    if (line.indexOf(" -> ") != -1)
+                        ++numEdges;
+                    else if (line.endsWith("\" ["))
+                        ++numNodes;
+                }
+            } catch (IOException exc) {
+                // the .dot file's gone...not much to tell
+            } finally {
+                if (in != null) {
+                    try {
+                        in.close();
+                    } catch (IOException ignore) {}
+                }
+            }
+        }
+
+        public String getDotFile() {
+            return dotFile;
+        }
+
+        public String getDiagramFile() {
+            return diagramFile;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+
+        public int getExitCode() {
+            return exitCode;
+        }
+
+        public boolean isTimedOut() {
+            return timedOut;
+        }
+
+        public long getDotSize() {
+            return dotSize;
+        }
+
+        public long getDiagramSize() {
+            return diagramSize;
+        }
+
+        public int getNumNodes() {
+            return numNodes;
+        }
+
+        public int getNumEdges() {
+            return numEdges;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder buf = new StringBuilder(dotFile);
+            buf.append(": ");
+            buf.append(millis);
+            buf.append("ms, ");
+            buf.append(numNodes);
+            buf.append(" tables, ");
+            buf.append(numEdges);
+            buf.append(" relationships");
+            if (timedOut)
+                buf.append(" (timed out)");
+            else if (exitCode != 0)
+                buf.append(" (failed with return code ").append(exitCode).append(')');
+            return buf.toString();
+        }
+    }
+}
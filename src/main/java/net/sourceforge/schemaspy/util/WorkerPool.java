@@ -0,0 +1,121 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.sourceforge.net).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.sourceforge.schemaspy.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a batch of independent tasks (typically writing pages) on up to
+ * <code>maxThreads</code> threads.
+ * <p>
+ * Each thread repeatedly takes the next task that hasn't been started yet,
+ * so long-running tasks don't hold up the rest of the batch.
+ * The tasks must not depend on each other or on the order in which
+ * they're run.
+ * </p>
+ */
+public class WorkerPool {
+    private final String name;
+    private final int maxThreads;
+
+    /**
+     * A unit of work to be run by the pool
+     */
+    public interface Task {
+        void run() throws IOException;
+    }
+
+    /**
+     * @param name used to name the pool's threads
+     * @param maxThreads
+     */
+    public WorkerPool(String name, int maxThreads) {
+        this.name = name;
+        this.maxThreads = Math.max(1, maxThreads);
+    }
+
+    /**
+     * Run all of the specified tasks and wait for them to complete.
+     * If any of them fail then the remaining tasks aren't started and
+     * the first failure is rethrown.
+     *
+     * @param tasks
+     * @throws IOException
+     */
+    public void run(final List<? extends Task> tasks) throws IOException {
+        int numThreads = Math.min(maxThreads, tasks.size());
+        if (numThreads <= 1) {
+            // not worth the overhead of another thread
+            for (Task task : tasks)
+                task.run();
+            return;
+        }
+
+        final AtomicInteger nextTask = new AtomicInteger();
+        final Throwable[] failure = new Throwable[1];
+        List<Thread> threads = new ArrayList<Thread>(numThreads);
+
+        for (int i = 0; i < numThreads; ++i) {
+            Thread thread = new Thread(name + "-" + i) {
+                @Override
+                public void run() {
+                    int taskId;
+                    while ((taskId = nextTask.getAndIncrement()) < tasks.size()) {
+                        try {
+                            tasks.get(taskId).run();
+                        } catch (Throwable exc) {
+                            synchronized (failure) {
+                                if (failure[0] == null)
+                                    failure[0] = exc;
+                            }
+                            nextTask.set(tasks.size());  // don't start any more
+                        }
+                    }
+                }
+            };
+            threads.add(thread);
+            thread.start();
+        }
+
+        // the tasks can't be abandoned part way through, so wait for them
+        // and restore the interrupt for the caller to deal with
+        boolean interrupted = false;
+        for (Thread thread : threads) {
+            while (thread.isAlive()) {
+                try {
+                    thread.join();
+                } catch (InterruptedException exc) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+
+        Throwable exc = failure[0];
+        if (exc instanceof IOException)
+            throw (IOException)exc;
+        if (exc instanceof RuntimeException)
+            throw (RuntimeException)exc;
+        if (exc instanceof Error)
+            throw (Error)exc;
+    }
+}
@@ -19,6 +19,7 @@
 package net.sourceforge.schemaspy.view;
 
 import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
@@ -37,7 +38,6 @@ import net.sourceforge.schemaspy.util.HtmlEncoder;
  */
 public class DefaultSqlFormatter implements SqlFormatter {
     private Set<String> keywords;
-    private Map<String, Table> tablesByPossibleNames;
     private static String TOKENS = " \t\n\r\f()<>|,";
 
     /**
@@ -72,7 +72,7 @@ public class DefaultSqlFormatter implements SqlFormatter {
         {
             formatted.append("  <div class='viewDefinition'>");
             @SuppressWarnings("hiding")
-            Set<String> keywords = getKeywords(db.getMetaData());
+            Set<String> keywords = getKeywords(db);
             StringTokenizer tokenizer = new StringTokenizer(sql, TOKENS, true);
             while (tokenizer.hasMoreTokens()) {
                 String token = tokenizer.nextToken();
@@ -104,20 +104,19 @@ public class DefaultSqlFormatter implements SqlFormatter {
     protected Set<Table> getReferencedTables(String sql, Database db) {
         Set<Table> referenced = new HashSet<Table>();
 
-        Map<String, Table> tables = getTableMap(db);
         @SuppressWarnings("hiding")
-        Set<String> keywords = getKeywords(db.getMetaData());
+        Set<String> keywords = getKeywords(db);
 
         StringTokenizer tokenizer = new StringTokenizer(sql, TOKENS, true);
         while (tokenizer.hasMoreTokens()) {
             String token = tokenizer.nextToken();
             if (!keywords.contains(token.toUpperCase())) {
-                Table t = tables.get(token);
+                Table t = getTable(token, db);
 
                 if (t == null) {
                     int lastDot = token.lastIndexOf('.');
                     if (lastDot != -1) {
-                        t = tables.get(token.substring(0, lastDot));
+                        t = getTable(token.substring(0, lastDot), db);
                     }
                 }
 
@@ -130,6 +129,54 @@ public class DefaultSqlFormatter implements SqlFormatter {
         return referenced;
     }
 
+    /**
+     * Returns the table/view that the specified token refers to, recognizing
+     * the same ways of referring to it as {@link #getTableMap(Collection)}.
+     * The tables are looked up by name directly rather than through a
+     * map of every possible way to refer to every table, so there's nothing
+     * to build or share between threads.
+     *
+     * @param token
+     * @param db
+     * @return <code>null</code> if the token doesn't refer to a table/view
+     */
+    protected Table getTable(String token, Database db) {
+        Map<String, Table> tables = db.getLocalsByName();
+        String unquoted = token;
+
+        int len = token.length();
+        if (len > 2) {
+            char quote = token.charAt(0);
+            if ((quote == '`' || quote == '\'' || quote == '"') && token.charAt(len - 1) == quote) {
+                unquoted = token.substring(1, len - 1);
+
+                // `container`.`name`
+                int separator = unquoted.indexOf(quote + "." + quote);
+                if (separator != -1)
+                    return getTable(unquoted.substring(0, separator), unquoted.substring(separator + 3), tables);
+                if (unquoted.indexOf(quote) != -1)
+                    return null;
+            }
+        }
+
+        Table table = tables.get(unquoted);
+        if (table != null)
+            return table;
+
+        // container.name
+        for (int dot = unquoted.indexOf('.'); dot != -1 && table == null; dot = unquoted.indexOf('.', dot + 1))
+            table = getTable(unquoted.substring(0, dot), unquoted.substring(dot + 1), tables);
+
+        return table;
+    }
+
+    private Table getTable(String container, String name, Map<String, Table> tables) {
+        Table table = tables.get(name);
+        if (table != null && container.equalsIgnoreCase(table.getContainer()))
+            return table;
+        return null;
+    }
+
     /**
      * Returns a {@link Map} of all tables/views in the database
      * keyed by several possible ways to refer to the table.
@@ -139,13 +186,10 @@ public class DefaultSqlFormatter implements SqlFormatter {
      */
     protected Map<String, Table> getTableMap(Database db)
     {
-        if (tablesByPossibleNames == null)
-        {
-            tablesByPossibleNames = new CaseInsensitiveMap<Table>();
+        Map<String, Table> tablesByPossibleNames = new CaseInsensitiveMap<Table>();
 
-            tablesByPossibleNames.putAll(getTableMap(db.getTables()));
-            tablesByPossibleNames.putAll(getTableMap(db.getViews()));
-        }
+        tablesByPossibleNames.putAll(getTableMap(db.getTables()));
+        tablesByPossibleNames.putAll(getTableMap(db.getViews()));
 
         return tablesByPossibleNames;
     }
@@ -183,72 +227,110 @@ public class DefaultSqlFormatter implements SqlFormatter {
      * @param meta
      * @return
      */
-    public Set<String> getKeywords(DatabaseMetaData meta) {
+    public synchronized Set<String> getKeywords(DatabaseMetaData meta) {
         if (keywords == null) {
-            keywords = new HashSet<String>(Arrays.asList(new String[] {
-                "ABSOLUTE", "ACTION", "ADD", "ALL", "ALLOCATE", "ALTER", "AND",
-                "ANY", "ARE", "AS", "ASC", "ASSERTION", "AT", "AUTHORIZATION", "AVG",
-                "BEGIN", "BETWEEN", "BIT", "BIT_LENGTH", "BOTH", "BY",
-                "CASCADE", "CASCADED", "CASE", "CAST", "CATALOG", "CHAR", "CHARACTER",
-                "CHAR_LENGTH", "CHARACTER_LENGTH", "CHECK", "CLOSE", "COALESCE",
-                "COLLATE", "COLLATION", "COLUMN", "COMMIT", "CONNECT", "CONNECTION",
-                "CONSTRAINT", "CONSTRAINTS", "CONTINUE", "CONVERT", "CORRESPONDING",
-                "COUNT", "CREATE", "CROSS", "CURRENT", "CURRENT_DATE", "CURRENT_TIME",
-                "CURRENT_TIMESTAMP", "CURRENT_USER", "CURSOR",
-                "DATE", "DAY", "DEALLOCATE", "DEC", "DECIMAL", "DECLARE", "DEFAULT",
-                "DEFERRABLE", "DEFERRED", "DELETE", "DESC", "DESCRIBE", "DESCRIPTOR",
-                "DIAGNOSTICS", "DISCONNECT", "DISTINCT", "DOMAIN", "DOUBLE", "DROP",
-                "ELSE", "END", "END - EXEC", "ESCAPE", "EXCEPT", "EXCEPTION", "EXEC",
-                "EXECUTE", "EXISTS", "EXTERNAL", "EXTRACT",
-                "FALSE", "FETCH", "FIRST", "FLOAT", "FOR", "FOREIGN", "FOUND", "FROM", "FULL",
-                "GET", "GLOBAL", "GO", "GOTO", "GRANT", "GROUP",
-                "HAVING", "HOUR",
-                "IDENTITY", "IMMEDIATE", "IN", "INDICATOR", "INITIALLY", "INNER", "INPUT",
-                "INSENSITIVE", "INSERT", "INT", "INTEGER", "INTERSECT", "INTERVAL", "INTO",
-                "IS", "ISOLATION",
-                "JOIN",
-                "KEY",
-                "LANGUAGE", "LAST", "LEADING", "LEFT", "LEVEL", "LIKE", "LOCAL", "LOWER",
-                "MATCH", "MAX", "MIN", "MINUTE", "MODULE", "MONTH",
-                "NAMES", "NATIONAL", "NATURAL", "NCHAR", "NEXT", "NO", "NOT", "NULL",
-                "NULLIF", "NUMERIC",
-                "OCTET_LENGTH", "OF", "ON", "ONLY", "OPEN", "OPTION", "OR", "ORDER",
-                "OUTER", "OUTPUT", "OVERLAPS",
-                "PAD", "PARTIAL", "POSITION", "PRECISION", "PREPARE", "PRESERVE", "PRIMARY",
-                "PRIOR", "PRIVILEGES", "PROCEDURE", "PUBLIC",
-                "READ", "REAL", "REFERENCES", "RELATIVE", "RESTRICT", "REVOKE", "RIGHT",
-                "ROLLBACK", "ROWS",
-                "SCHEMA", "SCROLL", "SECOND", "SECTION", "SELECT", "SESSION", "SESSION_USER",
-                "SET", "SIZE", "SMALLINT", "SOME", "SPACE", "SQL", "SQLCODE", "SQLERROR",
-                "SQLSTATE", "SUBSTRING", "SUM", "SYSTEM_USER",
-                "TABLE", "TEMPORARY", "THEN", "TIME", "TIMESTAMP", "TIMEZONE_HOUR",
-                "TIMEZONE_MINUTE", "TO", "TRAILING", "TRANSACTION", "TRANSLATE",
-                "TRANSLATION", "TRIM", "TRUE",
-                "UNION", "UNIQUE", "UNKNOWN", "UPDATE", "UPPER", "USAGE", "USER", "USING",
-                "VALUE", "VALUES", "VARCHAR", "VARYING", "VIEW",
-                "WHEN", "WHENEVER", "WHERE", "WITH", "WORK", "WRITE",
-                "YEAR",
-                "ZONE"
-            }));
-
+            String[] driverKeywords;
             try {
-                String keywordsArray[] = new String[] {
+                driverKeywords = new String[] {
                     meta.getSQLKeywords(),
                     meta.getSystemFunctions(),
                     meta.getNumericFunctions(),
                     meta.getStringFunctions(),
                     meta.getTimeDateFunctions()
                 };
-                for (int i = 0; i < keywordsArray.length; ++i) {
-                    StringTokenizer tokenizer = new StringTokenizer(keywordsArray[i].toUpperCase(), ",");
-
-                    while (tokenizer.hasMoreTokens()) {
-                        keywords.add(tokenizer.nextToken().trim());
-                    }
-                }
             } catch (Exception exc) {
                 // don't totally fail just because we can't extract these details...
                 System.err.println(exc);
+                driverKeywords = new String[0];
+            }
+
+            keywords = getKeywords(driverKeywords);
+        }
+
+        return keywords;
+    }
+
+    /**
+     * Same as {@link #getKeywords(DatabaseMetaData)}, but also works with
+     * databases that have been restored from a saved model.
+     *
+     * @param db
+     * @return
+     */
+    public synchronized Set<String> getKeywords(Database db) {
+        if (!db.isOffline())
+            return getKeywords(db.getMetaData());
+
+        if (keywords == null) {
+            try {
+                keywords = getKeywords(db.getDriverKeywords());
+            } catch (SQLException exc) {
+                // offline models don't throw
+                keywords = getKeywords(new String[0]);
+            }
+        }
+
+        return keywords;
+    }
+
+    /**
+     * Returns the SQL92 keywords along with the specified comma-separated
+     * lists of database-specific keywords and functions
+     */
+    private Set<String> getKeywords(String[] driverKeywords) {
+        Set<String> keywords = new HashSet<String>(Arrays.asList(new String[] {
+            "ABSOLUTE", "ACTION", "ADD", "ALL", "ALLOCATE", "ALTER", "AND",
+            "ANY", "ARE", "AS", "ASC", "ASSERTION", "AT", "AUTHORIZATION", "AVG",
+            "BEGIN", "BETWEEN", "BIT", "BIT_LENGTH", "BOTH", "BY",
+            "CASCADE", "CASCADED", "CASE", "CAST", "CATALOG", "CHAR", "CHARACTER",
+            "CHAR_LENGTH", "CHARACTER_LENGTH", "CHECK", "CLOSE", "COALESCE",
+            "COLLATE", "COLLATION", "COLUMN", "COMMIT", "CONNECT", "CONNECTION",
+            "CONSTRAINT", "CONSTRAINTS", "CONTINUE", "CONVERT", "CORRESPONDING",
+            "COUNT", "CREATE", "CROSS", "CURRENT", "CURRENT_DATE", "CURRENT_TIME",
+            "CURRENT_TIMESTAMP", "CURRENT_USER", "CURSOR",
+            "DATE", "DAY", "DEALLOCATE", "DEC", "DECIMAL", "DECLARE", "DEFAULT",
+            "DEFERRABLE", "DEFERRED", "DELETE", "DESC", "DESCRIBE", "DESCRIPTOR",
+            "DIAGNOSTICS", "DISCONNECT", "DISTINCT", "DOMAIN", "DOUBLE", "DROP",
+            "ELSE", "END", "END - EXEC", "ESCAPE", "EXCEPT", "EXCEPTION", "EXEC",
+            "EXECUTE", "EXISTS", "EXTERNAL", "EXTRACT",
+            "FALSE", "FETCH", "FIRST", "FLOAT", "FOR", "FOREIGN", "FOUND", "FROM", "FULL",
+            "GET", "GLOBAL", "GO", "GOTO", "GRANT", "GROUP",
+            "HAVING", "HOUR",
+            "IDENTITY", "IMMEDIATE", "IN", "INDICATOR", "INITIALLY", "INNER", "INPUT",
+            "INSENSITIVE", "INSERT", "INT", "INTEGER", "INTERSECT", "INTERVAL", "INTO",
+            "IS", "ISOLATION",
+            "JOIN",
+            "KEY",
+            "LANGUAGE", "LAST", "LEADING", "LEFT", "LEVEL", "LIKE", "LOCAL", "LOWER",
+            "MATCH", "MAX", "MIN", "MINUTE", "MODULE", "MONTH",
+            "NAMES", "NATIONAL", "NATURAL", "NCHAR", "NEXT", "NO", "NOT", "NULL",
+            "NULLIF", "NUMERIC",
+            "OCTET_LENGTH", "OF", "ON", "ONLY", "OPEN", "OPTION", "OR", "ORDER",
+            "OUTER", "OUTPUT", "OVERLAPS",
+            "PAD", "PARTIAL", "POSITION", "PRECISION", "PREPARE", "PRESERVE", "PRIMARY",
+            "PRIOR", "PRIVILEGES", "PROCEDURE", "PUBLIC",
+            "READ", "REAL", "REFERENCES", "RELATIVE", "RESTRICT", "REVOKE", "RIGHT",
+            "ROLLBACK", "ROWS",
+            "SCHEMA", "SCROLL", "SECOND", "SECTION", "SELECT", "SESSION", "SESSION_USER",
+            "SET", "SIZE", "SMALLINT", "SOME", "SPACE", "SQL", "SQLCODE", "SQLERROR",
+            "SQLSTATE", "SUBSTRING", "SUM", "SYSTEM_USER",
+            "TABLE", "TEMPORARY", "THEN", "TIME", "TIMESTAMP", "TIMEZONE_HOUR",
+            "TIMEZONE_MINUTE", "TO", "TRAILING", "TRANSACTION", "TRANSLATE",
+            "TRANSLATION", "TRIM", "TRUE",
+            "UNION", "UNIQUE", "UNKNOWN", "UPDATE", "UPPER", "USAGE", "USER", "USING",
+            "VALUE", "VALUES", "VARCHAR", "VARYING", "VIEW",
+            "WHEN", "WHENEVER", "WHERE", "WITH", "WORK", "WRITE",
+            "YEAR",
+            "ZONE"
+        }));
+
+        for (int i = 0; i < driverKeywords.length; ++i) {
+            if (driverKeywords[i] == null)
+                continue;
+            StringTokenizer tokenizer = new StringTokenizer(driverKeywords[i].toUpperCase(), ",");
+
+            while (tokenizer.hasMoreTokens()) {
+                keywords.add(tokenizer.nextToken().trim());
             }
         }
 
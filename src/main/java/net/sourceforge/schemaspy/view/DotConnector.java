@@ -18,6 +18,7 @@
  */
 package net.sourceforge.schemaspy.view;
 
+import java.io.IOException;
 import net.sourceforge.schemaspy.model.Table;
 import net.sourceforge.schemaspy.model.TableColumn;
 import net.sourceforge.schemaspy.util.Dot;
@@ -89,9 +90,14 @@ public class DotConnector implements Comparable<DotConnector> {
         childPort = "elipses";
     }
 
-    @Override
-    public String toString() {
-        StringBuilder edge = new StringBuilder();
+    /**
+     * Write the <code>dot</code> representation of this edge directly to
+     * <code>edge</code> (without a trailing line separator).
+     *
+     * @param edge Appendable
+     * @throws IOException
+     */
+    public void write(Appendable edge) throws IOException {
         edge.append("  \"");
         if (childTable.isRemote()) {
             edge.append(childTable.getContainer());
@@ -146,6 +152,17 @@ public class DotConnector implements Comparable<DotConnector> {
         if (implied)
             edge.append(" style=dashed");
         edge.append("];");
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder edge = new StringBuilder();
+
+        try {
+            write(edge);
+        } catch (IOException exc) {
+            throw new RuntimeException(exc); // StringBuilders don't throw IOExceptions
+        }
 
         return edge.toString();
     }
@@ -174,7 +191,7 @@ public class DotConnector implements Comparable<DotConnector> {
     public int hashCode() {
         int p = parentTable == null ? 0 : parentTable.getName().hashCode();
         int c = childTable == null ? 0 : childTable.getName().hashCode();
-        return (p << 16) & c;
+        return 31 * p + c;
     }
 
     public TableColumn getParentColumn() {
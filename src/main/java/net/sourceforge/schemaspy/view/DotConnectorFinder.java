@@ -19,8 +19,10 @@
 package net.sourceforge.schemaspy.view;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Set;
+import net.sourceforge.schemaspy.model.RelationshipGraph;
 import net.sourceforge.schemaspy.model.Table;
 import net.sourceforge.schemaspy.model.TableColumn;
 
@@ -58,24 +60,117 @@ public class DotConnectorFinder {
     }
 
     /**
-     * Get all the relationships that exist between these two tables.
+     * Same as {@link #getRelatedConnectors(Table, boolean)} except that the
+     * relationships are pulled from the frozen {@link RelationshipGraph}
+     * and added directly to <code>connectors</code>.
      *
+     * @param graph RelationshipGraph
+     * @param table Table
+     * @param includeImplied boolean
+     * @param connectors Collection to add the <code>dot</code> relationships to
+     */
+    public void addRelatedConnectors(RelationshipGraph graph, Table table, boolean includeImplied, Collection<DotConnector> connectors) {
+        int tableId = graph.getTableId(table);
+        if (tableId == -1) {
+            connectors.addAll(getRelatedConnectors(table, includeImplied));
+            return;
+        }
+
+        for (int column = graph.firstColumn(tableId); column < graph.endColumn(tableId); ++column) {
+            if (graph.isExcluded(column))
+                continue;
+
+            for (int edge = graph.firstParentEdge(column); edge < graph.endParentEdge(column); ++edge) {
+                if (graph.isParentExcluded(edge))
+                    continue;
+                boolean implied = graph.isParentImplied(edge);
+                if (!implied || includeImplied)
+                    connectors.add(new DotConnector(graph.getColumn(graph.getParent(edge)), graph.getColumn(column), implied));
+            }
+
+            for (int edge = graph.firstChildEdge(column); edge < graph.endChildEdge(column); ++edge) {
+                if (graph.isChildExcluded(edge))
+                    continue;
+                boolean implied = graph.isChildImplied(edge);
+                if (!implied || includeImplied)
+                    connectors.add(new DotConnector(graph.getColumn(column), graph.getColumn(graph.getChild(edge)), implied));
+            }
+        }
+    }
+
+    /**
+     * Add all the relationships that exist between these two tables
+     * to <code>connectors</code>.
+     *
+     * @param graph RelationshipGraph
      * @param table1 Table
      * @param table2 Table
-     * @return Set of <code>dot</code> relationships (as {@link DotConnector}s)
+     * @param includeExcluded boolean
+     * @param includeImplied boolean
+     * @param connectors Collection to add the <code>dot</code> relationships to
      */
-    public Set<DotConnector> getRelatedConnectors(Table table1, Table table2, boolean includeExcluded, boolean includeImplied) {
-        Set<DotConnector> relationships = new HashSet<DotConnector>();
+    public void addConnectorsBetween(RelationshipGraph graph, Table table1, Table table2, boolean includeExcluded, boolean includeImplied, Collection<DotConnector> connectors) {
+        int tableId1 = graph.getTableId(table1);
+        int tableId2 = graph.getTableId(table2);
 
-        for (TableColumn column : table1.getColumns()) {
-            relationships.addAll(getRelatedConnectors(column, table2, includeExcluded, includeImplied));
-        }
+        for (int column = graph.firstColumn(tableId1); column < graph.endColumn(tableId1); ++column) {
+            for (int edge = graph.firstParentEdge(column); edge < graph.endParentEdge(column); ++edge) {
+                int parent = graph.getParent(edge);
+                if (graph.getTableIdOf(parent) != tableId2)
+                    continue;
+                // only dropped if it's excluded from both ends
+                if (!includeExcluded && graph.isExcluded(column) && graph.isExcluded(parent))
+                    continue;
+                boolean implied = graph.isParentImplied(edge);
+                if (!implied || includeImplied)
+                    connectors.add(new DotConnector(graph.getColumn(parent), graph.getColumn(column), implied));
+            }
 
-        for (TableColumn column : table2.getColumns()) {
-            relationships.addAll(getRelatedConnectors(column, table1, includeExcluded, includeImplied));
+            for (int edge = graph.firstChildEdge(column); edge < graph.endChildEdge(column); ++edge) {
+                int child = graph.getChild(edge);
+                if (graph.getTableIdOf(child) != tableId2)
+                    continue;
+                if (!includeExcluded && graph.isExcluded(column) && graph.isExcluded(child))
+                    continue;
+                boolean implied = graph.isChildImplied(edge);
+                if (!implied || includeImplied)
+                    connectors.add(new DotConnector(graph.getColumn(column), graph.getColumn(child), implied));
+            }
         }
+    }
 
-        return relationships;
+    /**
+     * Add all the relationships that exist between different tables of the
+     * specified set of <code>participants</code> to <code>connectors</code>.
+     * <p>
+     * Equivalent to calling {@link #addConnectorsBetween(RelationshipGraph, Table, Table, boolean, boolean, Collection)}
+     * (excluding excluded columns) for every pair of participants, but visits each
+     * relationship only once by walking the parents of every participant's columns.
+     *
+     * @param graph RelationshipGraph
+     * @param participants Set of tables
+     * @param includeImplied boolean
+     * @param connectors Collection to add the <code>dot</code> relationships to
+     */
+    public void addConnectorsAmong(RelationshipGraph graph, Set<Table> participants, boolean includeImplied, Collection<DotConnector> connectors) {
+        for (Table participant : participants) {
+            int tableId = graph.getTableId(participant);
+
+            for (int column = graph.firstColumn(tableId); column < graph.endColumn(tableId); ++column) {
+                for (int edge = graph.firstParentEdge(column); edge < graph.endParentEdge(column); ++edge) {
+                    int parent = graph.getParent(edge);
+                    Table parentTable = graph.getTable(graph.getTableIdOf(parent));
+                    if (parentTable == participant || !participants.contains(parentTable))
+                        continue;
+                    // only dropped if it's excluded from both ends
+                    if (graph.isExcluded(column) && graph.isExcluded(parent))
+                        continue;
+                    boolean implied = graph.isParentImplied(edge);
+                    if (!implied || includeImplied)
+                        connectors.add(new DotConnector(graph.getColumn(parent), graph.getColumn(column), implied));
+                }
+            }
+        }
     }
 
     /**
@@ -19,19 +19,16 @@
 package net.sourceforge.schemaspy.view;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
-import java.util.Iterator;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
-import net.sourceforge.schemaspy.Config;
 import net.sourceforge.schemaspy.Revision;
 import net.sourceforge.schemaspy.model.Database;
 import net.sourceforge.schemaspy.model.ForeignKeyConstraint;
+import net.sourceforge.schemaspy.model.RelationshipGraph;
 import net.sourceforge.schemaspy.model.Table;
 import net.sourceforge.schemaspy.model.TableColumn;
 import net.sourceforge.schemaspy.util.Dot;
@@ -45,7 +42,6 @@ import net.sourceforge.schemaspy.view.DotNode.DotNodeConfig;
  */
 public class DotFormatter {
     private static DotFormatter instance = new DotFormatter();
-    private final int fontSize = Config.getInstance().getFontSize();
 
     /**
      * Singleton - prevent creation
@@ -61,33 +57,45 @@ public class DotFormatter {
      * Write real relationships (excluding implied) associated with the given table.<p>
      * Returns a set of the implied constraints that could have been included but weren't.
      */
-    public Set<ForeignKeyConstraint> writeRealRelationships(Table table, boolean twoDegreesOfSeparation, WriteStats stats, LineWriter dot) throws IOException {
-        return writeRelationships(table, twoDegreesOfSeparation, stats, false, dot);
+    public Set<ForeignKeyConstraint> writeRealRelationships(RenderContext context, Table table, boolean twoDegreesOfSeparation, TableNeighborhoods neighborhoods, WriteStats stats, LineWriter dot) throws IOException {
+        return writeRelationships(context, table, twoDegreesOfSeparation, neighborhoods, stats, false, false, dot);
+    }
+
+    /**
+     * Write the real relationships of the given table as a one degree diagram of nothing
+     * but table names, for when the detailed diagram takes dot too long to lay out
+     */
+    public void writeCompactRelationships(RenderContext context, Table table, TableNeighborhoods neighborhoods, WriteStats stats, LineWriter dot) throws IOException {
+        writeRelationships(context, table, false, neighborhoods, stats, false, true, dot);
     }
 
     /**
      * Write implied relationships associated with the given table
      */
-    public void writeAllRelationships(Table table, boolean twoDegreesOfSeparation, WriteStats stats, LineWriter dot) throws IOException {
-        writeRelationships(table, twoDegreesOfSeparation, stats, true, dot);
+    public void writeAllRelationships(RenderContext context, Table table, boolean twoDegreesOfSeparation, TableNeighborhoods neighborhoods, WriteStats stats, LineWriter dot) throws IOException {
+        writeRelationships(context, table, twoDegreesOfSeparation, neighborhoods, stats, true, false, dot);
     }
 
     /**
      * Write relationships associated with the given table.<p>
      * Returns a set of the implied constraints that could have been included but weren't.
      */
-    private Set<ForeignKeyConstraint> writeRelationships(Table table, boolean twoDegreesOfSeparation, WriteStats stats, boolean includeImplied, LineWriter dot) throws IOException {
+    private Set<ForeignKeyConstraint> writeRelationships(RenderContext context, Table table, boolean twoDegreesOfSeparation, TableNeighborhoods neighborhoods, WriteStats stats, boolean includeImplied, boolean compact, LineWriter dot) throws IOException {
         Set<Table> tablesWritten = new HashSet<Table>();
         Set<ForeignKeyConstraint> skippedImpliedConstraints = new HashSet<ForeignKeyConstraint>();
+        RelationshipGraph graph = neighborhoods.getGraph();
 
         DotConnectorFinder finder = DotConnectorFinder.getInstance();
 
         String diagramName = includeImplied ? "impliedTwoDegreesRelationshipsDiagram" : (twoDegreesOfSeparation ? "twoDegreesRelationshipsDiagram" : "oneDegreeRelationshipsDiagram");
-        writeHeader(diagramName, true, dot);
+        writeHeader(context, diagramName, true, dot);
 
-        Set<Table> relatedTables = getImmediateRelatives(table, true, includeImplied, skippedImpliedConstraints);
+        Set<Table> relatedTables = neighborhoods.getImmediateRelatives(table, true, includeImplied);
+        if (!includeImplied)
+            skippedImpliedConstraints.addAll(neighborhoods.getSkippedImpliedConstraints(table, true));
 
-        Set<DotConnector> connectors = new TreeSet<DotConnector>(finder.getRelatedConnectors(table, includeImplied));
+        Set<DotConnector> connectors = new TreeSet<DotConnector>();
+        finder.addRelatedConnectors(graph, table, includeImplied, connectors);
         tablesWritten.add(table);
 
         Map<Table, DotNode> nodes = new TreeMap<Table, DotNode>();
@@ -97,8 +105,8 @@ public class DotFormatter {
             if (!tablesWritten.add(relatedTable))
                 continue; // already written
 
-            nodes.put(relatedTable, new DotNode(relatedTable, "", new DotNodeConfig(false, false)));
-            connectors.addAll(finder.getRelatedConnectors(relatedTable, table, true, includeImplied));
+            nodes.put(relatedTable, new DotNode(context, relatedTable, "", new DotNodeConfig(false, false)));
+            finder.addConnectorsBetween(graph, relatedTable, table, true, includeImplied, connectors);
         }
 
         // connect the edges that go directly to the target table
@@ -108,42 +116,75 @@ public class DotFormatter {
                 connector.connectToParentDetails();
         }
 
+        // a 'hub' has so many relatives that dot takes forever to lay them out
+        // (and nobody could read the result), so just show their names
+        // and leave out their relatives altogether
+        final int maxTables = context.getMaxDiagramTables();
+        final int maxRelationships = context.getMaxDiagramRelationships();
+        boolean hub = compact || tablesWritten.size() > maxTables || connectors.size() > maxRelationships;
+        if (hub) {
+            for (Map.Entry<Table, DotNode> entry : nodes.entrySet())
+                entry.setValue(new DotNode(context, entry.getKey(), false, ""));
+        }
+
         Set<Table> allCousins = new HashSet<Table>();
         Set<DotConnector> allCousinConnectors = new TreeSet<DotConnector>();
+        Map<Table, Integer> collapsedCousins = new TreeMap<Table, Integer>();
 
         // next write 'cousins' (2nd degree of separation)
-        if (twoDegreesOfSeparation) {
+        if (twoDegreesOfSeparation && !hub) {
+            Set<Table> newCousins = new HashSet<Table>();
+
             for (Table relatedTable : relatedTables) {
-                Set<Table> cousins = getImmediateRelatives(relatedTable, false, includeImplied, skippedImpliedConstraints);
+                Set<Table> cousins = neighborhoods.getImmediateRelatives(relatedTable, false, includeImplied);
+                if (!includeImplied)
+                    skippedImpliedConstraints.addAll(neighborhoods.getSkippedImpliedConstraints(relatedTable, false));
 
+                int numNew = 0;
                 for (Table cousin : cousins) {
                     if (!tablesWritten.add(cousin))
                         continue; // already written
 
-                    allCousinConnectors.addAll(finder.getRelatedConnectors(cousin, relatedTable, false, includeImplied));
-                    nodes.put(cousin, new DotNode(cousin, false, ""));
+                    finder.addConnectorsBetween(graph, cousin, relatedTable, false, includeImplied, allCousinConnectors);
+                    nodes.put(cousin, new DotNode(context, cousin, false, ""));
+                    newCousins.add(cousin);
+                    ++numNew;
                 }
 
+                if (numNew > 0)
+                    collapsedCousins.put(relatedTable, Integer.valueOf(numNew));
                 allCousins.addAll(cousins);
             }
+
+            // too many cousins to show individually, so just show how many each relative has
+            if (tablesWritten.size() > maxTables || connectors.size() + allCousinConnectors.size() > maxRelationships) {
+                nodes.keySet().removeAll(newCousins);
+                allCousins.clear();
+                allCousinConnectors.clear();
+            } else {
+                collapsedCousins.clear();
+            }
         }
 
         // glue together any 'participants' that aren't yet connected
-        // note that this is the epitome of nested loops from hell
-        List<Table> participants = new ArrayList<Table>(nodes.keySet());
-        Iterator<Table> iter = participants.iterator();
-        while (iter.hasNext()) {
-            Table participantA = iter.next();
-            iter.remove(); // cut down the combos as quickly as possible
-
-            for (Table participantB : participants) {
-                for (DotConnector connector : finder.getRelatedConnectors(participantA, participantB, false, includeImplied)) {
-                    if (twoDegreesOfSeparation && (allCousins.contains(participantA) || allCousins.contains(participantB))) {
-                        allCousinConnectors.add(connector);
-                    } else {
-                        connectors.add(connector);
-                    }
-                }
+        Set<Table> participants = new HashSet<Table>(nodes.keySet());
+        Set<DotConnector> participantConnectors = new HashSet<DotConnector>();
+        finder.addConnectorsAmong(graph, participants, includeImplied, participantConnectors);
+        for (DotConnector connector : participantConnectors) {
+            if (twoDegreesOfSeparation && (allCousins.contains(connector.getParentTable()) || allCousins.contains(connector.getChildTable()))) {
+                allCousinConnectors.add(connector);
+            } else {
+                connectors.add(connector);
+            }
+        }
+
+        // the relatives of a hub don't have column ports to connect to
+        if (hub) {
+            for (DotConnector connector : connectors) {
+                if (compact || !connector.pointsTo(table))
+                    connector.connectToParentTitle();
+                if (compact || !table.equals(connector.getChildTable()))
+                    connector.connectToChildTitle();
             }
         }
 
@@ -159,7 +200,7 @@ public class DotFormatter {
         }
 
         // include the table itself
-        nodes.put(table, new DotNode(table, ""));
+        nodes.put(table, compact ? new DotNode(context, table, false, "") : new DotNode(context, table, ""));
 
         connectors.addAll(allCousinConnectors);
         for (DotConnector connector : connectors) {
@@ -171,67 +212,54 @@ public class DotFormatter {
                 if (node != null)
                     node.setShowImplied(true);
             }
-            dot.writeln(connector.toString());
+            connector.write(dot);
+            dot.writeln();
         }
 
+        DotNodeLabels nodeLabels = context.getLabels(graph);
         for (DotNode node : nodes.values()) {
-            dot.writeln(node.toString());
+            nodeLabels.write(node, dot);
+            dot.writeln();
             stats.wroteTable(node.getTable());
         }
 
+        for (Map.Entry<Table, Integer> collapsed : collapsedCousins.entrySet()) {
+            writeCollapsed(context, nodes.get(collapsed.getKey()), collapsed.getValue().intValue(), dot);
+            stats.collapsedTables(collapsed.getValue().intValue());
+        }
+
         dot.writeln("}");
 
         return skippedImpliedConstraints;
     }
 
-    private Set<Table> getImmediateRelatives(Table table, boolean includeExcluded, boolean includeImplied, Set<ForeignKeyConstraint> skippedImpliedConstraints) {
-        Set<TableColumn> relatedColumns = new HashSet<TableColumn>();
-
-        for (TableColumn column : table.getColumns()) {
-            if (column.isAllExcluded() || (!includeExcluded && column.isExcluded())) {
-                continue;
-            }
-
-            for (TableColumn childColumn : column.getChildren()) {
-                if (childColumn.isAllExcluded() || (!includeExcluded && childColumn.isExcluded())) {
-                    continue;
-                }
-
-                ForeignKeyConstraint constraint = column.getChildConstraint(childColumn);
-                if (includeImplied || !constraint.isImplied())
-                    relatedColumns.add(childColumn);
-                else
-                    skippedImpliedConstraints.add(constraint);
-            }
-
-            for (TableColumn parentColumn : column.getParents()) {
-                if (parentColumn.isAllExcluded() || (!includeExcluded && parentColumn.isExcluded())) {
-                    continue;
-                }
-
-                ForeignKeyConstraint constraint = column.getParentConstraint(parentColumn);
-                if (includeImplied || !constraint.isImplied())
-                    relatedColumns.add(parentColumn);
-                else
-                    skippedImpliedConstraints.add(constraint);
-            }
-        }
-
-        Set<Table> relatedTables = new HashSet<Table>();
-        for (TableColumn column : relatedColumns)
-            relatedTables.add(column.getTable());
-
-        relatedTables.remove(table);
-
-        return relatedTables;
+    /**
+     * Write a node that stands in for the <code>count</code> tables related to
+     * <code>relative</code> that weren't written individually.
+     */
+    private void writeCollapsed(RenderContext context, DotNode relative, int count, LineWriter dot) throws IOException {
+        Table table = relative.getTable();
+        String tableName = table.getName();
+        String fqTableName = table.isRemote() ? table.getContainer() + "." + tableName : tableName;
+        String nodeName = fqTableName + " +" + count;
+
+        dot.writeln("  \"" + nodeName + "\" [");
+        dot.writeln("    label=\"" + count + " more related table" + (count == 1 ? "" : "s") + "\"");
+        dot.writeln("    shape=\"box\"");
+        dot.writeln("    style=\"dashed\"");
+        if (!table.isRemote() || context.isOneOfMultipleSchemas())
+            dot.writeln("    URL=\"" + relative.getPath() + HtmlFormatter.urlEncode(tableName) + ".html\"");
+        dot.writeln("    tooltip=\"" + HtmlFormatter.urlEncode(fqTableName) + "\"");
+        dot.writeln("  ];");
+        dot.writeln("  \"" + nodeName + "\" -> \"" + fqTableName + "\" [arrowhead=none style=dashed];");
     }
 
-    private void writeHeader(String diagramName, boolean showLabel, LineWriter dot) throws IOException {
+    private void writeHeader(RenderContext context, String diagramName, boolean showLabel, LineWriter dot) throws IOException {
         dot.writeln("// dot " + Dot.getInstance().getVersion() + " on " + System.getProperty("os.name") + " " + System.getProperty("os.version"));
         dot.writeln("// SchemaSpy rev " + new Revision());
         dot.writeln("digraph \"" + diagramName + "\" {");
         dot.writeln("  graph [");
-        boolean rankdirbug = Config.getInstance().isRankDirBugEnabled();
+        boolean rankdirbug = context.isRankDirBugEnabled();
         if (!rankdirbug)
             dot.writeln("    rankdir=\"RL\"");
         dot.writeln("    bgcolor=\"" + StyleSheet.getInstance().getBodyBackground() + "\"");
@@ -244,12 +272,12 @@ public class DotFormatter {
         }
         dot.writeln("    nodesep=\"0.18\"");
         dot.writeln("    ranksep=\"0.46\"");
-        dot.writeln("    fontname=\"" + Config.getInstance().getFont() + "\"");
-        dot.writeln("    fontsize=\"" + fontSize + "\"");
+        dot.writeln("    fontname=\"" + context.getFont() + "\"");
+        dot.writeln("    fontsize=\"" + context.getFontSize() + "\"");
         dot.writeln("  ];");
         dot.writeln("  node [");
-        dot.writeln("    fontname=\"" + Config.getInstance().getFont() + "\"");
-        dot.writeln("    fontsize=\"" + fontSize + "\"");
+        dot.writeln("    fontname=\"" + context.getFont() + "\"");
+        dot.writeln("    fontsize=\"" + context.getFontSize() + "\"");
         dot.writeln("    shape=\"plaintext\"");
         dot.writeln("  ];");
         dot.writeln("  edge [");
@@ -257,18 +285,19 @@ public class DotFormatter {
         dot.writeln("  ];");
 }
 
-    public void writeRealRelationships(Database db, Collection<Table> tables, boolean compact, boolean showColumns, WriteStats stats, LineWriter dot) throws IOException {
-        writeRelationships(db, tables, compact, showColumns, false, stats, dot);
+    public void writeRealRelationships(RenderContext context, Collection<Table> tables, boolean compact, boolean showColumns, WriteStats stats, LineWriter dot) throws IOException {
+        writeRelationships(context, tables, compact, showColumns, false, stats, dot);
     }
 
     /**
      * Returns <code>true</code> if it wrote any implied relationships
      */
-    public boolean writeAllRelationships(Database db, Collection<Table> tables, boolean compact, boolean showColumns, WriteStats stats, LineWriter dot) throws IOException {
-        return writeRelationships(db, tables, compact, showColumns, true, stats, dot);
+    public boolean writeAllRelationships(RenderContext context, Collection<Table> tables, boolean compact, boolean showColumns, WriteStats stats, LineWriter dot) throws IOException {
+        return writeRelationships(context, tables, compact, showColumns, true, stats, dot);
     }
 
-    private boolean writeRelationships(Database db, Collection<Table> tables, boolean compact, boolean showColumns, boolean includeImplied, WriteStats stats, LineWriter dot) throws IOException {
+    private boolean writeRelationships(RenderContext context, Collection<Table> tables, boolean compact, boolean showColumns, boolean includeImplied, WriteStats stats, LineWriter dot) throws IOException {
+        Database db = context.getDatabase();
         DotConnectorFinder finder = DotConnectorFinder.getInstance();
         DotNodeConfig nodeConfig = showColumns ? new DotNodeConfig(!compact, false) : new DotNodeConfig();
         boolean wroteImplied = false;
@@ -285,38 +314,42 @@ public class DotFormatter {
             else
                 diagramName = "largeRelationshipsDiagram";
         }
-        writeHeader(diagramName, true, dot);
+        writeHeader(context, diagramName, true, dot);
 
         Map<Table, DotNode> nodes = new TreeMap<Table, DotNode>();
+        RelationshipGraph graph = db.getRelationships();
 
         for (Table table : tables) {
-            if (!table.isOrphan(includeImplied)) {
-                nodes.put(table, new DotNode(table, "tables/", nodeConfig));
+            if (!isOrphan(graph, table, includeImplied)) {
+                nodes.put(table, new DotNode(context, table, "tables/", nodeConfig));
             }
         }
 
         for (Table table : db.getRemoteTables()) {
-            nodes.put(table, new DotNode(table, "tables/", nodeConfig));
+            nodes.put(table, new DotNode(context, table, "tables/", nodeConfig));
         }
 
         Set<DotConnector> connectors = new TreeSet<DotConnector>();
 
         for (DotNode node : nodes.values()) {
-            connectors.addAll(finder.getRelatedConnectors(node.getTable(), includeImplied));
+            finder.addRelatedConnectors(graph, node.getTable(), includeImplied, connectors);
         }
 
         markExcludedColumns(nodes, stats.getExcludedColumns());
 
+        DotNodeLabels nodeLabels = context.getLabels(graph);
         for (DotNode node : nodes.values()) {
             Table table = node.getTable();
 
-            dot.writeln(node.toString());
+            nodeLabels.write(node, dot);
+            dot.writeln();
             stats.wroteTable(table);
-            wroteImplied = wroteImplied || (includeImplied && table.isOrphan(false));
+            wroteImplied = wroteImplied || (includeImplied && isOrphan(graph, table, false));
         }
 
         for (DotConnector connector : connectors) {
-            dot.writeln(connector.toString());
+            connector.write(dot);
+            dot.writeln();
         }
 
         dot.writeln("}");
@@ -324,6 +357,11 @@ public class DotFormatter {
         return wroteImplied;
     }
 
+    private boolean isOrphan(RelationshipGraph graph, Table table, boolean includeImplied) {
+        int tableId = graph.getTableId(table);
+        return tableId == -1 ? table.isOrphan(includeImplied) : graph.isOrphan(tableId, includeImplied);
+    }
+
     private void markExcludedColumns(Map<Table, DotNode> nodes, Set<TableColumn> excludedColumns) {
         for (TableColumn column : excludedColumns) {
             DotNode node = nodes.get(column.getTable());
@@ -333,9 +371,10 @@ public class DotFormatter {
         }
     }
 
-    public void writeOrphan(Table table, LineWriter dot) throws IOException {
-        writeHeader(table.getName(), false, dot);
-        dot.writeln(new DotNode(table, true, "tables/").toString());
+    public void writeOrphan(RenderContext context, Table table, LineWriter dot) throws IOException {
+        writeHeader(context, table.getName(), false, dot);
+        new DotNode(context, table, true, "tables/").write(dot);
+        dot.writeln();
         dot.writeln("}");
     }
 }
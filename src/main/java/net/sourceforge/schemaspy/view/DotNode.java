@@ -18,36 +18,38 @@
  */
 package net.sourceforge.schemaspy.view;
 
+import java.io.IOException;
 import java.text.NumberFormat;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import net.sourceforge.schemaspy.Config;
 import net.sourceforge.schemaspy.model.Table;
 import net.sourceforge.schemaspy.model.TableColumn;
 import net.sourceforge.schemaspy.model.TableIndex;
 
 public class DotNode {
+    private final RenderContext context;
     private final Table table;
     private final DotNodeConfig config;
     private final String path;
     private final Set<TableColumn> excludedColumns = new HashSet<TableColumn>();
     private final String lineSeparator = System.getProperty("line.separator");
-    private final boolean displayNumRows = Config.getInstance().isNumRowsEnabled();
 
     /**
      * Create a DotNode that is a focal point of a diagram.
      * That is, all of its columns are displayed in addition to the details
      * of those columns.
      *
+     * @param context RenderContext
      * @param table Table
      * @param path String
      */
-    public DotNode(Table table, String path) {
-        this(table, path, new DotNodeConfig(true, true));
+    public DotNode(RenderContext context, Table table, String path) {
+        this(context, table, path, new DotNodeConfig(true, true));
     }
 
-    public DotNode(Table table, String path, DotNodeConfig config) {
+    public DotNode(RenderContext context, Table table, String path, DotNodeConfig config) {
+        this.context = context;
         this.table = table;
         this.path = path + (table.isRemote() ? ("../../" + table.getContainer() + "/tables/") : "");
         this.config = config;
@@ -57,12 +59,13 @@ public class DotNode {
      * Create a DotNode and specify whether it displays its columns.
      * The details of the optional columns (e.g. type, size) are not displayed.
      *
+     * @param context RenderContext
      * @param table Table
      * @param showColumns boolean
      * @param path String
      */
-    public DotNode(Table table, boolean showColumns, String path) {
-        this(table, path, showColumns ? new DotNodeConfig(true, false) : new DotNodeConfig());
+    public DotNode(RenderContext context, Table table, boolean showColumns, String path) {
+        this(context, table, path, showColumns ? new DotNodeConfig(true, false) : new DotNodeConfig());
     }
 
     public void setShowImplied(boolean showImplied) {
@@ -77,21 +80,56 @@ public class DotNode {
         excludedColumns.add(column);
     }
 
-    @Override
-    public String toString() {
+    String getPath() {
+        return path;
+    }
+
+    /**
+     * Returns a value that identifies which of the possible ways of
+     * rendering this node's table is used by this node.
+     * <p>
+     * Columns are excluded from nodes all-or-none (every excluded column
+     * of the table is marked or none of them are), so only whether any
+     * columns were excluded factors into it.
+     * </p>
+     *
+     * @return
+     */
+    int getVariant() {
+        int variant = 0;
+        if (config.showColumns)
+            variant |= 1;
+        if (config.showTrivialColumns)
+            variant |= 2;
+        if (config.showColumnDetails)
+            variant |= 4;
+        if (config.showImpliedRelationships)
+            variant |= 8;
+        if (!excludedColumns.isEmpty())
+            variant |= 16;
+        return variant;
+    }
+
+    /**
+     * Write the <code>dot</code> representation of this node directly to
+     * <code>out</code> (without a trailing line separator).
+     *
+     * @param out Appendable
+     * @throws IOException
+     */
+    public void write(Appendable out) throws IOException {
         StyleSheet css = StyleSheet.getInstance();
-        StringBuilder buf = new StringBuilder();
         String tableName = table.getName();
         // fully qualified table name (optionally prefixed with schema)
-        String fqTableName = (table.isRemote() ? table.getContainer() + "." : "") + tableName;
+        String fqTableName = table.isRemote() ? table.getContainer() + "." + tableName : tableName;
         String colspan = config.showColumnDetails ? "COLSPAN=\"2\" " : "COLSPAN=\"3\" ";
 
-        buf.append("  \"" + fqTableName + "\" [" + lineSeparator);
-        buf.append("    label=<" + lineSeparator);
-        buf.append("    <TABLE BORDER=\"" + (config.showColumnDetails ? "2" : "0") + "\" CELLBORDER=\"1\" CELLSPACING=\"0\" BGCOLOR=\"" + css.getTableBackground() + "\">" + lineSeparator);
-        buf.append("      <TR>");
-        buf.append("<TD COLSPAN=\"3\" BGCOLOR=\"" + css.getTableHeadBackground() + "\" ALIGN=\"CENTER\">" + fqTableName + "</TD>");
-        buf.append("</TR>" + lineSeparator);
+        out.append("  \"").append(fqTableName).append("\" [").append(lineSeparator);
+        out.append("    label=<").append(lineSeparator);
+        out.append("    <TABLE BORDER=\"").append(config.showColumnDetails ? "2" : "0").append("\" CELLBORDER=\"1\" CELLSPACING=\"0\" BGCOLOR=\"").append(css.getTableBackground()).append("\">").append(lineSeparator);
+        out.append("      <TR>");
+        out.append("<TD COLSPAN=\"3\" BGCOLOR=\"").append(css.getTableHeadBackground()).append("\" ALIGN=\"CENTER\">").append(fqTableName).append("</TD>");
+        out.append("</TR>").append(lineSeparator);
 
         boolean skippedTrivial = false;
 
@@ -106,27 +144,27 @@ public class DotNode {
 
             for (TableColumn column : table.getColumns()) {
                 if (config.showTrivialColumns || config.showColumnDetails || column.isPrimary() || column.isForeignKey() || indexColumns.contains(column)) {
-                    buf.append("      <TR>");
-                    buf.append("<TD PORT=\"" + column.getName() + "\" " + colspan);
+                    out.append("      <TR>");
+                    out.append("<TD PORT=\"").append(column.getName()).append("\" ").append(colspan);
                     if (excludedColumns.contains(column))
-                        buf.append("BGCOLOR=\"" + css.getExcludedColumnBackgroundColor() + "\" ");
+                        out.append("BGCOLOR=\"").append(css.getExcludedColumnBackgroundColor()).append("\" ");
                     else if (primaryColumns.contains(column))
-                        buf.append("BGCOLOR=\"" + css.getPrimaryKeyBackground() + "\" ");
+                        out.append("BGCOLOR=\"").append(css.getPrimaryKeyBackground()).append("\" ");
                     else if (indexColumns.contains(column))
-                        buf.append("BGCOLOR=\"" + css.getIndexedColumnBackground() + "\" ");
-                    buf.append("ALIGN=\"LEFT\">");
-                    buf.append(column.getName());
-                    buf.append("</TD>");
+                        out.append("BGCOLOR=\"").append(css.getIndexedColumnBackground()).append("\" ");
+                    out.append("ALIGN=\"LEFT\">");
+                    out.append(column.getName());
+                    out.append("</TD>");
                     if (config.showColumnDetails) {
-                        buf.append("<TD PORT=\"");
-                        buf.append(column.getName());
-                        buf.append(".type\" ALIGN=\"LEFT\">");
-                        buf.append(column.getShortTypeName().toLowerCase());
-                        buf.append("[");
-                        buf.append(column.getDetailedSize());
-                        buf.append("]</TD>");
+                        out.append("<TD PORT=\"");
+                        out.append(column.getName());
+                        out.append(".type\" ALIGN=\"LEFT\">");
+                        out.append(column.getShortTypeName().toLowerCase());
+                        out.append("[");
+                        out.append(column.getDetailedSize());
+                        out.append("]</TD>");
                     }
-                    buf.append("</TR>" + lineSeparator);
+                    out.append("</TR>").append(lineSeparator);
                 } else {
                     skippedTrivial = true;
                 }
@@ -134,45 +172,56 @@ public class DotNode {
         }
 
         if (skippedTrivial || !config.showColumns) {
-            buf.append("      <TR><TD PORT=\"elipses\" COLSPAN=\"3\" ALIGN=\"LEFT\">...</TD></TR>" + lineSeparator);
+            out.append("      <TR><TD PORT=\"elipses\" COLSPAN=\"3\" ALIGN=\"LEFT\">...</TD></TR>").append(lineSeparator);
         }
 
-        buf.append("      <TR>");
-        buf.append("<TD ALIGN=\"LEFT\" BGCOLOR=\"" + css.getBodyBackground() + "\">");
+        out.append("      <TR>");
+        out.append("<TD ALIGN=\"LEFT\" BGCOLOR=\"").append(css.getBodyBackground()).append("\">");
         int numParents = config.showImpliedRelationships ? table.getNumParents() : table.getNumNonImpliedParents();
         if (numParents > 0 || config.showColumnDetails)
-            buf.append("&lt; " + numParents);
+            out.append("&lt; ").append(String.valueOf(numParents));
         else
-            buf.append("  ");
-        buf.append("</TD>");
-        buf.append("<TD ALIGN=\"RIGHT\" BGCOLOR=\"" + css.getBodyBackground() + "\">");
+            out.append("  ");
+        out.append("</TD>");
+        out.append("<TD ALIGN=\"RIGHT\" BGCOLOR=\"").append(css.getBodyBackground()).append("\">");
         if (table.isView())
-            buf.append("view");
+            out.append("view");
         else {
             final long numRows = table.getNumRows();
-            if (displayNumRows && numRows >= 0) {
-                buf.append(NumberFormat.getInstance().format(numRows));
-                buf.append(" row");
+            if (context.isNumRowsEnabled() && numRows >= 0) {
+                out.append(NumberFormat.getInstance().format(numRows));
+                out.append(" row");
                 if (numRows != 1)
-                    buf.append('s');
+                    out.append('s');
             } else {
-                buf.append("  ");
+                out.append("  ");
             }
         }
-        buf.append("</TD>");
-        buf.append("<TD ALIGN=\"RIGHT\" BGCOLOR=\"" + css.getBodyBackground() + "\">");
+        out.append("</TD>");
+        out.append("<TD ALIGN=\"RIGHT\" BGCOLOR=\"").append(css.getBodyBackground()).append("\">");
         int numChildren = config.showImpliedRelationships ? table.getNumChildren() : table.getNumNonImpliedChildren();
         if (numChildren > 0 || config.showColumnDetails)
-            buf.append(numChildren + " &gt;");
+            out.append(String.valueOf(numChildren)).append(" &gt;");
         else
-            buf.append("  ");
-        buf.append("</TD></TR>" + lineSeparator);
-
-        buf.append("    </TABLE>>" + lineSeparator);
-        if (!table.isRemote() || Config.getInstance().isOneOfMultipleSchemas())
-            buf.append("    URL=\"" + path + HtmlFormatter.urlEncode(tableName) + ".html\"" + lineSeparator);
-        buf.append("    tooltip=\"" + HtmlFormatter.urlEncode(fqTableName) + "\"" + lineSeparator);
-        buf.append("  ];");
+            out.append("  ");
+        out.append("</TD></TR>").append(lineSeparator);
+
+        out.append("    </TABLE>>").append(lineSeparator);
+        if (!table.isRemote() || context.isOneOfMultipleSchemas())
+            out.append("    URL=\"").append(path).append(HtmlFormatter.urlEncode(tableName)).append(".html\"").append(lineSeparator);
+        out.append("    tooltip=\"").append(HtmlFormatter.urlEncode(fqTableName)).append("\"").append(lineSeparator);
+        out.append("  ];");
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buf = new StringBuilder();
+
+        try {
+            write(buf);
+        } catch (IOException exc) {
+            throw new RuntimeException(exc); // StringBuilders don't throw IOExceptions
+        }
 
         return buf.toString();
     }
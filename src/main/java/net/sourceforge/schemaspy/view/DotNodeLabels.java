@@ -0,0 +1,115 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.sourceforge.net).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.sourceforge.schemaspy.view;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import net.sourceforge.schemaspy.model.RelationshipGraph;
+import net.sourceforge.schemaspy.model.Table;
+
+/**
+ * Cache of rendered {@link DotNode}s.
+ * <p>
+ * A table can appear in the diagrams of every one of its relatives (and
+ * their relatives) in addition to the summary diagrams, but it's only
+ * rendered in a handful of different ways.  The rendered text is cached
+ * by table and {@link DotNode#getVariant() variant}.
+ * </p>
+ * <p>
+ * The row and relationship counts in a label can change when relationships
+ * are added, so a cache is only valid for the {@link RelationshipGraph} it
+ * was created for.  Safe for use by multiple threads.
+ * </p>
+ */
+public class DotNodeLabels {
+    private final RelationshipGraph graph;
+    private final ConcurrentMap<Key, String> labels = new ConcurrentHashMap<Key, String>();
+    private final boolean caching;
+
+    public DotNodeLabels(RelationshipGraph graph) {
+        this(graph, true);
+    }
+
+    /**
+     * @param graph
+     * @param caching <code>false</code> to render every node as it's written
+     *      (e.g. when there isn't enough memory to hold them all)
+     */
+    public DotNodeLabels(RelationshipGraph graph, boolean caching) {
+        this.graph = graph;
+        this.caching = caching;
+    }
+
+    public RelationshipGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Write the specified node, rendering it only if an identical
+     * rendering hasn't already been cached.
+     *
+     * @param node
+     * @param out
+     * @throws IOException
+     */
+    public void write(DotNode node, Appendable out) throws IOException {
+        if (!caching) {
+            node.write(out);
+            return;
+        }
+
+        Key key = new Key(node.getTable(), node.getPath(), node.getVariant());
+        String label = labels.get(key);
+        if (label == null) {
+            label = node.toString();
+            labels.putIfAbsent(key, label);
+        }
+
+        out.append(label);
+    }
+
+    public int size() {
+        return labels.size();
+    }
+
+    private static class Key {
+        private final Table table;
+        private final String path;
+        private final int variant;
+
+        Key(Table table, String path, int variant) {
+            this.table = table;
+            this.path = path;
+            this.variant = variant;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key))
+                return false;
+            Key key = (Key)other;
+            return table == key.table && variant == key.variant && path.equals(key.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return (System.identityHashCode(table) * 31 + path.hashCode()) * 31 + variant;
+        }
+    }
+}
@@ -25,7 +25,6 @@ import java.util.HashSet;
 import java.util.List;
 
 import net.sourceforge.schemaspy.DbAnalyzer;
-import net.sourceforge.schemaspy.model.Database;
 import net.sourceforge.schemaspy.model.ForeignKeyConstraint;
 import net.sourceforge.schemaspy.model.Table;
 import net.sourceforge.schemaspy.model.TableColumn;
@@ -55,20 +54,20 @@ public class HtmlAnomaliesPage extends HtmlFormatter {
         return instance;
     }
 
-    public void write(Database database, Collection<Table> tables, List<? extends ForeignKeyConstraint> impliedConstraints, LineWriter out) throws IOException {
-        writeHeader(database, out);
+    public void write(RenderContext context, Collection<Table> tables, List<? extends ForeignKeyConstraint> impliedConstraints, LineWriter out) throws IOException {
+        writeHeader(context, out);
         writeImpliedConstraints(impliedConstraints, out);
-        writeTablesWithoutIndexes(DbAnalyzer.getTablesWithoutIndexes(new HashSet<Table>(tables)), out);
+        writeTablesWithoutIndexes(context, DbAnalyzer.getTablesWithoutIndexes(new HashSet<Table>(tables)), out);
         writeTablesWithOneColumn(DbAnalyzer.getTablesWithOneColumn(tables), out);
         writeTablesWithIncrementingColumnNames(DbAnalyzer.getTablesWithIncrementingColumnNames(tables), out);
         writeDefaultNullStrings(DbAnalyzer.getDefaultNullStringColumns(new HashSet<Table>(tables)), out);
-        writeFooter(out);
+        writeFooter(context, out);
     }
 
-    private void writeHeader(Database database, LineWriter html) throws IOException {
-        writeHeader(database, null, "Anomalies", html);
+    private void writeHeader(RenderContext context, LineWriter html) throws IOException {
+        writeHeader(context, null, "Anomalies", html);
         html.writeln("<table width='100%'>");
-        if (sourceForgeLogoEnabled())
+        if (sourceForgeLogoEnabled(context))
             html.writeln("  <tr><td class='container' align='right' valign='top' colspan='2'><a href='http://sourceforge.net' target='_blank'><img src='http://sourceforge.net/sflogo.php?group_id=137197&amp;type=1' alt='SourceForge.net' border='0' height='31' width='88'></a></td></tr>");
         html.writeln("  <tr><td class='container'><b>Things that might not be 'quite right' about your schema:</b></td></tr>");
         html.writeln("</table>");
@@ -135,7 +134,9 @@ public class HtmlAnomaliesPage extends HtmlFormatter {
         out.writeln("<p></li>");
     }
 
-    private void writeTablesWithoutIndexes(List<Table> unindexedTables, LineWriter out) throws IOException {
+    private void writeTablesWithoutIndexes(RenderContext context, List<Table> unindexedTables, LineWriter out) throws IOException {
+        boolean displayNumRows = context.isNumRowsEnabled();
+
         out.writeln("<li>");
         out.writeln("<b>Tables without indexes:</b>");
         if (!unindexedTables.isEmpty()) {
@@ -296,9 +297,9 @@ public class HtmlAnomaliesPage extends HtmlFormatter {
     }
 
     @Override
-    protected void writeFooter(LineWriter out) throws IOException {
+    protected void writeFooter(RenderContext context, LineWriter out) throws IOException {
         out.writeln("</ul>");
-        super.writeFooter(out);
+        super.writeFooter(context, out);
     }
 
     @Override
@@ -0,0 +1,146 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.sourceforge.net).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.sourceforge.schemaspy.view;
+
+import java.io.IOException;
+import java.util.Map;
+import net.sourceforge.schemaspy.model.Database;
+import net.sourceforge.schemaspy.model.ModelDiff;
+import net.sourceforge.schemaspy.model.ModelDiff.Change;
+import net.sourceforge.schemaspy.model.ModelDiff.ChangeType;
+import net.sourceforge.schemaspy.model.Table;
+import net.sourceforge.schemaspy.util.CaseInsensitiveMap;
+import net.sourceforge.schemaspy.util.HtmlEncoder;
+import net.sourceforge.schemaspy.util.LineWriter;
+
+/**
+ * The page that lists what changed between a previous snapshot of the schema
+ * and the one being evaluated.
+ */
+public class HtmlChangesPage extends HtmlFormatter {
+    private static HtmlChangesPage instance = new HtmlChangesPage();
+
+    /**
+     * Singleton: Don't allow instantiation
+     */
+    private HtmlChangesPage() {
+    }
+
+    /**
+     * Singleton accessor
+     *
+     * @return the singleton instance
+     */
+    public static HtmlChangesPage getInstance() {
+        return instance;
+    }
+
+    public void write(RenderContext context, ModelDiff diff, LineWriter html) throws IOException {
+        Database db = diff.getAfter();
+
+        writeHeader(context, null, "Changes", html);
+        html.writeln("<div class='indent'>");
+        html.writeln("<table width='100%'>");
+        html.writeln("<tr><td class='container' valign='bottom'><b>");
+        html.write(diff.getNumChanges(ChangeType.ADDED) + " added, ");
+        html.write(diff.getNumChanges(ChangeType.REMOVED) + " removed and ");
+        html.write(diff.getNumChanges(ChangeType.CHANGED) + " changed");
+        html.write(" since the snapshot generated on " + diff.getBefore().getConnectTime() + ':');
+        html.writeln("</b>");
+        html.writeln("</td><td class='container' align='right'>");
+        if (sourceForgeLogoEnabled(context))
+            html.writeln("  <a href='http://sourceforge.net' target='_blank'><img src='http://sourceforge.net/sflogo.php?group_id=137197&amp;type=1' alt='SourceForge.net' border='0' height='31' width='88'></a>");
+        html.writeln("</td></tr>");
+        html.writeln("</table><br>");
+
+        html.writeln("<table class='dataTable' border='1' rules='groups'>");
+        html.writeln("<colgroup>");
+        html.writeln("<colgroup>");
+        html.writeln("<colgroup>");
+        html.writeln("<colgroup>");
+        html.writeln("<colgroup>");
+        html.writeln("<thead align='left'>");
+        html.writeln("<tr>");
+        html.writeln("  <th>Change</th>");
+        html.writeln("  <th>Type</th>");
+        html.writeln("  <th>Name</th>");
+        html.writeln("  <th>Before</th>");
+        html.writeln("  <th>After</th>");
+        html.writeln("</tr>");
+        html.writeln("</thead>");
+        html.writeln("<tbody>");
+
+        // only link to tables that still exist
+        Map<String, Table> tables = new CaseInsensitiveMap<Table>();
+        tables.putAll(db.getTablesByName());
+        for (Table view : db.getViews())
+            tables.put(view.getName(), view);
+
+        boolean even = true;
+        for (Change change : diff.getChanges()) {
+            if (even)
+                html.writeln("  <tr class='even'>");
+            else
+                html.writeln("  <tr class='odd'>");
+            even = !even;
+
+            html.writeln("  <td class='detail' valign='top'>" + change.getType().toString().toLowerCase() + "</td>");
+            html.writeln("  <td class='detail' valign='top'>" + change.getObjectType() + "</td>");
+            html.write("  <td class='detail' valign='top'>");
+            String table = change.getTable();
+            if (table != null) {
+                if (tables.containsKey(table)) {
+                    html.write("<a href='tables/");
+                    html.write(urlEncode(table));
+                    html.write(".html'>");
+                    html.write(table);
+                    html.write("</a>");
+                } else {
+                    html.write(table);
+                }
+                if (!table.equals(change.getName()))
+                    html.write("." + change.getName());
+            } else {
+                html.write(change.getName());
+            }
+            html.writeln("</td>");
+            html.writeln("  <td class='detail' valign='top'>" + encode(change.getBefore()) + "</td>");
+            html.writeln("  <td class='detail' valign='top'>" + encode(change.getAfter()) + "</td>");
+            html.writeln(" </tr>");
+        }
+
+        if (diff.isEmpty()) {
+            html.writeln(" <tr>");
+            html.writeln("  <td class='detail' valign='top' colspan='5'>None detected</td>");
+            html.writeln(" </tr>");
+        }
+        html.writeln("</tbody>");
+        html.writeln("</table>");
+        html.writeln("</div>");
+        writeFooter(context, html);
+    }
+
+    private String encode(String str) {
+        return str == null ? "&nbsp;" : HtmlEncoder.encodeString(str);
+    }
+
+    @Override
+    protected boolean isChangesPage() {
+        return true;
+    }
+}
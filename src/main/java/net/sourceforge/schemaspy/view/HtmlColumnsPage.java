@@ -20,6 +20,7 @@ package net.sourceforge.schemaspy.view;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -29,12 +30,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
-import net.sourceforge.schemaspy.Config;
 import net.sourceforge.schemaspy.model.Database;
 import net.sourceforge.schemaspy.model.Table;
 import net.sourceforge.schemaspy.model.Table.ByColumnIdComparator;
 import net.sourceforge.schemaspy.model.TableColumn;
 import net.sourceforge.schemaspy.model.TableIndex;
+import net.sourceforge.schemaspy.util.HtmlEncoder;
+import net.sourceforge.schemaspy.util.JsonWriter;
 import net.sourceforge.schemaspy.util.LineWriter;
 
 /**
@@ -46,6 +48,18 @@ import net.sourceforge.schemaspy.util.LineWriter;
 public class HtmlColumnsPage extends HtmlFormatter {
     private static HtmlColumnsPage instance = new HtmlColumnsPage();
 
+    /**
+     * The file that {@link #writeData(RenderContext, ColumnIndex, LineWriter)}'s
+     * output is expected to be written to
+     */
+    public static final String DATA_FILE = "columns.js";
+
+    // bits of the flags of each row of the data file
+    private static final int PRIMARY      = 1;
+    private static final int INDEXED      = 2;
+    private static final int NULLABLE     = 4;
+    private static final int AUTO_UPDATED = 8;
+
     /**
      * Singleton: Don't allow instantiation
      */
@@ -64,29 +78,18 @@ public class HtmlColumnsPage extends HtmlFormatter {
     /**
      * Returns details about the columns that are displayed on this page.
      *
+     * @param context
      * @return
      */
-    public Map<String, ColumnInfo> getColumnInfos()
+    public Map<String, ColumnInfo> getColumnInfos(RenderContext context)
     {
-        // build a collection of all possible column details
-        Map<String, ColumnInfo> avails = new HashMap<String, ColumnInfo>();
-        avails.put("id", new ColumnInfo("Id", new ByColumnIdComparator()));
-        avails.put("table", new ColumnInfo("Table", new ByTableComparator()));
-        avails.put("column", new ColumnInfo("Column", new ByColumnComparator()));
-        avails.put("type", new ColumnInfo("Type", new ByTypeComparator()));
-        avails.put("size", new ColumnInfo("Size", new BySizeComparator()));
-        avails.put("nulls", new ColumnInfo("Nulls", new ByNullableComparator()));
-        avails.put("auto", new ColumnInfo("Auto", new ByAutoUpdateComparator()));
-        avails.put("default", new ColumnInfo("Default", new ByDefaultValueComparator()));
-        avails.put("children", new ColumnInfo("Children", new ByChildrenComparator()));
-        avails.put("parents", new ColumnInfo("Parents", new ByParentsComparator()));
-        avails.put("comments", new ColumnInfo("Comments", new ByCommentsComparator()));
+        Map<String, ColumnInfo> avails = getAvailableColumnInfos();
 
         // now put the ones requested in the order requested
         // LinkedHashMap maintains insertion order
         Map<String, ColumnInfo> infos = new LinkedHashMap<String, ColumnInfo>();
 
-        for (String detail : Config.getInstance().getColumnDetails()) {
+        for (String detail : context.getColumnDetails()) {
             ColumnInfo info = avails.get(detail);
 
             if (info == null)
@@ -97,6 +100,46 @@ public class HtmlColumnsPage extends HtmlFormatter {
         return infos;
     }
 
+    /**
+     * Returns details about the columns page that the other pages link to.
+     * The client-side page is always sorted by column (even if that detail
+     * isn't displayed).  Otherwise it's the page sorted by column or,
+     * if that's not one of the requested details, the first one requested.
+     *
+     * @param context
+     * @return
+     */
+    public ColumnInfo getLinkedColumnInfo(RenderContext context) {
+        if (context.isClientColumnsEnabled())
+            return getAvailableColumnInfos().get("column");
+
+        Map<String, ColumnInfo> infos = getColumnInfos(context);
+        ColumnInfo info = infos.get("column");
+        if (info == null && !infos.isEmpty())
+            info = infos.values().iterator().next();
+        return info;
+    }
+
+    /**
+     * Returns all possible column details keyed by their names
+     */
+    private Map<String, ColumnInfo> getAvailableColumnInfos()
+    {
+        Map<String, ColumnInfo> avails = new HashMap<String, ColumnInfo>();
+        avails.put("id", new ColumnInfo("Id", new ByColumnIdComparator()));
+        avails.put("table", new ColumnInfo("Table", new ByTableComparator()));
+        avails.put("column", new ColumnInfo("Column", new ByColumnComparator()));
+        avails.put("type", new ColumnInfo("Type", new ByTypeComparator()));
+        avails.put("size", new ColumnInfo("Size", new BySizeComparator()));
+        avails.put("nulls", new ColumnInfo("Nulls", new ByNullableComparator()));
+        avails.put("auto", new ColumnInfo("Auto", new ByAutoUpdateComparator()));
+        avails.put("default", new ColumnInfo("Default", new ByDefaultValueComparator()));
+        avails.put("children", new ColumnInfo("Children", new ByChildrenComparator()));
+        avails.put("parents", new ColumnInfo("Parents", new ByParentsComparator()));
+        avails.put("comments", new ColumnInfo("Comments", new ByCommentsComparator()));
+        return avails;
+    }
+
     public class ColumnInfo
     {
         private final String columnName;
@@ -130,46 +173,189 @@ public class HtmlColumnsPage extends HtmlFormatter {
         }
     }
 
-    public void write(Database database, Collection<Table> tables, ColumnInfo columnInfo, LineWriter html) throws IOException {
-        Set<TableColumn> columns = new TreeSet<TableColumn>(columnInfo.getComparator());
-        Set<TableColumn> primaryColumns = new HashSet<TableColumn>();
-        Set<TableColumn> indexedColumns = new HashSet<TableColumn>();
+    /**
+     * All of the columns in a schema along with which of them are
+     * primary keys and which are indexed.
+     * <p>
+     * Gathering these is the same for every sort order, so it's done once
+     * and shared by all of the columns pages (which can be written concurrently).
+     * </p>
+     */
+    public static class ColumnIndex {
+        private final TableColumn[] columns;
+        private final Set<TableColumn> primaryColumns = new HashSet<TableColumn>();
+        private final Set<TableColumn> indexedColumns = new HashSet<TableColumn>();
+
+        public ColumnIndex(Collection<Table> tables) {
+            List<TableColumn> all = new ArrayList<TableColumn>();
 
-        for (Table table : tables) {
-            columns.addAll(table.getColumns());
+            for (Table table : tables) {
+                all.addAll(table.getColumns());
 
-            primaryColumns.addAll(table.getPrimaryColumns());
-            for (TableIndex index : table.getIndexes()) {
-                indexedColumns.addAll(index.getColumns());
+                primaryColumns.addAll(table.getPrimaryColumns());
+                for (TableIndex index : table.getIndexes()) {
+                    indexedColumns.addAll(index.getColumns());
+                }
             }
+
+            columns = all.toArray(new TableColumn[all.size()]);
+        }
+
+        /**
+         * Returns all of the columns in the order specified by <code>comparator</code>.
+         *
+         * @param comparator
+         * @return
+         */
+        public List<TableColumn> sort(Comparator<TableColumn> comparator) {
+            TableColumn[] sorted = columns.clone();
+            Arrays.parallelSort(sorted, comparator); // sequential for small schemas
+            return Arrays.asList(sorted);
+        }
+
+        public int size() {
+            return columns.length;
+        }
+
+        public Set<TableColumn> getPrimaryColumns() {
+            return primaryColumns;
+        }
+
+        public Set<TableColumn> getIndexedColumns() {
+            return indexedColumns;
         }
+    }
 
-        writeHeader(database, columns.size(), columnInfo, html);
+    public void write(RenderContext context, ColumnIndex index, ColumnInfo columnInfo, LineWriter html) throws IOException {
+        List<TableColumn> columns = index.sort(columnInfo.getComparator());
+        Set<TableColumn> primaryColumns = index.getPrimaryColumns();
+        Set<TableColumn> indexedColumns = index.getIndexedColumns();
+
+        writeHeader(context, columns.size(), false, null, html);
+        writeMainTableHeader(context, hasTableIds(context), columnInfo, false, html);
+        html.writeln("<tbody valign='top'>");
 
         HtmlTablePage formatter = HtmlTablePage.getInstance();
 
+        boolean even = true;
         for (TableColumn column : columns) {
-            formatter.writeColumn(column, column.getTable().getName(), primaryColumns, indexedColumns, true, false, html);
+            formatter.writeColumn(context, column, column.getTable().getName(), primaryColumns, indexedColumns, true, false, even, html);
+            even = !even;
         }
 
-        writeFooter(html);
+        writeFooter(context, html);
     }
 
-    private void writeHeader(Database db, int numberOfColumns, ColumnInfo selectedColumn, LineWriter html) throws IOException {
-        writeHeader(db, null, "Columns", html);
+    /**
+     * Write the details of all of the columns to a compact data file
+     * (a JSON object assigned to <code>columnData</code> so it can be loaded
+     * by a &lt;script&gt; tag even when the pages are viewed from the file system).
+     * The {@link #writeClientSide(RenderContext, ColumnIndex, LineWriter) columns page}
+     * is rendered, sorted and filtered from it by the browser.
+     *
+     * @param context
+     * @param index
+     * @param out
+     * @throws IOException
+     */
+    public void writeData(RenderContext context, ColumnIndex index, LineWriter out) throws IOException {
+        Set<TableColumn> primaryColumns = index.getPrimaryColumns();
+        Set<TableColumn> indexedColumns = index.getIndexedColumns();
+        HtmlTablePage tablePage = HtmlTablePage.getInstance();
+
+        out.write("var columnData = ");
+        JsonWriter json = new JsonWriter(out);
+        json.beginObject();
+
+        json.name("details").beginArray();
+        for (String detail : getDetails(context, hasTableIds(context)))
+            json.value(detail);
+        json.endArray();
+
+        // each row is an array (rather than an object) to keep the file small;
+        // see columnGrid() in schemaSpy.js for the layout
+        json.name("rows").beginArray();
+        for (TableColumn column : index.sort(new ByColumnComparator())) {
+            int flags = 0;
+            if (primaryColumns.contains(column))
+                flags |= PRIMARY;
+            else if (indexedColumns.contains(column))
+                flags |= INDEXED;
+            if (column.isNullable())
+                flags |= NULLABLE;
+            if (column.isAutoUpdated())
+                flags |= AUTO_UPDATED;
+
+            Object defaultValue = column.getDefaultValue();
+            String comments = column.getComments();
+            if (comments != null && context.isEncodeCommentsEnabled())
+                comments = HtmlEncoder.encodeString(comments);
+
+            out.writeln();
+            json.beginArray();
+            json.value(column.getTable().getName());
+            json.value(column.getName());
+            json.value(column.getId() == null ? null : column.getId().toString());
+            json.value(column.getTypeName().toLowerCase());
+            json.value(column.getDetailedSize());
+            json.value(column.getLength());
+            json.value(column.getDecimalDigits());
+            json.value(flags);
+            json.value(defaultValue != null || column.isNullable() ? String.valueOf(defaultValue) : null);
+            json.value(tablePage.getDefaultValueAlias(defaultValue));
+            json.value(comments);
+            json.value(getRelatedTables(column, true));
+            json.value(getRelatedTables(column, false));
+            json.endArray();
+        }
+        json.endArray();
+
+        json.endObject();
+        out.writeln(";");
+    }
+
+    /**
+     * Write a single columns page whose rows are rendered by the browser
+     * from the {@link #writeData(RenderContext, ColumnIndex, LineWriter) data file}.
+     * Only the rows that are scrolled into view are part of the page,
+     * so it loads quickly regardless of the number of columns.
+     *
+     * @param context
+     * @param index
+     * @param html
+     * @throws IOException
+     */
+    public void writeClientSide(RenderContext context, ColumnIndex index, LineWriter html) throws IOException {
+        List<String> javascript = new ArrayList<String>();
+        javascript.add("$(function(){");
+        javascript.add("  columnGrid(columnData);");
+        javascript.add("})");
+
+        writeHeader(context, index.size(), true, javascript, html);
+        html.writeln("<SCRIPT LANGUAGE='JavaScript' TYPE='text/javascript' SRC='" + DATA_FILE + "'></SCRIPT>");
+        writeMainTableHeader(context, hasTableIds(context), getLinkedColumnInfo(context), true, html);
+        html.writeln("<tbody valign='top' id='columnRows'>");
+        writeFooter(context, html);
+    }
+
+    private void writeHeader(RenderContext context, int numberOfColumns, boolean clientSide, List<String> javascript, LineWriter html) throws IOException {
+        Database db = context.getDatabase();
+        writeHeader(context, null, "Columns", javascript, html);
 
         html.writeln("<table width='100%' border='0'>");
         html.writeln("<tr><td class='container'>");
         writeGeneratedOn(db.getConnectTime(), html);
         html.writeln("</td><td class='container' rowspan='2' align='right' valign='top'>");
-        writeLegend(false, false, html);
+        writeLegend(context, false, false, html);
         html.writeln("</td></tr>");
         html.writeln("<tr valign='top'><td class='container' align='left' valign='top'>");
         html.writeln("<p>");
         html.writeln("<form name='options' action=''>");
-        if (Config.getInstance().getColumnDetails().contains("comments"))
+        if (context.getColumnDetails().contains("comments"))
             html.writeln(" <label for='showComments'><input type=checkbox id='showComments'>Comments</label>");
         html.writeln(" <label for='showLegend'><input type=checkbox checked id='showLegend'>Legend</label>");
+        if (clientSide)
+            html.writeln(" <label for='columnFilter'>Filter <input type=text id='columnFilter' size='20' title='Only show the columns whose table or column name contains this text'></label>");
         html.writeln("</form>");
         html.writeln("</table>");
 
@@ -185,23 +371,65 @@ public class HtmlColumnsPage extends HtmlFormatter {
         }
         html.write(" contains ");
         html.write(String.valueOf(numberOfColumns));
-        html.write(" columns</b> - click on heading to sort:");
-        Collection<Table> tables = db.getTables();
-        boolean hasTableIds = tables.size() > 0 && tables.iterator().next().getId() != null;
-        writeMainTableHeader(hasTableIds, selectedColumn, html);
-        html.writeln("<tbody valign='top'>");
+        html.write(" columns</b>");
+        if (clientSide)
+            html.write("<span id='columnsShown'></span>");
+        html.write(" - click on heading to sort:");
+    }
+
+    private boolean hasTableIds(RenderContext context) {
+        Collection<Table> tables = context.getDatabase().getTables();
+        return tables.size() > 0 && tables.iterator().next().getId() != null;
+    }
+
+    /**
+     * Returns the column details to display, in the order they're displayed
+     */
+    private List<String> getDetails(RenderContext context, boolean hasTableIds) {
+        List<String> details = new ArrayList<String>(context.getColumnDetails());
+        if (!hasTableIds)
+            details.remove("id");   // simplify subsequent logic by yanking it now
+        return details;
     }
 
-    public void writeMainTableHeader(boolean hasTableIds, ColumnInfo selectedColumn, LineWriter out) throws IOException {
+    /**
+     * Returns the names of the tables with real (not implied) relationships
+     * to the specified column
+     */
+    private String getRelatedTables(TableColumn column, boolean children) {
+        Set<String> tables = new TreeSet<String>();
+
+        if (children) {
+            for (TableColumn child : column.getChildren()) {
+                if (!child.getParentConstraint(column).isImplied())
+                    tables.add(child.getTable().getName());
+            }
+        } else {
+            for (TableColumn parent : column.getParents()) {
+                if (!parent.getChildConstraint(column).isImplied())
+                    tables.add(parent.getTable().getName());
+            }
+        }
+
+        if (tables.isEmpty())
+            return null;
+
+        String related = tables.toString();
+        return related.substring(1, related.length() - 1);
+    }
+
+    public void writeMainTableHeader(RenderContext context, boolean hasTableIds, ColumnInfo selectedColumn, LineWriter out) throws IOException {
+        writeMainTableHeader(context, hasTableIds, selectedColumn, false, out);
+    }
+
+    private void writeMainTableHeader(RenderContext context, boolean hasTableIds, ColumnInfo selectedColumn, boolean clientSide, LineWriter out) throws IOException {
         boolean onColumnsPage = selectedColumn != null;
         List<String> details = null;
         out.writeln("<a name='columns'></a>");
         out.writeln("<table id='columns' class='dataTable' border='1' rules='groups'>");
 
         if (onColumnsPage) {
-            details = new ArrayList<String>(Config.getInstance().getColumnDetails());
-            if (!hasTableIds)
-                details.remove("id");   // simplify subsequent logic by yanking it now
+            details = getDetails(context, hasTableIds);
 
             for (String detail : details) {
                 if (detail.equals("comments"))
@@ -221,16 +449,16 @@ public class HtmlColumnsPage extends HtmlFormatter {
         out.writeln("<tr>");
         if (onColumnsPage) {
             Map<String, String> headings = new HashMap<String, String>();
-            headings.put("id", getTH(selectedColumn, "ID", null, "right"));
-            headings.put("table", getTH(selectedColumn, "Table", null, null));
-            headings.put("column", getTH(selectedColumn, "Column", null, null));
-            headings.put("type", getTH(selectedColumn, "Type", null, null));
-            headings.put("size", getTH(selectedColumn, "Size", null, null));
-            headings.put("nulls", getTH(selectedColumn, "Nulls", "Are nulls allowed?", null));
-            headings.put("auto", getTH(selectedColumn, "Auto", "Is column automatically updated?", null));
-            headings.put("default", getTH(selectedColumn, "Default", "Default value", null));
-            headings.put("children", getTH(selectedColumn, "Children", "Columns in tables that reference this column", null));
-            headings.put("parents", getTH(selectedColumn, "Parents", "Columns in tables that are referenced by this column", null));
+            headings.put("id", getTH(selectedColumn, "ID", null, "right", clientSide));
+            headings.put("table", getTH(selectedColumn, "Table", null, null, clientSide));
+            headings.put("column", getTH(selectedColumn, "Column", null, null, clientSide));
+            headings.put("type", getTH(selectedColumn, "Type", null, null, clientSide));
+            headings.put("size", getTH(selectedColumn, "Size", null, null, clientSide));
+            headings.put("nulls", getTH(selectedColumn, "Nulls", "Are nulls allowed?", null, clientSide));
+            headings.put("auto", getTH(selectedColumn, "Auto", "Is column automatically updated?", null, clientSide));
+            headings.put("default", getTH(selectedColumn, "Default", "Default value", null, clientSide));
+            headings.put("children", getTH(selectedColumn, "Children", "Columns in tables that reference this column", null, clientSide));
+            headings.put("parents", getTH(selectedColumn, "Parents", "Columns in tables that are referenced by this column", null, clientSide));
             headings.put("comments", "<th title='Comments' class='comment'><span class='notSortedByColumn'>Comments</span></th>");
 
             // output the headings in the order specified
@@ -258,8 +486,22 @@ public class HtmlColumnsPage extends HtmlFormatter {
     }
 
     private String getTH(ColumnInfo selectedColumn, String columnName, String title, String align) {
+        return getTH(selectedColumn, columnName, title, align, false);
+    }
+
+    /**
+     * Headings of client-side pages sort the page in place rather than
+     * linking to another page, so they're identified by their column detail
+     */
+    private String getTH(ColumnInfo selectedColumn, String columnName, String title, String align, boolean clientSide) {
         StringBuilder buf = new StringBuilder("  <th");
 
+        if (clientSide) {
+            buf.append(" id='sortBy");
+            buf.append(columnName);
+            buf.append("'");
+        }
+
         if (align != null) {
             buf.append(" align='");
             buf.append(align);
@@ -272,7 +514,15 @@ public class HtmlColumnsPage extends HtmlFormatter {
             buf.append("'");
         }
 
-        if (selectedColumn != null) {
+        if (clientSide) {
+            if (selectedColumn.getColumnName().equals(columnName))
+                buf.append(" class='sortedByColumn'>");
+            else
+                buf.append(" class='notSortedByColumn'>");
+            buf.append("<a href='#columns'><span class='notSortedByColumn'>");
+            buf.append(columnName);
+            buf.append("</span></a>");
+        } else if (selectedColumn != null) {
             if (selectedColumn.getColumnName().equals(columnName)) {
                 buf.append(" class='sortedByColumn'>");
                 buf.append(columnName);
@@ -294,11 +544,11 @@ public class HtmlColumnsPage extends HtmlFormatter {
     }
 
     @Override
-    protected void writeFooter(LineWriter html) throws IOException {
+    protected void writeFooter(RenderContext context, LineWriter html) throws IOException {
         html.writeln("</tbody>");
         html.writeln("</table>");
         html.writeln("</div>");
-        super.writeFooter(html);
+        super.writeFooter(context, html);
     }
 
     @Override
@@ -27,7 +27,6 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 import net.sourceforge.schemaspy.DbAnalyzer;
-import net.sourceforge.schemaspy.model.Database;
 import net.sourceforge.schemaspy.model.ForeignKeyConstraint;
 import net.sourceforge.schemaspy.model.Table;
 import net.sourceforge.schemaspy.model.TableColumn;
@@ -41,7 +40,6 @@ import net.sourceforge.schemaspy.util.LineWriter;
  */
 public class HtmlConstraintsPage extends HtmlFormatter {
     private static HtmlConstraintsPage instance = new HtmlConstraintsPage();
-    private int columnCounter;
 
     /**
      * Singleton: Don't allow instantiation
@@ -58,32 +56,33 @@ public class HtmlConstraintsPage extends HtmlFormatter {
         return instance;
     }
 
-    public void write(Database database, List<ForeignKeyConstraint> constraints, Collection<Table> tables, LineWriter html) throws IOException {
-        writeHeader(database, html);
-        writeForeignKeyConstraints(constraints, html);
+    public void write(RenderContext context, List<ForeignKeyConstraint> constraints, Collection<Table> tables, LineWriter html) throws IOException {
+        writeHeader(context, html);
+        writeForeignKeyConstraints(context, constraints, html);
         writeCheckConstraints(tables, html);
-        writeFooter(html);
+        writeFooter(context, html);
     }
 
-    private void writeHeader(Database database, LineWriter html) throws IOException {
-        writeHeader(database, null, "Constraints", html);
+    private void writeHeader(RenderContext context, LineWriter html) throws IOException {
+        writeHeader(context, null, "Constraints", html);
         html.writeln("<div class='indent'>");
     }
 
     @Override
-    protected void writeFooter(LineWriter html) throws IOException {
+    protected void writeFooter(RenderContext context, LineWriter html) throws IOException {
         html.writeln("</div>");
-        super.writeFooter(html);
+        super.writeFooter(context, html);
     }
 
     /**
      * Write specified foreign key constraints
      *
+     * @param context RenderContext
      * @param constraints List
      * @param html LineWriter
      * @throws IOException
      */
-    private void writeForeignKeyConstraints(List<ForeignKeyConstraint> constraints, LineWriter html) throws IOException {
+    private void writeForeignKeyConstraints(RenderContext context, List<ForeignKeyConstraint> constraints, LineWriter html) throws IOException {
         Set<ForeignKeyConstraint> constraintsByName = new TreeSet<ForeignKeyConstraint>();
         constraintsByName.addAll(constraints);
 
@@ -92,7 +91,7 @@ public class HtmlConstraintsPage extends HtmlFormatter {
         html.write(String.valueOf(constraintsByName.size()));
         html.writeln(" Foreign Key Constraints:</b>");
         html.writeln("</td><td class='container' align='right'>");
-        if (sourceForgeLogoEnabled())
+        if (sourceForgeLogoEnabled(context))
             html.writeln("  <a href='http://sourceforge.net' target='_blank'><img src='http://sourceforge.net/sflogo.php?group_id=137197&amp;type=1' alt='SourceForge.net' border='0' height='31' width='88'></a>");
         html.writeln("</td></tr>");
         html.writeln("</table><br>");
@@ -110,8 +109,10 @@ public class HtmlConstraintsPage extends HtmlFormatter {
         html.writeln("</tr>");
         html.writeln("</thead>");
         html.writeln("<tbody>");
+        boolean even = true;
         for (ForeignKeyConstraint constraint : constraintsByName) {
-            writeForeignKeyConstraint(constraint, html);
+            writeForeignKeyConstraint(constraint, even, html);
+            even = !even;
         }
         if (constraints.size() == 0) {
             html.writeln(" <tr>");
@@ -126,11 +127,11 @@ public class HtmlConstraintsPage extends HtmlFormatter {
      * Write specified foreign key constraint
      *
      * @param constraint ForeignKeyConstraint
+     * @param even boolean
      * @param html LineWriter
      * @throws IOException
      */
-    private void writeForeignKeyConstraint(ForeignKeyConstraint constraint, LineWriter html) throws IOException {
-        boolean even = columnCounter++ % 2 == 0;
+    private void writeForeignKeyConstraint(ForeignKeyConstraint constraint, boolean even, LineWriter html) throws IOException {
         if (even)
             html.writeln("  <tr class='even'>");
         else
@@ -35,14 +35,11 @@ import net.sourceforge.schemaspy.util.HtmlEncoder;
 import net.sourceforge.schemaspy.util.LineWriter;
 
 public class HtmlFormatter {
-    protected final boolean encodeComments = Config.getInstance().isEncodeCommentsEnabled();
-    private   final boolean isMetered = Config.getInstance().isMeterEnabled();
-    protected final boolean displayNumRows = Config.getInstance().isNumRowsEnabled();
-
     protected HtmlFormatter() {
     }
 
-    protected void writeHeader(Database db, Table table, String text, List<String> javascript, LineWriter out) throws IOException {
+    protected void writeHeader(RenderContext context, Table table, String text, List<String> javascript, LineWriter out) throws IOException {
+        Database db = context.getDatabase();
         out.writeln("<!DOCTYPE HTML PUBLIC '-//W3C//DTD HTML 4.01 Transitional//EN' 'http://www.w3.org/TR/html4/loose.dtd'>");
         out.writeln("<html>");
         out.writeln("<head>");
@@ -54,7 +51,7 @@ public class HtmlFormatter {
         if (table != null)
             out.write("../");
         out.writeln("schemaSpy.css' type='text/css'>");
-        out.writeln("  <meta HTTP-EQUIV='Content-Type' CONTENT='text/html; charset=" + Config.getInstance().getCharset() + "'>");
+        out.writeln("  <meta HTTP-EQUIV='Content-Type' CONTENT='text/html; charset=" + context.getCharset() + "'>");
         out.writeln("  <SCRIPT LANGUAGE='JavaScript' TYPE='text/javascript' SRC='" + (table == null ? "" : "../") + "jquery.js'></SCRIPT>");
         out.writeln("  <SCRIPT LANGUAGE='JavaScript' TYPE='text/javascript' SRC='" + (table == null ? "" : "../") + "schemaSpy.js'></SCRIPT>");
         if (table != null) {
@@ -70,7 +67,7 @@ public class HtmlFormatter {
         }
         out.writeln("</head>");
         out.writeln("<body>");
-        writeTableOfContents(out);
+        writeTableOfContents(context, out);
         out.writeln("<div class='content' style='clear:both;'>");
         out.writeln("<table width='100%' border='0' cellpadding='0'>");
         out.writeln(" <tr>");
@@ -86,7 +83,7 @@ public class HtmlFormatter {
         String comments = table == null ? null : table.getComments();
         if (comments != null) {
             out.write("<div style='padding: 0px 4px;'>");
-            if (encodeComments)
+            if (context.isEncodeCommentsEnabled())
                 for (int i = 0; i < comments.length(); ++i)
                     out.write(HtmlEncoder.encodeToken(comments.charAt(i)));
             else
@@ -102,8 +99,8 @@ public class HtmlFormatter {
     /**
      * Convenience method for all those formatters that don't deal with JavaScript
      */
-    protected void writeHeader(Database db, Table table, String text, LineWriter out) throws IOException {
-        writeHeader(db, table, text, null, out);
+    protected void writeHeader(RenderContext context, Table table, String text, LineWriter out) throws IOException {
+        writeHeader(context, table, text, null, out);
     }
 
     protected void writeGeneratedOn(String connectTime, LineWriter html) throws IOException {
@@ -113,15 +110,15 @@ public class HtmlFormatter {
         html.writeln("</span>");
     }
 
-    protected void writeTableOfContents(LineWriter html) throws IOException {
+    protected void writeTableOfContents(RenderContext context, LineWriter html) throws IOException {
         // don't forget to modify HtmlMultipleSchemasIndexPage with any changes to 'header' or 'headerHolder'
-        Config config = Config.getInstance();
+        Config config = context.getConfig();
         String path = getPathToRoot();
         // have to use a table to deal with a horizontal scrollbar showing up inappropriately
         html.writeln("<table id='headerHolder' cellspacing='0' cellpadding='0'><tr><td>");
         html.writeln("<div id='header'>");
         html.writeln(" <ul>");
-        if (config.isOneOfMultipleSchemas())
+        if (context.isOneOfMultipleSchemas())
             html.writeln("  <li><a href='" + path + "../index.html' title='All Schemas Evaluated'>Schemas</a></li>");
         html.writeln("  <li" + (isMainIndex() ? " id='current'" : "") + "><a href='" + path + "index.html' title='All tables and views in the schema'>Tables</a></li>");
         html.writeln("  <li" + (isRelationshipsPage() ? " id='current'" : "") + "><a href='" + path + "relationships.html' title='Diagram of table relationships'>Relationships</a></li>");
@@ -129,9 +126,11 @@ public class HtmlFormatter {
             html.writeln("  <li" + (isOrphansPage() ? " id='current'" : "") + "><a href='" + path + "utilities.html' title='View of tables with neither parents nor children'>Utility&nbsp;Tables</a></li>");
         html.writeln("  <li" + (isConstraintsPage() ? " id='current'" : "") + "><a href='" + path + "constraints.html' title='Useful for diagnosing error messages that just give constraint name or number'>Constraints</a></li>");
         html.writeln("  <li" + (isAnomaliesPage() ? " id='current'" : "") + "><a href='" + path + "anomalies.html' title=\"Things that might not be quite right\">Anomalies</a></li>");
-        html.writeln("  <li" + (isColumnsPage() ? " id='current'" : "") + "><a href='" + path + HtmlColumnsPage.getInstance().getColumnInfos().get("column") + "' title=\"All of the columns in the schema\">Columns</a></li>");
+        html.writeln("  <li" + (isColumnsPage() ? " id='current'" : "") + "><a href='" + path + HtmlColumnsPage.getInstance().getLinkedColumnInfo(context) + "' title=\"All of the columns in the schema\">Columns</a></li>");
         if (config.hasRoutines())
             html.writeln("  <li" + (isRoutinesPage() ? " id='current'" : "") + "><a href='" + path + "routines.html' title='Stored Procedures / Functions'>Routines</a></li>");
+        if (config.getDiffModel() != null)
+            html.writeln("  <li" + (isChangesPage() ? " id='current'" : "") + "><a href='" + path + "changes.html' title='What changed since the previous snapshot of the schema'>Changes</a></li>");
         html.writeln("  <li><a href='http://sourceforge.net/donate/index.php?group_id=137197' title='Please help keep SchemaSpy alive' target='_blank'>Donate</a></li>");
         html.writeln(" </ul>");
         html.writeln("</div>");
@@ -182,19 +181,19 @@ public class HtmlFormatter {
         return description.toString();
     }
 
-    protected boolean sourceForgeLogoEnabled() {
-        return Config.getInstance().isLogoEnabled();
+    protected boolean sourceForgeLogoEnabled(RenderContext context) {
+        return context.isLogoEnabled();
     }
 
-    protected void writeLegend(boolean tableDetails, LineWriter out) throws IOException {
-        writeLegend(tableDetails, true, out);
+    protected void writeLegend(RenderContext context, boolean tableDetails, LineWriter out) throws IOException {
+        writeLegend(context, tableDetails, true, out);
     }
 
-    protected void writeLegend(boolean tableDetails, boolean diagramDetails, LineWriter out) throws IOException {
+    protected void writeLegend(RenderContext context, boolean tableDetails, boolean diagramDetails, LineWriter out) throws IOException {
         out.writeln(" <table class='legend' border='0'>");
         out.writeln("  <tr>");
         out.writeln("   <td class='dataTable' valign='bottom'>Legend:</td>");
-        if (sourceForgeLogoEnabled())
+        if (sourceForgeLogoEnabled(context))
             out.writeln("   <td class='container' align='right' valign='top'><a href='http://sourceforge.net' target='_blank'><img src='http://sourceforge.net/sflogo.php?group_id=137197&amp;type=1' alt='SourceForge.net' border='0' height='31' width='88'></a></td>");
         out.writeln("  </tr>");
         out.writeln("  <tr><td class='container' colspan='2'>");
@@ -257,9 +256,9 @@ public class HtmlFormatter {
         html.writeln("<br>SchemaSpy requires Graphviz " + Dot.getInstance().getSupportedVersions().substring(4) + " from <a href='http://www.graphviz.org' target='_blank'>www.graphviz.org</a>.");
     }
 
-    protected void writeFooter(LineWriter html) throws IOException {
+    protected void writeFooter(RenderContext context, LineWriter html) throws IOException {
         html.writeln("</div>");
-        if (isMetered) {
+        if (context.isMeterEnabled()) {
             html.writeln("<span style='float: right;' title='This link is only on the SchemaSpy sample pages'>");
             html.writeln("<!-- Site Meter -->");
             html.writeln("<script type='text/javascript' src='http://s28.sitemeter.com/js/counter.js?site=s28schemaspy'>");
@@ -348,6 +347,15 @@ public class HtmlFormatter {
         return false;
     }
 
+    /**
+     * Override and return true if you're the changes page
+     *
+     * @return boolean
+     */
+    protected boolean isChangesPage() {
+        return false;
+    }
+
     /**
      * Encode the specified string
      *
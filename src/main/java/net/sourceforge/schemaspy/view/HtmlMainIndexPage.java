@@ -25,7 +25,6 @@ import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
 import java.util.TreeSet;
-import net.sourceforge.schemaspy.Config;
 import net.sourceforge.schemaspy.model.Database;
 import net.sourceforge.schemaspy.model.Table;
 import net.sourceforge.schemaspy.util.HtmlEncoder;
@@ -38,7 +37,6 @@ import net.sourceforge.schemaspy.util.LineWriter;
  */
 public class HtmlMainIndexPage extends HtmlFormatter {
     private static HtmlMainIndexPage instance = new HtmlMainIndexPage();
-    private final NumberFormat integerFormatter = NumberFormat.getIntegerInstance();
 
     /**
      * Singleton: Don't allow instantiation
@@ -55,7 +53,7 @@ public class HtmlMainIndexPage extends HtmlFormatter {
         return instance;
     }
 
-    public void write(Database database, Collection<Table> tables, Collection<Table> remotes, LineWriter html) throws IOException {
+    public void write(RenderContext context, Collection<Table> tables, Collection<Table> remotes, LineWriter html) throws IOException {
         Comparator<Table> sorter = new Comparator<Table>() {
             public int compare(Table table1, Table table2) {
                 return table1.compareTo(table2);
@@ -70,6 +68,8 @@ public class HtmlMainIndexPage extends HtmlFormatter {
         remotes = tmp;
         tmp = null;
 
+        // NumberFormats aren't thread-safe
+        NumberFormat integerFormatter = NumberFormat.getIntegerInstance();
         boolean showIds = false;
         int numViews = 0;
         boolean hasComments = false;
@@ -82,13 +82,13 @@ public class HtmlMainIndexPage extends HtmlFormatter {
                 hasComments = true;
         }
 
-        writeLocalsHeader(database, tables.size() - numViews, numViews, showIds, hasComments, html);
+        writeLocalsHeader(context, tables.size() - numViews, numViews, showIds, hasComments, html);
 
         int numTableCols = 0;
         int numViewCols = 0;
         long numRows = 0;
         for (Table table : tables) {
-            writeLineItem(table, showIds, html);
+            writeLineItem(context, table, showIds, integerFormatter, html);
 
             if (!table.isView())
                 numTableCols += table.getColumns().size();
@@ -97,22 +97,22 @@ public class HtmlMainIndexPage extends HtmlFormatter {
             numRows += table.getNumRows() > 0 ? table.getNumRows() : 0;
         }
 
-        writeLocalsFooter(tables.size() - numViews, numTableCols, numViews, numViewCols, numRows, html);
+        writeLocalsFooter(context, tables.size() - numViews, numTableCols, numViews, numViewCols, numRows, integerFormatter, html);
 
         if (!remotes.isEmpty()) {
-            writeRemotesHeader(database, showIds, hasComments, html);
+            writeRemotesHeader(showIds, hasComments, html);
 
             for (Table table : remotes) {
-                writeLineItem(table, showIds, html);
+                writeLineItem(context, table, showIds, integerFormatter, html);
             }
 
             writeRemotesFooter(html);
         }
 
-        writeFooter(html);
+        writeFooter(context, html);
     }
 
-    private void writeLocalsHeader(Database db, int numberOfTables, int numberOfViews, boolean showIds, boolean hasComments, LineWriter html) throws IOException {
+    private void writeLocalsHeader(RenderContext context, int numberOfTables, int numberOfViews, boolean showIds, boolean hasComments, LineWriter html) throws IOException {
         List<String> javascript = new ArrayList<String>();
 
         // we can't use the hard-coded even odd technique that we use
@@ -137,7 +137,10 @@ public class HtmlMainIndexPage extends HtmlFormatter {
         javascript.add("  $('table.dataTable').alternateRowColors();");
         javascript.add("})");
 
-        writeHeader(db, null, null, javascript, html);
+        Database db = context.getDatabase();
+        boolean displayNumRows = context.isNumRowsEnabled();
+
+        writeHeader(context, null, null, javascript, html);
         html.writeln("<table width='100%'>");
         html.writeln(" <tr><td class='container'>");
         writeGeneratedOn(db.getConnectTime(), html);
@@ -147,7 +150,7 @@ public class HtmlMainIndexPage extends HtmlFormatter {
         html.write(db.getDatabaseProduct());
         html.writeln("  </td>");
         html.writeln("  <td class='container' align='right' valign='top' rowspan='3'>");
-        if (sourceForgeLogoEnabled())
+        if (sourceForgeLogoEnabled(context))
             html.writeln("    <a href='http://sourceforge.net' target='_blank'><img src='http://sourceforge.net/sflogo.php?group_id=137197&amp;type=1' alt='SourceForge.net' border='0' height='31' width='88'></a><br>");
         html.writeln("    <br>");
         html.writeln("  </td>");
@@ -209,7 +212,7 @@ public class HtmlMainIndexPage extends HtmlFormatter {
         html.writeln("<tbody>");
     }
 
-    private void writeRemotesHeader(Database db, boolean showIds, boolean hasComments, LineWriter html) throws IOException {
+    private void writeRemotesHeader(boolean showIds, boolean hasComments, LineWriter html) throws IOException {
         html.writeln("<p><br><b>Related tables in other schemas</b>");
         html.writeln("<table class='dataTable' border='1' rules='groups'>");
         int numGroups = 3 + (showIds ? 1 : 0);
@@ -232,13 +235,13 @@ public class HtmlMainIndexPage extends HtmlFormatter {
         html.writeln("<tbody>");
     }
 
-    private void writeLineItem(Table table, boolean showIds, LineWriter html) throws IOException {
+    private void writeLineItem(RenderContext context, Table table, boolean showIds, NumberFormat integerFormatter, LineWriter html) throws IOException {
         html.write(" <tr class='" + (table.isView() ? "view" : "tbl") + "' valign='top'>");
         html.write("  <td class='detail'>");
 
         String tableName = table.getName();
 
-        if (table.isRemote() && !Config.getInstance().isOneOfMultipleSchemas()) {
+        if (table.isRemote() && !context.isOneOfMultipleSchemas()) {
             html.write(table.getContainer());
             html.write('.');
             html.write(tableName);
@@ -286,7 +289,7 @@ public class HtmlMainIndexPage extends HtmlFormatter {
             html.write(String.valueOf(integerFormatter.format(table.getColumns().size())));
             html.writeln("</td>");
 
-            if (displayNumRows) {
+            if (context.isNumRowsEnabled()) {
                 html.write("  <td class='detail' align='right'>");
                 if (!table.isView()) {
                     if (table.getNumRows() >= 0)
@@ -302,7 +305,7 @@ public class HtmlMainIndexPage extends HtmlFormatter {
         html.write("  <td class='comment detail'>");
         String comments = table.getComments();
         if (comments != null) {
-            if (encodeComments)
+            if (context.isEncodeCommentsEnabled())
                 for (int i = 0; i < comments.length(); ++i)
                     html.write(HtmlEncoder.encodeToken(comments.charAt(i)));
             else
@@ -312,7 +315,9 @@ public class HtmlMainIndexPage extends HtmlFormatter {
         html.writeln("  </tr>");
     }
 
-    protected void writeLocalsFooter(int numTables, int numTableCols, int numViews, int numViewCols, long numRows, LineWriter html) throws IOException {
+    protected void writeLocalsFooter(RenderContext context, int numTables, int numTableCols, int numViews, int numViewCols, long numRows, NumberFormat integerFormatter, LineWriter html) throws IOException {
+        boolean displayNumRows = context.isNumRowsEnabled();
+
         html.writeln("  <tr>");
         html.writeln("    <td class='detail'>&nbsp;</td>");
         html.writeln("    <td class='detail'>&nbsp;</td>");
@@ -24,7 +24,6 @@ import java.sql.SQLException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.List;
-import net.sourceforge.schemaspy.Config;
 import net.sourceforge.schemaspy.util.LineWriter;
 
 /**
@@ -50,17 +49,17 @@ public class HtmlMultipleSchemasIndexPage extends HtmlFormatter {
         return instance;
     }
 
-    public void write(String dbName, List<String> populatedSchemas, DatabaseMetaData meta, LineWriter index) throws IOException {
-        writeHeader(dbName, meta, populatedSchemas.size(), false, populatedSchemas.get(0).toString(), index);
+    public void write(RenderContext context, String dbName, List<String> populatedSchemas, DatabaseMetaData meta, LineWriter index) throws IOException {
+        writeHeader(context, dbName, meta, populatedSchemas.size(), false, populatedSchemas.get(0).toString(), index);
 
         for (String schema : populatedSchemas) {
             writeLineItem(schema, index);
         }
 
-        writeFooter(index);
+        writeFooter(context, index);
     }
 
-    private void writeHeader(String databaseName, DatabaseMetaData meta, int numberOfSchemas, boolean showIds, String aSchema, LineWriter html) throws IOException {
+    private void writeHeader(RenderContext context, String databaseName, DatabaseMetaData meta, int numberOfSchemas, boolean showIds, String aSchema, LineWriter html) throws IOException {
         String connectTime = new SimpleDateFormat("EEE MMM dd HH:mm z yyyy").format(new Date());
 
         html.writeln("<!DOCTYPE HTML PUBLIC '-//W3C//DTD HTML 4.01 Transitional//EN' 'http://www.w3.org/TR/html4/loose.dtd'>");
@@ -75,10 +74,10 @@ public class HtmlMultipleSchemasIndexPage extends HtmlFormatter {
         html.write("  <link rel=stylesheet href='");
         html.write(aSchema);
         html.writeln("/schemaSpy.css' type='text/css'>");
-        html.writeln("  <meta HTTP-EQUIV='Content-Type' CONTENT='text/html; charset=" + Config.getInstance().getCharset() + "'>");
+        html.writeln("  <meta HTTP-EQUIV='Content-Type' CONTENT='text/html; charset=" + context.getCharset() + "'>");
         html.writeln("</head>");
         html.writeln("<body>");
-        writeTableOfContents(html);
+        writeTableOfContents(context, html);
         html.writeln("<div class='content' style='clear:both;'>");
         html.writeln("<table width='100%' border='0' cellpadding='0'>");
         html.writeln(" <tr>");
@@ -104,7 +103,7 @@ public class HtmlMultipleSchemasIndexPage extends HtmlFormatter {
         }
         html.writeln("  </td>");
         html.writeln("  <td class='container' align='right' valign='top' rowspan='3'>");
-        if (sourceForgeLogoEnabled())
+        if (sourceForgeLogoEnabled(context))
             html.writeln("    <a href='http://sourceforge.net' target='_blank'><img src='http://sourceforge.net/sflogo.php?group_id=137197&amp;type=1' alt='SourceForge.net' border='0' height='31' width='88'></a><br>");
         html.write("    <br>");
         html.writeln("  </td>");
@@ -148,7 +147,7 @@ public class HtmlMultipleSchemasIndexPage extends HtmlFormatter {
     }
 
     @Override
-    protected void writeTableOfContents(LineWriter html) throws IOException {
+    protected void writeTableOfContents(RenderContext context, LineWriter html) throws IOException {
         // have to use a table to deal with a horizontal scrollbar showing up inappropriately
         html.writeln("<table id='headerHolder' cellspacing='0' cellpadding='0'><tr><td>");
         html.writeln("<div id='header'>");
@@ -161,10 +160,10 @@ public class HtmlMultipleSchemasIndexPage extends HtmlFormatter {
     }
 
     @Override
-    protected void writeFooter(LineWriter html) throws IOException {
+    protected void writeFooter(RenderContext context, LineWriter html) throws IOException {
         html.writeln("</tbody>");
         html.writeln("</table>");
-        super.writeFooter(html);
+        super.writeFooter(context, html);
     }
 
     /**
@@ -24,7 +24,6 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import net.sourceforge.schemaspy.Config;
-import net.sourceforge.schemaspy.model.Database;
 import net.sourceforge.schemaspy.model.Table;
 import net.sourceforge.schemaspy.util.Dot;
 import net.sourceforge.schemaspy.util.LineWriter;
@@ -52,7 +51,7 @@ public class HtmlOrphansPage extends HtmlDiagramFormatter {
         return instance;
     }
 
-    public boolean write(Database db, List<Table> orphanTables, File diagramDir, LineWriter html) throws IOException {
+    public boolean write(RenderContext context, List<Table> orphanTables, File diagramDir, LineWriter html) throws IOException {
         Dot dot = getDot();
         if (dot == null)
             return false;
@@ -65,7 +64,7 @@ public class HtmlOrphansPage extends HtmlDiagramFormatter {
             }
         }
 
-        writeHeader(db, "Utility Tables", !orphansWithImpliedRelationships.isEmpty(), html);
+        writeHeader(context, "Utility Tables", !orphansWithImpliedRelationships.isEmpty(), html);
 
         html.writeln("<a name='diagram'>");
         try {
@@ -78,7 +77,7 @@ public class HtmlOrphansPage extends HtmlDiagramFormatter {
                 File imgFile = new File(diagramDir, dotBaseFilespec + ".1degree." + dot.getFormat());
 
                 LineWriter dotOut = new LineWriter(dotFile, Config.DOT_CHARSET);
-                DotFormatter.getInstance().writeOrphan(table, dotOut);
+                DotFormatter.getInstance().writeOrphan(context, table, dotOut);
                 dotOut.close();
                 try {
                     maps.append(dot.generateDiagram(dotFile, imgFile));
@@ -98,18 +97,18 @@ public class HtmlOrphansPage extends HtmlDiagramFormatter {
             return true;
         } finally {
             html.writeln("</a>");
-            writeFooter(html);
+            writeFooter(context, html);
         }
     }
 
-    private void writeHeader(Database db, String title, boolean hasImpliedRelationships, LineWriter html) throws IOException {
-        writeHeader(db, null, title, html);
+    private void writeHeader(RenderContext context, String title, boolean hasImpliedRelationships, LineWriter html) throws IOException {
+        writeHeader(context, null, title, html);
         html.writeln("<table class='container' width='100%'>");
         html.writeln("<tr><td class='container'>");
-        writeGeneratedOn(db.getConnectTime(), html);
+        writeGeneratedOn(context.getDatabase().getConnectTime(), html);
         html.writeln("</td>");
         html.writeln("<td class='container' align='right' valign='top' rowspan='2'>");
-        writeLegend(false, html);
+        writeLegend(context, false, html);
         html.writeln("</td></tr>");
         html.writeln("<tr><td class='container' align='left' valign='top'>");
         if (hasImpliedRelationships) {
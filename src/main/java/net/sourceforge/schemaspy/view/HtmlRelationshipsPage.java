@@ -22,7 +22,6 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Set;
 
-import net.sourceforge.schemaspy.model.Database;
 import net.sourceforge.schemaspy.model.ProgressListener;
 import net.sourceforge.schemaspy.model.TableColumn;
 import net.sourceforge.schemaspy.util.Dot;
@@ -51,16 +50,16 @@ public class HtmlRelationshipsPage extends HtmlDiagramFormatter {
         return instance;
     }
 
-    public boolean write(Database db, File diagramDir, String dotBaseFilespec, boolean hasRealRelationships, boolean hasImpliedRelationships,
+    public boolean write(RenderContext context, File diagramDir, String dotBaseFilespec, boolean hasRealRelationships, boolean hasImpliedRelationships,
     					Set<TableColumn> excludedColumns, ProgressListener listener, LineWriter html) {
         try {
             Dot dot = getDot();
             if (dot == null) {
-                writeHeader(db, null, "All Relationships", html);
+                writeHeader(context, null, "All Relationships", html);
                 html.writeln("<div class='content'>");
                 writeInvalidGraphvizInstallation(html);
                 html.writeln("</div>");
-                writeFooter(html);
+                writeFooter(context, html);
                 return false;
             }
 
@@ -73,7 +72,7 @@ public class HtmlRelationshipsPage extends HtmlDiagramFormatter {
             File largeImpliedDotFile = new File(diagramDir, dotBaseFilespec + ".implied.large.dot");
             File largeImpliedDiagramFile = new File(diagramDir, dotBaseFilespec + ".implied.large." + dot.getFormat());
 
-            writeHeader(db, "All Relationships", hasRealRelationships, hasImpliedRelationships, html);
+            writeHeader(context, "All Relationships", hasRealRelationships, hasImpliedRelationships, html);
             html.writeln("<table width=\"100%\"><tr><td class=\"container\">");
 
             if (hasRealRelationships) {
@@ -119,7 +118,7 @@ public class HtmlRelationshipsPage extends HtmlDiagramFormatter {
             html.writeln("</td></tr></table>");
             writeExcludedColumns(excludedColumns, null, html);
 
-            writeFooter(html);
+            writeFooter(context, html);
             return true;
         } catch (Dot.DotFailure dotFailure) {
             System.err.println(dotFailure);
@@ -130,14 +129,14 @@ public class HtmlRelationshipsPage extends HtmlDiagramFormatter {
         }
     }
 
-    private void writeHeader(Database db, String title, boolean hasRealRelationships, boolean hasImpliedRelationships, LineWriter html) throws IOException {
-        writeHeader(db, null, title, html);
+    private void writeHeader(RenderContext context, String title, boolean hasRealRelationships, boolean hasImpliedRelationships, LineWriter html) throws IOException {
+        writeHeader(context, null, title, html);
         html.writeln("<table class='container' width='100%'>");
         html.writeln("<tr><td class='container'>");
-        writeGeneratedOn(db.getConnectTime(), html);
+        writeGeneratedOn(context.getDatabase().getConnectTime(), html);
         html.writeln("</td>");
         html.writeln("<td class='container' align='right' valign='top' rowspan='2'>");
-        writeLegend(false, html);
+        writeLegend(context, false, html);
         html.writeln("</td></tr>");
         if (!hasRealRelationships) {
             html.writeln("<tr><td class='container' align='left' valign='top'>");
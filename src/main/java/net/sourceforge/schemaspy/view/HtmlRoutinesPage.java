@@ -52,27 +52,28 @@ public class HtmlRoutinesPage extends HtmlFormatter {
         return instance;
     }
 
-    public void write(Database db, LineWriter html) throws IOException {
-        Collection<Routine> routines = new TreeSet<Routine>(db.getRoutines());
+    public void write(RenderContext context, LineWriter html) throws IOException {
+        Collection<Routine> routines = new TreeSet<Routine>(context.getDatabase().getRoutines());
 
-        writeHeader(db, routines, html);
+        writeHeader(context, routines, html);
 
         for (Routine routine : routines) {
             write(routine, html);
         }
 
-        writeFooter(html);
+        writeFooter(context, html);
     }
 
-    private void writeHeader(Database db, Collection<Routine> routines, LineWriter html) throws IOException {
-        writeHeader(db, null, "Procedures and Functions", html);
+    private void writeHeader(RenderContext context, Collection<Routine> routines, LineWriter html) throws IOException {
+        Database db = context.getDatabase();
+        writeHeader(context, null, "Procedures and Functions", html);
 
         html.writeln("<table width='100%'>");
         html.writeln(" <tr>");
         html.write("  <td class='container'>");
         writeGeneratedOn(db.getConnectTime(), html);
         html.writeln("  </td>");
-        if (sourceForgeLogoEnabled())
+        if (sourceForgeLogoEnabled(context))
             html.writeln("  <td class='container' align='right' valign='top' colspan='2'><a href='http://sourceforge.net' target='_blank'><img src='http://sourceforge.net/sflogo.php?group_id=137197&amp;type=1' alt='SourceForge.net' border='0' height='31' width='88'></a></td>");
         html.writeln(" </tr>");
         html.writeln(" <tr>");
@@ -162,9 +163,9 @@ public class HtmlRoutinesPage extends HtmlFormatter {
 
 
     @Override
-    protected void writeFooter(LineWriter html) throws IOException {
+    protected void writeFooter(RenderContext context, LineWriter html) throws IOException {
         html.writeln("</td></tr></table>");
-        super.writeFooter(html);
+        super.writeFooter(context, html);
     }
 
     @Override
@@ -20,6 +20,7 @@ package net.sourceforge.schemaspy.view;
 
 import java.io.File;
 import java.io.IOException;
+import net.sourceforge.schemaspy.Config;
 import net.sourceforge.schemaspy.model.Table;
 import net.sourceforge.schemaspy.util.Dot;
 import net.sourceforge.schemaspy.util.LineWriter;
@@ -34,7 +35,7 @@ public class HtmlTableDiagrammer extends HtmlDiagramFormatter {
         return instance;
     }
 
-    public boolean write(Table table, File diagramDir, LineWriter html) {
+    public boolean write(RenderContext context, Table table, TableNeighborhoods neighborhoods, WriteStats stats, File diagramDir, LineWriter html) {
         try {
             Dot dot = getDot();
             if (dot == null)
@@ -47,10 +48,50 @@ public class HtmlTableDiagrammer extends HtmlDiagramFormatter {
             File impliedDotFile = new File(diagramDir, table.getName() + ".implied2degrees.dot");
             File impliedDiagramFile = new File(diagramDir, table.getName() + ".implied2degrees." + dot.getFormat());
 
-            String map = dot.generateDiagram(oneDegreeDotFile, oneDegreeDiagramFile);
+            String map;
+            try {
+                map = dot.generateDiagram(oneDegreeDotFile, oneDegreeDiagramFile);
+            } catch (Dot.DotTimeout timedOut) {
+                // the table's columns (and those of its relatives) are too much for dot
+                // so fall back to just their names. the bigger diagrams won't fare any better.
+                System.err.println(timedOut);
+                LineWriter dotOut = new LineWriter(oneDegreeDotFile, Config.DOT_CHARSET);
+                DotFormatter.getInstance().writeCompactRelationships(context, table, neighborhoods, new WriteStats(stats), dotOut);
+                dotOut.close();
+                map = dot.generateDiagram(oneDegreeDotFile, oneDegreeDiagramFile);
+                impliedDotFile.delete();
+                twoDegreesDotFile.delete();
+            }
+            String impliedMap = null;
+            String twoDegreesMap = null;
 
-            html.write("<br><form action='get'><b>Close relationships");
+            // the bigger diagrams of tables with lots of relatives can take dot forever,
+            // so if they time out we make do with the one degree diagram
+            if (impliedDotFile.exists()) {
+                try {
+                    impliedMap = dot.generateDiagram(impliedDotFile, impliedDiagramFile);
+                } catch (Dot.DotTimeout timedOut) {
+                    System.err.println(timedOut);
+                    impliedDotFile.delete();
+                    impliedDiagramFile.delete();
+                }
+            } else {
+                impliedDiagramFile.delete();
+            }
             if (twoDegreesDotFile.exists()) {
+                try {
+                    twoDegreesMap = dot.generateDiagram(twoDegreesDotFile, twoDegreesDiagramFile);
+                } catch (Dot.DotTimeout timedOut) {
+                    System.err.println(timedOut);
+                    twoDegreesDotFile.delete();
+                    twoDegreesDiagramFile.delete();
+                }
+            } else {
+                twoDegreesDiagramFile.delete();
+            }
+
+            html.write("<br><form action='get'><b>Close relationships");
+            if (twoDegreesMap != null) {
                 html.writeln("</b><span class='degrees' id='degrees' title='Detail diminishes with increased separation from " + table.getName() + "'>");
                 html.write("&nbsp;within <label for='oneDegree'><input type='radio' name='degrees' id='oneDegree' checked>one</label>");
                 html.write("  <label for='twoDegrees'><input type='radio' name='degrees' id='twoDegrees'>two degrees</label> of separation");
@@ -63,19 +104,13 @@ public class HtmlTableDiagrammer extends HtmlDiagramFormatter {
             map = null;
             html.writeln("  <a name='diagram'><img id='oneDegreeImg' src='../diagrams/" + urlEncode(oneDegreeDiagramFile.getName()) + "' usemap='#oneDegreeRelationshipsDiagram' class='diagram' border='0' alt='' align='left'></a>");
 
-            if (impliedDotFile.exists()) {
-                html.writeln(dot.generateDiagram(impliedDotFile, impliedDiagramFile));
+            if (impliedMap != null) {
+                html.writeln(impliedMap);
                 html.writeln("  <a name='diagram'><img id='impliedTwoDegreesImg' src='../diagrams/" + urlEncode(impliedDiagramFile.getName()) + "' usemap='#impliedTwoDegreesRelationshipsDiagram' class='diagram' border='0' alt='' align='left'></a>");
-            } else {
-                impliedDotFile.delete();
-                impliedDiagramFile.delete();
             }
-            if (twoDegreesDotFile.exists()) {
-                html.writeln(dot.generateDiagram(twoDegreesDotFile, twoDegreesDiagramFile));
+            if (twoDegreesMap != null) {
+                html.writeln(twoDegreesMap);
                 html.writeln("  <a name='diagram'><img id='twoDegreesImg' src='../diagrams/" + urlEncode(twoDegreesDiagramFile.getName()) + "' usemap='#twoDegreesRelationshipsDiagram' class='diagram' border='0' alt='' align='left'></a>");
-            } else {
-                twoDegreesDotFile.delete();
-                twoDegreesDiagramFile.delete();
             }
         } catch (Dot.DotFailure dotFailure) {
             System.err.println(dotFailure);
@@ -39,6 +39,7 @@ import net.sourceforge.schemaspy.util.CaseInsensitiveMap;
 import net.sourceforge.schemaspy.util.Dot;
 import net.sourceforge.schemaspy.util.HtmlEncoder;
 import net.sourceforge.schemaspy.util.LineWriter;
+import net.sourceforge.schemaspy.util.PipelineEvents;
 
 /**
  * The page that contains the details of a specific table or view
@@ -47,7 +48,6 @@ import net.sourceforge.schemaspy.util.LineWriter;
  */
 public class HtmlTablePage extends HtmlFormatter {
     private static final HtmlTablePage instance = new HtmlTablePage();
-    private int columnCounter = 0;
 
     private final Map<String, String> defaultValueAliases = new HashMap<String, String>();
     {
@@ -73,25 +73,25 @@ public class HtmlTablePage extends HtmlFormatter {
         return instance;
     }
 
-    public WriteStats write(Database db, Table table, File outputDir, WriteStats stats, LineWriter out) throws IOException {
+    public WriteStats write(RenderContext context, Table table, TableNeighborhoods neighborhoods, File outputDir, WriteStats stats, LineWriter out) throws IOException {
         File diagramsDir = new File(outputDir, "diagrams");
-        boolean hasImplied = generateDots(table, diagramsDir, stats);
+        boolean hasImplied = generateDots(context, table, neighborhoods, diagramsDir, stats);
 
-        writeHeader(db, table, null, out);
+        writeHeader(context, table, null, out);
         out.writeln("<table width='100%' border='0'>");
         out.writeln("<tr valign='top'><td class='container' align='left' valign='top'>");
         writeHeader(table, hasImplied, out);
         out.writeln("</td><td class='container' rowspan='2' align='right' valign='top'>");
-        writeLegend(true, out);
+        writeLegend(context, true, out);
         out.writeln("</td><tr valign='top'><td class='container' align='left' valign='top'>");
-        writeMainTable(table, out);
-        writeNumRows(db, table, out);
+        writeMainTable(context, table, out);
+        writeNumRows(context, table, out);
         out.writeln("</td></tr></table>");
         writeCheckConstraints(table, out);
         writeIndexes(table, out);
-        writeView(table, db, out);
-        writeDiagram(table, stats, diagramsDir, out);
-        writeFooter(out);
+        writeView(context, table, out);
+        writeDiagram(context, table, neighborhoods, stats, diagramsDir, out);
+        writeFooter(context, out);
 
         return stats;
     }
@@ -121,8 +121,8 @@ public class HtmlTablePage extends HtmlFormatter {
         html.writeln("</form>");
     }
 
-    public void writeMainTable(Table table, LineWriter out) throws IOException {
-        HtmlColumnsPage.getInstance().writeMainTableHeader(table.getId() != null, null, out);
+    public void writeMainTable(RenderContext context, Table table, LineWriter out) throws IOException {
+        HtmlColumnsPage.getInstance().writeMainTableHeader(context, table.getId() != null, null, out);
 
         out.writeln("<tbody valign='top'>");
         Set<TableColumn> primaries = new HashSet<TableColumn>(table.getPrimaryColumns());
@@ -132,15 +132,16 @@ public class HtmlTablePage extends HtmlFormatter {
         }
 
         boolean showIds = table.getId() != null;
+        boolean even = true;
         for (TableColumn column : table.getColumns()) {
-            writeColumn(column, null, primaries, indexedColumns, false, showIds, out);
+            writeColumn(context, column, null, primaries, indexedColumns, false, showIds, even, out);
+            even = !even;
         }
         out.writeln("</tbody>");
         out.writeln("</table>");
     }
 
-    public void writeColumn(TableColumn column, String tableName, Set<TableColumn> primaries, Set<TableColumn> indexedColumns, boolean slim, boolean showIds, LineWriter out) throws IOException {
-        boolean even = columnCounter++ % 2 == 0;
+    public void writeColumn(RenderContext context, TableColumn column, String tableName, Set<TableColumn> primaries, Set<TableColumn> indexedColumns, boolean slim, boolean showIds, boolean even, LineWriter out) throws IOException {
         if (even)
             out.writeln("<tr class='even'>");
         else
@@ -188,7 +189,7 @@ public class HtmlTablePage extends HtmlFormatter {
 
         Object defaultValue = column.getDefaultValue();
         if (defaultValue != null || column.isNullable()) {
-            Object alias = defaultValueAliases.get(String.valueOf(defaultValue).trim());
+            Object alias = getDefaultValueAlias(defaultValue);
             if (alias != null) {
                 out.write(" <td class='detail' align='right' title='");
                 out.write(String.valueOf(defaultValue));
@@ -206,16 +207,16 @@ public class HtmlTablePage extends HtmlFormatter {
         if (!slim) {
             out.write(" <td class='detail'>");
             String path = tableName == null ? "" : "tables/";
-            writeRelatives(column, false, path, even, out);
+            writeRelatives(context, column, false, path, even, out);
             out.writeln("</td>");
             out.write(" <td class='detail'>");
-            writeRelatives(column, true, path, even, out);
+            writeRelatives(context, column, true, path, even, out);
             out.writeln(" </td>");
         }
         out.write(" <td class='comment detail'>");
         String comments = column.getComments();
         if (comments != null) {
-            if (encodeComments)
+            if (context.isEncodeCommentsEnabled())
                 for (int i = 0; i < comments.length(); ++i)
                     out.write(HtmlEncoder.encodeToken(comments.charAt(i)));
             else
@@ -225,15 +226,27 @@ public class HtmlTablePage extends HtmlFormatter {
         out.writeln("</tr>");
     }
 
+    /**
+     * Returns the more readable form of the specified default value
+     * (e.g. <code>now</code> for <code>SYSDATE</code>) or <code>null</code>
+     * if it doesn't have one.
+     *
+     * @param defaultValue
+     * @return
+     */
+    String getDefaultValueAlias(Object defaultValue) {
+        return defaultValue == null ? null : defaultValueAliases.get(String.valueOf(defaultValue).trim());
+    }
+
     /**
      * Write our relatives
-     * @param tableName String
+     * @param context RenderContext
      * @param baseRelative TableColumn
      * @param dumpParents boolean
      * @param out LineWriter
      * @throws IOException
      */
-    private void writeRelatives(TableColumn baseRelative, boolean dumpParents, String path, boolean even, LineWriter out) throws IOException {
+    private void writeRelatives(RenderContext context, TableColumn baseRelative, boolean dumpParents, String path, boolean even, LineWriter out) throws IOException {
         Set<TableColumn> columns = dumpParents ? baseRelative.getParents() : baseRelative.getChildren();
         final int numColumns = columns.size();
         final String evenOdd = (even ? "even" : "odd");
@@ -254,7 +267,7 @@ public class HtmlTablePage extends HtmlFormatter {
             out.write("    <td class='relatedTable detail' title=\"");
             out.write(constraint.toString());
             out.write("\">");
-            if (columnTable.isRemote() && !Config.getInstance().isOneOfMultipleSchemas()) {
+            if (columnTable.isRemote() && !context.isOneOfMultipleSchemas()) {
                 out.write(columnTable.getContainer());
                 out.write('.');
                 out.write(columnTableName);
@@ -298,14 +311,14 @@ public class HtmlTablePage extends HtmlFormatter {
         }
     }
 
-    private void writeNumRows(Database db, Table table, LineWriter out) throws IOException {
+    private void writeNumRows(RenderContext context, Table table, LineWriter out) throws IOException {
         out.write("<p title='" + table.getColumns().size() + " columns'>");
-        if (displayNumRows && table.getNumRows() >= 0) {
+        if (context.isNumRowsEnabled() && table.getNumRows() >= 0) {
             out.write("Table contained " + NumberFormat.getIntegerInstance().format(table.getNumRows()) + " rows at ");
         } else {
             out.write("Analyzed at ");
         }
-        out.write(db.getConnectTime());
+        out.write(context.getDatabase().getConnectTime());
         out.writeln("<p/>");
     }
 
@@ -405,9 +418,10 @@ public class HtmlTablePage extends HtmlFormatter {
         }
     }
 
-    private void writeView(Table table, Database db, LineWriter out) throws IOException {
+    private void writeView(RenderContext context, Table table, LineWriter out) throws IOException {
         String sql;
         if (table.isView() && (sql = table.getViewSql()) != null) {
+            Database db = context.getDatabase();
             Map<String, Table> tables = new CaseInsensitiveMap<Table>();
 
             for (Table t : db.getTables())
@@ -416,7 +430,7 @@ public class HtmlTablePage extends HtmlFormatter {
                 tables.put(v.getName(), v);
 
             Set<Table> references = new TreeSet<Table>();
-            String formatted = Config.getInstance().getSqlFormatter().format(sql, db, references);
+            String formatted = context.getSqlFormatter().format(sql, db, references);
 
             out.writeln("<div class='indent spacer'>");
             out.writeln("  <b>View Definition:</b><br/>");
@@ -452,13 +466,14 @@ public class HtmlTablePage extends HtmlFormatter {
      * Also generates a <TABLENAME>.implied2degrees.dot if the table has implied relatives within
      * two degrees of separation.
      *
+     * @param context RenderContext
      * @param table Table
      * @param diagramsDir File
      * @throws IOException
      * @return boolean <code>true</code> if the table has implied relatives within two
      *                 degrees of separation.
      */
-    private boolean generateDots(Table table, File diagramDir, WriteStats stats) throws IOException {
+    private boolean generateDots(RenderContext context, Table table, TableNeighborhoods neighborhoods, File diagramDir, WriteStats stats) throws IOException {
         Dot dot = Dot.getInstance();
         String extension = dot == null ? "png" : dot.getFormat();
 
@@ -482,24 +497,31 @@ public class HtmlTablePage extends HtmlFormatter {
             Set<ForeignKeyConstraint> impliedConstraints;
 
             DotFormatter formatter = DotFormatter.getInstance();
+            Object event = PipelineEvents.begin(PipelineEvents.Stage.DOT_GENERATED);
             LineWriter dotOut = new LineWriter(oneDegreeDotFile, Config.DOT_CHARSET);
             WriteStats oneStats = new WriteStats(stats);
-            formatter.writeRealRelationships(table, false, oneStats, dotOut);
+            formatter.writeRealRelationships(context, table, false, neighborhoods, oneStats, dotOut);
             dotOut.close();
+            PipelineEvents.dotGenerated(event, table.getName(), oneDegreeDotFile, oneStats.getNumTablesWritten() + oneStats.getNumViewsWritten());
 
+            event = PipelineEvents.begin(PipelineEvents.Stage.DOT_GENERATED);
             dotOut = new LineWriter(twoDegreesDotFile, Config.DOT_CHARSET);
             WriteStats twoStats = new WriteStats(stats);
-            impliedConstraints = formatter.writeRealRelationships(table, true, twoStats, dotOut);
+            impliedConstraints = formatter.writeRealRelationships(context, table, true, neighborhoods, twoStats, dotOut);
             dotOut.close();
+            PipelineEvents.dotGenerated(event, table.getName(), twoDegreesDotFile, twoStats.getNumTablesWritten() + twoStats.getNumViewsWritten());
 
-            if (oneStats.getNumTablesWritten() + oneStats.getNumViewsWritten() == twoStats.getNumTablesWritten() + twoStats.getNumViewsWritten()) {
+            if (oneStats.getNumTablesWritten() + oneStats.getNumViewsWritten() == twoStats.getNumTablesWritten() + twoStats.getNumViewsWritten() + twoStats.getNumTablesCollapsed()) {
                 twoDegreesDotFile.delete(); // no different than before, so don't show it
             }
 
             if (!impliedConstraints.isEmpty()) {
+                event = PipelineEvents.begin(PipelineEvents.Stage.DOT_GENERATED);
                 dotOut = new LineWriter(impliedDotFile, Config.DOT_CHARSET);
-                formatter.writeAllRelationships(table, true, stats, dotOut);
+                WriteStats impliedStats = new WriteStats(stats);
+                formatter.writeAllRelationships(context, table, true, neighborhoods, impliedStats, dotOut);
                 dotOut.close();
+                PipelineEvents.dotGenerated(event, table.getName(), impliedDotFile, impliedStats.getNumTablesWritten() + impliedStats.getNumViewsWritten());
                 return true;
             }
         }
@@ -507,10 +529,10 @@ public class HtmlTablePage extends HtmlFormatter {
         return false;
     }
 
-    private void writeDiagram(Table table, WriteStats stats, File diagramsDir, LineWriter html) throws IOException {
+    private void writeDiagram(RenderContext context, Table table, TableNeighborhoods neighborhoods, WriteStats stats, File diagramsDir, LineWriter html) throws IOException {
         if (table.getMaxChildren() + table.getMaxParents() > 0) {
             html.writeln("<table width='100%' border='0'><tr><td class='container'>");
-            if (HtmlTableDiagrammer.getInstance().write(table, diagramsDir, html)) {
+            if (HtmlTableDiagrammer.getInstance().write(context, table, neighborhoods, stats, diagramsDir, html)) {
                 html.writeln("</td></tr></table>");
                 writeExcludedColumns(stats.getExcludedColumns(), table, html);
             } else {
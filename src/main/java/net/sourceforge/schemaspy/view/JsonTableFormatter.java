@@ -0,0 +1,309 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.sourceforge.net).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.sourceforge.schemaspy.view;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import net.sourceforge.schemaspy.Config;
+import net.sourceforge.schemaspy.model.Database;
+import net.sourceforge.schemaspy.model.ForeignKeyConstraint;
+import net.sourceforge.schemaspy.model.ModelDiff;
+import net.sourceforge.schemaspy.model.ModelDiff.Change;
+import net.sourceforge.schemaspy.model.Routine;
+import net.sourceforge.schemaspy.model.RoutineParameter;
+import net.sourceforge.schemaspy.model.Table;
+import net.sourceforge.schemaspy.model.TableColumn;
+import net.sourceforge.schemaspy.model.TableIndex;
+import net.sourceforge.schemaspy.util.JsonWriter;
+import net.sourceforge.schemaspy.util.LineWriter;
+
+/**
+ * Formats the database model into JSON.
+ * <p>
+ * The JSON is streamed directly to its destination as it's generated.
+ * The tables can optionally be written to individual files (one per table)
+ * so consumers can load them lazily, in which case the main document
+ * only refers to them.
+ * </p>
+ */
+public class JsonTableFormatter {
+    private static final JsonTableFormatter instance = new JsonTableFormatter();
+
+    /**
+     * Singleton...don't allow instantiation
+     */
+    private JsonTableFormatter() {}
+
+    /**
+     * Singleton accessor
+     *
+     * @return
+     */
+    public static JsonTableFormatter getInstance() {
+        return instance;
+    }
+
+    /**
+     * Write the JSON representation of the database and the specified tables
+     *
+     * @param db
+     * @param tables
+     * @param tablesDir if not <code>null</code> then each table is written
+     *          to its own file in this directory
+     * @param out
+     * @throws IOException
+     */
+    public void write(Database db, Collection<Table> tables, File tablesDir, LineWriter out) throws IOException {
+        Set<Table> byName = new TreeSet<Table>(new Comparator<Table>() {
+            public int compare(Table table1, Table table2) {
+                return table1.getName().compareToIgnoreCase(table2.getName());
+            }
+        });
+        byName.addAll(tables);
+
+        JsonWriter json = new JsonWriter(out);
+        json.beginObject();
+        json.property("name", db.getName());
+        json.property("catalog", db.getCatalog());
+        json.property("schema", db.getSchema());
+        json.property("type", db.getDatabaseProduct());
+        json.property("description", db.getDescription());
+
+        json.name("tables").beginArray();
+        for (Table table : byName) {
+            if (tablesDir == null) {
+                writeTable(json, table);
+            } else {
+                String filename = table.getName() + ".json";
+                json.beginObject();
+                json.property("name", table.getName());
+                json.property("file", tablesDir.getName() + '/' + filename);
+                json.endObject();
+
+                LineWriter tableOut = new LineWriter(new File(tablesDir, filename), 16 * 1024, Config.DOT_CHARSET);
+                JsonWriter tableJson = new JsonWriter(tableOut);
+                writeTable(tableJson, table);
+                tableOut.writeln();
+                tableOut.close();
+            }
+        }
+        json.endArray();
+
+        json.name("routines").beginArray();
+        for (Routine routine : new TreeSet<Routine>(db.getRoutines()))
+            writeRoutine(json, routine);
+        json.endArray();
+
+        json.endObject();
+        out.writeln();
+    }
+
+    /**
+     * Write the differences between two snapshots of the database
+     *
+     * @param diff
+     * @param out
+     * @throws IOException
+     */
+    public void write(ModelDiff diff, LineWriter out) throws IOException {
+        JsonWriter json = new JsonWriter(out);
+        json.beginObject();
+        json.name("before");
+        writeSnapshot(json, diff.getBefore());
+        json.name("after");
+        writeSnapshot(json, diff.getAfter());
+
+        json.name("changes").beginArray();
+        for (Change change : diff.getChanges()) {
+            json.beginObject();
+            json.property("change", change.getType().toString().toLowerCase());
+            json.property("type", change.getObjectType());
+            json.property("table", change.getTable());
+            json.property("name", change.getName());
+            json.property("before", change.getBefore());
+            json.property("after", change.getAfter());
+            json.endObject();
+        }
+        json.endArray();
+
+        json.endObject();
+        out.writeln();
+    }
+
+    private void writeSnapshot(JsonWriter json, Database db) throws IOException {
+        json.beginObject();
+        json.property("name", db.getName());
+        json.property("catalog", db.getCatalog());
+        json.property("schema", db.getSchema());
+        json.property("generated", db.getConnectTime());
+        json.endObject();
+    }
+
+    /**
+     * Write the details of a single table
+     *
+     * @param json
+     * @param table
+     * @throws IOException
+     */
+    private void writeTable(JsonWriter json, Table table) throws IOException {
+        json.beginObject();
+        json.property("name", table.getName());
+        json.property("catalog", table.getCatalog());
+        json.property("schema", table.getSchema());
+        json.property("type", table.isView() ? "VIEW" : "TABLE");
+        if (table.isRemote())
+            json.property("remote", true);
+        if (table.isLogical())
+            json.property("logical", true);
+        if (table.getNumRows() >= 0)
+            json.property("numRows", table.getNumRows());
+        json.property("comments", table.getComments());
+        if (table.isView())
+            json.property("viewSql", table.getViewSql());
+
+        json.name("columns").beginArray();
+        for (TableColumn column : table.getColumns())
+            writeColumn(json, column);
+        json.endArray();
+
+        json.name("primaryKey").beginArray();
+        for (TableColumn column : table.getPrimaryColumns())
+            json.value(column.getName());
+        json.endArray();
+
+        json.name("indexes").beginArray();
+        for (TableIndex index : new TreeSet<TableIndex>(table.getIndexes())) // sort primary keys first
+            writeIndex(json, index);
+        json.endArray();
+
+        json.name("foreignKeys").beginArray();
+        for (ForeignKeyConstraint constraint : getForeignKeys(table))
+            writeForeignKey(json, constraint);
+        json.endArray();
+
+        json.name("checkConstraints").beginArray();
+        Map<String, String> checks = table.getCheckConstraints();
+        for (String name : checks.keySet()) {
+            json.beginObject();
+            json.property("name", name);
+            json.property("constraint", checks.get(name));
+            json.endObject();
+        }
+        json.endArray();
+
+        json.endObject();
+    }
+
+    private void writeColumn(JsonWriter json, TableColumn column) throws IOException {
+        json.beginObject();
+        json.property("name", column.getName());
+        json.property("type", column.getTypeName());
+        json.property("size", column.getLength());
+        json.property("digits", column.getDecimalDigits());
+        json.property("nullable", column.isNullable());
+        json.property("autoUpdated", column.isAutoUpdated());
+        json.property("primaryKey", column.isPrimary());
+        if (column.getDefaultValue() != null)
+            json.property("defaultValue", column.getDefaultValue().toString());
+        json.property("comments", column.getComments());
+        json.endObject();
+    }
+
+    private void writeIndex(JsonWriter json, TableIndex index) throws IOException {
+        json.beginObject();
+        json.property("name", index.getName());
+        json.property("type", index.getType());
+        json.property("unique", index.isUnique());
+        json.property("primaryKey", index.isPrimaryKey());
+        json.name("columns").beginArray();
+        for (TableColumn column : index.getColumns()) {
+            json.beginObject();
+            json.property("name", column.getName());
+            json.property("ascending", index.isAscending(column));
+            json.endObject();
+        }
+        json.endArray();
+        json.endObject();
+    }
+
+    private void writeForeignKey(JsonWriter json, ForeignKeyConstraint constraint) throws IOException {
+        Table parent = constraint.getParentTable();
+
+        json.beginObject();
+        json.property("name", constraint.getName());
+        json.property("implied", constraint.isImplied());
+        json.property("parentCatalog", parent.getCatalog());
+        json.property("parentSchema", parent.getSchema());
+        json.property("parentTable", parent.getName());
+        json.name("parentColumns").beginArray();
+        for (TableColumn column : constraint.getParentColumns())
+            json.value(column.getName());
+        json.endArray();
+        json.name("childColumns").beginArray();
+        for (TableColumn column : constraint.getChildColumns())
+            json.value(column.getName());
+        json.endArray();
+        json.property("deleteRule", constraint.getDeleteRuleName());
+        json.endObject();
+    }
+
+    private void writeRoutine(JsonWriter json, Routine routine) throws IOException {
+        json.beginObject();
+        json.property("name", routine.getName());
+        json.property("type", routine.getType());
+        json.property("returnType", routine.getReturnType());
+        json.property("language", routine.getDefinitionLanguage());
+        json.property("dataAccess", routine.getDataAccess());
+        json.property("securityType", routine.getSecurityType());
+        json.property("deterministic", routine.isDeterministic());
+        json.property("comments", routine.getComment());
+        json.name("parameters").beginArray();
+        for (RoutineParameter param : routine.getParameters()) {
+            json.beginObject();
+            json.property("name", param.getName());
+            json.property("type", param.getType());
+            json.property("mode", param.getMode());
+            json.endObject();
+        }
+        json.endArray();
+        json.property("definition", routine.getDefinition());
+        json.endObject();
+    }
+
+    /**
+     * Returns all of the constraints (including implied ones) where the
+     * specified table is the child
+     */
+    private Collection<ForeignKeyConstraint> getForeignKeys(Table table) {
+        Set<ForeignKeyConstraint> constraints = new LinkedHashSet<ForeignKeyConstraint>(table.getForeignKeys());
+
+        for (TableColumn column : table.getColumns()) {
+            for (TableColumn parent : column.getParents())
+                constraints.add(column.getParentConstraint(parent));
+        }
+
+        return constraints;
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.sourceforge.net).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.sourceforge.schemaspy.view;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import net.sourceforge.schemaspy.Config;
+import net.sourceforge.schemaspy.model.Database;
+import net.sourceforge.schemaspy.model.RelationshipGraph;
+
+/**
+ * Everything that the view formatters need to know about a specific render:
+ * the database being rendered and the options it's being rendered with.
+ * <p>
+ * The formatters themselves are stateless singletons, so all per-render
+ * state lives here and is passed through their <code>write()</code> methods.
+ * That lets the pages of a schema be written concurrently and lets several
+ * schemas be rendered in the same JVM without interfering with each other.
+ * </p>
+ * <p>
+ * The options are read from the {@link Config} when the context is created.
+ * Safe for use by multiple threads.
+ * </p>
+ */
+public class RenderContext {
+    private final Config config;
+    private final Database db;
+    private final boolean encodeComments;
+    private final boolean displayNumRows;
+    private final boolean metered;
+    private final boolean logoEnabled;
+    private final boolean rankDirBugEnabled;
+    private final boolean oneOfMultipleSchemas;
+    private final String charset;
+    private final String font;
+    private final int fontSize;
+    private final int maxDiagramTables;
+    private final int maxDiagramRelationships;
+    private final boolean lowMemory;
+    private final List<String> columnDetails;
+    private final boolean clientColumns;
+    private SqlFormatter sqlFormatter;
+    private DotNodeLabels labels;
+
+    /**
+     * @param config the options to render with
+     * @param db the database to render, <code>null</code> for pages that
+     *      span multiple databases
+     */
+    public RenderContext(Config config, Database db) {
+        this.config = config;
+        this.db = db;
+        encodeComments = config.isEncodeCommentsEnabled();
+        displayNumRows = config.isNumRowsEnabled();
+        metered = config.isMeterEnabled();
+        logoEnabled = config.isLogoEnabled();
+        rankDirBugEnabled = config.isRankDirBugEnabled();
+        oneOfMultipleSchemas = config.isOneOfMultipleSchemas();
+        charset = config.getCharset();
+        font = config.getFont();
+        fontSize = config.getFontSize();
+        maxDiagramTables = config.getMaxDiagramTables();
+        maxDiagramRelationships = config.getMaxDiagramRelationships();
+        lowMemory = config.isLowMemoryEnabled();
+        columnDetails = Collections.unmodifiableList(new ArrayList<String>(config.getColumnDetails()));
+        clientColumns = config.isClientColumnsEnabled();
+    }
+
+    public Config getConfig() {
+        return config;
+    }
+
+    public Database getDatabase() {
+        return db;
+    }
+
+    public boolean isEncodeCommentsEnabled() {
+        return encodeComments;
+    }
+
+    public boolean isNumRowsEnabled() {
+        return displayNumRows;
+    }
+
+    public boolean isMeterEnabled() {
+        return metered;
+    }
+
+    public boolean isLogoEnabled() {
+        return logoEnabled;
+    }
+
+    public boolean isRankDirBugEnabled() {
+        return rankDirBugEnabled;
+    }
+
+    public boolean isOneOfMultipleSchemas() {
+        return oneOfMultipleSchemas;
+    }
+
+    public String getCharset() {
+        return charset;
+    }
+
+    public String getFont() {
+        return font;
+    }
+
+    public int getFontSize() {
+        return fontSize;
+    }
+
+    public int getMaxDiagramTables() {
+        return maxDiagramTables;
+    }
+
+    public int getMaxDiagramRelationships() {
+        return maxDiagramRelationships;
+    }
+
+    public List<String> getColumnDetails() {
+        return columnDetails;
+    }
+
+    public boolean isClientColumnsEnabled() {
+        return clientColumns;
+    }
+
+    /**
+     * The formatter is only created if there's SQL to format.
+     *
+     * @return
+     */
+    public synchronized SqlFormatter getSqlFormatter() {
+        if (sqlFormatter == null)
+            sqlFormatter = config.getSqlFormatter();
+        return sqlFormatter;
+    }
+
+    /**
+     * Returns the cache of rendered nodes that's shared by all of the
+     * diagrams drawn from the specified snapshot of relationships
+     *
+     * @param graph
+     * @return
+     */
+    public synchronized DotNodeLabels getLabels(RelationshipGraph graph) {
+        if (labels == null || labels.getGraph() != graph)
+            labels = new DotNodeLabels(graph, !lowMemory);
+        return labels;
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.sourceforge.net).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.sourceforge.schemaspy.view;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.sourceforge.schemaspy.model.ForeignKeyConstraint;
+import net.sourceforge.schemaspy.model.RelationshipGraph;
+import net.sourceforge.schemaspy.model.Table;
+import net.sourceforge.schemaspy.model.TableColumn;
+import net.sourceforge.schemaspy.util.WorkerPool;
+
+/**
+ * Precomputed immediate relatives of every table in a {@link RelationshipGraph}.
+ * <p>
+ * The one and two degree diagrams of a table (with and without implied
+ * relationships) are all derived from the immediate relatives of the table
+ * and of its relatives, so they're determined once, up front, for every
+ * table instead of being rediscovered each time a diagram is written.
+ * Two degrees of separation are the union of the relatives' relatives
+ * and aren't stored (they can be huge for hub tables).
+ * </p>
+ */
+public class TableNeighborhoods {
+    private final RelationshipGraph graph;
+    private final Neighborhood[] neighborhoods;
+
+    /**
+     * Determine the neighborhoods of all of the tables in the graph, using
+     * up to <code>maxThreads</code> threads to do it.
+     *
+     * @param graph
+     * @param maxThreads
+     */
+    public TableNeighborhoods(final RelationshipGraph graph, int maxThreads) {
+        this.graph = graph;
+        neighborhoods = new Neighborhood[graph.getNumTables()];
+
+        // one task per thread, each with its own (table-sized) scratch space,
+        // that keep taking the next table until they're all done
+        final AtomicInteger nextTable = new AtomicInteger();
+        int numThreads = Math.max(1, Math.min(maxThreads, neighborhoods.length / 64));
+        List<WorkerPool.Task> tasks = new ArrayList<WorkerPool.Task>(numThreads);
+
+        for (int i = 0; i < numThreads; ++i) {
+            tasks.add(new WorkerPool.Task() {
+                public void run() {
+                    Builder builder = new Builder(graph);
+                    int tableId;
+                    while ((tableId = nextTable.getAndIncrement()) < neighborhoods.length)
+                        neighborhoods[tableId] = builder.build(tableId);
+                }
+            });
+        }
+
+        try {
+            new WorkerPool("TableNeighborhoods", numThreads).run(tasks);
+        } catch (IOException exc) {
+            // building neighborhoods doesn't do any I/O
+            throw new IllegalStateException(exc);
+        }
+    }
+
+    public RelationshipGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Returns the tables that are directly related to <code>table</code>.
+     * Relationships with columns that have been completely excluded from
+     * diagrams are always ignored.
+     * Tables that aren't part of the graph don't have any relatives.
+     *
+     * @param table
+     * @param includeExcluded include relationships with columns that are
+     *          excluded from all but direct relationships
+     * @param includeImplied include implied relationships
+     * @return
+     */
+    public Set<Table> getImmediateRelatives(Table table, boolean includeExcluded, boolean includeImplied) {
+        int tableId = graph.getTableId(table);
+        if (tableId == -1)
+            return new HashSet<Table>();
+
+        int[] relatives = neighborhoods[tableId].relatives[Neighborhood.index(includeExcluded, includeImplied)];
+        Set<Table> tables = new HashSet<Table>(relatives.length * 4 / 3 + 1);
+        for (int relative : relatives)
+            tables.add(graph.getTable(relative));
+        return tables;
+    }
+
+    /**
+     * Returns the implied constraints that {@link #getImmediateRelatives(Table, boolean, boolean)}
+     * ignores when implied relationships aren't included.
+     *
+     * @param table
+     * @param includeExcluded
+     * @return
+     */
+    public Collection<ForeignKeyConstraint> getSkippedImpliedConstraints(Table table, boolean includeExcluded) {
+        int tableId = graph.getTableId(table);
+        if (tableId == -1)
+            return Collections.emptyList();
+
+        return Arrays.asList(neighborhoods[tableId].skippedImplied[includeExcluded ? 1 : 0]);
+    }
+
+    /**
+     * Immediate relatives of a single table in each of the possible
+     * include excluded / include implied combinations
+     */
+    private static class Neighborhood {
+        private final int[][] relatives = new int[4][];
+        private final ForeignKeyConstraint[][] skippedImplied = new ForeignKeyConstraint[2][];
+
+        static int index(boolean includeExcluded, boolean includeImplied) {
+            return (includeExcluded ? 2 : 0) + (includeImplied ? 1 : 0);
+        }
+    }
+
+    /**
+     * Builds {@link Neighborhood}s.  Holds the scratch space of a single thread.
+     */
+    private static class Builder {
+        private final RelationshipGraph graph;
+        private final int[][] marks = new int[4][];
+        private final int[][] found = new int[4][];
+        private final int[] numFound = new int[4];
+        private final List<List<ForeignKeyConstraint>> skipped = new ArrayList<List<ForeignKeyConstraint>>();
+
+        Builder(RelationshipGraph graph) {
+            this.graph = graph;
+            for (int i = 0; i < 4; ++i) {
+                marks[i] = new int[graph.getNumTables()];
+                found[i] = new int[16];
+            }
+            skipped.add(new ArrayList<ForeignKeyConstraint>());
+            skipped.add(new ArrayList<ForeignKeyConstraint>());
+        }
+
+        /**
+         * Walk all of the relationships of the specified table once,
+         * classifying each of them for every combination
+         */
+        Neighborhood build(int tableId) {
+            int mark = tableId + 1;
+            for (int i = 0; i < 4; ++i) {
+                numFound[i] = 0;
+                marks[i][tableId] = mark;   // never a relative of itself
+            }
+            skipped.get(0).clear();
+            skipped.get(1).clear();
+
+            for (int column = graph.firstColumn(tableId); column < graph.endColumn(tableId); ++column) {
+                if (graph.isAllExcluded(column))
+                    continue;
+
+                for (int edge = graph.firstChildEdge(column); edge < graph.endChildEdge(column); ++edge) {
+                    int child = graph.getChild(edge);
+                    if (!graph.isAllExcluded(child))
+                        add(mark, column, child, graph.isChildImplied(edge), false);
+                }
+
+                for (int edge = graph.firstParentEdge(column); edge < graph.endParentEdge(column); ++edge) {
+                    int parent = graph.getParent(edge);
+                    if (!graph.isAllExcluded(parent))
+                        add(mark, column, parent, graph.isParentImplied(edge), true);
+                }
+            }
+
+            Neighborhood neighborhood = new Neighborhood();
+            for (int i = 0; i < 4; ++i)
+                neighborhood.relatives[i] = Arrays.copyOf(found[i], numFound[i]);
+            for (int i = 0; i < 2; ++i)
+                neighborhood.skippedImplied[i] = skipped.get(i).toArray(new ForeignKeyConstraint[skipped.get(i).size()]);
+            return neighborhood;
+        }
+
+        private void add(int mark, int column, int related, boolean implied, boolean relatedIsParent) {
+            boolean excluded = graph.isExcluded(column) || graph.isExcluded(related);
+            int relatedTable = graph.getTableIdOf(related);
+
+            for (int e = 0; e < 2; ++e) {
+                boolean includeExcluded = e == 1;
+                if (excluded && !includeExcluded)
+                    continue;
+
+                if (implied) {
+                    TableColumn tableColumn = graph.getColumn(column);
+                    TableColumn relatedColumn = graph.getColumn(related);
+                    skipped.get(e).add(relatedIsParent ? tableColumn.getParentConstraint(relatedColumn)
+                                                       : tableColumn.getChildConstraint(relatedColumn));
+                } else {
+                    add(mark, Neighborhood.index(includeExcluded, false), relatedTable);
+                }
+                add(mark, Neighborhood.index(includeExcluded, true), relatedTable);
+            }
+        }
+
+        private void add(int mark, int index, int relatedTable) {
+            if (marks[index][relatedTable] == mark)
+                return;
+            marks[index][relatedTable] = mark;
+
+            if (numFound[index] == found[index].length)
+                found[index] = Arrays.copyOf(found[index], numFound[index] * 2);
+            found[index][numFound[index]++] = relatedTable;
+        }
+    }
+}
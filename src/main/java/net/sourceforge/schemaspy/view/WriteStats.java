@@ -30,6 +30,7 @@ import net.sourceforge.schemaspy.model.TableColumn;
 public class WriteStats {
     private int numTables;
     private int numViews;
+    private int numCollapsed;
     private final Set<TableColumn> excludedColumns;
 
     public WriteStats(Collection<Table> tables) {
@@ -55,6 +56,14 @@ public class WriteStats {
             ++numTables;
     }
 
+    /**
+     * <code>count</code> tables were summarized by a single node
+     * instead of being written individually
+     */
+    public void collapsedTables(int count) {
+        numCollapsed += count;
+    }
+
     public int getNumTablesWritten() {
         return numTables;
     }
@@ -63,6 +72,10 @@ public class WriteStats {
         return numViews;
     }
 
+    public int getNumTablesCollapsed() {
+        return numCollapsed;
+    }
+
     public Set<TableColumn> getExcludedColumns() {
         return excludedColumns;
     }
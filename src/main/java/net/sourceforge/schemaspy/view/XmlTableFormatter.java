@@ -18,8 +18,11 @@
  */
 package net.sourceforge.schemaspy.view;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.LinkedList;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
@@ -28,18 +31,22 @@ import net.sourceforge.schemaspy.model.ForeignKeyConstraint;
 import net.sourceforge.schemaspy.model.Table;
 import net.sourceforge.schemaspy.model.TableColumn;
 import net.sourceforge.schemaspy.model.TableIndex;
-import net.sourceforge.schemaspy.util.DOMUtil;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
+import net.sourceforge.schemaspy.util.LineWriter;
 
 /**
- * Formats {@link Table}s into an XML DOM tree.
+ * Formats {@link Table}s into XML.
+ * <p>
+ * The XML is streamed directly to its destination as it's generated
+ * rather than being assembled in memory first.  Elements are indented
+ * three spaces per level and attributes are written in alphabetical order.
+ * </p>
  *
  * @author John Currier
  */
 public class XmlTableFormatter {
     private static final XmlTableFormatter instance = new XmlTableFormatter();
+    private static final String lineSeparator = System.getProperty("line.separator");
+    private static final char[] indent = "                                                  ".toCharArray();
 
     // valid chars came from http://www.w3.org/TR/REC-xml/#charsets
     // and attempting to match 0x10000-0x10FFFF with the \p Unicode escapes
@@ -62,12 +69,16 @@ public class XmlTableFormatter {
     }
 
     /**
-     * Append the specified tables to the XML node
+     * Write the XML representation of the database and the specified tables
      *
-     * @param schemaNode
+     * @param dbName
+     * @param schema
+     * @param dbType
      * @param tables
+     * @param out
+     * @throws IOException
      */
-    public void appendTables(Element schemaNode, Collection<Table> tables) {
+    public void write(String dbName, String schema, String dbType, Collection<Table> tables, LineWriter out) throws IOException {
         Set<Table> byName = new TreeSet<Table>(new Comparator<Table>() {
             public int compare(Table table1, Table table2) {
                 return table1.getName().compareToIgnoreCase(table2.getName());
@@ -75,198 +86,255 @@ public class XmlTableFormatter {
         });
         byName.addAll(tables);
 
-        Document document = schemaNode.getOwnerDocument();
-        Element tablesNode = document.createElement("tables");
-        schemaNode.appendChild(tablesNode);
-        for (Table table : byName)
-            appendTable(tablesNode, table);
+        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>");
+        XmlWriter xml = new XmlWriter(out);
+        startElement(xml, "database", 0);
+        appendAttribute(xml, "name", dbName);
+        appendAttribute(xml, "schema", schema);
+        appendAttribute(xml, "type", dbType);
+
+        if (byName.isEmpty()) {
+            emptyElement(xml, "tables", 1);
+        } else {
+            startElement(xml, "tables", 1);
+            for (Table table : byName)
+                appendTable(xml, table);
+            endElement(xml, 1);
+        }
+
+        endElement(xml, 0);
+        xml.characters(lineSeparator);
+        out.flush();
     }
 
     /**
-     * Append table details to the XML node
+     * Append table details to the XML stream
      *
-     * @param tablesNode
+     * @param xml
      * @param table
+     * @throws IOException
      */
-    private void appendTable(Element tablesNode, Table table) {
-        Document document = tablesNode.getOwnerDocument();
-        Element tableNode = document.createElement("table");
-        tablesNode.appendChild(tableNode);
+    private void appendTable(XmlWriter xml, Table table) throws IOException {
+        Set<TableIndex> indexes = new TreeSet<TableIndex>(table.getIndexes()); // sort primary keys first
+        boolean empty = table.getColumns().isEmpty() && table.getPrimaryColumns().isEmpty() &&
+                        indexes.isEmpty() && table.getCheckConstraints().isEmpty();
+
+        if (empty)
+            emptyElement(xml, "table", 2);
+        else
+            startElement(xml, "table", 2);
+        appendAttribute(xml, "catalog", table.getCatalog());
         if (table.getId() != null)
-            DOMUtil.appendAttribute(tableNode, "id", String.valueOf(table.getId()));
-        DOMUtil.appendAttribute(tableNode, "catalog", table.getCatalog());
-        DOMUtil.appendAttribute(tableNode, "schema", table.getSchema());
-        DOMUtil.appendAttribute(tableNode, "name", table.getName());
+            appendAttribute(xml, "id", String.valueOf(table.getId()));
+        appendAttribute(xml, "name", table.getName());
         if (table.getNumRows() >= 0)
-            DOMUtil.appendAttribute(tableNode, "numRows", String.valueOf(table.getNumRows()));
-        DOMUtil.appendAttribute(tableNode, "type", table.isView() ? "VIEW" : "TABLE");
-        DOMUtil.appendAttribute(tableNode, "remarks", table.getComments() == null ? "" : table.getComments());
-        appendColumns(tableNode, table);
-        appendPrimaryKeys(tableNode, table);
-        appendIndexes(tableNode, table);
-        appendCheckConstraints(tableNode, table);
-        appendView(tableNode, table);
+            appendAttribute(xml, "numRows", String.valueOf(table.getNumRows()));
+        appendAttribute(xml, "remarks", table.getComments() == null ? "" : table.getComments());
+        appendAttribute(xml, "schema", table.getSchema());
+        appendAttribute(xml, "type", table.isView() ? "VIEW" : "TABLE");
+        appendView(xml, table);
+
+        if (!empty) {
+            appendColumns(xml, table);
+            appendPrimaryKeys(xml, table);
+            appendIndexes(xml, table, indexes);
+            appendCheckConstraints(xml, table);
+            endElement(xml, 2);
+        }
     }
 
     /**
-     * Append all columns in the table to the XML node
+     * Append all columns in the table to the XML stream
      *
-     * @param tableNode
+     * @param xml
      * @param table
+     * @throws IOException
      */
-    private void appendColumns(Element tableNode, Table table) {
+    private void appendColumns(XmlWriter xml, Table table) throws IOException {
         for (TableColumn column : table.getColumns()) {
-            appendColumn(tableNode, column);
+            appendColumn(xml, column);
         }
     }
 
     /**
-     * Append column details to the XML node
+     * Append column details to the XML stream
      *
-     * @param tableNode
+     * @param xml
      * @param column
-     * @return
+     * @throws IOException
      */
-    private Node appendColumn(Node tableNode, TableColumn column) {
-        Document document = tableNode.getOwnerDocument();
-        Node columnNode = document.createElement("column");
-        tableNode.appendChild(columnNode);
-
-        DOMUtil.appendAttribute(columnNode, "id", String.valueOf(column.getId()));
-        DOMUtil.appendAttribute(columnNode, "name", column.getName());
-        DOMUtil.appendAttribute(columnNode, "type", column.getTypeName());
-        DOMUtil.appendAttribute(columnNode, "size", String.valueOf(column.getLength()));
-        DOMUtil.appendAttribute(columnNode, "digits", String.valueOf(column.getDecimalDigits()));
-        DOMUtil.appendAttribute(columnNode, "nullable", String.valueOf(column.isNullable()));
-        DOMUtil.appendAttribute(columnNode, "autoUpdated", String.valueOf(column.isAutoUpdated()));
+    private void appendColumn(XmlWriter xml, TableColumn column) throws IOException {
+        boolean empty = column.getChildren().isEmpty() && column.getParents().isEmpty();
+        if (empty)
+            emptyElement(xml, "column", 3);
+        else
+            startElement(xml, "column", 3);
+
+        appendAttribute(xml, "autoUpdated", String.valueOf(column.isAutoUpdated()));
         if (column.getDefaultValue() != null) {
             String defaultValue = column.getDefaultValue().toString();
             if (isBinary(defaultValue)) {
                 // we're run into a binary default value, convert it to its hex equivalent
                 defaultValue = asBinary(defaultValue);
                 // and indicate that it's been converted
-                DOMUtil.appendAttribute(columnNode, "defaultValueIsBinary", "true");
+                appendAttribute(xml, "defaultValue", defaultValue);
+                appendAttribute(xml, "defaultValueIsBinary", "true");
+            } else {
+                appendAttribute(xml, "defaultValue", defaultValue);
             }
-            DOMUtil.appendAttribute(columnNode, "defaultValue", defaultValue);
         }
-        DOMUtil.appendAttribute(columnNode, "remarks", column.getComments() == null ? "" : column.getComments());
+        appendAttribute(xml, "digits", String.valueOf(column.getDecimalDigits()));
+        appendAttribute(xml, "id", String.valueOf(column.getId()));
+        appendAttribute(xml, "name", column.getName());
+        appendAttribute(xml, "nullable", String.valueOf(column.isNullable()));
+        appendAttribute(xml, "remarks", column.getComments() == null ? "" : column.getComments());
+        appendAttribute(xml, "size", String.valueOf(column.getLength()));
+        appendAttribute(xml, "type", column.getTypeName());
 
         for (TableColumn childColumn : column.getChildren()) {
-            Node childNode = document.createElement("child");
-            Table table = childColumn.getTable();
-            columnNode.appendChild(childNode);
-            ForeignKeyConstraint constraint = column.getChildConstraint(childColumn);
-            DOMUtil.appendAttribute(childNode, "foreignKey", constraint.getName());
-            DOMUtil.appendAttribute(childNode, "catalog", table.getCatalog());
-            DOMUtil.appendAttribute(childNode, "schema", table.getSchema());
-            DOMUtil.appendAttribute(childNode, "table", table.getName());
-            DOMUtil.appendAttribute(childNode, "column", childColumn.getName());
-            DOMUtil.appendAttribute(childNode, "implied", String.valueOf(constraint.isImplied()));
-            DOMUtil.appendAttribute(childNode, "onDeleteCascade", String.valueOf(constraint.isCascadeOnDelete()));
+            appendRelationship(xml, "child", childColumn, column.getChildConstraint(childColumn));
         }
 
         for (TableColumn parentColumn : column.getParents()) {
-            Node parentNode = document.createElement("parent");
-            Table table = parentColumn.getTable();
-            columnNode.appendChild(parentNode);
-            ForeignKeyConstraint constraint = column.getParentConstraint(parentColumn);
-            DOMUtil.appendAttribute(parentNode, "foreignKey", constraint.getName());
-            DOMUtil.appendAttribute(parentNode, "catalog", table.getCatalog());
-            DOMUtil.appendAttribute(parentNode, "schema", table.getSchema());
-            DOMUtil.appendAttribute(parentNode, "table", table.getName());
-            DOMUtil.appendAttribute(parentNode, "column", parentColumn.getName());
-            DOMUtil.appendAttribute(parentNode, "implied", String.valueOf(constraint.isImplied()));
-            DOMUtil.appendAttribute(parentNode, "onDeleteCascade", String.valueOf(constraint.isCascadeOnDelete()));
+            appendRelationship(xml, "parent", parentColumn, column.getParentConstraint(parentColumn));
         }
 
-        return columnNode;
+        if (!empty)
+            endElement(xml, 3);
     }
 
     /**
-     * Append primary key details to the XML node
+     * Append the details of a column's relationship with another column
      *
-     * @param tableNode
+     * @param xml
+     * @param elementName
+     * @param otherColumn
+     * @param constraint
+     * @throws IOException
+     */
+    private void appendRelationship(XmlWriter xml, String elementName, TableColumn otherColumn, ForeignKeyConstraint constraint) throws IOException {
+        Table table = otherColumn.getTable();
+        emptyElement(xml, elementName, 4);
+        appendAttribute(xml, "catalog", table.getCatalog());
+        appendAttribute(xml, "column", otherColumn.getName());
+        appendAttribute(xml, "foreignKey", constraint.getName());
+        appendAttribute(xml, "implied", String.valueOf(constraint.isImplied()));
+        appendAttribute(xml, "onDeleteCascade", String.valueOf(constraint.isCascadeOnDelete()));
+        appendAttribute(xml, "schema", table.getSchema());
+        appendAttribute(xml, "table", table.getName());
+    }
+
+    /**
+     * Append primary key details to the XML stream
+     *
+     * @param xml
      * @param table
+     * @throws IOException
      */
-    private void appendPrimaryKeys(Element tableNode, Table table) {
-        Document document = tableNode.getOwnerDocument();
+    private void appendPrimaryKeys(XmlWriter xml, Table table) throws IOException {
         int index = 1;
 
         for (TableColumn primaryKeyColumn : table.getPrimaryColumns()) {
-            Node primaryKeyNode = document.createElement("primaryKey");
-            tableNode.appendChild(primaryKeyNode);
-
-            DOMUtil.appendAttribute(primaryKeyNode, "column", primaryKeyColumn.getName());
-            DOMUtil.appendAttribute(primaryKeyNode, "sequenceNumberInPK", String.valueOf(index++));
+            emptyElement(xml, "primaryKey", 3);
+            appendAttribute(xml, "column", primaryKeyColumn.getName());
+            appendAttribute(xml, "sequenceNumberInPK", String.valueOf(index++));
         }
     }
 
     /**
-     * Append check constraint details to the XML node
+     * Append check constraint details to the XML stream
      *
-     * @param tableNode
+     * @param xml
      * @param table
+     * @throws IOException
      */
-    private void appendCheckConstraints(Element tableNode, Table table) {
-        Document document = tableNode.getOwnerDocument();
+    private void appendCheckConstraints(XmlWriter xml, Table table) throws IOException {
         Map<String, String> constraints = table.getCheckConstraints();
         if (constraints != null && !constraints.isEmpty()) {
             for (String name : constraints.keySet()) {
-                Node constraintNode = document.createElement("checkConstraint");
-                tableNode.appendChild(constraintNode);
-
-                DOMUtil.appendAttribute(constraintNode, "name", name);
-                DOMUtil.appendAttribute(constraintNode, "constraint", constraints.get(name).toString());
+                emptyElement(xml, "checkConstraint", 3);
+                appendAttribute(xml, "constraint", constraints.get(name).toString());
+                appendAttribute(xml, "name", name);
             }
         }
     }
 
     /**
-     * Append index details to the XML node
+     * Append index details to the XML stream
      *
-     * @param tableNode
+     * @param xml
      * @param table
+     * @param indexes
+     * @throws IOException
      */
-    private void appendIndexes(Node tableNode, Table table) {
+    private void appendIndexes(XmlWriter xml, Table table, Set<TableIndex> indexes) throws IOException {
         boolean showId = table.getId() != null;
-        Set<TableIndex> indexes = table.getIndexes();
-        if (indexes != null && !indexes.isEmpty()) {
-            indexes = new TreeSet<TableIndex>(indexes); // sort primary keys first
-            Document document = tableNode.getOwnerDocument();
-
-            for (TableIndex index : indexes) {
-                Node indexNode = document.createElement("index");
 
-                if (showId)
-                    DOMUtil.appendAttribute(indexNode, "id", String.valueOf(index.getId()));
-                DOMUtil.appendAttribute(indexNode, "name", index.getName());
-                DOMUtil.appendAttribute(indexNode, "unique", String.valueOf(index.isUnique()));
+        for (TableIndex index : indexes) {
+            boolean empty = index.getColumns().isEmpty();
+            if (empty)
+                emptyElement(xml, "index", 3);
+            else
+                startElement(xml, "index", 3);
 
-                for (TableColumn column : index.getColumns()) {
-                    Node columnNode = document.createElement("column");
+            if (showId)
+                appendAttribute(xml, "id", String.valueOf(index.getId()));
+            appendAttribute(xml, "name", index.getName());
+            appendAttribute(xml, "unique", String.valueOf(index.isUnique()));
 
-                    DOMUtil.appendAttribute(columnNode, "name", column.getName());
-                    DOMUtil.appendAttribute(columnNode, "ascending", String.valueOf(index.isAscending(column)));
-                    indexNode.appendChild(columnNode);
-                }
-                tableNode.appendChild(indexNode);
+            for (TableColumn column : index.getColumns()) {
+                emptyElement(xml, "column", 4);
+                appendAttribute(xml, "ascending", String.valueOf(index.isAscending(column)));
+                appendAttribute(xml, "name", column.getName());
             }
+
+            if (!empty)
+                endElement(xml, 3);
         }
     }
 
     /**
-     * Append view SQL to the XML node
+     * Append view SQL to the XML stream
      *
-     * @param tableNode
+     * @param xml
      * @param table
+     * @throws IOException
      */
-    private void appendView(Element tableNode, Table table) {
+    private void appendView(XmlWriter xml, Table table) throws IOException {
         String sql;
         if (table.isView() && (sql = table.getViewSql()) != null) {
-            DOMUtil.appendAttribute(tableNode, "viewSql", sql);
+            appendAttribute(xml, "viewSql", sql);
         }
     }
 
+    private void startElement(XmlWriter xml, String name, int depth) throws IOException {
+        newLine(xml, depth);
+        xml.startElement(name);
+    }
+
+    private void emptyElement(XmlWriter xml, String name, int depth) throws IOException {
+        newLine(xml, depth);
+        xml.emptyElement(name);
+    }
+
+    private void endElement(XmlWriter xml, int depth) throws IOException {
+        newLine(xml, depth);
+        xml.endElement();
+    }
+
+    private void newLine(XmlWriter xml, int depth) throws IOException {
+        xml.characters(lineSeparator);
+        xml.characters(new String(indent, 0, depth * 3));
+    }
+
+    /**
+     * Append the specified attribute if it has a value
+     */
+    private void appendAttribute(XmlWriter xml, String name, String value) throws IOException {
+        if (value != null)
+            xml.attribute(name, value);
+    }
+
     /**
      * Returns <code>true</code> if the string contains binary data
      * (chars that are invalid for XML) per http://www.w3.org/TR/REC-xml/#charsets
@@ -293,4 +361,96 @@ public class XmlTableFormatter {
         }
         return buf.toString();
     }
-}
\ No newline at end of file
+
+    /**
+     * Just enough of a streaming XML writer for this formatter.
+     * <p>
+     * Unlike {@link javax.xml.stream.XMLStreamWriter} it writes line feeds,
+     * carriage returns and tabs in attribute values as character references
+     * (as the DOM serializer that it replaced did).  Parsers normalize those
+     * characters to spaces when they're written as is, so multi-line remarks,
+     * default values and view SQL would otherwise lose their line breaks.
+     * </p>
+     */
+    private static class XmlWriter {
+        private final Writer out;
+        private final LinkedList<String> openElements = new LinkedList<String>();
+        private String tagCloser;  // what ends the current start tag, null if it's been ended
+
+        XmlWriter(Writer out) {
+            this.out = out;
+        }
+
+        void startElement(String name) throws IOException {
+            endTag();
+            out.write('<');
+            out.write(name);
+            openElements.push(name);
+            tagCloser = ">";
+        }
+
+        void emptyElement(String name) throws IOException {
+            endTag();
+            out.write('<');
+            out.write(name);
+            tagCloser = "/>";
+        }
+
+        void endElement() throws IOException {
+            endTag();
+            out.write("</");
+            out.write(openElements.pop());
+            out.write('>');
+        }
+
+        void attribute(String name, String value) throws IOException {
+            out.write(' ');
+            out.write(name);
+            out.write("=\"");
+            out.write(escape(value));
+            out.write('"');
+        }
+
+        /**
+         * Only used for the whitespace between elements, so it's not escaped
+         */
+        void characters(String text) throws IOException {
+            endTag();
+            out.write(text);
+        }
+
+        private void endTag() throws IOException {
+            if (tagCloser != null) {
+                out.write(tagCloser);
+                tagCloser = null;
+            }
+        }
+
+        private static String escape(String value) {
+            StringBuilder buf = null;
+            for (int i = 0; i < value.length(); ++i) {
+                char ch = value.charAt(i);
+                String replacement;
+                switch (ch) {
+                    case '&':  replacement = "&amp;";  break;
+                    case '<':  replacement = "&lt;";   break;
+                    case '>':  replacement = "&gt;";   break;
+                    case '"':  replacement = "&quot;"; break;
+                    case '\n': replacement = "&#10;";  break;
+                    case '\r': replacement = "&#13;";  break;
+                    case '\t': replacement = "&#9;";   break;
+                    default:   replacement = null;
+                }
+
+                if (replacement != null) {
+                    if (buf == null)
+                        buf = new StringBuilder(value.length() + 16).append(value, 0, i);
+                    buf.append(replacement);
+                } else if (buf != null) {
+                    buf.append(ch);
+                }
+            }
+            return buf == null ? value : buf.toString();
+        }
+    }
+}
@@ -95,3 +95,183 @@ $(function(){
     unsync($('#removeImpliedOrphans'), $('.impliedNotOrphan'));
   });
 });
+
+// render the columns page from the data in columns.js (-clientcolumns).
+// only the rows that are scrolled into view are in the document.
+// each row of data.rows is:
+//   [table, column, id, type, size, length, decimal digits, flags,
+//    default, default alias, comments, child tables, parent tables]
+// where flags are 1: primary key, 2: indexed, 4: nullable, 8: auto updated
+function columnGrid(data) {
+  var TABLE = 0, COLUMN = 1, ID = 2, TYPE = 3, SIZE = 4, LENGTH = 5, DIGITS = 6,
+      FLAGS = 7, DEFAULT = 8, ALIAS = 9, COMMENTS = 10, CHILDREN = 11, PARENTS = 12;
+  var CHUNK = 50;     // rows are added/removed this many at a time
+
+  var details = data.details;
+  var rows = data.rows;   // in their current order
+  var shown = rows;       // the ones that pass the filter
+  var body = $('#columnRows');
+  var rowHeight = 0;
+  var first = -1, last = -1;
+
+  // rows are written sorted by column so that's the tie breaker for the other orders
+  for (var i = 0; i < rows.length; ++i)
+    rows[i].ordinal = i;
+
+  function lower(str) {
+    return str == null ? '' : str.toLowerCase();
+  }
+
+  function escape(str) {
+    return String(str).replace(/&/g, '&amp;').replace(/</g, '&lt;').replace(/>/g, '&gt;').replace(/'/g, '&#39;');
+  }
+
+  var sortKeys = {
+    id:       function(row) { var id = Number(row[ID]); return [isNaN(id) ? lower(row[ID]) : id]; },
+    table:    function(row) { return [lower(row[TABLE]), lower(row[COLUMN])]; },
+    column:   function(row) { return []; },
+    type:     function(row) { return [lower(row[TYPE]), row[LENGTH], row[DIGITS]]; },
+    size:     function(row) { return [row[LENGTH], row[DIGITS]]; },
+    nulls:    function(row) { return [row[FLAGS] & 4 ? 0 : 1]; },
+    auto:     function(row) { return [row[FLAGS] & 8 ? 0 : 1]; },
+    'default':function(row) { return [lower(row[DEFAULT] || 'null'), row[FLAGS] & 4 ? 0 : 1]; },
+    children: function(row) { return [lower(row[CHILDREN])]; },
+    parents:  function(row) { return [lower(row[PARENTS])]; }
+  };
+
+  function sortBy(detail) {
+    var keyOf = sortKeys[detail];
+    for (var i = 0; i < rows.length; ++i) {
+      rows[i].key = keyOf(rows[i]);
+      rows[i].key.push(rows[i].ordinal);
+    }
+    rows.sort(function(row1, row2) {
+      var key1 = row1.key, key2 = row2.key;
+      for (var k = 0; k < key1.length; ++k) {
+        if (key1[k] < key2[k])
+          return -1;
+        if (key1[k] > key2[k])
+          return 1;
+      }
+      return 0;
+    });
+
+    $('#columns th[id^=sortBy]').each(function() {
+      var th = $(this);
+      if (th.attr('id').substring(6).toLowerCase() == detail)
+        th.removeClass('notSortedByColumn').addClass('sortedByColumn');
+      else
+        th.removeClass('sortedByColumn').addClass('notSortedByColumn');
+    });
+
+    filter();
+  }
+
+  function filter() {
+    var text = lower($('#columnFilter').val());
+    if (text.length == 0) {
+      shown = rows;
+      $('#columnsShown').text('');
+    } else {
+      shown = [];
+      for (var i = 0; i < rows.length; ++i) {
+        var row = rows[i];
+        if (lower(row[TABLE]).indexOf(text) >= 0 || lower(row[COLUMN]).indexOf(text) >= 0)
+          shown.push(row);
+      }
+      $('#columnsShown').text(' (' + shown.length + ' shown)');
+    }
+
+    first = last = -1;
+    render();
+  }
+
+  function cell(row, detail) {
+    var flags = row[FLAGS];
+    switch (detail) {
+      case 'id':
+        return "<td class='detail' align='right'>" + escape(row[ID]) + "</td>";
+      case 'table':
+        return "<td class='detail'><a href='tables/" + encodeURIComponent(row[TABLE]) + ".html'>" + escape(row[TABLE]) + "</a></td>";
+      case 'column':
+        if (flags & 1)
+          return "<td class='primaryKey' title='Primary Key'>" + escape(row[COLUMN]) + "</td>";
+        if (flags & 2)
+          return "<td class='indexedColumn' title='Indexed'>" + escape(row[COLUMN]) + "</td>";
+        return "<td class='detail'>" + escape(row[COLUMN]) + "</td>";
+      case 'type':
+        return "<td class='detail'>" + escape(row[TYPE]) + "</td>";
+      case 'size':
+        return "<td class='detail' align='right'>" + escape(row[SIZE]) + "</td>";
+      case 'nulls':
+        return flags & 4 ? "<td class='detail' align='center' title='nullable'>&nbsp;&radic;&nbsp;</td>" : "<td class='detail' align='center'></td>";
+      case 'auto':
+        return flags & 8 ? "<td class='detail' align='center' title='Automatically updated by the database'>&nbsp;&radic;&nbsp;</td>" : "<td class='detail' align='center'></td>";
+      case 'default':
+        if (row[ALIAS] != null)
+          return "<td class='detail' align='right' title='" + escape(row[DEFAULT]) + "'><i>" + escape(row[ALIAS]) + "</i></td>";
+        if (row[DEFAULT] != null)
+          return "<td class='detail' align='right'>" + escape(row[DEFAULT]) + "</td>";
+        return "<td class='detail'></td>";
+      case 'children':
+        return "<td class='detail'>" + escape(row[CHILDREN] || '') + "</td>";
+      case 'parents':
+        return "<td class='detail'>" + escape(row[PARENTS] || '') + "</td>";
+      case 'comments':
+        return "<td class='comment detail'>" + (row[COMMENTS] || '') + "</td>";
+    }
+    return "<td class='detail'></td>";
+  }
+
+  function spacer(numRows) {
+    if (numRows <= 0)
+      return '';
+    return "<tr><td colspan='" + details.length + "' style='height: " + (numRows * rowHeight) + "px; padding: 0; border: 0;'></td></tr>";
+  }
+
+  // only (re)render the rows if a different chunk of them has scrolled into view
+  function render() {
+    var height = rowHeight || 20;
+    var top = $(window).scrollTop() - body.offset().top;
+    var from = Math.max(0, Math.floor(top / height / CHUNK) * CHUNK - CHUNK);
+    var to = Math.min(shown.length, Math.ceil((top + $(window).height()) / height / CHUNK) * CHUNK + CHUNK);
+    if (from > to)  // scrolled past the end of what's left after filtering
+      from = Math.max(0, to - CHUNK);
+    if (from == first && to == last)
+      return;
+    first = from;
+    last = to;
+
+    var html = [spacer(from)];
+    for (var i = from; i < to; ++i) {
+      html.push(i % 2 == 0 ? "<tr class='even'>" : "<tr class='odd'>");
+      for (var d = 0; d < details.length; ++d)
+        html.push(cell(shown[i], details[d]));
+      html.push('</tr>');
+    }
+    html.push(spacer(shown.length - to));
+    body.html(html.join(''));
+
+    if (!rowHeight && to > from) {
+      // now that we know how tall a row is the spacers can be sized
+      rowHeight = body.find('tr.even,tr.odd').first().outerHeight() || 20;
+      first = last = -1;
+      render();
+      return;
+    }
+
+    sync($('#showComments'), $('.comment'));
+  }
+
+  $('#columns th[id^=sortBy] a').click(function() {
+    sortBy($(this).parent().attr('id').substring(6).toLowerCase());
+    return false;
+  });
+  $('#columnFilter').keyup(filter);
+  $('#showComments').click(function() {
+    sync($('#showComments'), $('.comment'));
+  });
+  $(window).scroll(render).resize(render);
+
+  render();
+}
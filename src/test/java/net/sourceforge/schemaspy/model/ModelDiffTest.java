@@ -0,0 +1,146 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.sourceforge.net).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.sourceforge.schemaspy.model;
+
+import java.sql.Types;
+import java.util.List;
+import junit.framework.TestCase;
+import net.sourceforge.schemaspy.Config;
+import net.sourceforge.schemaspy.model.ModelDiff.Change;
+import net.sourceforge.schemaspy.model.ModelDiff.ChangeType;
+
+/**
+ * Compares two {@link SampleModel}s after changing one (or both) of them.
+ */
+public class ModelDiffTest extends TestCase {
+    private Database before;
+    private Database after;
+
+    @Override
+    protected void setUp() {
+        Config config = new Config();
+        before = SampleModel.create(config);
+        after = SampleModel.create(config);
+    }
+
+    public void testIdentical() {
+        assertTrue(new ModelDiff(before, after).isEmpty());
+    }
+
+    public void testTables() throws Exception {
+        SampleModel.addTable(before, "RETIRED", null);
+        SampleModel.addTable(after, "SHIPMENTS", null);
+
+        List<Change> changes = new ModelDiff(before, after).getChanges();
+        assertEquals(changes.toString(), 2, changes.size());
+        assertChange(changes.get(0), ChangeType.REMOVED, "table", "RETIRED", "RETIRED");
+        assertChange(changes.get(1), ChangeType.ADDED, "table", "SHIPMENTS", "SHIPMENTS");
+    }
+
+    public void testColumns() {
+        Table orders = after.getTablesByName().get("ORDERS");
+        SampleModel.addColumn(orders, "PLACED", Types.TIMESTAMP, "TIMESTAMP", 26, 0, true, null);
+        orders.getColumn("CUSTOMER_ID").setTypeName("BIGINT");
+
+        ModelDiff diff = new ModelDiff(before, after);
+        assertEquals(1, diff.getNumChanges(ChangeType.ADDED));
+        assertEquals(1, diff.getNumChanges(ChangeType.CHANGED));
+        assertEquals(0, diff.getNumChanges(ChangeType.REMOVED));
+
+        Change changed = find(diff, ChangeType.CHANGED);
+        assertChange(changed, ChangeType.CHANGED, "column", "ORDERS", "CUSTOMER_ID");
+        assertTrue(changed.getBefore(), changed.getBefore().startsWith("INTEGER"));
+        assertTrue(changed.getAfter(), changed.getAfter().startsWith("BIGINT"));
+        assertChange(find(diff, ChangeType.ADDED), ChangeType.ADDED, "column", "ORDERS", "PLACED");
+    }
+
+    /**
+     * An index that's only in one model is added or removed, but one that just
+     * has a different name (and the same definition) isn't reported
+     */
+    public void testIndexes() {
+        addIndex(before, "ORDERS", "ORDERS_TOTAL_IDX", "TOTAL");
+        addIndex(after, "ORDERS", "ORDERS_CUSTOMER_IDX", "CUSTOMER_ID");
+        addIndex(before, "ORDER_ITEMS", "SYS_IDX_10", "ORDER_ID");
+        addIndex(after, "ORDER_ITEMS", "SYS_IDX_42", "ORDER_ID");
+
+        ModelDiff diff = new ModelDiff(before, after);
+        assertEquals(diff.getChanges().toString(), 2, diff.getChanges().size());
+        assertChange(find(diff, ChangeType.ADDED), ChangeType.ADDED, "index", "ORDERS", "ORDERS_CUSTOMER_IDX");
+        assertChange(find(diff, ChangeType.REMOVED), ChangeType.REMOVED, "index", "ORDERS", "ORDERS_TOTAL_IDX");
+    }
+
+    /**
+     * Indexes with the same definition are each paired with at most one renamed index,
+     * so any that are left over are still reported
+     */
+    public void testDuplicateIndexes() {
+        addIndex(before, "ORDER_ITEMS", "SYS_IDX_10", "ORDER_ID");
+        addIndex(before, "ORDER_ITEMS", "SYS_IDX_11", "ORDER_ID");
+        addIndex(after, "ORDER_ITEMS", "SYS_IDX_42", "ORDER_ID");
+        addIndex(before, "ORDERS", "SYS_IDX_20", "TOTAL");
+        addIndex(after, "ORDERS", "SYS_IDX_50", "TOTAL");
+        addIndex(after, "ORDERS", "SYS_IDX_51", "TOTAL");
+
+        ModelDiff diff = new ModelDiff(before, after);
+        assertEquals(diff.getChanges().toString(), 2, diff.getChanges().size());
+        assertChange(find(diff, ChangeType.ADDED), ChangeType.ADDED, "index", "ORDERS", "SYS_IDX_51");
+        assertChange(find(diff, ChangeType.REMOVED), ChangeType.REMOVED, "index", "ORDER_ITEMS", "SYS_IDX_11");
+    }
+
+    /**
+     * Implied relationships are derived from the model rather than part of it
+     */
+    public void testImpliedNotReported() {
+        Table audit = after.getTablesByName().get("AUDIT");
+        new ImpliedForeignKeyConstraint(after.getTablesByName().get("CUSTOMERS").getColumn("ID"), audit.getColumn("ID"));
+
+        assertTrue(new ModelDiff(before, after).isEmpty());
+    }
+
+    public void testCheckConstraints() {
+        after.getTablesByName().get("ORDERS").addCheckConstraint("ORDERS_TOTAL_CK", "(TOTAL > 0)");
+
+        List<Change> changes = new ModelDiff(before, after).getChanges();
+        assertEquals(changes.toString(), 1, changes.size());
+        assertChange(changes.get(0), ChangeType.CHANGED, "check constraint", "ORDERS", "ORDERS_TOTAL_CK");
+    }
+
+    private static void addIndex(Database db, String tableName, String name, String columnName) {
+        Table table = db.getTablesByName().get(tableName);
+        TableIndex index = new TableIndex(name, false);
+        index.addColumn(table.getColumn(columnName), "A");
+        table.addIndex(index);
+    }
+
+    private static Change find(ModelDiff diff, ChangeType type) {
+        for (Change change : diff.getChanges()) {
+            if (change.getType() == type)
+                return change;
+        }
+        fail("No " + type + " in " + diff.getChanges());
+        return null;
+    }
+
+    private static void assertChange(Change change, ChangeType type, String objectType, String table, String name) {
+        assertEquals(change.toString(), type, change.getType());
+        assertEquals(change.toString(), objectType, change.getObjectType());
+        assertEquals(change.toString(), table, change.getTable());
+        assertEquals(change.toString(), name, change.getName());
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.sourceforge.net).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.sourceforge.schemaspy.model;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import junit.framework.TestCase;
+import net.sourceforge.schemaspy.Config;
+
+/**
+ * Writes a {@link SampleModel} with {@link ModelWriter}, reads it back
+ * with {@link ModelReader} and compares the two.
+ */
+public class ModelReaderTest extends TestCase {
+    private Config config;
+    private Database original;
+    private File file;
+
+    @Override
+    protected void setUp() throws IOException {
+        config = new Config();
+        original = SampleModel.create(config);
+        file = File.createTempFile("sample", ".model");
+        new ModelWriter().write(original, file);
+    }
+
+    @Override
+    protected void tearDown() {
+        file.delete();
+        Logger.getLogger(ModelReader.class.getName()).setLevel(null);
+    }
+
+    /**
+     * Don't log every one of the many reads
+     */
+    private static void quiet() {
+        Logger.getLogger(ModelReader.class.getName()).setLevel(Level.WARNING);
+    }
+
+    public void testDatabase() throws IOException {
+        Database restored = new ModelReader().read(config, file);
+
+        assertTrue(restored.isOffline());
+        assertEquals(original.getName(), restored.getName());
+        assertEquals(original.getSchema(), restored.getSchema());
+        assertEquals(original.getDatabaseProduct(), restored.getDatabaseProduct());
+        assertEquals(original.getConnectTime(), restored.getConnectTime());
+        assertEquals(original.getTables().size(), restored.getTables().size());
+        assertEquals(original.getViews().size(), restored.getViews().size());
+        assertEquals(original.getRoutines().size(), restored.getRoutines().size());
+    }
+
+    /**
+     * Everything that {@link ModelDiff} compares (columns, keys, indexes, check
+     * constraints, view SQL and routines) survives the round trip
+     */
+    public void testNoDifferences() throws IOException {
+        Database restored = new ModelReader().read(config, file);
+
+        ModelDiff diff = new ModelDiff(original, restored);
+        assertTrue(diff.getChanges().toString(), diff.isEmpty());
+    }
+
+    /**
+     * ...as do the details that it doesn't compare
+     */
+    public void testDetails() throws IOException {
+        Database restored = new ModelReader().read(config, file);
+
+        for (Table table : original.getTables()) {
+            Table copy = restored.getTablesByName().get(table.getName());
+            assertEquals(table.getComments(), copy.getComments());
+            assertEquals(table.getNumRows(), copy.getNumRows());
+            assertEquals(table.getCheckConstraints(), copy.getCheckConstraints());
+
+            for (TableColumn column : table.getColumns()) {
+                TableColumn copyColumn = copy.getColumn(column.getName());
+                assertEquals(column.getId(), copyColumn.getId());
+                assertEquals(column.getType(), copyColumn.getType());
+                assertEquals(column.getComments(), copyColumn.getComments());
+                assertEquals(column.isExcluded(), copyColumn.isExcluded());
+                assertEquals(column.isAllExcluded(), copyColumn.isAllExcluded());
+                assertEquals(column.allowsImpliedParents(), copyColumn.allowsImpliedParents());
+                assertEquals(names(column.getParents()), names(copyColumn.getParents()));
+                assertEquals(names(column.getChildren()), names(copyColumn.getChildren()));
+            }
+        }
+
+        View view = restored.getViews().iterator().next();
+        assertEquals(original.getViews().iterator().next().getViewSql(), view.getViewSql());
+        assertEquals(restored.getRelationships().getNumEdges(), original.getRelationships().getNumEdges());
+    }
+
+    /**
+     * Implied relationships are only restored when the current run would have implied them
+     */
+    public void testImplied() throws IOException {
+        Database restored = new ModelReader().read(config, file);
+        TableColumn productId = restored.getTablesByName().get("ORDER_ITEMS").getColumn("PRODUCT_ID");
+        assertEquals(1, productId.getParents().size());
+        assertTrue(productId.getParentConstraint(productId.getParents().iterator().next()).isImplied());
+
+        config.setImpliedConstraintsEnabled(false);
+        restored = new ModelReader().read(config, file);
+        productId = restored.getTablesByName().get("ORDER_ITEMS").getColumn("PRODUCT_ID");
+        assertTrue(productId.getParents().isEmpty());
+        assertTrue(restored.getTablesByName().get("PRODUCTS").getColumn("ID").getChildren().isEmpty());
+        assertEquals(1, restored.getTablesByName().get("ORDER_ITEMS").getColumn("ORDER_ID").getParents().size());
+    }
+
+    public void testNotAModel() throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        out.write("<xml/>".getBytes("UTF-8"));
+        out.close();
+
+        try {
+            new ModelReader().read(config, file);
+            fail("Read a model from garbage");
+        } catch (IOException expected) {
+        }
+    }
+
+    public void testTruncated() throws IOException {
+        quiet();
+        byte[] model = readFile();
+        for (int length = 8; length < model.length; length += 7) {
+            writeFile(model, length);
+            try {
+                new ModelReader().read(config, file);
+                fail("Read a model truncated to " + length + " of " + model.length + " bytes");
+            } catch (IOException expected) {
+            }
+        }
+    }
+
+    /**
+     * Damaged models are either read or reported as an <code>IOException</code>,
+     * but they never blow up with anything else
+     */
+    public void testCorrupt() throws IOException {
+        quiet();
+        byte[] model = readFile();
+        int numCorrupt = 0;
+        for (int i = 8; i < model.length; ++i) {
+            byte[] damaged = model.clone();
+            damaged[i] ^= 0xFF;
+            writeFile(damaged, damaged.length);
+            try {
+                new ModelReader().read(config, file);
+            } catch (IOException expected) {
+                ++numCorrupt;
+            }
+        }
+        assertTrue(numCorrupt > 0);
+    }
+
+    private byte[] readFile() throws IOException {
+        byte[] bytes = new byte[(int)file.length()];
+        DataInputStream in = new DataInputStream(new FileInputStream(file));
+        try {
+            in.readFully(bytes);
+        } finally {
+            in.close();
+        }
+        return bytes;
+    }
+
+    private void writeFile(byte[] bytes, int length) throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(bytes, 0, length);
+        } finally {
+            out.close();
+        }
+    }
+
+    private static List<String> names(Iterable<TableColumn> columns) {
+        List<String> names = new ArrayList<String>();
+        for (TableColumn column : columns)
+            names.add(column.getTable().getName() + '.' + column.getName());
+        Collections.sort(names);
+        return names;
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.sourceforge.net).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.sourceforge.schemaspy.model;
+
+import java.util.HashSet;
+import java.util.Set;
+import junit.framework.TestCase;
+import net.sourceforge.schemaspy.Config;
+
+/**
+ * Checks that the compressed adjacency of a {@link RelationshipGraph}
+ * matches the relationships held by the columns themselves.
+ */
+public class RelationshipGraphTest extends TestCase {
+    private Database db;
+    private RelationshipGraph graph;
+
+    @Override
+    protected void setUp() {
+        db = SampleModel.create(new Config());
+        graph = db.getRelationships();
+    }
+
+    /**
+     * Every table and column gets a dense id and columns are grouped by table
+     */
+    public void testIds() {
+        assertEquals(db.getTables().size() + db.getViews().size(), graph.getNumTables());
+
+        int numColumns = 0;
+        for (int t = 0; t < graph.getNumTables(); ++t) {
+            Table table = graph.getTable(t);
+            assertEquals(t, graph.getTableId(table));
+            if (t > 0)
+                assertTrue(graph.getTable(t - 1).compareTo(table) < 0);
+
+            assertEquals(numColumns, graph.firstColumn(t));
+            assertEquals(table.getColumns().size(), graph.endColumn(t) - graph.firstColumn(t));
+            for (int c = graph.firstColumn(t); c < graph.endColumn(t); ++c) {
+                assertEquals(t, graph.getTableIdOf(c));
+                assertSame(table, graph.getColumn(c).getTable());
+                assertEquals(c, graph.getColumnId(graph.getColumn(c)));
+            }
+            numColumns += table.getColumns().size();
+        }
+        assertEquals(numColumns, graph.getNumColumns());
+    }
+
+    /**
+     * Things that aren't part of the graph are reported as such
+     */
+    public void testUnknown() throws Exception {
+        Table stranger = new Table(db, null, SampleModel.SCHEMA, "STRANGER", null);
+        assertEquals(-1, graph.getTableId(stranger));
+        assertEquals(-1, graph.getColumnId(new TableColumn(stranger, "ID", Integer.valueOf(0), "INTEGER", null, 10, 0, false, null)));
+    }
+
+    /**
+     * The edges of each column are exactly its parents and children, in ascending order
+     */
+    public void testEdges() {
+        int numEdges = 0;
+        for (int c = 0; c < graph.getNumColumns(); ++c) {
+            TableColumn column = graph.getColumn(c);
+
+            Set<TableColumn> parents = new HashSet<TableColumn>();
+            for (int edge = graph.firstParentEdge(c); edge < graph.endParentEdge(c); ++edge) {
+                if (edge > graph.firstParentEdge(c))
+                    assertTrue(graph.getParent(edge - 1) < graph.getParent(edge));
+                TableColumn parent = graph.getColumn(graph.getParent(edge));
+                parents.add(parent);
+                assertEquals(column.getParentConstraint(parent).isImplied(), graph.isParentImplied(edge));
+            }
+            assertEquals(column.getParents(), parents);
+
+            Set<TableColumn> children = new HashSet<TableColumn>();
+            for (int edge = graph.firstChildEdge(c); edge < graph.endChildEdge(c); ++edge) {
+                if (edge > graph.firstChildEdge(c))
+                    assertTrue(graph.getChild(edge - 1) < graph.getChild(edge));
+                TableColumn child = graph.getColumn(graph.getChild(edge));
+                children.add(child);
+                assertEquals(column.getChildConstraint(child).isImplied(), graph.isChildImplied(edge));
+            }
+            assertEquals(column.getChildren(), children);
+
+            numEdges += parents.size();
+        }
+        assertEquals(3, numEdges);
+        assertEquals(numEdges, graph.getNumEdges());
+    }
+
+    /**
+     * Implied relationships are flagged and only counted when asked for
+     */
+    public void testImplied() {
+        TableColumn productId = db.getTablesByName().get("ORDER_ITEMS").getColumn("PRODUCT_ID");
+        int c = graph.getColumnId(productId);
+        assertEquals(1, graph.endParentEdge(c) - graph.firstParentEdge(c));
+        assertTrue(graph.isParentImplied(graph.firstParentEdge(c)));
+
+        TableColumn orderId = db.getTablesByName().get("ORDER_ITEMS").getColumn("ORDER_ID");
+        c = graph.getColumnId(orderId);
+        assertFalse(graph.isParentImplied(graph.firstParentEdge(c)));
+
+        int items = graph.getTableId(orderId.getTable());
+        assertEquals(2, graph.getNumParents(items, true));
+        assertEquals(1, graph.getNumParents(items, false));
+
+        int products = graph.getTableId(db.getTablesByName().get("PRODUCTS"));
+        assertEquals(1, graph.getNumChildren(products, true));
+        assertEquals(0, graph.getNumChildren(products, false));
+        assertFalse(graph.isOrphan(products, true));
+        assertTrue(graph.isOrphan(products, false));
+    }
+
+    /**
+     * Excluded columns are flagged and tables without relationships are orphans
+     */
+    public void testExcludedAndOrphans() {
+        Table audit = db.getTablesByName().get("AUDIT");
+        int t = graph.getTableId(audit);
+        assertTrue(graph.isOrphan(t, true));
+
+        int note = graph.getColumnId(audit.getColumn("NOTE"));
+        assertTrue(graph.isExcluded(note));
+        assertFalse(graph.isAllExcluded(note));
+        assertFalse(graph.isExcluded(graph.getColumnId(audit.getColumn("ID"))));
+    }
+
+    /**
+     * The graph is a snapshot, so relationships added later only show up once it's refreshed
+     */
+    public void testSnapshot() {
+        Table audit = db.getTablesByName().get("AUDIT");
+        TableColumn customer = db.getTablesByName().get("CUSTOMERS").getColumn("ID");
+        new ImpliedForeignKeyConstraint(customer, audit.getColumn("ID"));
+
+        assertTrue(graph.isOrphan(graph.getTableId(audit), true));
+        RelationshipGraph refreshed = db.refreshRelationships();
+        assertFalse(refreshed.isOrphan(refreshed.getTableId(audit), true));
+        assertEquals(graph.getNumEdges() + 1, refreshed.getNumEdges());
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.sourceforge.net).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.sourceforge.schemaspy.model;
+
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import net.sourceforge.schemaspy.Config;
+
+/**
+ * A small, hand-built offline model for tests:
+ * <pre>
+ *   CUSTOMERS &lt;- ORDERS &lt;- ORDER_ITEMS -&gt; PRODUCTS (implied)
+ *   AUDIT (no relationships, its NOTE column excluded from diagrams)
+ * </pre>
+ * plus a view (<code>ORDER_TOTALS</code>) of <code>ORDERS</code>
+ * and a routine (<code>ORDER_COUNT</code>).
+ */
+public class SampleModel {
+    public static final String SCHEMA = "SAMPLE";
+
+    /**
+     * Don't allow instantiation
+     */
+    private SampleModel() {
+    }
+
+    public static Database create(Config config) {
+        Database db = new Database(config, "sample", null, SCHEMA, "Sample model", "2011-01-01", new String[0]);
+
+        try {
+            Table customers = addTable(db, "CUSTOMERS", "Who buys things");
+            addColumn(customers, "NAME", Types.VARCHAR, "VARCHAR", 40, 0, false, null)
+                .setComments("Customer's \"full\" name");
+
+            Table orders = addTable(db, "ORDERS", null);
+            TableColumn customerId = addColumn(orders, "CUSTOMER_ID", Types.INTEGER, "INTEGER", 10, 0, false, null);
+            addColumn(orders, "TOTAL", Types.DECIMAL, "DECIMAL", 12, 2, true, "0");
+            orders.addCheckConstraint("ORDERS_TOTAL_CK", "(TOTAL >= 0)");
+            addForeignKey(customers.getColumn("ID"), customerId, "ORDERS_CUSTOMER_FK");
+
+            Table items = addTable(db, "ORDER_ITEMS", null);
+            TableColumn orderId = addColumn(items, "ORDER_ID", Types.INTEGER, "INTEGER", 10, 0, false, null);
+            TableColumn productId = addColumn(items, "PRODUCT_ID", Types.INTEGER, "INTEGER", 10, 0, false, null);
+            addForeignKey(orders.getColumn("ID"), orderId, "ORDER_ITEMS_ORDER_FK");
+
+            Table products = addTable(db, "PRODUCTS", null);
+            addColumn(products, "DESCRIPTION", Types.VARCHAR, "VARCHAR", 200, 0, true, null);
+            // like DbAnalyzer's, implied constraints only glue the columns together
+            new ImpliedForeignKeyConstraint(products.getColumn("ID"), productId);
+
+            Table audit = addTable(db, "AUDIT", "Things that happened");
+            TableColumn note = addColumn(audit, "NOTE", Types.VARCHAR, "VARCHAR", 4000, 0, true, null);
+            note.setRelationshipOptions(true, true, true, false);
+
+            View totals = new View(db, null, SCHEMA, "ORDER_TOTALS", "Totals by customer",
+                                    "select customer_id, sum(total) as total\n  from orders\n  group by customer_id");
+            totals.addColumn(new TableColumn(totals, "CUSTOMER_ID", Integer.valueOf(0), "INTEGER", Integer.valueOf(Types.INTEGER),
+                                                10, 0, false, null));
+            totals.addColumn(new TableColumn(totals, "TOTAL", Integer.valueOf(1), "DECIMAL", Integer.valueOf(Types.DECIMAL),
+                                                12, 2, true, null));
+            totals.setNumRows(-1);
+            db.addRestoredTable(totals);
+
+            Routine count = new Routine("ORDER_COUNT", "FUNCTION", "INTEGER", "SQL",
+                                        "select count(*) from orders where customer_id = id", true, "READS SQL DATA", "DEFINER", null);
+            count.addParameter(new RoutineParameter("ID", "INTEGER", "IN"));
+            db.addRestoredRoutine(count);
+        } catch (SQLException exc) {
+            // offline tables don't query anything
+            throw new IllegalStateException(exc);
+        }
+
+        db.refreshRelationships();
+        return db;
+    }
+
+    static Table addTable(Database db, String name, String comments) throws SQLException {
+        Table table = new Table(db, null, SCHEMA, name, comments);
+        table.setNumRows(name.length() * 100);  // restored, so never queried
+        TableColumn id = addColumn(table, "ID", Types.INTEGER, "INTEGER", 10, 0, false, null);
+        id.setIsAutoUpdated(true);
+        table.setPrimaryColumn(id);
+
+        TableIndex index = new TableIndex(name + "_PK", true);
+        index.setIsPrimaryKey(true);
+        index.addColumn(id, "A");
+        table.addIndex(index);
+
+        db.addRestoredTable(table);
+        return table;
+    }
+
+    static TableColumn addColumn(Table table, String name, int type, String typeName,
+                                        int length, int decimalDigits, boolean isNullable, String defaultValue) {
+        TableColumn column = new TableColumn(table, name, Integer.valueOf(table.getColumns().size()), typeName, Integer.valueOf(type),
+                                                length, decimalDigits, isNullable, defaultValue);
+        table.addColumn(column);
+        return column;
+    }
+
+    static void addForeignKey(TableColumn parent, TableColumn child, String name) {
+        ForeignKeyConstraint constraint = new ForeignKeyConstraint(child.getTable(), name,
+                                            DatabaseMetaData.importedKeyNoAction, DatabaseMetaData.importedKeyCascade);
+        constraint.addChildColumn(child);
+        constraint.addParentColumn(parent);
+        child.addParent(parent, constraint);
+        parent.addChild(child, constraint);
+        child.getTable().addForeignKey(constraint);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.sourceforge.net).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.sourceforge.schemaspy.util;
+
+import java.io.StringWriter;
+import junit.framework.TestCase;
+
+/**
+ * Tests the separators and escaping written by {@link JsonWriter}.
+ */
+public class JsonWriterTest extends TestCase {
+    private StringWriter out;
+    private JsonWriter json;
+
+    @Override
+    protected void setUp() {
+        out = new StringWriter();
+        json = new JsonWriter(out);
+    }
+
+    public void testSeparators() throws Exception {
+        json.beginObject();
+        json.property("name", "orders");
+        json.property("missing", (String)null);
+        json.property("rows", 42);
+        json.property("view", false);
+        json.name("columns").beginArray();
+        json.beginObject().property("name", "id").endObject();
+        json.beginObject().property("name", "total").endObject();
+        json.endArray();
+        json.name("empty").beginArray().endArray();
+        json.name("comments").value((String)null);
+        json.endObject();
+
+        assertEquals("{\"name\":\"orders\",\"rows\":42,\"view\":false,"
+                        + "\"columns\":[{\"name\":\"id\"},{\"name\":\"total\"}],"
+                        + "\"empty\":[],\"comments\":null}", out.toString());
+    }
+
+    public void testEscaping() throws Exception {
+        json.value("say \"hi\"\\ to\r\n\tC:\\temp");
+        assertEquals("\"say \\\"hi\\\"\\\\ to\\r\\n\\tC:\\\\temp\"", out.toString());
+    }
+
+    /**
+     * Other control characters and the JavaScript line terminators are written as unicode escapes
+     */
+    public void testUnicodeEscapes() throws Exception {
+        json.value("a\u0000b\u001fc\u2028d\u2029e\u00e9");
+        assertEquals("\"a\\u0000b\\u001fc\\u2028d\\u2029e\u00e9\"", out.toString());
+    }
+
+    public void testNumbers() throws Exception {
+        json.beginArray().value(1.5).value(Double.NaN).value(Double.POSITIVE_INFINITY).value(-7L).endArray();
+        assertEquals("[1.5,null,null,-7]", out.toString());
+    }
+
+    /**
+     * Nesting deeper than the writer initially allows for
+     */
+    public void testDeepNesting() throws Exception {
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 40; ++i) {
+            json.beginArray().value(i);
+            expected.append('[').append(i).append(',');
+        }
+        json.value(true);
+        expected.append("true");
+        for (int i = 0; i < 40; ++i) {
+            json.endArray();
+            expected.append(']');
+        }
+
+        assertEquals(expected.toString(), out.toString());
+    }
+}
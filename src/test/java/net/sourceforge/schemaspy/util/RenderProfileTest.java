@@ -0,0 +1,64 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.sourceforge.net).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.sourceforge.schemaspy.util;
+
+import java.io.File;
+import java.util.List;
+import junit.framework.TestCase;
+
+/**
+ * Checks the totals and slowest renders kept by a {@link RenderProfile}.
+ */
+public class RenderProfileTest extends TestCase {
+    private final File dotFile = new File("missing.dot");
+    private final File diagramFile = new File("missing.png");
+
+    public void testSlowest() {
+        RenderProfile profile = RenderProfile.start(2);
+        assertSame(profile, RenderProfile.getInstance());
+
+        profile.rendered(dotFile, diagramFile, 30, 0, false);
+        profile.rendered(dotFile, diagramFile, 10, 0, false);
+        profile.rendered(dotFile, diagramFile, 50, -1, true);
+        profile.rendered(dotFile, diagramFile, 20, 1, false);
+
+        assertEquals(4, profile.getNumRenders());
+        assertEquals(110, profile.getTotalMillis());
+        assertEquals(1, profile.getNumTimedOut());
+        assertEquals(1, profile.getNumFailed());
+
+        List<RenderProfile.Render> slowest = profile.getSlowest();
+        assertEquals(2, slowest.size());
+        assertEquals(50, slowest.get(0).getMillis());
+        assertTrue(slowest.get(0).isTimedOut());
+        assertEquals(30, slowest.get(1).getMillis());
+    }
+
+    /**
+     * Each run starts from scratch with its own number of slow renders
+     */
+    public void testStart() {
+        RenderProfile.start(5).rendered(dotFile, diagramFile, 10, 0, false);
+
+        RenderProfile profile = RenderProfile.start(0);
+        assertEquals(0, profile.getNumRenders());
+        profile.rendered(dotFile, diagramFile, 10, 0, false);
+        assertEquals(1, profile.getNumRenders());
+        assertTrue(profile.getSlowest().isEmpty());
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.sourceforge.net).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.sourceforge.schemaspy.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import junit.framework.TestCase;
+
+/**
+ * Checks that a {@link WorkerPool} runs every task and reports the first failure.
+ */
+public class WorkerPoolTest extends TestCase {
+    private static final int NUM_TASKS = 100;
+    private final AtomicInteger numRun = new AtomicInteger();
+
+    public void testAllRun() throws IOException {
+        new WorkerPool("test", 4).run(createTasks(-1, null));
+        assertEquals(NUM_TASKS, numRun.get());
+    }
+
+    public void testSingleThreaded() throws IOException {
+        new WorkerPool("test", 1).run(createTasks(-1, null));
+        assertEquals(NUM_TASKS, numRun.get());
+    }
+
+    /**
+     * The first failure is rethrown and the tasks that hadn't started yet are never run
+     */
+    public void testFailure() {
+        IOException failure = new IOException("test");
+        try {
+            new WorkerPool("test", 2).run(createTasks(0, failure));
+            fail("Failure wasn't rethrown");
+        } catch (IOException exc) {
+            assertSame(failure, exc);
+        }
+        assertTrue(String.valueOf(numRun.get()), numRun.get() < NUM_TASKS);
+    }
+
+    public void testRuntimeFailure() throws IOException {
+        final IllegalStateException failure = new IllegalStateException("test");
+        List<WorkerPool.Task> tasks = new ArrayList<WorkerPool.Task>();
+        tasks.addAll(createTasks(-1, null));
+        tasks.add(new WorkerPool.Task() {
+            public void run() {
+                throw failure;
+            }
+        });
+
+        try {
+            new WorkerPool("test", 3).run(tasks);
+            fail("Failure wasn't rethrown");
+        } catch (IllegalStateException exc) {
+            assertSame(failure, exc);
+        }
+    }
+
+    /**
+     * An interrupted caller still waits for the tasks, but its interrupt isn't lost
+     */
+    public void testInterrupted() throws IOException {
+        Thread.currentThread().interrupt();
+        try {
+            new WorkerPool("test", 4).run(createTasks(-1, null));
+            assertEquals(NUM_TASKS, numRun.get());
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    private List<WorkerPool.Task> createTasks(final int failingTask, final IOException failure) {
+        List<WorkerPool.Task> tasks = new ArrayList<WorkerPool.Task>();
+        for (int i = 0; i < NUM_TASKS; ++i) {
+            final int taskId = i;
+            tasks.add(new WorkerPool.Task() {
+                public void run() throws IOException {
+                    if (taskId == failingTask)
+                        throw failure;
+                    try {
+                        Thread.sleep(1);
+                    } catch (InterruptedException exc) {
+                        Thread.currentThread().interrupt();
+                    }
+                    numRun.incrementAndGet();
+                }
+            });
+        }
+        return tasks;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.sourceforge.net).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.sourceforge.schemaspy.view;
+
+import java.util.Map;
+import junit.framework.TestCase;
+import net.sourceforge.schemaspy.Config;
+import net.sourceforge.schemaspy.model.Database;
+import net.sourceforge.schemaspy.model.SampleModel;
+import net.sourceforge.schemaspy.model.Table;
+
+/**
+ * Checks that {@link DefaultSqlFormatter#getTable(String, Database)} recognizes
+ * the same references to tables/views as {@link DefaultSqlFormatter#getTableMap(Database)}.
+ */
+public class DefaultSqlFormatterTest extends TestCase {
+    private DefaultSqlFormatter formatter;
+    private Database db;
+
+    @Override
+    protected void setUp() {
+        formatter = new DefaultSqlFormatter();
+        db = SampleModel.create(new Config());
+    }
+
+    public void testEveryMappedName() {
+        Map<String, Table> tableMap = formatter.getTableMap(db);
+        assertFalse(tableMap.isEmpty());
+
+        for (Map.Entry<String, Table> entry : tableMap.entrySet()) {
+            String token = entry.getKey();
+            assertSame(token, entry.getValue(), formatter.getTable(token, db));
+            assertSame(token, entry.getValue(), formatter.getTable(token.toLowerCase(), db));
+        }
+    }
+
+    public void testViews() {
+        Table view = db.getViews().iterator().next();
+        assertSame(view, formatter.getTable("\"SAMPLE\".\"ORDER_TOTALS\"", db));
+    }
+
+    public void testNotTables() {
+        assertNull(formatter.getTable("CUSTOMER_ID", db));
+        assertNull(formatter.getTable("OTHER.ORDERS", db));
+        assertNull(formatter.getTable("`ORDERS", db));
+        assertNull(formatter.getTable("\"ORDERS'", db));
+        assertNull(formatter.getTable("`SAMPLE`.\"ORDERS\"", db));
+        assertNull(formatter.getTable("\"\"", db));
+    }
+}
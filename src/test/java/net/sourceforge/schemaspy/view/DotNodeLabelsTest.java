@@ -0,0 +1,96 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.sourceforge.net).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.sourceforge.schemaspy.view;
+
+import junit.framework.TestCase;
+import net.sourceforge.schemaspy.Config;
+import net.sourceforge.schemaspy.model.Database;
+import net.sourceforge.schemaspy.model.SampleModel;
+import net.sourceforge.schemaspy.model.Table;
+
+/**
+ * Checks that cached node labels are reused only for identical renderings
+ * and that they match what the nodes render themselves.
+ */
+public class DotNodeLabelsTest extends TestCase {
+    private RenderContext context;
+    private Database db;
+    private Table orders;
+
+    @Override
+    protected void setUp() {
+        Config config = new Config();
+        Config.setInstance(config);
+        db = SampleModel.create(config);
+        context = new RenderContext(config, db);
+        orders = db.getTablesByName().get("ORDERS");
+    }
+
+    public void testReused() throws Exception {
+        DotNodeLabels labels = new DotNodeLabels(db.getRelationships());
+
+        DotNode node = new DotNode(context, orders, "");
+        String expected = node.toString();
+        assertEquals(expected, write(labels, node));
+        assertEquals(expected, write(labels, new DotNode(context, orders, "")));
+        assertEquals(1, labels.size());
+    }
+
+    /**
+     * Each way of rendering a table (and each path to it) is cached separately
+     */
+    public void testVariants() throws Exception {
+        DotNodeLabels labels = new DotNodeLabels(db.getRelationships());
+
+        DotNode full = new DotNode(context, orders, "");
+        DotNode brief = new DotNode(context, orders, false, "");
+        DotNode elsewhere = new DotNode(context, orders, "../");
+        DotNode excluding = new DotNode(context, orders, "");
+        excluding.excludeColumn(orders.getColumn("TOTAL"));
+
+        assertEquals(full.toString(), write(labels, full));
+        assertEquals(brief.toString(), write(labels, brief));
+        assertEquals(elsewhere.toString(), write(labels, elsewhere));
+        assertEquals(excluding.toString(), write(labels, excluding));
+        assertEquals(4, labels.size());
+        assertFalse(full.toString().equals(brief.toString()));
+    }
+
+    public void testNotCaching() throws Exception {
+        DotNodeLabels labels = new DotNodeLabels(db.getRelationships(), false);
+
+        DotNode node = new DotNode(context, orders, "");
+        assertEquals(node.toString(), write(labels, node));
+        assertEquals(0, labels.size());
+    }
+
+    /**
+     * A context only hands out a cache for the snapshot of relationships it was created for
+     */
+    public void testContextLabels() {
+        DotNodeLabels labels = context.getLabels(db.getRelationships());
+        assertSame(labels, context.getLabels(db.getRelationships()));
+        assertNotSame(labels, context.getLabels(db.refreshRelationships()));
+    }
+
+    private static String write(DotNodeLabels labels, DotNode node) throws Exception {
+        StringBuilder out = new StringBuilder();
+        labels.write(node, out);
+        return out.toString();
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.sourceforge.net).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.sourceforge.schemaspy.view;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import junit.framework.TestCase;
+import net.sourceforge.schemaspy.Config;
+import net.sourceforge.schemaspy.Main;
+import net.sourceforge.schemaspy.model.ModelWriter;
+import net.sourceforge.schemaspy.model.SampleModel;
+
+/**
+ * Renders a {@link SampleModel} with a stand-in for dot that never finishes
+ * laying out the detailed diagrams of ORDERS.
+ * <p>
+ * {@link net.sourceforge.schemaspy.util.Dot} is a singleton that finds dot
+ * when it's first used, so the model is rendered by a separate JVM that's
+ * pointed at the stand-in with <code>-gv</code>.
+ * </p>
+ */
+public class HtmlTableDiagrammerTest extends TestCase {
+    private static final String SLOW_DOT =
+        "#!/bin/sh\n" +
+        "for arg in \"$@\"; do\n" +
+        "  case \"$arg\" in\n" +
+        "    -V) echo 'dot - graphviz version 2.26.3 (20100126.1600)' >&2; exit 0;;\n" +
+        "    -o*) out=\"${arg#-o}\";;\n" +
+        "    *.dot) dot=\"$arg\";;\n" +
+        "  esac\n" +
+        "done\n" +
+        "case \"$dot\" in\n" +
+        "  */ORDERS.*) grep -q '\\.type\"' \"$dot\" && exec sleep 60;;\n" +
+        "esac\n" +
+        "echo > \"$out\"\n" +
+        "echo '<map id=\"diagram\" name=\"diagram\"></map>'\n";
+
+    private File dir;
+    private File outputDir;
+
+    @Override
+    protected void setUp() throws IOException {
+        dir = Files.createTempDirectory("schemaSpyDiagrammer").toFile();
+        outputDir = new File(dir, "output");
+    }
+
+    @Override
+    protected void tearDown() {
+        delete(dir);
+    }
+
+    /**
+     * A one degree diagram that times out is redrawn with just table names
+     * rather than leaving the page without a diagram
+     */
+    public void testOneDegreeTimeout() throws Exception {
+        if (File.separatorChar != '/')
+            return; // the stand-in is a shell script
+
+        File dot = new File(dir, "graphviz/bin/dot");
+        dot.getParentFile().mkdirs();
+        write(SLOW_DOT, dot);
+        assertTrue(dot.setExecutable(true));
+
+        File model = new File(dir, "sample.model");
+        new ModelWriter().write(SampleModel.create(new Config()), model);
+
+        assertEquals(0, render(model, dot.getParentFile().getParentFile()));
+
+        File diagrams = new File(outputDir, "diagrams");
+        assertTrue(new File(diagrams, "ORDERS.1degree.png").exists());
+        String oneDegree = read(new File(diagrams, "ORDERS.1degree.dot"));
+        assertFalse(oneDegree, oneDegree.contains(".type\""));
+        assertTrue(oneDegree, oneDegree.contains("\"CUSTOMERS\""));
+        assertFalse(new File(diagrams, "ORDERS.2degrees.png").exists());
+
+        String page = read(new File(outputDir, "tables/ORDERS.html"));
+        assertTrue(page.contains("id='oneDegreeImg'"));
+        assertFalse(page.contains("id='twoDegreesImg'"));
+
+        // tables that dot copes with keep their detailed diagrams
+        String customers = read(new File(diagrams, "CUSTOMERS.1degree.dot"));
+        assertTrue(customers.contains(".type\""));
+    }
+
+    private int render(File model, File graphvizDir) throws Exception {
+        String java = new File(new File(System.getProperty("java.home"), "bin"), "java").toString();
+        ProcessBuilder builder = new ProcessBuilder(java,
+                "-cp", System.getProperty("java.class.path"),
+                Main.class.getName(),
+                "-fromModel", model.toString(),
+                "-o", outputDir.toString(),
+                "-gv", graphvizDir.toString(),
+                "-renderTimeout", "1");
+        builder.redirectErrorStream(true);
+        builder.redirectOutput(new File(dir, "output.log"));
+        Process process = builder.start();
+        if (!process.waitFor(2, TimeUnit.MINUTES)) {
+            process.destroy();
+            fail("Rendering didn't finish: " + read(new File(dir, "output.log")));
+        }
+        return process.exitValue();
+    }
+
+    private static void write(String text, File file) throws IOException {
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(text.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), "UTF-8");
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children)
+                delete(child);
+        }
+        file.delete();
+    }
+}
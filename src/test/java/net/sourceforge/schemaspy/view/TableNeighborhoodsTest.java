@@ -0,0 +1,85 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.sourceforge.net).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.sourceforge.schemaspy.view;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import junit.framework.TestCase;
+import net.sourceforge.schemaspy.Config;
+import net.sourceforge.schemaspy.model.Database;
+import net.sourceforge.schemaspy.model.ForeignKeyConstraint;
+import net.sourceforge.schemaspy.model.SampleModel;
+import net.sourceforge.schemaspy.model.Table;
+
+/**
+ * Checks the precomputed immediate relatives of the tables in a {@link SampleModel}.
+ */
+public class TableNeighborhoodsTest extends TestCase {
+    private Database db;
+    private Map<String, Table> tables;
+    private TableNeighborhoods neighborhoods;
+
+    @Override
+    protected void setUp() {
+        db = SampleModel.create(new Config());
+        tables = db.getTablesByName();
+        neighborhoods = new TableNeighborhoods(db.getRelationships(), 4);
+    }
+
+    public void testRealRelatives() {
+        assertEquals(tables("CUSTOMERS", "ORDER_ITEMS"), neighborhoods.getImmediateRelatives(tables.get("ORDERS"), false, false));
+        assertEquals(tables("ORDERS"), neighborhoods.getImmediateRelatives(tables.get("ORDER_ITEMS"), false, false));
+        assertTrue(neighborhoods.getImmediateRelatives(tables.get("PRODUCTS"), false, false).isEmpty());
+        assertTrue(neighborhoods.getImmediateRelatives(tables.get("AUDIT"), true, true).isEmpty());
+    }
+
+    /**
+     * Implied relationships are only included when asked for, otherwise they're reported as skipped
+     */
+    public void testImpliedRelatives() {
+        Table items = tables.get("ORDER_ITEMS");
+        assertEquals(tables("ORDERS", "PRODUCTS"), neighborhoods.getImmediateRelatives(items, false, true));
+        assertEquals(tables("ORDER_ITEMS"), neighborhoods.getImmediateRelatives(tables.get("PRODUCTS"), false, true));
+
+        Collection<ForeignKeyConstraint> skipped = neighborhoods.getSkippedImpliedConstraints(items, false);
+        assertEquals(1, skipped.size());
+        ForeignKeyConstraint implied = skipped.iterator().next();
+        assertTrue(implied.isImplied());
+        assertSame(tables.get("PRODUCTS"), implied.getParentTable());
+        assertTrue(neighborhoods.getSkippedImpliedConstraints(tables.get("ORDERS"), true).isEmpty());
+    }
+
+    /**
+     * Tables that weren't around when the graph was built don't have any relatives
+     */
+    public void testUnknownTable() throws Exception {
+        Table stranger = new Table(db, null, SampleModel.SCHEMA, "STRANGER", null);
+        assertTrue(neighborhoods.getImmediateRelatives(stranger, true, true).isEmpty());
+        assertTrue(neighborhoods.getSkippedImpliedConstraints(stranger, true).isEmpty());
+    }
+
+    private Set<Table> tables(String... names) {
+        Set<Table> related = new HashSet<Table>();
+        for (String name : Arrays.asList(names))
+            related.add(tables.get(name));
+        return related;
+    }
+}
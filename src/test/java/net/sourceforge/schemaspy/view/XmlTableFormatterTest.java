@@ -0,0 +1,99 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.sourceforge.net).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.sourceforge.schemaspy.view;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.parsers.DocumentBuilderFactory;
+import junit.framework.TestCase;
+import net.sourceforge.schemaspy.Config;
+import net.sourceforge.schemaspy.model.Database;
+import net.sourceforge.schemaspy.model.SampleModel;
+import net.sourceforge.schemaspy.model.Table;
+import net.sourceforge.schemaspy.util.LineWriter;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * Parses what {@link XmlTableFormatter} writes to make sure that
+ * attribute values come back exactly as they went in.
+ */
+public class XmlTableFormatterTest extends TestCase {
+    private Database db;
+
+    @Override
+    protected void setUp() {
+        db = SampleModel.create(new Config());
+    }
+
+    public void testMultiLineRemarks() throws Exception {
+        String remarks = "Who buys things:\r\n\tpeople & \"companies\"\n<b>not</b> suppliers";
+        db.getTablesByName().get("CUSTOMERS").setComments(remarks);
+
+        assertEquals(remarks, getTable(write(), "CUSTOMERS").getAttribute("remarks"));
+    }
+
+    public void testMultiLineViewSql() throws Exception {
+        Table view = db.getViews().iterator().next();
+        Element element = getTable(write(), view.getName());
+
+        assertEquals(view.getViewSql(), element.getAttribute("viewSql"));
+        assertEquals("VIEW", element.getAttribute("type"));
+    }
+
+    public void testColumns() throws Exception {
+        Element orders = getTable(write(), "ORDERS");
+        List<Element> columns = new ArrayList<Element>();
+        for (Node node = orders.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node.getNodeName().equals("column"))
+                columns.add((Element)node);
+        }
+        assertEquals(3, columns.size());
+        Element total = columns.get(2);
+        assertEquals("TOTAL", total.getAttribute("name"));
+        assertEquals("0", total.getAttribute("defaultValue"));
+        assertEquals(1, orders.getElementsByTagName("checkConstraint").getLength());
+    }
+
+    private Document write() throws Exception {
+        List<Table> tables = new ArrayList<Table>(db.getTables());
+        tables.addAll(db.getViews());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        LineWriter out = new LineWriter(bytes, "UTF-8");
+        XmlTableFormatter.getInstance().write(db.getName(), db.getSchema(), db.getDatabaseProduct(), tables, out);
+        out.close();
+
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+
+    private static Element getTable(Document document, String name) {
+        NodeList tables = document.getElementsByTagName("table");
+        for (int i = 0; i < tables.getLength(); ++i) {
+            Element table = (Element)tables.item(i);
+            if (name.equals(table.getAttribute("name")))
+                return table;
+        }
+        fail("No table named " + name);
+        return null;
+    }
+}